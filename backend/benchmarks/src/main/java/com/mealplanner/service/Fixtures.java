@@ -0,0 +1,208 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.CatalogUnit;
+import com.mealplanner.model.Effort;
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.model.Meal;
+import com.mealplanner.model.MealPlan;
+import com.mealplanner.model.MealPlanEntry;
+import com.mealplanner.model.MealRating;
+import com.mealplanner.model.MealType;
+import com.mealplanner.model.Person;
+
+import java.lang.reflect.Proxy;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Synthetic data for the benchmarks. Everything is generated from a fixed seed, so every run of a
+ * benchmark at a given size works on exactly the same data.
+ */
+final class Fixtures {
+
+    /** A Saturday, the first day of a planner week. */
+    static final LocalDate WEEK_START = LocalDate.of(2026, 2, 14);
+
+    static final DayOfWeek[] DAYS = {DayOfWeek.SATURDAY, DayOfWeek.SUNDAY, DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY};
+
+    /**
+     * Ingredient names as people type them: plurals, odd capitalisation and stray spaces, so
+     * that normalisation has real work to do and most names merge with another spelling.
+     */
+    private static final String[] INGREDIENTS = {
+            "Tomatoes", "tomato", "Onions", "onion ", "Potatoes", "Cloves of garlic", "Carrots", "carrot",
+            "Peppers", "Eggs", "egg", "Chicken breasts", "Mushrooms", "Leaves of basil", "Cherries",
+            "Radishes", "Boxes of eggs", "Rice", "Pasta", "Cheese", "Butter", "Milk", "Flour", "Lentils",
+            "Chickpeas", "Berries", "Knives", "Loaves", "Asparagus", "Couscous", "Spinach", "Lemons"
+    };
+
+    private static final String[] UNITS = {"g", "kg", "ml", "l", "tbsp", "tsp", "cups", "", null};
+
+    /** Catalog IDs by normalised name, as the ingredient catalog would give them out. */
+    private static final Map<String, Long> INGREDIENT_IDS = new HashMap<>();
+    private static final Map<String, Long> UNIT_IDS = new HashMap<>();
+
+    private Fixtures() {
+    }
+
+    /**
+     * Sets the ingredient's catalog IDs, as saving its meal would.
+     */
+    static synchronized void catalog(Ingredient ingredient) {
+        ingredient.setIngredientId(INGREDIENT_IDS.computeIfAbsent(Ingredient.normalize(ingredient.getName()),
+                name -> (long) INGREDIENT_IDS.size() + 1));
+        ingredient.setUnitId(UNIT_IDS.computeIfAbsent(Ingredient.normalize(ingredient.getUnit()),
+                name -> (long) UNIT_IDS.size() + 1));
+    }
+
+    /**
+     * A meal with the given number of ingredients.
+     */
+    static Meal meal(long id, int ingredients, Random random) {
+        Meal meal = new Meal();
+        meal.setId(id);
+        meal.setTitle("Meal " + id);
+        meal.setDescription("A synthetic meal for benchmarking, with a description of typical length.");
+        meal.setPrepTimeMinutes(10 + random.nextInt(20));
+        meal.setCookTimeMinutes(15 + random.nextInt(45));
+        meal.setEffort(Effort.values()[random.nextInt(Effort.values().length)]);
+        List<Ingredient> list = new ArrayList<>(ingredients);
+        for (int i = 0; i < ingredients; i++) {
+            Ingredient ingredient = new Ingredient(INGREDIENTS[random.nextInt(INGREDIENTS.length)],
+                    1 + random.nextInt(500) / 10.0, UNITS[random.nextInt(UNITS.length)]);
+            catalog(ingredient);
+            list.add(ingredient);
+        }
+        meal.setIngredients(list);
+        return meal;
+    }
+
+    /**
+     * A fully loaded plan for the week starting {@link #WEEK_START}, its entries spread over the
+     * days and meal types, drawn from a pool of meals so that some meals repeat.
+     */
+    static MealPlan plan(int entries, int ingredientsPerMeal) {
+        Random random = new Random(42);
+        List<Meal> meals = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, entries / 2); i++) {
+            meals.add(meal(i + 1, ingredientsPerMeal, random));
+        }
+        Person cook = person(1);
+        MealPlan plan = new MealPlan();
+        plan.setId(1L);
+        plan.setWeekStartDate(WEEK_START);
+        plan.setVersion(entries);
+        for (int i = 0; i < entries; i++) {
+            MealPlanEntry entry = new MealPlanEntry();
+            entry.setId((long) i + 1);
+            entry.setMealPlan(plan);
+            entry.setMeal(meals.get(random.nextInt(meals.size())));
+            entry.setDayOfWeek(DAYS[i % DAYS.length]);
+            entry.setMealType(MealType.values()[(i / DAYS.length) % MealType.values().length]);
+            entry.setDisplayOrder(i / DAYS.length);
+            entry.setAssignedCook(cook);
+            plan.getEntries().add(entry);
+        }
+        for (DayOfWeek day : DAYS) {
+            plan.getDayNotes().put(day.name(), "Remember to take the " + day.name().toLowerCase() + " meal out of the freezer");
+        }
+        return plan;
+    }
+
+    /**
+     * Ratings of one meal by a household of people, several per person on different dates, in
+     * no particular order, as the repository returns them.
+     */
+    static List<MealRating> ratings(int count, int people) {
+        Random random = new Random(42);
+        Meal meal = meal(1, 4, random);
+        List<Person> household = new ArrayList<>();
+        for (int i = 0; i < people; i++) {
+            household.add(person(i + 1));
+        }
+        List<MealRating> ratings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MealRating rating = new MealRating();
+            rating.setId((long) i + 1);
+            rating.setMeal(meal);
+            rating.setPerson(household.get(random.nextInt(people)));
+            rating.setRating(1 + random.nextInt(5));
+            rating.setRatedDate(random.nextInt(10) == 0 ? null : WEEK_START.minusDays(random.nextInt(365)));
+            ratings.add(rating);
+        }
+        return ratings;
+    }
+
+    static Person person(long id) {
+        Person person = new Person();
+        person.setId(id);
+        person.setName("Person " + id);
+        return person;
+    }
+
+    /**
+     * The plan's entries dated from..to, by date then display order, as the entry repository's
+     * range query returns them.
+     */
+    static List<MealPlanEntry> entriesBetween(MealPlan plan, LocalDate from, LocalDate to) {
+        return plan.getEntries().stream()
+                .filter(e -> !e.getEntryDate().isBefore(from) && !e.getEntryDate().isAfter(to))
+                .sorted(Comparator.comparing(MealPlanEntry::getEntryDate)
+                        .thenComparingInt(MealPlanEntry::getDisplayOrder))
+                .toList();
+    }
+
+    /**
+     * The unit table compiled from the units the fixtures have catalogued so far, with the
+     * conversions the planner knows for them.
+     */
+    static synchronized UnitTable units() {
+        List<CatalogUnit> units = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : Map.copyOf(UNIT_IDS).entrySet()) {
+            CatalogUnit unit = new CatalogUnit(entry.getKey());
+            unit.setId(entry.getValue());
+            UnitTable.Conversion conversion = UnitTable.KNOWN.get(entry.getKey());
+            if (conversion != null) {
+                unit.setConversion(conversion.dimension(), conversion.factor(), UNIT_IDS.computeIfAbsent(
+                        conversion.dimension().getBaseUnit(), name -> (long) UNIT_IDS.size() + 1));
+            }
+            units.add(unit);
+        }
+        return UnitTable.of(units);
+    }
+
+    /**
+     * Words to normalise, drawn from the ingredient names above.
+     */
+    static String[] words(int count) {
+        Random random = new Random(42);
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = INGREDIENTS[random.nextInt(INGREDIENTS.length)].toLowerCase().trim();
+        }
+        return words;
+    }
+
+    /**
+     * A stand-in for a Spring Data repository: each named method answers with the given function
+     * of its arguments, and anything else fails. Cheaper to call than a mock, so it adds next to
+     * nothing to what is measured.
+     */
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = methods.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return answer.apply(args);
+        }));
+    }
+}
@@ -0,0 +1,40 @@
+package com.mealplanner.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplanner.model.MealPlan;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialising a fully loaded meal plan, as GET /api/meal-plans does, with an ObjectMapper
+ * configured the way Spring Boot configures the application's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MealPlanJsonBenchmark {
+
+    /** Plan entries, each a meal of 8 ingredients. */
+    @Param({"7", "21", "100", "1000"})
+    public int entries;
+
+    private ObjectMapper objectMapper;
+    private MealPlan plan;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        plan = Fixtures.plan(entries, 8);
+    }
+
+    @Benchmark
+    public byte[] serializeMealPlan() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(plan);
+    }
+}
@@ -0,0 +1,41 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.MealRating;
+import com.mealplanner.repository.MealRatingRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deduplicating a meal's ratings to the latest per person, with the repository answering from
+ * memory so that only the deduplication is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MealRatingBenchmark {
+
+    /** Ratings stored for the meal, spread over a household of 6. */
+    @Param({"10", "100", "1000", "10000"})
+    public int ratings;
+
+    private MealRatingService service;
+
+    @Setup
+    public void setUp() {
+        List<MealRating> stored = Fixtures.ratings(ratings, 6);
+        MealRatingRepository repository = Fixtures.repository(MealRatingRepository.class,
+                Map.of("findByMealId", args -> stored));
+        service = new MealRatingService(repository, null, null);
+    }
+
+    @Benchmark
+    public List<MealRating> findByMeal() {
+        return service.findByMeal(1L);
+    }
+}
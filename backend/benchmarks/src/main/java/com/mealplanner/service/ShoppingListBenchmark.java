@@ -0,0 +1,59 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.model.IngredientTotal;
+import com.mealplanner.model.MealPlanEntry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shopping list upkeep: merging a plan's ingredients into per-day totals by their catalog
+ * ingredient and unit IDs, as a startup rebuild or a change to a widely planned meal does, and
+ * the normalisation that is run on every name and unit as it is set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShoppingListBenchmark {
+
+    /** Plan entries, each a meal of 8 ingredients. */
+    @Param({"7", "21", "100", "1000"})
+    public int entries;
+
+    private List<MealPlanEntry> planEntries;
+    private String[] words;
+
+    @Setup
+    public void setUp() {
+        planEntries = Fixtures.plan(entries, 8).getEntries();
+        words = Fixtures.words(entries * 8);
+    }
+
+    /** Adds every entry's ingredients to the totals for its day. */
+    @Benchmark
+    public Map<LocalDate, LongKeyedMap<IngredientTotal>> mergeTotals() {
+        Map<LocalDate, LongKeyedMap<IngredientTotal>> totals = new HashMap<>();
+        for (MealPlanEntry entry : planEntries) {
+            IngredientTotals.merge(totals.computeIfAbsent(entry.getEntryDate(), d -> new LongKeyedMap<>()),
+                    1L, entry.getEntryDate(), entry.getMeal().getIngredients(), 1);
+        }
+        return totals;
+    }
+
+    /** Normalises as many words as a plan of this size has ingredient names. */
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        for (String word : words) {
+            blackhole.consume(Ingredient.normalize(word));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.DayNote;
+import com.mealplanner.dto.PlanVersion;
+import com.mealplanner.model.MealPlan;
+import com.mealplanner.repository.MealPlanEntryRepository;
+import com.mealplanner.repository.MealPlanRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TRMNL display: rendering and encoding a frame with every cache missed, and the content
+ * hash each device poll computes to decide whether it needs a new frame at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class TrmnlDisplayBenchmark {
+
+    /** Plan entries for the week, so a seventh of them fall on each day shown. */
+    @Param({"7", "21", "42"})
+    public int entries;
+
+    private TrmnlDisplayService service;
+    private TrmnlRenderExecutor renderExecutor;
+    private DisplaySnapshot snapshot;
+    private LocalDate today;
+
+    /** Held apart so that only the render is run once per format. */
+    @State(Scope.Benchmark)
+    public static class Encoding {
+        @Param({"BMP", "PNG"})
+        public ImageFormat format;
+    }
+
+    @Setup
+    public void setUp() {
+        MealPlan plan = Fixtures.plan(entries, 8);
+        MealPlanRepository repository = Fixtures.repository(MealPlanRepository.class, Map.of(
+                "findVersionByWeekStartDate", args -> Optional.of(plan.getVersion()),
+                "findVersionsByWeekStartDateBetween", args -> List.of(
+                        new PlanVersion(plan.getWeekStartDate(), plan.getVersion())),
+                "findNotesByWeekStartDateBetween", args -> plan.getDayNotes().entrySet().stream()
+                        .map(n -> new DayNote(plan.getWeekStartDate(), n.getKey(), n.getValue()))
+                        .toList()));
+        MealPlanEntryRepository entryRepository = Fixtures.repository(MealPlanEntryRepository.class, Map.of(
+                "findForDisplayByEntryDateBetween",
+                args -> Fixtures.entriesBetween(plan, (LocalDate) args[0], (LocalDate) args[1])));
+        renderExecutor = new TrmnlRenderExecutor(1, 1, 5000);
+        // No frame cache and no frame store, so every call renders and encodes
+        service = new TrmnlDisplayService(repository, entryRepository, new TrmnlFrameCache(0),
+                new MealPlanVersionIndex(repository), new TrmnlFrameStore("unused", 0, false),
+                renderExecutor, true);
+        today = Fixtures.WEEK_START.plusDays(2);
+        snapshot = service.loadSnapshot(today);
+    }
+
+    @TearDown
+    public void tearDown() {
+        renderExecutor.shutdown();
+    }
+
+    @Benchmark
+    public byte[] renderImage(Encoding encoding) throws IOException {
+        return service.renderDisplayImage(snapshot, RenderProfile.DEFAULT, encoding.format);
+    }
+
+    @Benchmark
+    public String getContentHash() {
+        return service.getContentHash(today);
+    }
+}
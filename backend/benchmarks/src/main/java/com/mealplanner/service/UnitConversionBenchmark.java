@@ -0,0 +1,92 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.IngredientSum;
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.model.MealPlanEntry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting ingredient quantities to their base units and adding them up: by unit ID through
+ * the compiled {@link UnitTable}, as a shopping list combines an ingredient's units, against
+ * looking each unit up by its name, as converting from the stored strings row by row would; and
+ * combining a plan's per-unit sums into shopping list items.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnitConversionBenchmark {
+
+    /** Plan entries, each a meal of 8 ingredients. */
+    @Param({"7", "100", "1000"})
+    public int entries;
+
+    private UnitTable units;
+    private long[] unitIds;
+    private String[] unitNames;
+    private double[] quantities;
+    private List<IngredientSum> sums;
+
+    @Setup
+    public void setUp() {
+        int count = entries * 8;
+        unitIds = new long[count];
+        unitNames = new String[count];
+        quantities = new double[count];
+        int i = 0;
+        for (MealPlanEntry entry : Fixtures.plan(entries, 8).getEntries()) {
+            for (Ingredient ingredient : entry.getMeal().getIngredients()) {
+                unitIds[i] = ingredient.getUnitId();
+                unitNames[i] = ingredient.getUnit();
+                quantities[i] = ingredient.getQuantity();
+                i++;
+            }
+        }
+        units = Fixtures.units();
+        // Summed by ingredient and unit, in ingredient order, as the shopping list query returns them
+        Map<List<Long>, Double> totals = new TreeMap<>(Comparator.<List<Long>>comparingLong(key -> key.get(0))
+                .thenComparingLong(key -> key.get(1)));
+        for (MealPlanEntry entry : Fixtures.plan(entries, 8).getEntries()) {
+            for (Ingredient ingredient : entry.getMeal().getIngredients()) {
+                totals.merge(List.of(ingredient.getIngredientId(), ingredient.getUnitId()), ingredient.getQuantity(),
+                        Double::sum);
+            }
+        }
+        sums = totals.entrySet().stream()
+                .map(e -> new IngredientSum(e.getKey().get(0), "", e.getKey().get(1), "", e.getValue()))
+                .toList();
+    }
+
+    @Benchmark
+    public void combineSums(Blackhole blackhole) {
+        UnitConversions.combine(units, sums.stream(), blackhole::consume);
+    }
+
+    @Benchmark
+    public double convertByUnitId() {
+        double sum = 0;
+        for (int i = 0; i < quantities.length; i++) {
+            sum += quantities[i] * units.factorOf(unitIds[i]) + units.baseUnitOf(unitIds[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double convertByUnitName() {
+        double sum = 0;
+        for (int i = 0; i < quantities.length; i++) {
+            UnitTable.Conversion conversion = UnitTable.KNOWN.get(Ingredient.normalize(unitNames[i]));
+            sum += conversion != null ? quantities[i] * conversion.factor() + conversion.dimension().ordinal() : quantities[i];
+        }
+        return sum;
+    }
+}
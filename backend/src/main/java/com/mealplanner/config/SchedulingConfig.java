@@ -0,0 +1,12 @@
+package com.mealplanner.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables Spring's task scheduler, used for background TRMNL frame rendering.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
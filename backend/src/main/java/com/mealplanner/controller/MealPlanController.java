@@ -1,15 +1,23 @@
 package com.mealplanner.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.mealplanner.dto.EntryRequest;
 import com.mealplanner.dto.ShoppingItem;
 import com.mealplanner.model.MealPlan;
 import com.mealplanner.model.MealPlanEntry;
 import com.mealplanner.service.MealPlanService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -18,9 +26,11 @@ import java.util.List;
 public class MealPlanController {
 
     private final MealPlanService mealPlanService;
+    private final ObjectMapper objectMapper;
 
-    public MealPlanController(MealPlanService mealPlanService) {
+    public MealPlanController(MealPlanService mealPlanService, ObjectMapper objectMapper) {
         this.mealPlanService = mealPlanService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
@@ -34,6 +44,13 @@ public class MealPlanController {
         return mealPlanService.getOrCreateForWeek(date);
     }
 
+    @GetMapping("/entries")
+    public List<MealPlanEntry> getEntriesByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return mealPlanService.findEntriesBetween(from, to);
+    }
+
     @GetMapping("/{id}")
     public MealPlan getById(@PathVariable @NonNull Long id) {
         return mealPlanService.findById(id);
@@ -60,11 +77,44 @@ public class MealPlanController {
         return mealPlanService.generateShoppingList(planId);
     }
 
+    /**
+     * Writes the shopping list out item by item as the database adds it up, so a long range
+     * costs no more memory than a short one. The array is only opened once the query has
+     * produced its first item, items are not flushed one by one, and the output is only closed
+     * once the list is complete. A query that fails before the buffered output has gone out
+     * therefore leaves the response uncommitted for an error status, and one that fails later
+     * cuts the JSON off unterminated rather than ending it as a short list.
+     */
     @GetMapping("/shopping-list")
-    public List<ShoppingItem> getShoppingListByDateRange(
+    public void getShoppingListByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return mealPlanService.generateShoppingListForDateRange(startDate, endDate);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        ObjectWriter writer = objectMapper.writerFor(ShoppingItem.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try {
+            mealPlanService.forEachShoppingItem(startDate, endDate, item -> {
+                try {
+                    if (json.getOutputContext().inRoot()) {
+                        json.writeStartArray();
+                    }
+                    writer.writeValue(json, item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (json.getOutputContext().inRoot()) {
+            json.writeStartArray();
+        }
+        json.writeEndArray();
+        json.close();
     }
 
     @PutMapping("/{planId}/notes")
@@ -1,28 +1,65 @@
 package com.mealplanner.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplanner.model.TrmnlScreen;
+import com.mealplanner.service.FrameDiff;
+import com.mealplanner.service.ImageFormat;
+import com.mealplanner.service.RenderProfile;
+import com.mealplanner.service.TrmnlAdmission;
+import com.mealplanner.service.TrmnlDeviceRegistry;
 import com.mealplanner.service.TrmnlDisplayService;
+import com.mealplanner.service.TrmnlFrame;
+import com.mealplanner.service.TrmnlFrameDiffer;
+import com.mealplanner.service.TrmnlPlaylist;
+import com.mealplanner.service.TrmnlRenderStats;
+import com.mealplanner.service.TrmnlTelemetry;
+import com.mealplanner.service.TrmnlTelemetryEvent;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * TRMNL e-ink display integration endpoints.
  * Implements the BYOS (Bring Your Own Server) firmware API:
  * - GET /api/setup   — initial device setup
  * - GET /api/display — returns the current screen image
- * - GET /api/trmnl-image — serves the raw PNG for the device to fetch
+ * - GET /api/trmnl-image — serves the raw image (BMP or PNG) for the device to fetch
  * - POST /api/log    — accepts device log data
+ * - GET /api/trmnl-stats — frame cache and render counters, for diagnostics
+ * Every request and device log is recorded in {@link TrmnlTelemetry} rather than logged;
+ * request details are only logged at debug level, and headers only for a sample of requests.
+ * Device requests go through {@link TrmnlAdmission}: a device over its request rate is told to
+ * come back later, and only a few requests may be rendering frames at once. A render slot is only
+ * claimed by a request that has to render; one served from a cache, the frame store or a 304
+ * never waits on the slots.
  *
  * @see <a href="https://docs.trmnl.com/go/diy/byos">TRMNL BYOS docs</a>
  */
@@ -32,22 +69,62 @@ public class TrmnlController {
 
     private static final Logger log = LoggerFactory.getLogger(TrmnlController.class);
 
+    /** A URL carrying the content hash always identifies the same frame, so it never needs revalidating. */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    /** Anything else may be cached but must be revalidated against the ETag before reuse. */
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    /** How long a client should wait before retrying an image that could not be rendered. */
+    private static final int RETRY_AFTER_SECONDS = 30;
+
+    // Tomcat's sendfile request attributes; see org.apache.coyote.Constants
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final TrmnlDisplayService displayService;
+    private final TrmnlDeviceRegistry deviceRegistry;
+    private final TrmnlFrameDiffer frameDiffer;
+    private final TrmnlPlaylist playlist;
+    private final TrmnlTelemetry telemetry;
+    private final TrmnlAdmission admission;
+    private final ObjectMapper objectMapper;
     private final LocalTime sleepStart;
     private final LocalTime sleepStop;
-    private final int refreshRate;
+    private final int minRefreshSeconds;
+    private final int maxRefreshSeconds;
+    private final int refreshJitterSeconds;
     private final ZoneId timezone;
+    private final ImageFormat deviceFormat;
 
     public TrmnlController(TrmnlDisplayService displayService,
+                           TrmnlDeviceRegistry deviceRegistry,
+                           TrmnlFrameDiffer frameDiffer,
+                           TrmnlPlaylist playlist,
+                           TrmnlTelemetry telemetry,
+                           TrmnlAdmission admission,
+                           ObjectMapper objectMapper,
                            @Value("${trmnl.sleep.start:23:00}") String sleepStartStr,
                            @Value("${trmnl.sleep.stop:06:00}") String sleepStopStr,
-                           @Value("${trmnl.refresh-rate:300}") int refreshRate,
-                           @Value("${trmnl.timezone:}") String timezoneStr) {
+                           @Value("${trmnl.refresh-rate:300}") int minRefreshSeconds,
+                           @Value("${trmnl.refresh.max-seconds:3600}") int maxRefreshSeconds,
+                           @Value("${trmnl.refresh.jitter-seconds:120}") int refreshJitterSeconds,
+                           @Value("${trmnl.timezone:}") String timezoneStr,
+                           @Value("${trmnl.image-format:bmp}") String imageFormatStr) {
         this.displayService = displayService;
+        this.deviceRegistry = deviceRegistry;
+        this.frameDiffer = frameDiffer;
+        this.playlist = playlist;
+        this.telemetry = telemetry;
+        this.admission = admission;
+        this.objectMapper = objectMapper;
         this.sleepStart = LocalTime.parse(sleepStartStr);
         this.sleepStop = LocalTime.parse(sleepStopStr);
-        this.refreshRate = refreshRate;
+        this.minRefreshSeconds = minRefreshSeconds;
+        this.maxRefreshSeconds = Math.max(minRefreshSeconds, maxRefreshSeconds);
+        this.refreshJitterSeconds = Math.max(0, refreshJitterSeconds);
         this.timezone = timezoneStr.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timezoneStr);
+        this.deviceFormat = ImageFormat.valueOf(imageFormatStr.trim().toUpperCase(Locale.ROOT));
     }
 
     /** Returns the current time in the configured timezone. */
@@ -60,6 +137,16 @@ public class TrmnlController {
         return LocalDate.now(timezone);
     }
 
+    /** Returns the current date and time in the configured timezone. */
+    ZonedDateTime now() {
+        return ZonedDateTime.now(timezone);
+    }
+
+    /** Returns the current date and time in the device's own timezone, if it has one. */
+    ZonedDateTime now(TrmnlDeviceRegistry.Device device) {
+        return device != null && device.getTimezone() != null ? ZonedDateTime.now(device.getTimezone()) : now();
+    }
+
     /**
      * Check whether the given time falls inside the configured sleep window.
      * Handles windows that cross midnight (e.g. 23:00 → 06:00).
@@ -74,19 +161,57 @@ public class TrmnlController {
         }
     }
 
+    /**
+     * Seconds until the device should next poll. The displayed content only changes at midnight,
+     * when the device enters or leaves the sleep window, or when someone edits the plan, so the
+     * device sleeps until the next of those boundaries, capped at trmnl.refresh.max-seconds so
+     * edits still show up, and never less than trmnl.refresh-rate.
+     * Jitter spreads devices out: a poll aimed at a boundary lands up to jitterSeconds after it
+     * (when the pre-rendered frame is ready), and a capped poll comes up to jitterSeconds early.
+     */
+    int refreshRate(ZonedDateTime now, long jitterSeconds) {
+        long untilBoundary = Math.min(secondsUntil(now, LocalTime.MIDNIGHT),
+                Math.min(secondsUntil(now, sleepStart), secondsUntil(now, sleepStop)));
+        long seconds = untilBoundary <= maxRefreshSeconds
+                ? untilBoundary + jitterSeconds
+                : maxRefreshSeconds - jitterSeconds;
+        return (int) Math.max(minRefreshSeconds, seconds);
+    }
+
+    /** Seconds from now until the next occurrence of the given wall-clock time. */
+    private static long secondsUntil(ZonedDateTime now, LocalTime time) {
+        ZonedDateTime next = now.toLocalDate().atTime(time).atZone(now.getZone());
+        if (!next.isAfter(now)) {
+            next = now.toLocalDate().plusDays(1).atTime(time).atZone(now.getZone());
+        }
+        return Duration.between(now, next).toSeconds();
+    }
+
     /**
      * Setup endpoint — called once when a device is first provisioned.
-     * Returns a welcome message and a placeholder image URL.
+     * Returns a welcome message and a placeholder image URL, or a 429 with Retry-After, without
+     * registering the device, if it is over its request rate.
      */
     @GetMapping("/setup")
     public ResponseEntity<Map<String, Object>> setup(
-            @RequestHeader(value = "ID", required = false) String deviceId) {
+            @RequestHeader(value = "ID", required = false) String deviceId,
+            @RequestHeader(value = "FW-Version", required = false) String firmwareVersion,
+            HttpServletRequest request) {
 
         log.info("TRMNL setup request from device: {}", deviceId);
+        long throttledFor = admission.tryAcquire(clientKey(deviceId, request));
+        if (throttledFor > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds(throttledFor)))
+                    .build();
+        }
+        TrmnlDeviceRegistry.Device device = hasText(deviceId)
+                ? deviceRegistry.recordPoll(deviceId, firmwareVersion, null, null)
+                : null;
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("api_key", "not_required");
-        response.put("friendly_id", "MEALPLAN");
+        response.put("friendly_id", device != null ? device.getFriendlyId() : "MEALPLAN");
         response.put("image_url", "");
         response.put("message", "Welcome to Meal Planner TRMNL");
         return ResponseEntity.ok(response);
@@ -97,108 +222,551 @@ public class TrmnlController {
      * If the device sends a BASE64 header (or base_64 query param), the image
      * is returned inline as a base64 data URI. Otherwise a URL pointing to
      * /api/trmnl-image is returned for the device to fetch separately.
+     * Either way the image is encoded in the configured trmnl.image-format (BMP by default),
+     * which is also what the filename and data URI advertise.
+     * An admitted poll is recorded in the device registry, and the frame is rendered for the device's
+     * profile (its reported resolution and configured layout) and dated in its timezone.
+     * For a known device the response also says which parts of the panel changed since its last
+     * poll (refresh_type and partial_refresh), so it can do a partial refresh.
+     * With a playlist of several screens, each poll is sent the next screen, pre-rendered, and
+     * asked to poll again after trmnl.playlist.rotate-seconds (outside the sleep window).
+     * Consecutive frames are then different screens, so no partial refresh is offered.
+     * A successful response is streamed straight to the servlet output. An inline frame's data URI
+     * is cached alongside the frame and copied into the JSON as-is, so a poll for unchanged content
+     * neither base64-encodes the frame nor builds the URI as a String.
+     * A device over its request rate is answered without rendering or diffing anything: it keeps
+     * the screen it has and is asked to poll again after a jittered retry-later refresh_rate.
+     * If the frame has to be rendered and every render slot is busy, an inline request is sent the
+     * image URL instead, and a partial-refresh diff is skipped so the device does a full refresh.
      */
     @GetMapping("/display")
     public ResponseEntity<Map<String, Object>> display(
             @RequestHeader(value = "ID", required = false) String deviceId,
+            @RequestHeader(value = "FW-Version", required = false) String firmwareVersion,
+            @RequestHeader(value = "Width", required = false) String widthHeader,
+            @RequestHeader(value = "Height", required = false) String heightHeader,
             @RequestHeader(value = "BASE64", required = false) String base64Header,
+            @RequestHeader(value = "Battery-Voltage", required = false) String batteryHeader,
+            @RequestHeader(value = "RSSI", required = false) String rssiHeader,
             @RequestParam(value = "base_64", required = false) String base64Param,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse servletResponse) {
 
-        log.info("TRMNL display request from device: {}, BASE64: {}, headers: {}",
-                deviceId, base64Header, logHeaders(request));
+        long start = System.nanoTime();
+        if (log.isDebugEnabled()) {
+            log.debug("TRMNL display request from device: {}, BASE64: {}", deviceId, base64Header);
+            if (telemetry.sampleHeaders()) {
+                log.debug("TRMNL display request headers: {}", logHeaders(request));
+            }
+        }
 
         boolean wantsBase64 = "true".equalsIgnoreCase(base64Header)
                 || "true".equalsIgnoreCase(base64Param);
+        long throttledFor = admission.tryAcquire(clientKey(deviceId, request));
+        boolean throttled = throttledFor > 0;
+
+        // A throttled poll is not recorded, and a device is only ever registered by an admitted one
+        TrmnlDeviceRegistry.Device device = !hasText(deviceId) ? null
+                : throttled ? deviceRegistry.find(deviceId).orElse(null)
+                : deviceRegistry.recordPoll(deviceId, firmwareVersion, parseDimension(widthHeader), parseDimension(heightHeader));
+        RenderProfile profile = device != null ? device.getProfile() : RenderProfile.DEFAULT;
 
         try {
-            String contentHash = displayService.getContentHash(currentDate());
-            String imageUrl;
-            if (wantsBase64) {
-                byte[] imageBytes = displayService.renderDisplayImage(currentDate());
-                imageUrl = "data:image/bmp;base64,"
-                        + Base64.getEncoder().encodeToString(imageBytes);
-            } else {
+            // The hash comes from in-memory plan versions, and an unchanged frame is served
+            // from the frame cache, so a device whose content is unchanged costs no query
+            ZonedDateTime now = now(device);
+            LocalDate today = now.toLocalDate();
+            boolean rotating = playlist.isRotating();
+            String playlistKey = hasText(deviceId) ? deviceId : "";
+            TrmnlScreen screen = !rotating ? TrmnlScreen.DAY
+                    : throttled ? playlist.current(playlistKey) : playlist.advance(playlistKey);
+            String contentHash = screen == TrmnlScreen.DAY
+                    ? displayService.getContentHash(today)
+                    : playlist.inputHash(screen, today);
+            // The inline image_url: ASCII bytes of the data: URI
+            byte[] inlineUri = null;
+            String imageUrl = null;
+            if (wantsBase64 && !throttled) {
+                TrmnlFrame frame = null;
+                boolean rendering = !playlist.isCurrent(screen, today, profile, deviceFormat);
+                if (!rendering || admission.tryStartRender()) {
+                    try {
+                        frame = inlineFrame(screen, today, profile);
+                    } finally {
+                        if (rendering) {
+                            admission.endRender();
+                        }
+                    }
+                }
+                if (frame != null) {
+                    if (frame.fallback()) {
+                        contentHash = frame.contentHash();
+                    }
+                    inlineUri = frame.data();
+                }
+            }
+            if (inlineUri == null) {
                 // Build an absolute URL the device can fetch the image from.
                 // Include content hash so URL changes only when data changes.
                 String baseUrl = request.getScheme() + "://" + request.getServerName()
                         + ":" + request.getServerPort();
-                imageUrl = baseUrl + "/api/trmnl-image?h=" + contentHash;
+                imageUrl = baseUrl + "/api/trmnl-image?h=" + contentHash
+                        + "&format=" + deviceFormat.getExtension()
+                        + "&profile=" + profile.key();
+                if (screen != TrmnlScreen.DAY) {
+                    imageUrl += "&screen=" + screenName(screen);
+                }
+                if (device != null) {
+                    // Lets the image endpoint date the frame in the device's timezone
+                    imageUrl += "&device=" + URLEncoder.encode(deviceId, StandardCharsets.UTF_8);
+                }
             }
 
-            // Filename based on content hash — only changes when meal plan data changes
+            // Filename based on content hash — only changes when meal plan data or the device profile changes
+            String prefix = screen == TrmnlScreen.DAY ? "meal-plan" : "meal-plan-" + screenName(screen);
+            String suffix = profile.equals(RenderProfile.DEFAULT) ? "" : "-" + profile.key();
             String filename = (contentHash != null && !contentHash.isEmpty())
-                    ? "meal-plan-" + contentHash + ".bmp"
-                    : "meal-plan.bmp";
-
-            Map<String, Object> response = new LinkedHashMap<>();
-            response.put("image_url", imageUrl);
-            response.put("filename", filename);
-            response.put("image_url_timeout", 300);
-            response.put("refresh_rate", refreshRate);
-            response.put("reset_firmware", false);
-            response.put("update_firmware", false);
-            response.put("firmware_url", "");
-            response.put("special_function", isSleepTime(currentTime()) ? "sleep" : "none");
-
-            log.info("TRMNL display response for {}: image_url={} (base64={})",
-                    deviceId, wantsBase64 ? "<inline>" : imageUrl, wantsBase64);
-
-            return ResponseEntity.ok(response);
-        } catch (IOException e) {
-            log.error("Failed to render TRMNL display image", e);
+                    ? prefix + "-" + contentHash + suffix + "." + deviceFormat.getExtension()
+                    : prefix + suffix + "." + deviceFormat.getExtension();
+            boolean sleeping = isSleepTime(now.toLocalTime());
+            int refreshRate = refreshRate(now, ThreadLocalRandom.current().nextLong(refreshJitterSeconds + 1));
+            if (rotating && !sleeping) {
+                refreshRate = Math.min(refreshRate, playlist.getRotateSeconds());
+            }
+            if (throttled) {
+                // Never sooner than the device would have polled anyway
+                refreshRate = Math.max(refreshRate, admission.retryAfterSeconds(throttledFor));
+            }
+
+            Map<String, Object> partialRefresh = new LinkedHashMap<>();
+            if (device != null && frameDiffer.isEnabled() && !rotating && !throttled) {
+                boolean rendering = frameDiffer.needsRender(today, profile);
+                if (rendering && !admission.tryStartRender()) {
+                    // The device does its usual full refresh, and its next diff starts afresh
+                    frameDiffer.reset(deviceId);
+                } else {
+                    try {
+                        putPartialRefresh(partialRefresh, frameDiffer.diff(deviceId, today, profile, deviceFormat));
+                    } catch (IOException | RuntimeException e) {
+                        // Without a diff the device just does its usual full refresh
+                        log.warn("Failed to diff TRMNL frame for {}: {}", deviceId, e.getMessage());
+                    } finally {
+                        if (rendering) {
+                            admission.endRender();
+                        }
+                    }
+                }
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("TRMNL display response for {}: image_url={} (base64={})",
+                        deviceId, inlineUri != null ? "<inline>" : imageUrl, wantsBase64);
+            }
+
+            recordDisplay(deviceId, firmwareVersion, batteryHeader, rssiHeader, HttpStatus.OK, start,
+                    throttled ? "throttled" : null);
+            try {
+                writeDisplay(servletResponse, inlineUri, imageUrl, filename, refreshRate, sleeping, partialRefresh);
+            } catch (IOException e) {
+                // Nearly always the device closing the connection mid-response
+                log.warn("Failed to write TRMNL display response for {}: {}", deviceId, e.getMessage());
+            }
+            // The response has been written
+            return null;
+        } catch (RuntimeException e) {
+            log.error("Failed to build TRMNL display response", e);
+            recordDisplay(deviceId, firmwareVersion, batteryHeader, rssiHeader, HttpStatus.INTERNAL_SERVER_ERROR, start,
+                    null);
             return ResponseEntity.internalServerError().body(Map.of(
                     "error", "Failed to render display image"
             ));
         }
     }
 
+    private void recordDisplay(String deviceId, String firmwareVersion, String batteryHeader, String rssiHeader,
+                               HttpStatus status, long start, String message) {
+        telemetry.record(new TrmnlTelemetryEvent(Instant.now(), TrmnlTelemetryEvent.Kind.DISPLAY, deviceId,
+                firmwareVersion, TrmnlTelemetry.parseDouble(batteryHeader), TrmnlTelemetry.parseInteger(rssiHeader),
+                status.value(), (System.nanoTime() - start) / 1000, message));
+    }
+
+    /**
+     * Writes the display JSON, with the fields in the order the firmware documents them.
+     * An inline image_url is written as raw bytes: a base64 data URI never needs escaping.
+     */
+    private void writeDisplay(HttpServletResponse response, byte[] inlineUri, String imageUrl, String filename,
+                              int refreshRate, boolean sleeping, Map<String, Object> partialRefresh)
+            throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            json.writeFieldName("image_url");
+            if (inlineUri != null) {
+                json.writeRawUTF8String(inlineUri, 0, inlineUri.length);
+            } else {
+                json.writeString(imageUrl);
+            }
+            json.writeStringField("filename", filename);
+            json.writeNumberField("image_url_timeout", 300);
+            json.writeNumberField("refresh_rate", refreshRate);
+            json.writeBooleanField("reset_firmware", false);
+            json.writeBooleanField("update_firmware", false);
+            json.writeStringField("firmware_url", "");
+            json.writeStringField("special_function", sleeping ? "sleep" : "none");
+            for (Map.Entry<String, Object> field : partialRefresh.entrySet()) {
+                json.writeObjectField(field.getKey(), field.getValue());
+            }
+            json.writeEndObject();
+        }
+    }
+
     /**
-     * Image endpoint — serves the current meal plan as a raw PNG image.
+     * Renders the frame to inline in the display response, as its data URI, or returns null if it
+     * cannot be rendered and there is no earlier frame to fall back on, in which case the device is
+     * sent the image URL instead and fetches the frame once the render has caught up.
+     */
+    private TrmnlFrame inlineFrame(TrmnlScreen screen, LocalDate today, RenderProfile profile) {
+        try {
+            return screen == TrmnlScreen.DAY
+                    ? displayService.renderDataUri(today, profile, deviceFormat)
+                    : playlist.dataUri(screen, today, profile, deviceFormat);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to render inline TRMNL frame, sending the image URL instead: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Image endpoint — serves the current meal plan as a raw PNG image, or a 1-bit BMP with ?format=bmp.
      * This is the URL returned by /api/display for the device to fetch.
+     * The response carries a strong ETag derived from the content hash, and a matching If-None-Match
+     * gets a 304 without rendering. When the ?h= in the URL is the current hash the frame is
+     * cacheable as immutable; a stale or missing hash must be revalidated.
+     * ?profile= selects the render profile (default 800x480 two-day), ?screen= a playlist screen
+     * other than the day view, and ?device= dates the frame in that device's timezone.
+     * Only the default profile and those of registered devices are rendered; any other is a 400,
+     * so a client cannot make the server render and cache arbitrary sizes.
+     * Frames in the on-disk frame store are sent straight from the file: with Tomcat's sendfile
+     * when the connector supports it, otherwise with FileChannel.transferTo.
+     * If the frame cannot be rendered in time, the last good frame is sent under its own ETag;
+     * if there is none, a 503 with Retry-After.
+     * A client over its request rate gets a 429, and a fetch that has to render while every render
+     * slot is busy a 503, both with a jittered Retry-After.
      */
-    @GetMapping(value = "/trmnl-image", produces = MediaType.IMAGE_PNG_VALUE)
-    public ResponseEntity<byte[]> trmnlImage() throws IOException {
-        log.info("TRMNL image fetch");
-        byte[] imageBytes = displayService.renderDisplayImage(currentDate());
-        return ResponseEntity.ok()
-                .contentType(Objects.requireNonNull(MediaType.IMAGE_PNG))
-                .header("Cache-Control", "no-store, no-cache, must-revalidate")
-                .header("Pragma", "no-cache")
-                .body(imageBytes);
+    @GetMapping(value = "/trmnl-image", produces = {MediaType.IMAGE_PNG_VALUE, "image/bmp"})
+    public ResponseEntity<byte[]> trmnlImage(
+            @RequestParam(value = "format", defaultValue = "png") String formatStr,
+            @RequestParam(value = "profile", required = false) String profileKey,
+            @RequestParam(value = "device", required = false) String deviceId,
+            @RequestParam(value = "screen", required = false) String screenStr,
+            @RequestParam(value = "h", required = false) String requestedHash,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request,
+            HttpServletResponse response)
+            throws IOException {
+        long start = System.nanoTime();
+        int status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+        try {
+            long throttledFor = admission.tryAcquire(clientKey(deviceId, request));
+            if (throttledFor > 0) {
+                status = HttpStatus.TOO_MANY_REQUESTS.value();
+                return retryLater(HttpStatus.TOO_MANY_REQUESTS, admission.retryAfterSeconds(throttledFor));
+            }
+            ResponseEntity<byte[]> image =
+                    image(formatStr, profileKey, deviceId, screenStr, requestedHash, ifNoneMatch, request, response);
+            // A null response was written straight from the frame store
+            status = image != null ? image.getStatusCode().value() : HttpStatus.OK.value();
+            return image;
+        } finally {
+            telemetry.record(new TrmnlTelemetryEvent(Instant.now(), TrmnlTelemetryEvent.Kind.IMAGE, deviceId,
+                    null, null, null, status, (System.nanoTime() - start) / 1000, null));
+        }
+    }
+
+    private ResponseEntity<byte[]> image(String formatStr, String profileKey, String deviceId, String screenStr,
+                                         String requestedHash, String ifNoneMatch,
+                                         HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        log.debug("TRMNL image fetch ({})", formatStr);
+        ImageFormat format;
+        RenderProfile profile;
+        TrmnlScreen screen;
+        try {
+            format = ImageFormat.valueOf(formatStr.trim().toUpperCase(Locale.ROOT));
+            profile = hasText(profileKey) ? RenderProfile.parse(profileKey.trim()) : RenderProfile.DEFAULT;
+            screen = hasText(screenStr) ? TrmnlScreen.valueOf(screenStr.trim().toUpperCase(Locale.ROOT)) : TrmnlScreen.DAY;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!profile.equals(RenderProfile.DEFAULT) && !deviceRegistry.activeProfiles().contains(profile)) {
+            log.debug("TRMNL image fetch for unregistered profile {}", profile.key());
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate today = now(deviceRegistry.find(deviceId).orElse(null)).toLocalDate();
+        if (screen != TrmnlScreen.DAY) {
+            return screenImage(screen, today, profile, format, requestedHash, ifNoneMatch);
+        }
+        String contentHash = displayService.getContentHash(today);
+        CacheControl cacheControl = contentHash != null && contentHash.equals(requestedHash) ? IMMUTABLE : REVALIDATE;
+        return conditionalImage(today, contentHash, profile, format, cacheControl, ifNoneMatch, true, request, response);
     }
 
     /**
      * Log endpoint — accepts device log/diagnostic data.
-     * Logs the information and returns HTTP 204 No Content.
+     * Records it as telemetry and returns HTTP 204 No Content, or a 429 with Retry-After, dropping
+     * the log, if the device is over its request rate.
      */
     @PostMapping("/log")
     public ResponseEntity<Void> logEntry(
             @RequestHeader(value = "ID", required = false) String deviceId,
-            @RequestBody(required = false) Map<String, Object> logData) {
+            @RequestBody(required = false) Map<String, Object> logData,
+            HttpServletRequest request) {
 
-        log.info("TRMNL log from device {}: {}", deviceId, logData);
+        long throttledFor = admission.tryAcquire(clientKey(deviceId, request));
+        if (throttledFor > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds(throttledFor)))
+                    .build();
+        }
+        telemetry.recordLog(deviceId, logData);
+        log.debug("TRMNL log from device {}: {}", deviceId, logData);
         return ResponseEntity.noContent().build();
     }
 
     /**
      * Preview endpoint — serves the raw PNG image directly in the browser.
      * Not part of the TRMNL firmware API; just for testing/debugging.
-     * Optionally accepts a ?date= parameter to preview a specific day.
+     * Optionally accepts a ?date= parameter to preview a specific day. A preview never becomes
+     * the frame devices fall back on.
      *
      * Usage: open http://localhost:8080/api/trmnl-preview in a browser.
      */
     @GetMapping(value = "/trmnl-preview", produces = MediaType.IMAGE_PNG_VALUE)
     public ResponseEntity<byte[]> preview(
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
             throws IOException {
 
         LocalDate targetDate = date != null ? date : currentDate();
-        byte[] imageBytes = displayService.renderDisplayImage(targetDate);
+        return conditionalImage(targetDate, displayService.getContentHash(targetDate), RenderProfile.DEFAULT,
+                ImageFormat.PNG, REVALIDATE, ifNoneMatch, false, null, null);
+    }
+
+    /**
+     * Serves the frame for the given date, or a bodiless 304 if the client already holds it.
+     * Without a content hash there is nothing to validate against, so the frame is always sent.
+     * Given the servlet request and response, a stored frame is written directly from its file
+     * and null is returned to tell Spring the response is complete.
+     * For a device, a fallback frame is sent under the ETag of the content it actually shows, and
+     * must be revalidated so the device picks up the current frame once it renders.
+     */
+    private ResponseEntity<byte[]> conditionalImage(LocalDate date, String contentHash, RenderProfile profile,
+                                                    ImageFormat format, CacheControl cacheControl,
+                                                    String ifNoneMatch, boolean forDevice,
+                                                    HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String etag = contentHash != null && !contentHash.isEmpty() ? etagFor(contentHash, format) : null;
+        if (etag != null && etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        if (etag != null && response != null) {
+            Optional<Path> stored = displayService.getStoredFrame(date, profile, format);
+            if (stored.isPresent() && sendFile(stored.get(), format, etag, cacheControl, request, response)) {
+                return null;
+            }
+        }
+        boolean rendering = !displayService.isFrameReady(date, profile, format);
+        if (rendering && !admission.tryStartRender()) {
+            return renderSlotsBusy();
+        }
+        TrmnlFrame frame;
+        try {
+            frame = forDevice
+                    ? displayService.renderFrame(date, profile, format)
+                    : displayService.renderPreviewFrame(date, profile, format);
+        } catch (IOException e) {
+            log.error("Failed to render TRMNL image with no frame to fall back on", e);
+            return unavailable();
+        } finally {
+            if (rendering) {
+                admission.endRender();
+            }
+        }
+        return frameResponse(frame, format, etag, cacheControl);
+    }
+
+    /**
+     * Serves a playlist screen other than the day view from the playlist's ring, with the same
+     * ETag, caching and fallback rules as the day view. A screen not in the playlist is a 404.
+     */
+    private ResponseEntity<byte[]> screenImage(TrmnlScreen screen, LocalDate today, RenderProfile profile,
+                                               ImageFormat format, String requestedHash, String ifNoneMatch) {
+        if (!playlist.getScreens().contains(screen)) {
+            return ResponseEntity.notFound().build();
+        }
+        String contentHash = playlist.inputHash(screen, today);
+        String etag = etagFor(contentHash, format);
+        CacheControl cacheControl = contentHash.equals(requestedHash) ? IMMUTABLE : REVALIDATE;
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        boolean rendering = !playlist.isCurrent(screen, today, profile, format);
+        if (rendering && !admission.tryStartRender()) {
+            return renderSlotsBusy();
+        }
+        try {
+            return frameResponse(playlist.frame(screen, today, profile, format), format, etag, cacheControl);
+        } catch (IOException e) {
+            log.error("Failed to render TRMNL {} screen with no frame to fall back on", screen, e);
+            return unavailable();
+        } finally {
+            if (rendering) {
+                admission.endRender();
+            }
+        }
+    }
+
+    private static ResponseEntity<byte[]> unavailable() {
+        return retryLater(HttpStatus.SERVICE_UNAVAILABLE, RETRY_AFTER_SECONDS);
+    }
+
+    private ResponseEntity<byte[]> renderSlotsBusy() {
+        return retryLater(HttpStatus.SERVICE_UNAVAILABLE, admission.retryAfterSeconds(0));
+    }
+
+    private static ResponseEntity<byte[]> retryLater(HttpStatus status, int retryAfterSeconds) {
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .cacheControl(CacheControl.noStore())
+                .build();
+    }
+
+    /**
+     * Identifies the client for admission control. A registered device gets a bucket of its own;
+     * anything else is keyed on its address, so a client cannot dodge its bucket by sending a
+     * new device ID with each request.
+     */
+    private String clientKey(String deviceId, HttpServletRequest request) {
+        return hasText(deviceId) && deviceRegistry.find(deviceId).isPresent() ? deviceId : request.getRemoteAddr();
+    }
+
+    private static ResponseEntity<byte[]> frameResponse(TrmnlFrame frame, ImageFormat format, String etag,
+                                                        CacheControl cacheControl) {
+        byte[] imageBytes = frame.data();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMimeType()));
+        if (frame.fallback()) {
+            builder.eTag(etagFor(frame.contentHash(), format)).cacheControl(REVALIDATE);
+        } else if (etag != null) {
+            builder.eTag(etag).cacheControl(cacheControl);
+        } else {
+            builder.cacheControl(CacheControl.noStore());
+        }
+        return builder.body(imageBytes);
+    }
+
+    /**
+     * Writes a stored frame as the response body without reading it onto the heap.
+     * Returns false, with nothing written, if the file has gone (e.g. evicted) since it was found.
+     */
+    private static boolean sendFile(Path path, ImageFormat format, String etag, CacheControl cacheControl,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return false;
+        }
+        try (channel) {
+            long size = channel.size();
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(format.getMimeType());
+            response.setContentLengthLong(size);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                // Tomcat sends the file itself once the handler returns
+                request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return true;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+            return true;
+        }
+    }
+
+    /** Strong ETag for one content hash in one encoding. */
+    static String etagFor(String contentHash, ImageFormat format) {
+        return "\"" + contentHash + "-" + format.getExtension() + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the ETag. Uses the weak comparison RFC 9110
+     * requires for If-None-Match, so a W/ prefix added by a proxy still matches.
+     */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stats endpoint — counters for the frame pipeline: renders, coalesced renders, frame cache use,
+     * and renders that timed out or failed and were answered with the last good frame.
+     * Not part of the TRMNL firmware API.
+     */
+    @GetMapping("/trmnl-stats")
+    public TrmnlRenderStats stats() {
+        return displayService.getRenderStats();
+    }
+
+    private static void putPartialRefresh(Map<String, Object> response, FrameDiff diff) {
+        response.put("refresh_type", diff.refreshType().name().toLowerCase(Locale.ROOT));
+        Map<String, Object> partial = new LinkedHashMap<>();
+        partial.put("tile_size", FrameDiff.TILE_SIZE);
+        partial.put("columns", diff.columns());
+        partial.put("rows", diff.rows());
+        partial.put("dirty_tiles", diff.dirtyTiles());
+        partial.put("dirty_ratio", diff.dirtyRatio());
+        partial.put("regions", diff.regions());
+        response.put("partial_refresh", partial);
+    }
+
+    private static String screenName(TrmnlScreen screen) {
+        return screen.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a Width or Height header, ignoring anything that is not a number.
+     */
+    static Integer parseDimension(String header) {
+        if (header == null) return null;
+        try {
+            return Integer.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 
-        return ResponseEntity.ok()
-                .contentType(Objects.requireNonNull(MediaType.IMAGE_PNG))
-                .body(imageBytes);
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
     }
 
     /**
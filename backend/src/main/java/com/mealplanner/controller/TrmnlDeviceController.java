@@ -0,0 +1,33 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.model.TrmnlDevice;
+import com.mealplanner.service.TrmnlDeviceRegistry;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Lists the TRMNL devices that have polled the server and edits their render profiles.
+ * Resolution and firmware are reported by the devices themselves; layout, render backend,
+ * bit depth, dither mode and timezone are set here.
+ */
+@RestController
+@RequestMapping("/api/trmnl-devices")
+public class TrmnlDeviceController {
+
+    private final TrmnlDeviceRegistry deviceRegistry;
+
+    public TrmnlDeviceController(TrmnlDeviceRegistry deviceRegistry) {
+        this.deviceRegistry = deviceRegistry;
+    }
+
+    @GetMapping
+    public List<TrmnlDevice> getAll() {
+        return deviceRegistry.findAll();
+    }
+
+    @PutMapping("/{deviceId}")
+    public TrmnlDevice updateProfile(@PathVariable String deviceId, @RequestBody TrmnlDevice device) {
+        return deviceRegistry.updateProfile(deviceId, device);
+    }
+}
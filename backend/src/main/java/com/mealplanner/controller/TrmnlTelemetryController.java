@@ -0,0 +1,30 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.service.TrmnlTelemetry;
+import com.mealplanner.service.TrmnlTelemetryEvent;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Serves recent TRMNL telemetry (requests, battery, signal strength, device logs) from memory,
+ * newest first. Older telemetry is in the daily files under trmnl.telemetry.dir.
+ */
+@RestController
+@RequestMapping("/api/trmnl-telemetry")
+public class TrmnlTelemetryController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final TrmnlTelemetry telemetry;
+
+    public TrmnlTelemetryController(TrmnlTelemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    @GetMapping
+    public List<TrmnlTelemetryEvent> recent(@RequestParam(required = false) String device,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        return telemetry.recent(device, Math.min(limit, MAX_LIMIT));
+    }
+}
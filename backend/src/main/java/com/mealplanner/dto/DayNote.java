@@ -0,0 +1,9 @@
+package com.mealplanner.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One day's note from the meal plan for a week, without loading the plan.
+ */
+public record DayNote(LocalDate weekStartDate, String dayOfWeek, String note) {
+}
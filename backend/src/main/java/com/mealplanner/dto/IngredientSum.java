@@ -0,0 +1,7 @@
+package com.mealplanner.dto;
+
+/**
+ * The total of one catalog ingredient in one unit, with the canonical names of both.
+ */
+public record IngredientSum(Long ingredientId, String name, Long unitId, String unit, double quantity) {
+}
@@ -0,0 +1,9 @@
+package com.mealplanner.dto;
+
+import java.time.LocalDate;
+
+/**
+ * How many times a meal is planned on one day of a plan.
+ */
+public record MealUsage(Long mealPlanId, LocalDate entryDate, long count) {
+}
@@ -0,0 +1,9 @@
+package com.mealplanner.dto;
+
+import java.time.LocalDate;
+
+/**
+ * The version of the meal plan for a week, without loading the plan.
+ */
+public record PlanVersion(LocalDate weekStartDate, long version) {
+}
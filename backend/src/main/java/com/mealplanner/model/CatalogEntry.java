@@ -0,0 +1,37 @@
+package com.mealplanner.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A canonical name in one of the catalogs, with the ID that stands for it. Names are stored
+ * normalized, so every spelling of the same thing resolves to the same entry.
+ */
+@MappedSuperclass
+public abstract class CatalogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    protected CatalogEntry() {
+    }
+
+    protected CatalogEntry(String name) {
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
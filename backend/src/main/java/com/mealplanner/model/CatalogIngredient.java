@@ -0,0 +1,17 @@
+package com.mealplanner.model;
+
+import jakarta.persistence.Entity;
+
+/**
+ * A canonical ingredient, such as "tomato", that ingredients of meals refer to by ID.
+ */
+@Entity
+public class CatalogIngredient extends CatalogEntry {
+
+    public CatalogIngredient() {
+    }
+
+    public CatalogIngredient(String name) {
+        super(name);
+    }
+}
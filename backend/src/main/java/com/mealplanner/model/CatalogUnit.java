@@ -0,0 +1,48 @@
+package com.mealplanner.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+/**
+ * A canonical unit, such as "cup", that ingredients of meals refer to by ID. Ingredients with no
+ * unit refer to the unit with the empty name.
+ */
+@Entity
+public class CatalogUnit extends CatalogEntry {
+
+    // What the unit measures and how many of the dimension's base unit one of it is. Units the
+    // planner cannot convert, such as "clove" or "tin", have none.
+    @Enumerated(EnumType.STRING)
+    private Dimension dimension;
+
+    private Double factor;
+
+    // The catalog ID of the dimension's base unit
+    private Long baseUnitId;
+
+    public CatalogUnit() {
+    }
+
+    public CatalogUnit(String name) {
+        super(name);
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public Double getFactor() {
+        return factor;
+    }
+
+    public Long getBaseUnitId() {
+        return baseUnitId;
+    }
+
+    public void setConversion(Dimension dimension, double factor, Long baseUnitId) {
+        this.dimension = dimension;
+        this.factor = factor;
+        this.baseUnitId = baseUnitId;
+    }
+}
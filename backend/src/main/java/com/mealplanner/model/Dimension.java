@@ -0,0 +1,18 @@
+package com.mealplanner.model;
+
+/**
+ * What a unit measures. Quantities of the same dimension are added up in its base unit.
+ */
+public enum Dimension {
+    MASS("g"), VOLUME("ml");
+
+    private final String baseUnit;
+
+    Dimension(String baseUnit) {
+        this.baseUnit = baseUnit;
+    }
+
+    public String getBaseUnit() {
+        return baseUnit;
+    }
+}
@@ -0,0 +1,8 @@
+package com.mealplanner.model;
+
+/**
+ * How a TRMNL frame is laid out: today and tomorrow side by side, or today alone across the full width.
+ */
+public enum DisplayLayout {
+    TWO_DAY, TODAY
+}
@@ -0,0 +1,10 @@
+package com.mealplanner.model;
+
+/**
+ * How a greyscale TRMNL frame is reduced to the panel's grey levels: ordered (Bayer) dithering,
+ * which is cheap and stable between frames, or Floyd-Steinberg error diffusion, which keeps more
+ * detail in gradients and images.
+ */
+public enum DitherMode {
+    ORDERED, DIFFUSION
+}
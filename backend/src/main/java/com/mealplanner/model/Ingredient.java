@@ -1,5 +1,7 @@
 package com.mealplanner.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 
 @Embeddable
@@ -9,6 +11,16 @@ public class Ingredient {
     private double quantity;
     private String unit;
 
+    // The catalog entries the name and unit resolve to, so that shopping lists are added up by
+    // ID. Set when the meal is saved and cleared whenever the name or unit changes.
+    @Column(name = "ingredient_id")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long ingredientId;
+
+    @Column(name = "unit_id")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long unitId;
+
     public Ingredient() {
     }
 
@@ -24,6 +36,7 @@ public class Ingredient {
 
     public void setName(String name) {
         this.name = name;
+        this.ingredientId = null;
     }
 
     public double getQuantity() {
@@ -40,5 +53,52 @@ public class Ingredient {
 
     public void setUnit(String unit) {
         this.unit = unit;
+        this.unitId = null;
+    }
+
+    public Long getIngredientId() {
+        return ingredientId;
+    }
+
+    public void setIngredientId(Long ingredientId) {
+        this.ingredientId = ingredientId;
+    }
+
+    public Long getUnitId() {
+        return unitId;
+    }
+
+    public void setUnitId(Long unitId) {
+        this.unitId = unitId;
+    }
+
+    /**
+     * Normalizes an ingredient name or unit so that spellings of the same thing compare equal:
+     * "Tomatoes " and "tomato" both become "tomato". Null becomes the empty string. This is the
+     * name the thing has in the catalog.
+     */
+    public static String normalize(String name) {
+        if (name == null) return "";
+        return singularize(name.toLowerCase().trim());
+    }
+
+    static String singularize(String word) {
+        if (word == null || word.isEmpty()) return word;
+        if (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses") || word.endsWith("xes") || word.endsWith("zes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("ves") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "f";
+        }
+        if (word.endsWith("oes") && word.length() > 4) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && word.length() > 2) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
     }
 }
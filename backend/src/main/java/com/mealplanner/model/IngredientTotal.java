@@ -0,0 +1,90 @@
+package com.mealplanner.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * The total of one ingredient needed for the meals planned on one day of a plan: the sum of the
+ * ingredient over every entry that day, kept up to date as entries and meals change so that a
+ * shopping list is a sum over at most seven of these per ingredient per week.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_ingredient_total_plan_date_key", unique = true,
+                columnList = "meal_plan_id, entry_date, ingredient_id, unit_id"),
+        @Index(name = "idx_ingredient_total_date", columnList = "entry_date")
+})
+public class IngredientTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "meal_plan_id", nullable = false)
+    private Long mealPlanId;
+
+    @Column(name = "entry_date", nullable = false)
+    private LocalDate entryDate;
+
+    // The catalog entries the total is for; their canonical names are what a shopping list shows
+    @Column(name = "ingredient_id", nullable = false)
+    private Long ingredientId;
+
+    @Column(name = "unit_id", nullable = false)
+    private Long unitId;
+
+    private double quantity;
+
+    // How many ingredients make up the total, so the row goes once the last one is taken away
+    // even if the quantities do not come back to exactly zero
+    private long contributions;
+
+    public IngredientTotal() {
+    }
+
+    public IngredientTotal(Long mealPlanId, LocalDate entryDate, Long ingredientId, Long unitId,
+                           double quantity, long contributions) {
+        this.mealPlanId = mealPlanId;
+        this.entryDate = entryDate;
+        this.ingredientId = ingredientId;
+        this.unitId = unitId;
+        this.quantity = quantity;
+        this.contributions = contributions;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getMealPlanId() {
+        return mealPlanId;
+    }
+
+    public LocalDate getEntryDate() {
+        return entryDate;
+    }
+
+    public Long getIngredientId() {
+        return ingredientId;
+    }
+
+    public Long getUnitId() {
+        return unitId;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    public long getContributions() {
+        return contributions;
+    }
+
+    /**
+     * Adds an ingredient's quantity, or takes it away when count is negative, count times over.
+     */
+    public void add(double quantity, long count) {
+        this.quantity += quantity * count;
+        this.contributions += count;
+    }
+}
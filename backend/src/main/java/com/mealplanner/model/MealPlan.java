@@ -2,6 +2,8 @@ package com.mealplanner.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -28,6 +30,14 @@ public class MealPlan {
     @Column(name = "notes", columnDefinition = "TEXT")
     private Map<String, String> dayNotes = new HashMap<>();
 
+    // Incremented on every change to entries or notes. Not a JPA @Version: entries are
+    // also saved on their own, and this must change whenever the displayed content does.
+    // Only ever moved by MealPlanRepository.incrementVersion, so saving a plan loaded before
+    // a concurrent edit cannot write an old version back.
+    @ColumnDefault("0")
+    @Column(updatable = false)
+    private long version;
+
     public MealPlan() {
     }
 
@@ -62,4 +72,19 @@ public class MealPlan {
     public void setDayNotes(Map<String, String> dayNotes) {
         this.dayNotes = dayNotes;
     }
+
+    /**
+     * Returns the date of the given day in this plan's week, which runs Saturday to Friday.
+     */
+    public LocalDate dateOf(DayOfWeek day) {
+        return weekStartDate.plusDays(Math.floorMod(day.getValue() - DayOfWeek.SATURDAY.getValue(), 7));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -3,14 +3,19 @@ package com.mealplanner.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
 @Entity
+@Table(indexes = @Index(name = "idx_meal_plan_entry_date_order", columnList = "entry_date, display_order"))
 public class MealPlanEntry {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Lazy, so that loading entries by date does not load their whole plans
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "meal_plan_id")
     @JsonBackReference
     private MealPlan mealPlan;
@@ -19,11 +24,18 @@ public class MealPlanEntry {
     @JoinColumn(name = "meal_id")
     private Meal meal;
 
-    private String dayOfWeek; // MONDAY, TUESDAY, etc.
+    @Enumerated(EnumType.STRING)
+    private DayOfWeek dayOfWeek;
+
+    // The plan's week start plus the day of week, kept in step with both, so that entries can
+    // be looked up by date with an index range scan
+    @Column(name = "entry_date")
+    private LocalDate entryDate;
 
     @Enumerated(EnumType.STRING)
     private MealType mealType;
 
+    @Column(name = "display_order")
     private int displayOrder;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -47,6 +59,7 @@ public class MealPlanEntry {
 
     public void setMealPlan(MealPlan mealPlan) {
         this.mealPlan = mealPlan;
+        updateEntryDate();
     }
 
     public Meal getMeal() {
@@ -57,12 +70,29 @@ public class MealPlanEntry {
         this.meal = meal;
     }
 
-    public String getDayOfWeek() {
+    public DayOfWeek getDayOfWeek() {
         return dayOfWeek;
     }
 
-    public void setDayOfWeek(String dayOfWeek) {
+    public void setDayOfWeek(DayOfWeek dayOfWeek) {
         this.dayOfWeek = dayOfWeek;
+        updateEntryDate();
+    }
+
+    public LocalDate getEntryDate() {
+        return entryDate;
+    }
+
+    /**
+     * Sets the entry date from the plan's week and the day of week. Called whenever either
+     * changes, and before every save, so the stored date cannot drift from them.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateEntryDate() {
+        if (mealPlan != null && mealPlan.getWeekStartDate() != null && dayOfWeek != null) {
+            entryDate = mealPlan.dateOf(dayOfWeek);
+        }
     }
 
     public MealType getMealType() {
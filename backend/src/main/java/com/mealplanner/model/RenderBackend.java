@@ -0,0 +1,9 @@
+package com.mealplanner.model;
+
+/**
+ * How a TRMNL frame is drawn: with Java2D and the system fonts, or with the bundled
+ * pre-rasterized bitmap fonts straight into a packed 1-bit buffer, without AWT.
+ */
+public enum RenderBackend {
+    AWT, BITMAP
+}
@@ -0,0 +1,154 @@
+package com.mealplanner.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A TRMNL device that has polled the server, keyed by the MAC address it sends in the ID header.
+ * Holds the device's render profile (resolution, layout, render backend, pixel depth, timezone) and its poll statistics.
+ * Updated in memory on every poll and written back periodically, not per request.
+ */
+@Entity
+public class TrmnlDevice {
+
+    @Id
+    private String deviceId;
+
+    private String friendlyId;
+
+    private String firmwareVersion;
+
+    private int width;
+
+    private int height;
+
+    @Enumerated(EnumType.STRING)
+    private DisplayLayout layout;
+
+    @Enumerated(EnumType.STRING)
+    private RenderBackend renderBackend;
+
+    /** Bits per pixel of the panel: 1, or 2 or 4 for greyscale panels. Null means 1. */
+    private Integer bitDepth;
+
+    /** How greyscale frames are dithered; unused for 1-bit panels. */
+    @Enumerated(EnumType.STRING)
+    private DitherMode dither;
+
+    /** IANA zone id; blank means the server's trmnl.timezone. */
+    private String timezone;
+
+    private Instant firstSeen;
+
+    private Instant lastSeen;
+
+    private long pollCount;
+
+    public TrmnlDevice() {
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getFriendlyId() {
+        return friendlyId;
+    }
+
+    public void setFriendlyId(String friendlyId) {
+        this.friendlyId = friendlyId;
+    }
+
+    public String getFirmwareVersion() {
+        return firmwareVersion;
+    }
+
+    public void setFirmwareVersion(String firmwareVersion) {
+        this.firmwareVersion = firmwareVersion;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public DisplayLayout getLayout() {
+        return layout;
+    }
+
+    public void setLayout(DisplayLayout layout) {
+        this.layout = layout;
+    }
+
+    public RenderBackend getRenderBackend() {
+        return renderBackend;
+    }
+
+    public void setRenderBackend(RenderBackend renderBackend) {
+        this.renderBackend = renderBackend;
+    }
+
+    public Integer getBitDepth() {
+        return bitDepth;
+    }
+
+    public void setBitDepth(Integer bitDepth) {
+        this.bitDepth = bitDepth;
+    }
+
+    public DitherMode getDither() {
+        return dither;
+    }
+
+    public void setDither(DitherMode dither) {
+        this.dither = dither;
+    }
+
+    public String getTimezone() {
+        return timezone;
+    }
+
+    public void setTimezone(String timezone) {
+        this.timezone = timezone;
+    }
+
+    public Instant getFirstSeen() {
+        return firstSeen;
+    }
+
+    public void setFirstSeen(Instant firstSeen) {
+        this.firstSeen = firstSeen;
+    }
+
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(Instant lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    public void setPollCount(long pollCount) {
+        this.pollCount = pollCount;
+    }
+}
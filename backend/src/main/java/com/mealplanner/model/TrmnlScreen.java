@@ -0,0 +1,9 @@
+package com.mealplanner.model;
+
+/**
+ * A screen in the TRMNL playlist: the today/tomorrow day view, the current week at a glance,
+ * or the shopping list for the rest of the week.
+ */
+public enum TrmnlScreen {
+    DAY, WEEK, SHOPPING
+}
@@ -0,0 +1,6 @@
+package com.mealplanner.repository;
+
+import com.mealplanner.model.CatalogIngredient;
+
+public interface CatalogIngredientRepository extends CatalogRepository<CatalogIngredient> {
+}
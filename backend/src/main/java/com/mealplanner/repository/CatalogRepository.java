@@ -0,0 +1,14 @@
+package com.mealplanner.repository;
+
+import com.mealplanner.model.CatalogEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Collection;
+import java.util.List;
+
+@NoRepositoryBean
+public interface CatalogRepository<T extends CatalogEntry> extends JpaRepository<T, Long> {
+
+    List<T> findByNameIn(Collection<String> names);
+}
@@ -0,0 +1,6 @@
+package com.mealplanner.repository;
+
+import com.mealplanner.model.CatalogUnit;
+
+public interface CatalogUnitRepository extends CatalogRepository<CatalogUnit> {
+}
@@ -0,0 +1,41 @@
+package com.mealplanner.repository;
+
+import com.mealplanner.dto.IngredientSum;
+import com.mealplanner.model.IngredientTotal;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface IngredientTotalRepository extends JpaRepository<IngredientTotal, Long> {
+
+    /**
+     * A day's totals, locked until the transaction ends so they can be read, changed and written
+     * back without losing a concurrent change.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<IngredientTotal> findByMealPlanIdAndEntryDate(Long mealPlanId, LocalDate entryDate);
+
+    /**
+     * A plan's day totals summed by catalog ingredient and unit, in ingredient name order, so
+     * that the sums for one ingredient come together.
+     */
+    @Query("SELECT new com.mealplanner.dto.IngredientSum(t.ingredientId, i.name, t.unitId, u.name, SUM(t.quantity)) "
+            + "FROM IngredientTotal t JOIN CatalogIngredient i ON i.id = t.ingredientId "
+            + "JOIN CatalogUnit u ON u.id = t.unitId WHERE t.mealPlanId = :mealPlanId "
+            + "GROUP BY t.ingredientId, i.name, t.unitId, u.name ORDER BY i.name, t.ingredientId, u.name")
+    List<IngredientSum> findShoppingList(Long mealPlanId);
+
+    /**
+     * The same for the dates from..to inclusive, whichever plans they fall in.
+     */
+    @Query("SELECT new com.mealplanner.dto.IngredientSum(t.ingredientId, i.name, t.unitId, u.name, SUM(t.quantity)) "
+            + "FROM IngredientTotal t JOIN CatalogIngredient i ON i.id = t.ingredientId "
+            + "JOIN CatalogUnit u ON u.id = t.unitId WHERE t.entryDate BETWEEN :from AND :to "
+            + "GROUP BY t.ingredientId, i.name, t.unitId, u.name ORDER BY i.name, t.ingredientId, u.name")
+    Stream<IngredientSum> streamShoppingList(LocalDate from, LocalDate to);
+}
@@ -1,7 +1,63 @@
 package com.mealplanner.repository;
 
+import com.mealplanner.dto.MealUsage;
+import com.mealplanner.model.IngredientTotal;
 import com.mealplanner.model.MealPlanEntry;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public interface MealPlanEntryRepository extends JpaRepository<MealPlanEntry, Long> {
+
+    @Query("SELECT DISTINCT e.mealPlan.id FROM MealPlanEntry e WHERE e.meal.id = :mealId ORDER BY e.mealPlan.id")
+    List<Long> findPlanIdsByMealId(Long mealId);
+
+    @Query("SELECT DISTINCT e.mealPlan.id FROM MealPlanEntry e WHERE e.assignedCook.id = :personId "
+            + "ORDER BY e.mealPlan.id")
+    List<Long> findPlanIdsByAssignedCookId(Long personId);
+
+    /**
+     * Entries dated from..to inclusive, by date then display order, with their meals, ingredients
+     * and cooks in the same query. A range scan of the entry date index, whichever weeks the
+     * dates fall in.
+     */
+    @Query("SELECT e FROM MealPlanEntry e LEFT JOIN FETCH e.meal m LEFT JOIN FETCH m.ingredients "
+            + "LEFT JOIN FETCH e.assignedCook "
+            + "WHERE e.entryDate BETWEEN :from AND :to ORDER BY e.entryDate, e.displayOrder")
+    List<MealPlanEntry> findByEntryDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Like {@link #findByEntryDateBetween}, but without the ingredients, for callers that only
+     * show meal titles and cooks. Fetching the ingredients repeats every entry row once per
+     * ingredient. Ingredients are mapped eagerly, so they are left out with a fetch graph, under
+     * which anything not in the graph is lazy, rather than by just not joining them.
+     */
+    @EntityGraph(attributePaths = {"meal", "assignedCook"}, type = EntityGraph.EntityGraphType.FETCH)
+    @Query("SELECT e FROM MealPlanEntry e "
+            + "WHERE e.entryDate BETWEEN :from AND :to ORDER BY e.entryDate, e.displayOrder")
+    List<MealPlanEntry> findForDisplayByEntryDateBetween(LocalDate from, LocalDate to);
+
+    List<MealPlanEntry> findByEntryDateIsNull();
+
+    /**
+     * The day totals of every plan, worked out from scratch: each day's ingredients summed by
+     * catalog ingredient and unit.
+     */
+    @Query("SELECT new com.mealplanner.model.IngredientTotal(e.mealPlan.id, e.entryDate, i.ingredientId, "
+            + "i.unitId, SUM(i.quantity), COUNT(i)) "
+            + "FROM MealPlanEntry e JOIN e.meal m JOIN m.ingredients i WHERE e.entryDate IS NOT NULL "
+            + "GROUP BY e.mealPlan.id, e.entryDate, i.ingredientId, i.unitId")
+    List<IngredientTotal> sumIngredientsByPlanAndDate();
+
+    /**
+     * Where a meal is planned: the number of entries for it on each day of each plan, in plan
+     * order, so that plans are always locked in the same order.
+     */
+    @Query("SELECT new com.mealplanner.dto.MealUsage(e.mealPlan.id, e.entryDate, COUNT(e)) "
+            + "FROM MealPlanEntry e WHERE e.meal.id = :mealId AND e.entryDate IS NOT NULL "
+            + "GROUP BY e.mealPlan.id, e.entryDate ORDER BY e.mealPlan.id, e.entryDate")
+    List<MealUsage> findUsesOfMeal(Long mealId);
 }
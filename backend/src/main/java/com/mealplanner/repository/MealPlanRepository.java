@@ -1,7 +1,13 @@
 package com.mealplanner.repository;
 
+import com.mealplanner.dto.DayNote;
+import com.mealplanner.dto.PlanVersion;
 import com.mealplanner.model.MealPlan;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import java.time.LocalDate;
 import java.util.Optional;
 import java.util.List;
@@ -10,4 +16,34 @@ public interface MealPlanRepository extends JpaRepository<MealPlan, Long> {
     Optional<MealPlan> findByWeekStartDate(LocalDate weekStartDate);
     List<MealPlan> findAllByOrderByWeekStartDateDesc();
     List<MealPlan> findByWeekStartDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Increments the plan's version in the database, taking the row lock, so concurrent edits
+     * to the same plan each get a version of their own.
+     */
+    @Modifying
+    @Query("UPDATE MealPlan p SET p.version = p.version + 1 WHERE p.id = :id")
+    int incrementVersion(Long id);
+
+    @Query("SELECT p.version FROM MealPlan p WHERE p.id = :id")
+    long findVersionById(Long id);
+
+    /**
+     * Loads the plan and holds its row lock until the transaction ends, so changes made under
+     * the lock, such as to the plan's ingredient totals, are applied one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM MealPlan p WHERE p.id = :id")
+    Optional<MealPlan> lockById(Long id);
+
+    @Query("SELECT p.version FROM MealPlan p WHERE p.weekStartDate = :weekStartDate")
+    Optional<Long> findVersionByWeekStartDate(LocalDate weekStartDate);
+
+    @Query("SELECT new com.mealplanner.dto.PlanVersion(p.weekStartDate, p.version) FROM MealPlan p "
+            + "WHERE p.weekStartDate BETWEEN :from AND :to")
+    List<PlanVersion> findVersionsByWeekStartDateBetween(LocalDate from, LocalDate to);
+
+    @Query("SELECT new com.mealplanner.dto.DayNote(p.weekStartDate, KEY(n), VALUE(n)) FROM MealPlan p "
+            + "JOIN p.dayNotes n WHERE p.weekStartDate BETWEEN :from AND :to")
+    List<DayNote> findNotesByWeekStartDateBetween(LocalDate from, LocalDate to);
 }
@@ -2,9 +2,13 @@ package com.mealplanner.repository;
 
 import com.mealplanner.model.Meal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 
 public interface MealRepository extends JpaRepository<Meal, Long> {
     List<Meal> findByTitleContainingIgnoreCase(String title);
     java.util.Optional<Meal> findByTitleIgnoreCase(String title);
+
+    @Query("SELECT DISTINCT m FROM Meal m JOIN m.ingredients i WHERE i.ingredientId IS NULL OR i.unitId IS NULL")
+    List<Meal> findWithUncataloguedIngredients();
 }
@@ -0,0 +1,7 @@
+package com.mealplanner.repository;
+
+import com.mealplanner.model.TrmnlDevice;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TrmnlDeviceRepository extends JpaRepository<TrmnlDevice, String> {
+}
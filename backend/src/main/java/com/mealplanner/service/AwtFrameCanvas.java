@@ -0,0 +1,91 @@
+package com.mealplanner.service;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * {@link FrameCanvas} backed by Java2D: antialiased system sans-serif text drawn onto a
+ * 1-bit {@link BufferedImage#TYPE_BYTE_BINARY} image, which thresholds it back to black and white,
+ * or onto an 8-bit {@link BufferedImage#TYPE_BYTE_GRAY} image that keeps the antialiasing for
+ * greyscale panels.
+ */
+class AwtFrameCanvas implements FrameCanvas {
+
+    private final BufferedImage image;
+    private final Graphics2D g;
+    private final TextLayoutCache textLayout;
+
+    AwtFrameCanvas(int width, int height, TextLayoutCache textLayout) {
+        this(new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY), textLayout);
+    }
+
+    private AwtFrameCanvas(BufferedImage image, TextLayoutCache textLayout) {
+        this.image = image;
+        this.g = image.createGraphics();
+        this.textLayout = textLayout;
+        // Enable anti-aliasing for text
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+
+    /**
+     * A canvas over an 8-bit greyscale image; finish it with {@link #finishGrayscale()}.
+     */
+    static AwtFrameCanvas grayscale(int width, int height, TextLayoutCache textLayout) {
+        return new AwtFrameCanvas(new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY), textLayout);
+    }
+
+    @Override
+    public int width() {
+        return image.getWidth();
+    }
+
+    @Override
+    public int height() {
+        return image.getHeight();
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height, boolean black) {
+        g.setColor(black ? Color.BLACK : Color.WHITE);
+        g.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2, boolean black) {
+        g.setColor(black ? Color.BLACK : Color.WHITE);
+        g.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawString(String text, TextStyle style, int x, int baseline, boolean black) {
+        g.setColor(black ? Color.BLACK : Color.WHITE);
+        g.setFont(font(style));
+        g.drawString(text, x, baseline);
+    }
+
+    @Override
+    public int stringWidth(String text, TextStyle style) {
+        return textLayout.stringWidth(text, font(style));
+    }
+
+    @Override
+    public String truncate(String text, TextStyle style, int maxWidth) {
+        return textLayout.truncate(text, font(style), maxWidth);
+    }
+
+    @Override
+    public MonochromeRaster finish() {
+        g.dispose();
+        return MonochromeRaster.of(image);
+    }
+
+    GrayscaleRaster finishGrayscale() {
+        g.dispose();
+        return GrayscaleRaster.of(image);
+    }
+
+    private Font font(TextStyle style) {
+        // Fonts are derived once and shared across renders
+        return textLayout.font(style.weight.awtStyle, style.size);
+    }
+}
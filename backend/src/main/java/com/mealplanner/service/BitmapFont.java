@@ -0,0 +1,161 @@
+package com.mealplanner.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * A pre-rasterized 1-bit font read from a BDF file. Glyph bitmaps are kept packed, one row per
+ * {@link Glyph#rowBytes()} bytes with the most significant bit leftmost and 1 meaning ink, so they
+ * can be blitted a byte at a time. Characters the font does not cover are drawn as '?'.
+ * Immutable and thread-safe once loaded.
+ */
+final class BitmapFont {
+
+    private static final char FALLBACK = '?';
+
+    /**
+     * One glyph: its ink bounding box relative to the pen position on the baseline
+     * (BDF BBX: yOffset is the bottom edge above the baseline) and its advance width.
+     */
+    record Glyph(int width, int height, int xOffset, int yOffset, int advance, byte[] bits) {
+
+        int rowBytes() {
+            return (width + 7) >> 3;
+        }
+    }
+
+    private final int ascent;
+    private final int descent;
+    // Latin-1 is looked up by index; anything else (dashes, bullets, ellipsis) from the map
+    private final Glyph[] latin = new Glyph[256];
+    private final Map<Character, Glyph> others = new HashMap<>();
+    private final Glyph fallback;
+
+    private BitmapFont(int ascent, int descent, Map<Character, Glyph> glyphs) {
+        this.ascent = ascent;
+        this.descent = descent;
+        glyphs.forEach((c, glyph) -> {
+            if (c < latin.length) {
+                latin[c] = glyph;
+            } else {
+                others.put(c, glyph);
+            }
+        });
+        Glyph question = glyphs.get(FALLBACK);
+        this.fallback = question != null ? question : new Glyph(0, 0, 0, 0, 0, new byte[0]);
+    }
+
+    int ascent() {
+        return ascent;
+    }
+
+    int descent() {
+        return descent;
+    }
+
+    Glyph glyph(char c) {
+        Glyph glyph = c < latin.length ? latin[c] : others.get(c);
+        return glyph != null ? glyph : fallback;
+    }
+
+    int stringWidth(String text) {
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += glyph(text.charAt(i)).advance();
+        }
+        return width;
+    }
+
+    /**
+     * Returns the text unchanged if it fits in maxWidth, otherwise its longest prefix that still
+     * fits with an ellipsis appended (keeping at least one character), like {@link TextLayoutCache#truncate}.
+     */
+    String truncate(String text, int maxWidth) {
+        if (stringWidth(text) <= maxWidth) {
+            return text;
+        }
+        int budget = maxWidth - glyph(TextLayoutCache.ELLIPSIS.charAt(0)).advance();
+        int width = glyph(text.charAt(0)).advance();
+        int end = 1;
+        while (end < text.length()) {
+            int next = width + glyph(text.charAt(end)).advance();
+            if (next > budget) break;
+            width = next;
+            end++;
+        }
+        return text.substring(0, end) + TextLayoutCache.ELLIPSIS;
+    }
+
+    /**
+     * Loads a font from the classpath.
+     */
+    static BitmapFont load(String resource) {
+        try (InputStream in = BitmapFont.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Bitmap font not found: " + resource);
+            }
+            return parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load bitmap font " + resource, e);
+        }
+    }
+
+    /**
+     * Parses the parts of a BDF 2.1 font the renderer uses: FONT_ASCENT, FONT_DESCENT, and each
+     * glyph's ENCODING, DWIDTH, BBX and BITMAP. Everything else is skipped.
+     */
+    static BitmapFont parse(BufferedReader reader) throws IOException {
+        int ascent = 0;
+        int descent = 0;
+        Map<Character, Glyph> glyphs = new HashMap<>();
+        int encoding = -1;
+        int advance = 0;
+        int[] bbx = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.trim().split("\\s+");
+            switch (parts[0]) {
+                case "FONT_ASCENT" -> ascent = Integer.parseInt(parts[1]);
+                case "FONT_DESCENT" -> descent = Integer.parseInt(parts[1]);
+                case "STARTCHAR" -> {
+                    encoding = -1;
+                    advance = 0;
+                    bbx = null;
+                }
+                case "ENCODING" -> encoding = Integer.parseInt(parts[1]);
+                case "DWIDTH" -> advance = Integer.parseInt(parts[1]);
+                case "BBX" -> bbx = new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3]), Integer.parseInt(parts[4])};
+                case "BITMAP" -> {
+                    if (bbx == null) {
+                        throw new IOException("BITMAP before BBX in glyph " + encoding);
+                    }
+                    int rowBytes = (bbx[0] + 7) >> 3;
+                    byte[] bits = new byte[rowBytes * bbx[1]];
+                    for (int row = 0; row < bbx[1]; row++) {
+                        String hex = reader.readLine();
+                        if (hex == null) {
+                            throw new IOException("Truncated bitmap in glyph " + encoding);
+                        }
+                        // BDF rows may be padded past the glyph width; keep only the bytes we need
+                        byte[] parsed = HexFormat.of().parseHex(hex.trim());
+                        System.arraycopy(parsed, 0, bits, row * rowBytes, Math.min(rowBytes, parsed.length));
+                    }
+                    if (encoding >= 0 && encoding <= Character.MAX_VALUE) {
+                        glyphs.put((char) encoding, new Glyph(bbx[0], bbx[1], bbx[2], bbx[3], advance, bits));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return new BitmapFont(ascent, descent, glyphs);
+    }
+}
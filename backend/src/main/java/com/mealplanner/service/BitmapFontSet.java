@@ -0,0 +1,17 @@
+package com.mealplanner.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The bitmap fonts for each {@link TextStyle}, loaded from the classpath on first use so a
+ * server that only renders with AWT never reads them. Thread-safe.
+ */
+class BitmapFontSet {
+
+    private final Map<TextStyle, BitmapFont> fonts = new ConcurrentHashMap<>();
+
+    BitmapFont font(TextStyle style) {
+        return fonts.computeIfAbsent(style, s -> BitmapFont.load(s.bitmapFontResource()));
+    }
+}
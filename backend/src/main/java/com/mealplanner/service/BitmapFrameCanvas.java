@@ -0,0 +1,159 @@
+package com.mealplanner.service;
+
+import java.util.Arrays;
+
+/**
+ * {@link FrameCanvas} that draws straight into a packed 1-bit buffer, in the layout
+ * {@link MonochromeRaster} and the encoders expect (most significant bit leftmost, 0 black,
+ * 1 white), using pre-rasterized {@link BitmapFont}s. No AWT classes are involved, so output does
+ * not depend on the fonts installed on the host and there is no Java2D start-up cost.
+ * Spans are filled a byte at a time and glyph rows are blitted with shifts and masks.
+ */
+class BitmapFrameCanvas implements FrameCanvas {
+
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final byte[] data;
+    private final BitmapFontSet fonts;
+
+    BitmapFrameCanvas(int width, int height, BitmapFontSet fonts) {
+        this.width = width;
+        this.height = height;
+        this.stride = (width + 7) >> 3;
+        this.data = new byte[stride * height];
+        this.fonts = fonts;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void fillRect(int x, int y, int w, int h, boolean black) {
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + w, width);
+        int y0 = Math.max(y, 0);
+        int y1 = Math.min(y + h, height);
+        if (x0 >= x1 || y0 >= y1) return;
+
+        int first = x0 >> 3;
+        int last = (x1 - 1) >> 3;
+        int firstMask = 0xFF >>> (x0 & 7);
+        int lastMask = (0xFF << (7 - ((x1 - 1) & 7))) & 0xFF;
+        byte fill = black ? 0 : (byte) 0xFF;
+        for (int row = y0; row < y1; row++) {
+            int offset = row * stride;
+            if (first == last) {
+                apply(offset + first, firstMask & lastMask, black);
+            } else {
+                apply(offset + first, firstMask, black);
+                Arrays.fill(data, offset + first + 1, offset + last, fill);
+                apply(offset + last, lastMask, black);
+            }
+        }
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2, boolean black) {
+        if (y1 == y2) {
+            fillRect(Math.min(x1, x2), y1, Math.abs(x2 - x1) + 1, 1, black);
+        } else if (x1 == x2) {
+            fillRect(x1, Math.min(y1, y2), 1, Math.abs(y2 - y1) + 1, black);
+        } else {
+            // Bresenham, for completeness; the frame layout only draws straight lines
+            int dx = Math.abs(x2 - x1);
+            int dy = -Math.abs(y2 - y1);
+            int sx = x1 < x2 ? 1 : -1;
+            int sy = y1 < y2 ? 1 : -1;
+            int err = dx + dy;
+            while (true) {
+                setPixel(x1, y1, black);
+                if (x1 == x2 && y1 == y2) break;
+                int e2 = 2 * err;
+                if (e2 >= dy) {
+                    err += dy;
+                    x1 += sx;
+                }
+                if (e2 <= dx) {
+                    err += dx;
+                    y1 += sy;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void drawString(String text, TextStyle style, int x, int baseline, boolean black) {
+        BitmapFont font = fonts.font(style);
+        int pen = x;
+        for (int i = 0; i < text.length(); i++) {
+            BitmapFont.Glyph glyph = font.glyph(text.charAt(i));
+            blit(glyph, pen + glyph.xOffset(), baseline - glyph.yOffset() - glyph.height(), black);
+            pen += glyph.advance();
+        }
+    }
+
+    private void blit(BitmapFont.Glyph glyph, int left, int top, boolean black) {
+        int rowBytes = glyph.rowBytes();
+        byte[] bits = glyph.bits();
+        boolean inside = left >= 0 && left + glyph.width() <= width;
+        for (int row = 0; row < glyph.height(); row++) {
+            int y = top + row;
+            if (y < 0 || y >= height) continue;
+            int offset = y * stride;
+            for (int b = 0; b < rowBytes; b++) {
+                int ink = bits[row * rowBytes + b] & 0xFF;
+                if (ink == 0) continue;
+                int px = left + (b << 3);
+                if (inside) {
+                    int shift = px & 7;
+                    int index = offset + (px >> 3);
+                    apply(index, ink >>> shift, black);
+                    if (shift != 0) {
+                        int spill = (ink << (8 - shift)) & 0xFF;
+                        if (spill != 0) apply(index + 1, spill, black);
+                    }
+                } else {
+                    for (int bit = 0; bit < 8; bit++) {
+                        if ((ink & (0x80 >>> bit)) != 0) setPixel(px + bit, y, black);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int stringWidth(String text, TextStyle style) {
+        return fonts.font(style).stringWidth(text);
+    }
+
+    @Override
+    public String truncate(String text, TextStyle style, int maxWidth) {
+        return fonts.font(style).truncate(text, maxWidth);
+    }
+
+    @Override
+    public MonochromeRaster finish() {
+        return new MonochromeRaster(data, width, height, stride);
+    }
+
+    private void setPixel(int x, int y, boolean black) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+        apply(y * stride + (x >> 3), 0x80 >>> (x & 7), black);
+    }
+
+    private void apply(int index, int mask, boolean black) {
+        if (black) {
+            data[index] &= (byte) ~mask;
+        } else {
+            data[index] |= (byte) mask;
+        }
+    }
+}
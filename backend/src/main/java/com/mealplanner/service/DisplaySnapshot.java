@@ -0,0 +1,76 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.MealPlanEntry;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The meal plan data shown on one TRMNL frame: the entries and notes for a run of dates, usually
+ * today and tomorrow, and the versions of the plans they came from.
+ * Loaded once per request so the content hash and the renderer work from the same data.
+ * The dates can span two Saturday-start weeks, so notes and versions are held per week.
+ */
+public class DisplaySnapshot {
+
+    private final LocalDate today;
+    private final List<MealPlanEntry> entries;
+    private final Map<LocalDate, Map<String, String>> notesByWeekStart;
+    private final Map<LocalDate, Long> versionsByWeekStart;
+
+    /**
+     * @param entries            the entries for the dates shown, with their entry dates set
+     * @param notesByWeekStart   each week's notes, keyed by day of week; weeks without notes may be absent
+     * @param versionsByWeekStart plan versions keyed by week start date; weeks without a plan are simply absent
+     */
+    public DisplaySnapshot(LocalDate today, List<MealPlanEntry> entries,
+                           Map<LocalDate, Map<String, String>> notesByWeekStart,
+                           Map<LocalDate, Long> versionsByWeekStart) {
+        this.today = today;
+        this.entries = entries;
+        this.notesByWeekStart = notesByWeekStart;
+        this.versionsByWeekStart = versionsByWeekStart;
+    }
+
+    static LocalDate weekStartOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
+    }
+
+    public LocalDate getToday() {
+        return today;
+    }
+
+    public LocalDate getTomorrow() {
+        return today.plusDays(1);
+    }
+
+    /**
+     * Returns the entries for the given date, ordered by display order.
+     */
+    public List<MealPlanEntry> getEntries(LocalDate date) {
+        return entries.stream()
+                .filter(e -> date.equals(e.getEntryDate()))
+                .sorted(Comparator.comparingInt(MealPlanEntry::getDisplayOrder))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the version of the plan covering the given date, as {@link MealPlanVersionIndex} would report it.
+     */
+    public long getVersion(LocalDate date) {
+        return versionsByWeekStart.getOrDefault(weekStartOf(date), MealPlanVersionIndex.NO_PLAN);
+    }
+
+    /**
+     * Returns the note for the given date, or null if there is none.
+     */
+    public String getNote(LocalDate date) {
+        Map<String, String> notes = notesByWeekStart.get(weekStartOf(date));
+        return notes != null ? notes.get(date.getDayOfWeek().name()) : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.mealplanner.service;
+
+/**
+ * A 1-bit drawing surface for one TRMNL frame, with just the primitives the frame layout needs.
+ * Coordinates are in pixels from the top left; text is positioned by its baseline. Drawing
+ * outside the frame is clipped. A canvas draws one frame and is not thread-safe.
+ */
+interface FrameCanvas {
+
+    int width();
+
+    int height();
+
+    void fillRect(int x, int y, int width, int height, boolean black);
+
+    /** Draws a one pixel wide line, including both end points. */
+    void drawLine(int x1, int y1, int x2, int y2, boolean black);
+
+    void drawString(String text, TextStyle style, int x, int baseline, boolean black);
+
+    int stringWidth(String text, TextStyle style);
+
+    /**
+     * Returns the text unchanged if it fits in maxWidth, otherwise its longest prefix that still
+     * fits with an ellipsis appended (keeping at least one character).
+     */
+    String truncate(String text, TextStyle style, int maxWidth);
+
+    /** Finishes drawing and returns the frame's packed pixels. The canvas must not be used afterwards. */
+    MonochromeRaster finish();
+}
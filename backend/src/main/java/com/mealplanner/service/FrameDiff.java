@@ -0,0 +1,129 @@
+package com.mealplanner.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * The changed area between the frame a device last showed and the one it is about to show,
+ * as a bitmask of {@value #TILE_SIZE}x{@value #TILE_SIZE} pixel tiles and the rectangles they merge into.
+ * Tiles are compared directly on the packed 1-bit rasters; a tile is 4 bytes wide, so unchanged rows
+ * are skipped with a single {@link Arrays#mismatch} over the row.
+ *
+ * @param refreshType   NONE if nothing changed, PARTIAL if only the listed regions did, FULL otherwise
+ * @param columns       tiles per row
+ * @param rows          tile rows
+ * @param dirtyTiles    changed tiles, row-major, as a little-endian hex bitmask (see {@link BitSet#toByteArray()})
+ * @param dirtyRatio    fraction of tiles that changed
+ * @param regions       changed tiles merged into rectangles, in pixels
+ */
+public record FrameDiff(RefreshType refreshType, int columns, int rows, String dirtyTiles, double dirtyRatio,
+                        List<Region> regions) {
+
+    public static final int TILE_SIZE = 32;
+    private static final int TILE_BYTES = TILE_SIZE / 8;
+
+    public enum RefreshType {
+        NONE, PARTIAL, FULL
+    }
+
+    public record Region(int x, int y, int width, int height) {
+    }
+
+    /**
+     * A diff that redraws the whole panel, for a device with no previous frame or a changed resolution.
+     */
+    static FrameDiff full(MonochromeRaster current) {
+        int columns = Math.ceilDiv(current.width(), TILE_SIZE);
+        int rows = Math.ceilDiv(current.height(), TILE_SIZE);
+        BitSet all = new BitSet(columns * rows);
+        all.set(0, columns * rows);
+        return new FrameDiff(RefreshType.FULL, columns, rows, HexFormat.of().formatHex(all.toByteArray()), 1.0,
+                List.of(new Region(0, 0, current.width(), current.height())));
+    }
+
+    /**
+     * Compares two frames tile by tile. When more than fullThreshold of the tiles changed, a full
+     * refresh is cheaper and cleaner on the panel than a partial one, so FULL is returned.
+     */
+    static FrameDiff compute(MonochromeRaster previous, MonochromeRaster current, double fullThreshold) {
+        if (previous == null || previous.width() != current.width() || previous.height() != current.height()) {
+            return full(current);
+        }
+        int columns = Math.ceilDiv(current.width(), TILE_SIZE);
+        int rows = Math.ceilDiv(current.height(), TILE_SIZE);
+        int rowBytes = (current.width() + 7) / 8;
+        BitSet dirty = new BitSet(columns * rows);
+        if (previous.data() != current.data()) {
+            byte[] a = previous.data();
+            byte[] b = current.data();
+            for (int y = 0; y < current.height(); y++) {
+                int tileRow = y / TILE_SIZE;
+                int offA = y * previous.stride();
+                int offB = y * current.stride();
+                int x = 0;
+                while (x < rowBytes) {
+                    int m = Arrays.mismatch(a, offA + x, offA + rowBytes, b, offB + x, offB + rowBytes);
+                    if (m < 0) break;
+                    int tile = (x + m) / TILE_BYTES;
+                    dirty.set(tileRow * columns + tile);
+                    x = (tile + 1) * TILE_BYTES;
+                }
+            }
+        }
+
+        int changed = dirty.cardinality();
+        double ratio = (double) changed / (columns * rows);
+        RefreshType type = changed == 0 ? RefreshType.NONE
+                : ratio > fullThreshold ? RefreshType.FULL
+                : RefreshType.PARTIAL;
+        List<Region> regions = type == RefreshType.FULL
+                ? List.of(new Region(0, 0, current.width(), current.height()))
+                : regions(dirty, columns, rows, current.width(), current.height());
+        return new FrameDiff(type, columns, rows, HexFormat.of().formatHex(dirty.toByteArray()), ratio, regions);
+    }
+
+    /**
+     * Merges runs of dirty tiles in each tile row, then stacks identical runs from consecutive rows.
+     */
+    private static List<Region> regions(BitSet dirty, int columns, int rows, int width, int height) {
+        List<Region> done = new ArrayList<>();
+        List<int[]> open = new ArrayList<>(); // {firstColumn, lastColumn, firstRow}
+        for (int row = 0; row <= rows; row++) {
+            List<int[]> runs = new ArrayList<>();
+            if (row < rows) {
+                int start = dirty.nextSetBit(row * columns);
+                while (start >= 0 && start < (row + 1) * columns) {
+                    int end = Math.min(dirty.nextClearBit(start), (row + 1) * columns);
+                    runs.add(new int[]{start - row * columns, end - 1 - row * columns});
+                    start = dirty.nextSetBit(end);
+                }
+            }
+            List<int[]> stillOpen = new ArrayList<>();
+            for (int[] o : open) {
+                int[] match = runs.stream().filter(r -> r[0] == o[0] && r[1] == o[1]).findFirst().orElse(null);
+                if (match != null) {
+                    runs.remove(match);
+                    stillOpen.add(o);
+                } else {
+                    done.add(toRegion(o, row, width, height));
+                }
+            }
+            for (int[] r : runs) {
+                stillOpen.add(new int[]{r[0], r[1], row});
+            }
+            open = stillOpen;
+        }
+        done.sort((p, q) -> p.y() != q.y() ? Integer.compare(p.y(), q.y()) : Integer.compare(p.x(), q.x()));
+        return done;
+    }
+
+    private static Region toRegion(int[] run, int endRow, int width, int height) {
+        int x = run[0] * TILE_SIZE;
+        int y = run[2] * TILE_SIZE;
+        return new Region(x, y, Math.min((run[1] + 1) * TILE_SIZE, width) - x,
+                Math.min(endRow * TILE_SIZE, height) - y);
+    }
+}
@@ -0,0 +1,10 @@
+package com.mealplanner.service;
+
+import java.time.LocalDate;
+
+/**
+ * Identifies one rendered TRMNL frame: the day it shows, the content hash of the
+ * meal plan data it was rendered from, the device profile it was rendered for, and its encoding.
+ */
+public record FrameKey(LocalDate date, String contentHash, String profile, ImageFormat format) {
+}
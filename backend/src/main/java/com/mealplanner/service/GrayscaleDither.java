@@ -0,0 +1,142 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.DitherMode;
+
+import java.util.Arrays;
+
+/**
+ * Reduces 8-bit greyscale rasters to 1, 2 or 4 bits per pixel. Everything that depends only on
+ * the bit depth is computed once into lookup tables, so the per-pixel work is an array read and,
+ * for error diffusion, a few integer adds: an ordered dither is one table lookup per pixel and
+ * error diffusion quantises through a 256-entry table instead of dividing.
+ */
+final class GrayscaleDither {
+
+    private static final int[] BAYER_8X8 = {
+             0, 32,  8, 40,  2, 34, 10, 42,
+            48, 16, 56, 24, 50, 18, 58, 26,
+            12, 44,  4, 36, 14, 46,  6, 38,
+            60, 28, 52, 20, 62, 30, 54, 22,
+             3, 35, 11, 43,  1, 33,  9, 41,
+            51, 19, 59, 27, 49, 17, 57, 25,
+            15, 47,  7, 39, 13, 45,  5, 37,
+            63, 31, 55, 23, 61, 29, 53, 21,
+    };
+
+    // Indexed by bit depth (1, 2 or 4)
+    private static final byte[][] ORDERED = new byte[5][];
+    private static final byte[][] QUANTISE = new byte[5][];
+    private static final int[][] LEVEL_VALUE = new int[5][];
+
+    static {
+        for (int bits : new int[]{1, 2, 4}) {
+            int max = (1 << bits) - 1;
+            // ORDERED[bits][k * 256 + v]: level for value v at Bayer cell k
+            byte[] ordered = new byte[64 * 256];
+            for (int k = 0; k < 64; k++) {
+                for (int v = 0; v < 256; v++) {
+                    // floor(v * max / 255 + (bayer + 0.5) / 64), in integers
+                    int level = (128 * v * max + 255 * (2 * BAYER_8X8[k] + 1)) / (128 * 255);
+                    ordered[k * 256 + v] = (byte) Math.min(max, level);
+                }
+            }
+            byte[] quantise = new byte[256];
+            for (int v = 0; v < 256; v++) {
+                quantise[v] = (byte) ((v * max + 127) / 255);
+            }
+            int[] levelValue = new int[max + 1];
+            for (int level = 0; level <= max; level++) {
+                levelValue[level] = level * 255 / max;
+            }
+            ORDERED[bits] = ordered;
+            QUANTISE[bits] = quantise;
+            LEVEL_VALUE[bits] = levelValue;
+        }
+    }
+
+    private GrayscaleDither() {
+    }
+
+    static GrayscaleRaster dither(GrayscaleRaster source, int bitDepth, DitherMode mode) {
+        return mode == DitherMode.DIFFUSION ? diffuse(source, bitDepth) : ordered(source, bitDepth);
+    }
+
+    /**
+     * Ordered (Bayer 8x8) dither. Each output pixel depends only on its own value and position,
+     * so flat areas get a fixed pattern that does not shimmer when nearby content changes.
+     */
+    static GrayscaleRaster ordered(GrayscaleRaster source, int bitDepth) {
+        requireSource(source);
+        byte[] table = table(ORDERED, bitDepth);
+        int width = source.width();
+        int height = source.height();
+        int stride = (width * bitDepth + 7) / 8;
+        byte[] out = new byte[stride * height];
+        byte[] src = source.data();
+        for (int y = 0; y < height; y++) {
+            int row = y * source.stride();
+            int dst = y * stride;
+            int cellRow = (y & 7) << 3;
+            for (int x = 0; x < width; x++) {
+                int level = table[((cellRow | (x & 7)) << 8) | (src[row + x] & 0xFF)];
+                pack(out, dst, x, bitDepth, level);
+            }
+        }
+        return new GrayscaleRaster(out, width, height, stride, bitDepth);
+    }
+
+    /**
+     * Floyd-Steinberg error diffusion. Errors are carried in sixteenths in two reused int rows.
+     */
+    static GrayscaleRaster diffuse(GrayscaleRaster source, int bitDepth) {
+        requireSource(source);
+        byte[] quantise = table(QUANTISE, bitDepth);
+        int[] levelValue = LEVEL_VALUE[bitDepth];
+        int width = source.width();
+        int height = source.height();
+        int stride = (width * bitDepth + 7) / 8;
+        byte[] out = new byte[stride * height];
+        byte[] src = source.data();
+        // One guard cell either side, so neighbours need no bounds checks
+        int[] current = new int[width + 2];
+        int[] next = new int[width + 2];
+        for (int y = 0; y < height; y++) {
+            int row = y * source.stride();
+            int dst = y * stride;
+            for (int x = 0; x < width; x++) {
+                int value = (src[row + x] & 0xFF) + ((current[x + 1] + 8) >> 4);
+                int clamped = value < 0 ? 0 : Math.min(value, 255);
+                int level = quantise[clamped];
+                pack(out, dst, x, bitDepth, level);
+                int error = value - levelValue[level];
+                current[x + 2] += error * 7;
+                next[x] += error * 3;
+                next[x + 1] += error * 5;
+                next[x + 2] += error;
+            }
+            int[] swap = current;
+            current = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+        return new GrayscaleRaster(out, width, height, stride, bitDepth);
+    }
+
+    private static void pack(byte[] out, int rowStart, int x, int bitDepth, int level) {
+        int bit = x * bitDepth;
+        out[rowStart + (bit >> 3)] |= (byte) (level << (8 - bitDepth - (bit & 7)));
+    }
+
+    private static void requireSource(GrayscaleRaster source) {
+        if (source.bitDepth() != 8) {
+            throw new IllegalArgumentException("Expected an 8-bit raster, got " + source.bitDepth() + " bits");
+        }
+    }
+
+    private static byte[] table(byte[][] tables, int bitDepth) {
+        if (bitDepth != 1 && bitDepth != 2 && bitDepth != 4) {
+            throw new IllegalArgumentException("Unsupported bit depth: " + bitDepth);
+        }
+        return tables[bitDepth];
+    }
+}
@@ -0,0 +1,57 @@
+package com.mealplanner.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+
+/**
+ * A greyscale raster of 1, 2, 4 or 8 bits per pixel. Packed rows are {@code stride} bytes,
+ * leftmost pixel in the most significant bits, 0 black and the highest level white, which is the
+ * layout PNG greyscale uses. 8-bit rasters are the antialiased render before dithering.
+ */
+record GrayscaleRaster(byte[] data, int width, int height, int stride, int bitDepth) {
+
+    /**
+     * Wraps the pixel data of a {@link BufferedImage#TYPE_BYTE_GRAY} image without copying it.
+     */
+    static GrayscaleRaster of(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            throw new IllegalArgumentException("Expected a TYPE_BYTE_GRAY image");
+        }
+        ComponentSampleModel sm = (ComponentSampleModel) image.getSampleModel();
+        if (image.getRaster().getSampleModelTranslateX() != 0 || image.getRaster().getSampleModelTranslateY() != 0) {
+            throw new IllegalArgumentException("Sub-images are not supported");
+        }
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        return new GrayscaleRaster(data, image.getWidth(), image.getHeight(), sm.getScanlineStride(), 8);
+    }
+
+    /**
+     * Expands a 1-bit raster to 8 bits per pixel, black 0 and white 255.
+     */
+    static GrayscaleRaster of(MonochromeRaster raster) {
+        int width = raster.width();
+        byte[] data = new byte[width * raster.height()];
+        byte[] src = raster.data();
+        for (int y = 0; y < raster.height(); y++) {
+            int row = y * raster.stride();
+            int dst = y * width;
+            for (int x = 0; x < width; x++) {
+                if ((src[row + (x >> 3)] & (0x80 >>> (x & 7))) != 0) {
+                    data[dst + x] = (byte) 0xFF;
+                }
+            }
+        }
+        return new GrayscaleRaster(data, width, raster.height(), width, 8);
+    }
+
+    /**
+     * The same pixels as a {@link MonochromeRaster}, for 1-bit rasters only.
+     */
+    MonochromeRaster toMonochrome() {
+        if (bitDepth != 1) {
+            throw new IllegalStateException("Not a 1-bit raster: " + bitDepth + " bits per pixel");
+        }
+        return new MonochromeRaster(data, width, height, stride);
+    }
+}
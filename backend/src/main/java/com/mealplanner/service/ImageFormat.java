@@ -0,0 +1,25 @@
+package com.mealplanner.service;
+
+/**
+ * Encodings a TRMNL frame can be served in.
+ */
+public enum ImageFormat {
+    PNG("image/png", "png"),
+    BMP("image/bmp", "bmp");
+
+    private final String mimeType;
+    private final String extension;
+
+    ImageFormat(String mimeType, String extension) {
+        this.mimeType = mimeType;
+        this.extension = extension;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
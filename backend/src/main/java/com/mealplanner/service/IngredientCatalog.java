@@ -0,0 +1,105 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.CatalogEntry;
+import com.mealplanner.model.CatalogIngredient;
+import com.mealplanner.model.CatalogUnit;
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.repository.CatalogIngredientRepository;
+import com.mealplanner.repository.CatalogRepository;
+import com.mealplanner.repository.CatalogUnitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the names and units of ingredients into the catalogs of canonical ingredients and
+ * units, adding any that are not there yet, and sets the ingredients' IDs to match.
+ * New names are added in a transaction of their own, so that when two saves add the same name
+ * at once, the one that loses on the unique name can look up the winner's entry and carry on,
+ * rather than failing its whole transaction.
+ */
+@Component
+public class IngredientCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(IngredientCatalog.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final CatalogIngredientRepository ingredientRepository;
+    private final CatalogUnitRepository unitRepository;
+    private final TransactionTemplate newTransaction;
+
+    public IngredientCatalog(CatalogIngredientRepository ingredientRepository,
+                             CatalogUnitRepository unitRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.ingredientRepository = ingredientRepository;
+        this.unitRepository = unitRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Sets the catalog IDs of any of the ingredients that do not have them, with one lookup per
+     * catalog however many ingredients there are.
+     */
+    @Transactional
+    public void resolve(Collection<Ingredient> ingredients) {
+        List<Ingredient> unresolved = ingredients.stream()
+                .filter(i -> i.getIngredientId() == null || i.getUnitId() == null)
+                .toList();
+        if (unresolved.isEmpty()) {
+            return;
+        }
+        Map<String, Long> ingredientIds = idsOf(unresolved.stream().map(i -> Ingredient.normalize(i.getName())),
+                ingredientRepository, CatalogIngredient::new);
+        Map<String, Long> unitIds = idsOf(unresolved.stream().map(i -> Ingredient.normalize(i.getUnit())),
+                unitRepository, CatalogUnit::new);
+        for (Ingredient ingredient : unresolved) {
+            ingredient.setIngredientId(ingredientIds.get(Ingredient.normalize(ingredient.getName())));
+            ingredient.setUnitId(unitIds.get(Ingredient.normalize(ingredient.getUnit())));
+        }
+    }
+
+    private <T extends CatalogEntry> Map<String, Long> idsOf(Stream<String> names,
+                                                             CatalogRepository<T> repository,
+                                                             Function<String, T> create) {
+        Set<String> wanted = names.collect(Collectors.toSet());
+        Map<String, Long> ids = new HashMap<>();
+        for (int attempt = 1; ; attempt++) {
+            Set<String> missing = wanted.stream().filter(name -> !ids.containsKey(name)).collect(Collectors.toSet());
+            for (T entry : repository.findByNameIn(missing)) {
+                ids.put(entry.getName(), entry.getId());
+            }
+            List<T> added = missing.stream().filter(name -> !ids.containsKey(name)).map(create).toList();
+            if (added.isEmpty()) {
+                return ids;
+            }
+            try {
+                for (T entry : newTransaction.execute(status -> repository.saveAll(added))) {
+                    ids.put(entry.getName(), entry.getId());
+                }
+                return ids;
+            } catch (DataIntegrityViolationException e) {
+                // Another transaction has just added one of the names; look again for its entry
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Catalog name added concurrently, looking it up again: {}", e.getMessage());
+            }
+        }
+    }
+}
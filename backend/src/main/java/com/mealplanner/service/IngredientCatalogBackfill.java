@@ -0,0 +1,46 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.Meal;
+import com.mealplanner.repository.MealRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Resolves into the catalog the ingredients saved before ingredients had catalog IDs, which
+ * Hibernate's in-place schema update leaves empty. Runs at startup, before any shopping list is
+ * added up, and finds nothing to do once it has run.
+ */
+@Component
+public class IngredientCatalogBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(IngredientCatalogBackfill.class);
+
+    private final MealRepository mealRepository;
+    private final IngredientCatalog catalog;
+    private final TransactionTemplate transactionTemplate;
+
+    public IngredientCatalogBackfill(MealRepository mealRepository, IngredientCatalog catalog,
+                                     PlatformTransactionManager transactionManager) {
+        this.mealRepository = mealRepository;
+        this.catalog = catalog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void backfill() {
+        Integer updated = transactionTemplate.execute(status -> {
+            List<Meal> meals = mealRepository.findWithUncataloguedIngredients();
+            catalog.resolve(meals.stream().flatMap(meal -> meal.getIngredients().stream()).toList());
+            return meals.size();
+        });
+        if (updated != null && updated > 0) {
+            log.info("Catalogued the ingredients of {} meals", updated);
+        }
+    }
+}
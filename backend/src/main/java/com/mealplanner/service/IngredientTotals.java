@@ -0,0 +1,184 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.MealUsage;
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.model.IngredientTotal;
+import com.mealplanner.model.Meal;
+import com.mealplanner.repository.IngredientTotalRepository;
+import com.mealplanner.repository.MealPlanEntryRepository;
+import com.mealplanner.repository.MealPlanRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the {@link IngredientTotal}s in step with the plans: each change to an entry adds or
+ * takes away its meal's ingredients on that day, and each change to a meal's ingredients is
+ * carried into every day it is planned on. Callers make their changes here in the same
+ * transaction as the change itself, so the totals are never seen out of step.
+ * Each change locks its plan's row, then reads, changes and writes back the day's totals, so
+ * concurrent changes to a plan are applied one after another rather than overwriting each other
+ * or both inserting the same new total.
+ */
+@Component
+// The totals are worked out from entry dates and catalog IDs, so those must be in place first
+@DependsOn({"mealPlanEntryDateBackfill", "ingredientCatalogBackfill"})
+public class IngredientTotals {
+
+    private static final Logger log = LoggerFactory.getLogger(IngredientTotals.class);
+
+    private final IngredientTotalRepository totalRepository;
+    private final MealPlanEntryRepository entryRepository;
+    private final MealPlanRepository mealPlanRepository;
+    private final IngredientCatalog catalog;
+    private final TransactionTemplate transactionTemplate;
+    // Counts committed changes to the totals, so a screen drawn from them can tell it is stale
+    private final AtomicLong generation = new AtomicLong();
+
+    public IngredientTotals(IngredientTotalRepository totalRepository, MealPlanEntryRepository entryRepository,
+                            MealPlanRepository mealPlanRepository, IngredientCatalog catalog,
+                            PlatformTransactionManager transactionManager) {
+        this.totalRepository = totalRepository;
+        this.entryRepository = entryRepository;
+        this.mealPlanRepository = mealPlanRepository;
+        this.catalog = catalog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Works the totals out from scratch at startup, so they are right whatever happened to the
+     * data while the planner was not running.
+     */
+    @PostConstruct
+    public void rebuild() {
+        Integer rows = transactionTemplate.execute(status -> {
+            totalRepository.deleteAllInBatch();
+            return totalRepository.saveAll(entryRepository.sumIngredientsByPlanAndDate()).size();
+        });
+        generation.incrementAndGet();
+        log.info("Worked out {} ingredient totals", rows);
+    }
+
+    /**
+     * A number that moves on each time a change to the totals commits. Read from memory, so it
+     * is free to check on every poll.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Adds a meal's ingredients to the totals for one day of a plan.
+     */
+    @Transactional
+    public void addMeal(Long mealPlanId, LocalDate date, Meal meal) {
+        adjust(mealPlanId, date, List.of(), ingredientsOf(meal), 1);
+    }
+
+    /**
+     * Takes a meal's ingredients away from the totals for one day of a plan.
+     */
+    @Transactional
+    public void removeMeal(Long mealPlanId, LocalDate date, Meal meal) {
+        adjust(mealPlanId, date, ingredientsOf(meal), List.of(), 1);
+    }
+
+    /**
+     * Replaces a meal's old ingredients with its new ones on every day it is planned on.
+     */
+    @Transactional
+    public void replaceIngredients(Long mealId, List<Ingredient> before, List<Ingredient> after) {
+        List<Ingredient> removed = before != null ? before : List.of();
+        List<Ingredient> added = after != null ? after : List.of();
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        for (MealUsage use : entryRepository.findUsesOfMeal(mealId)) {
+            adjust(use.mealPlanId(), use.entryDate(), removed, added, use.count());
+        }
+    }
+
+    private void adjust(Long mealPlanId, LocalDate date, List<Ingredient> removed, List<Ingredient> added,
+                        long times) {
+        if (mealPlanId == null || date == null || (removed.isEmpty() && added.isEmpty())) {
+            return;
+        }
+        // Meals are catalogued as they are saved; this only finds work if one was saved some other way
+        catalog.resolve(removed);
+        catalog.resolve(added);
+        // A new total is inserted, so there is no row of its own to lock yet
+        mealPlanRepository.lockById(mealPlanId);
+        LongKeyedMap<IngredientTotal> totals = new LongKeyedMap<>();
+        for (IngredientTotal total : totalRepository.findByMealPlanIdAndEntryDate(mealPlanId, date)) {
+            totals.put(key(total.getIngredientId(), total.getUnitId()), total);
+        }
+        merge(totals, mealPlanId, date, removed, -times);
+        merge(totals, mealPlanId, date, added, times);
+        for (IngredientTotal total : totals.values()) {
+            if (total.getContributions() <= 0) {
+                if (total.getId() != null) {
+                    totalRepository.delete(total);
+                }
+            } else if (total.getId() == null) {
+                totalRepository.save(total);
+            }
+        }
+        changed();
+    }
+
+    /**
+     * Moves the generation on once the current transaction commits, so a reader never sees a
+     * generation whose totals are not yet visible.
+     */
+    private void changed() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            generation.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                generation.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Adds each ingredient, times over, to its total in the map, starting a total for any not
+     * there yet. Quantities stay in the unit they were entered in; units are only converted when
+     * a shopping list adds up one ingredient in several. A negative times takes the ingredients
+     * away. The ingredients must be catalogued.
+     */
+    static void merge(LongKeyedMap<IngredientTotal> totals, Long mealPlanId, LocalDate date,
+                      List<Ingredient> ingredients, long times) {
+        for (Ingredient ingredient : ingredients) {
+            totals.computeIfAbsent(key(ingredient.getIngredientId(), ingredient.getUnitId()),
+                            k -> new IngredientTotal(mealPlanId, date, ingredient.getIngredientId(),
+                                    ingredient.getUnitId(), 0, 0))
+                    .add(ingredient.getQuantity(), times);
+        }
+    }
+
+    /**
+     * One key for a catalog ingredient and unit. Catalog IDs count up from one, one per distinct
+     * name, so each fits in half a long.
+     */
+    static long key(long ingredientId, long unitId) {
+        return ingredientId << 32 | unitId;
+    }
+
+    private static List<Ingredient> ingredientsOf(Meal meal) {
+        return meal != null && meal.getIngredients() != null ? meal.getIngredients() : List.of();
+    }
+}
@@ -0,0 +1,108 @@
+package com.mealplanner.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * A map from primitive long keys to non-null values, held in two parallel arrays with linear
+ * probing: no boxed keys and no entry objects, so adding up totals by catalog ID allocates
+ * nothing beyond the totals themselves. Entries cannot be removed. Not thread-safe.
+ */
+final class LongKeyedMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    LongKeyedMap() {
+        this(16);
+    }
+
+    /**
+     * @param expected how many entries the map should hold before it has to grow
+     */
+    LongKeyedMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int slot = slot(key);
+        return (V) values[slot];
+    }
+
+    /**
+     * Returns the value for the key, first putting the one made by create if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> create) {
+        int slot = slot(key);
+        if (values[slot] != null) {
+            return (V) values[slot];
+        }
+        V value = create.apply(key);
+        insert(slot, key, value);
+        return value;
+    }
+
+    void put(long key, V value) {
+        int slot = slot(key);
+        if (values[slot] != null) {
+            values[slot] = value;
+        } else {
+            insert(slot, key, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                list.add((V) value);
+            }
+        }
+        return list;
+    }
+
+    /** The slot holding the key, or the empty slot where it would go. */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        // Spread the bits so that keys counting up from the same high half do not cluster
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, long key, V value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.mealplanner.service;
+
+import java.time.LocalDate;
+
+/**
+ * Published by {@link MealPlanService} whenever the entries or notes of a week's plan change.
+ * Listeners that cache anything derived from a plan (e.g. rendered TRMNL frames) use it to invalidate.
+ * The version is the plan's new {@link com.mealplanner.model.MealPlan#getVersion() version}.
+ */
+public record MealPlanChangedEvent(Long planId, LocalDate weekStartDate, long version) {
+}
@@ -0,0 +1,44 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.MealPlanEntry;
+import com.mealplanner.repository.MealPlanEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills in the entry date of entries saved before entries had one. The schema is updated in
+ * place by Hibernate, which adds the column but leaves it empty on existing rows; this runs at
+ * startup, before anything reads entries by date, and finds nothing to do once it has run.
+ */
+@Component
+public class MealPlanEntryDateBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(MealPlanEntryDateBackfill.class);
+
+    private final MealPlanEntryRepository entryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public MealPlanEntryDateBackfill(MealPlanEntryRepository entryRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.entryRepository = entryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void backfill() {
+        Integer updated = transactionTemplate.execute(status -> {
+            List<MealPlanEntry> undated = entryRepository.findByEntryDateIsNull();
+            undated.forEach(MealPlanEntry::updateEntryDate);
+            return undated.size();
+        });
+        if (updated != null && updated > 0) {
+            log.info("Set the entry date on {} meal plan entries", updated);
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.mealplanner.service;
 
 import com.mealplanner.dto.EntryRequest;
+import com.mealplanner.dto.IngredientSum;
 import com.mealplanner.dto.ShoppingItem;
 import com.mealplanner.model.*;
+import com.mealplanner.repository.IngredientTotalRepository;
 import com.mealplanner.repository.MealPlanEntryRepository;
 import com.mealplanner.repository.MealPlanRepository;
 import com.mealplanner.repository.MealRepository;
 import com.mealplanner.repository.PersonRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +19,8 @@ import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class MealPlanService {
@@ -24,15 +29,27 @@ public class MealPlanService {
     private final MealPlanEntryRepository entryRepository;
     private final MealRepository mealRepository;
     private final PersonRepository personRepository;
+    private final IngredientTotalRepository totalRepository;
+    private final IngredientTotals ingredientTotals;
+    private final UnitConversions conversions;
+    private final ApplicationEventPublisher eventPublisher;
 
     public MealPlanService(MealPlanRepository mealPlanRepository,
                            MealPlanEntryRepository entryRepository,
                            MealRepository mealRepository,
-                           PersonRepository personRepository) {
+                           PersonRepository personRepository,
+                           IngredientTotalRepository totalRepository,
+                           IngredientTotals ingredientTotals,
+                           UnitConversions conversions,
+                           ApplicationEventPublisher eventPublisher) {
         this.mealPlanRepository = mealPlanRepository;
         this.entryRepository = entryRepository;
         this.mealRepository = mealRepository;
         this.personRepository = personRepository;
+        this.totalRepository = totalRepository;
+        this.ingredientTotals = ingredientTotals;
+        this.conversions = conversions;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<MealPlan> findAll() {
@@ -64,14 +81,15 @@ public class MealPlanService {
         MealPlanEntry entry = new MealPlanEntry();
         entry.setMealPlan(plan);
         entry.setMeal(meal);
-        entry.setDayOfWeek(request.getDayOfWeek());
+        DayOfWeek dayOfWeek = DayOfWeek.valueOf(request.getDayOfWeek());
+        entry.setDayOfWeek(dayOfWeek);
         if (request.getMealType() != null && !request.getMealType().isEmpty()) {
             entry.setMealType(MealType.valueOf(request.getMealType()));
         }
 
         // Set display order to place new entry at end of day's meals
         int maxOrder = plan.getEntries().stream()
-                .filter(e -> request.getDayOfWeek().equals(e.getDayOfWeek()))
+                .filter(e -> e.getDayOfWeek() == dayOfWeek)
                 .mapToInt(MealPlanEntry::getDisplayOrder)
                 .max().orElse(-1);
         entry.setDisplayOrder(maxOrder + 1);
@@ -83,7 +101,10 @@ public class MealPlanService {
         }
 
         plan.getEntries().add(entry);
+        ingredientTotals.addMeal(plan.getId(), entry.getEntryDate(), meal);
+        bumpVersion(plan);
         mealPlanRepository.save(plan);
+        publishChange(plan);
         return entry;
     }
 
@@ -91,9 +112,11 @@ public class MealPlanService {
     public MealPlanEntry updateEntry(@NonNull Long entryId, @NonNull EntryRequest request) {
         MealPlanEntry entry = entryRepository.findById(entryId)
                 .orElseThrow(() -> new RuntimeException("Entry not found"));
+        Meal mealBefore = entry.getMeal();
+        LocalDate dateBefore = entry.getEntryDate();
 
         if (request.getDayOfWeek() != null) {
-            entry.setDayOfWeek(request.getDayOfWeek());
+            entry.setDayOfWeek(DayOfWeek.valueOf(request.getDayOfWeek()));
         }
         if (request.getMealType() != null) {
             if (request.getMealType().isEmpty()) {
@@ -116,7 +139,15 @@ public class MealPlanService {
             entry.setAssignedCook(cook);
         }
 
-        return entryRepository.save(Objects.requireNonNull(entry));
+        if (entry.getMeal() != mealBefore || !Objects.equals(entry.getEntryDate(), dateBefore)) {
+            Long planId = entry.getMealPlan() != null ? entry.getMealPlan().getId() : null;
+            ingredientTotals.removeMeal(planId, dateBefore, mealBefore);
+            ingredientTotals.addMeal(planId, entry.getEntryDate(), entry.getMeal());
+        }
+        bumpVersion(entry.getMealPlan());
+        MealPlanEntry saved = entryRepository.save(Objects.requireNonNull(entry));
+        publishChange(entry.getMealPlan());
+        return saved;
     }
 
     @Transactional
@@ -125,101 +156,106 @@ public class MealPlanService {
                 .orElseThrow(() -> new RuntimeException("Entry not found"));
         MealPlan plan = entry.getMealPlan();
         plan.getEntries().remove(entry);
+        ingredientTotals.removeMeal(plan.getId(), entry.getEntryDate(), entry.getMeal());
+        bumpVersion(plan);
         mealPlanRepository.save(plan);
+        publishChange(plan);
     }
 
+    /**
+     * Returns the plan's shopping list, summed from its day totals, with any ingredient
+     * entered in several units of the same dimension added up in one of them.
+     */
     public List<ShoppingItem> generateShoppingList(@NonNull Long planId) {
-        MealPlan plan = findById(planId);
-        return combineIngredients(plan.getEntries());
+        if (!mealPlanRepository.existsById(planId)) {
+            throw new RuntimeException("Meal plan not found with id: " + planId);
+        }
+        return conversions.combine(totalRepository.findShoppingList(planId));
     }
 
+    @Transactional(readOnly = true)
     public List<ShoppingItem> generateShoppingListForDateRange(LocalDate startDate, LocalDate endDate) {
-        LocalDate searchFrom = startDate.minusDays(6);
-        List<MealPlan> plans = mealPlanRepository.findByWeekStartDateBetween(searchFrom, endDate);
+        List<ShoppingItem> items = new ArrayList<>();
+        forEachShoppingItem(startDate, endDate, items::add);
+        return items;
+    }
 
-        List<MealPlanEntry> entriesInRange = new ArrayList<>();
-        for (MealPlan plan : plans) {
-            for (MealPlanEntry entry : plan.getEntries()) {
-                LocalDate entryDate = plan.getWeekStartDate().plusDays(dayOffset(entry.getDayOfWeek()));
-                if (!entryDate.isBefore(startDate) && !entryDate.isAfter(endDate)) {
-                    entriesInRange.add(entry);
-                }
-            }
+    /**
+     * Passes each item of the shopping list for the dates startDate..endDate to the consumer, in
+     * name order. The list is summed by the database from the day totals, so however long the
+     * range, no plan, entry or meal is loaded and only one ingredient is held at a time.
+     */
+    @Transactional(readOnly = true)
+    public void forEachShoppingItem(LocalDate startDate, LocalDate endDate, Consumer<ShoppingItem> consumer) {
+        try (Stream<IngredientSum> sums = totalRepository.streamShoppingList(startDate, endDate)) {
+            conversions.combine(sums, consumer);
         }
-
-        return combineIngredients(entriesInRange);
     }
 
-    private List<ShoppingItem> combineIngredients(List<MealPlanEntry> entries) {
-        Map<String, ShoppingItem> items = new LinkedHashMap<>();
-
-        for (MealPlanEntry entry : entries) {
-            if (entry.getMeal() == null || entry.getMeal().getIngredients() == null) continue;
-
-            for (Ingredient ingredient : entry.getMeal().getIngredients()) {
-                String normalizedName = normalizeIngredientName(ingredient.getName());
-                String normalizedUnit = normalizeIngredientName(ingredient.getUnit());
-                String key = normalizedName + "|" + normalizedUnit;
+    /**
+     * Returns the entries dated from..to inclusive, by date then display order, whichever weeks
+     * they fall in.
+     */
+    public List<MealPlanEntry> findEntriesBetween(LocalDate from, LocalDate to) {
+        return entryRepository.findByEntryDateBetween(from, to);
+    }
 
-                items.merge(key,
-                        new ShoppingItem(ingredient.getName(), ingredient.getQuantity(), ingredient.getUnit()),
-                        (existing, newItem) -> {
-                            existing.setTotalQuantity(existing.getTotalQuantity() + newItem.getTotalQuantity());
-                            return existing;
-                        });
-            }
+    @Transactional
+    public MealPlan updateDayNotes(@NonNull Long planId, java.util.Map<String, String> dayNotes) {
+        MealPlan plan = findById(planId);
+        if (dayNotes != null) {
+            plan.getDayNotes().clear();
+            plan.getDayNotes().putAll(dayNotes);
         }
+        bumpVersion(plan);
+        MealPlan saved = mealPlanRepository.save(Objects.requireNonNull(plan));
+        publishChange(plan);
+        return saved;
+    }
 
-        List<ShoppingItem> result = new ArrayList<>(items.values());
-        result.sort(Comparator.comparing(ShoppingItem::getName, String.CASE_INSENSITIVE_ORDER));
-        return result;
+    /**
+     * Marks every plan with an entry for the meal as changed, after an edit to the meal itself,
+     * so that anything showing its title or ingredients is refreshed.
+     */
+    @Transactional
+    public void mealChanged(@NonNull Long mealId) {
+        plansChanged(entryRepository.findPlanIdsByMealId(mealId));
     }
 
-    private String normalizeIngredientName(String name) {
-        if (name == null) return "";
-        return singularize(name.toLowerCase().trim());
+    /**
+     * Marks every plan with an entry cooked by the person as changed, after an edit to the person.
+     */
+    @Transactional
+    public void personChanged(@NonNull Long personId) {
+        plansChanged(entryRepository.findPlanIdsByAssignedCookId(personId));
     }
 
-    private String singularize(String word) {
-        if (word == null || word.isEmpty()) return word;
-        if (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses") || word.endsWith("xes") || word.endsWith("zes")) {
-            return word.substring(0, word.length() - 2);
-        }
-        if (word.endsWith("ies") && word.length() > 4) {
-            return word.substring(0, word.length() - 3) + "y";
-        }
-        if (word.endsWith("ves") && word.length() > 4) {
-            return word.substring(0, word.length() - 3) + "f";
-        }
-        if (word.endsWith("oes") && word.length() > 4) {
-            return word.substring(0, word.length() - 2);
-        }
-        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && word.length() > 2) {
-            return word.substring(0, word.length() - 1);
+    private void plansChanged(List<Long> planIds) {
+        List<MealPlan> plans = new ArrayList<>(mealPlanRepository.findAllById(planIds));
+        // In ID order, like every other change that locks several plans
+        plans.sort(Comparator.comparing(MealPlan::getId));
+        for (MealPlan plan : plans) {
+            bumpVersion(plan);
+            publishChange(plan);
         }
-        return word;
     }
 
-    private int dayOffset(String dayOfWeek) {
-        return switch (dayOfWeek) {
-            case "SATURDAY" -> 0;
-            case "SUNDAY" -> 1;
-            case "MONDAY" -> 2;
-            case "TUESDAY" -> 3;
-            case "WEDNESDAY" -> 4;
-            case "THURSDAY" -> 5;
-            case "FRIDAY" -> 6;
-            default -> 0;
-        };
+    /**
+     * Increments the plan's version in the database and reads back the result. The increment
+     * holds the plan's row lock until the transaction ends, so a concurrent edit waits and then
+     * gets the next version rather than the same one.
+     */
+    private void bumpVersion(MealPlan plan) {
+        if (plan != null) {
+            mealPlanRepository.incrementVersion(plan.getId());
+            plan.setVersion(mealPlanRepository.findVersionById(plan.getId()));
+        }
     }
 
-    @Transactional
-    public MealPlan updateDayNotes(@NonNull Long planId, java.util.Map<String, String> dayNotes) {
-        MealPlan plan = findById(planId);
-        if (dayNotes != null) {
-            plan.getDayNotes().clear();
-            plan.getDayNotes().putAll(dayNotes);
+    private void publishChange(MealPlan plan) {
+        if (plan != null) {
+            eventPublisher.publishEvent(
+                    new MealPlanChangedEvent(plan.getId(), plan.getWeekStartDate(), plan.getVersion()));
         }
-        return mealPlanRepository.save(Objects.requireNonNull(plan));
     }
 }
@@ -0,0 +1,42 @@
+package com.mealplanner.service;
+
+import com.mealplanner.repository.MealPlanRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index from week start date to the current {@link com.mealplanner.model.MealPlan} version.
+ * Each week is read from the database once; after that it is kept up to date from
+ * {@link MealPlanChangedEvent}s, so looking up a version costs no query.
+ */
+@Component
+public class MealPlanVersionIndex {
+
+    /** Version reported for weeks without a plan. A new plan starts at this version too, and is equally empty. */
+    public static final long NO_PLAN = 0L;
+
+    private final MealPlanRepository mealPlanRepository;
+    private final Map<LocalDate, Long> versions = new ConcurrentHashMap<>();
+
+    public MealPlanVersionIndex(MealPlanRepository mealPlanRepository) {
+        this.mealPlanRepository = mealPlanRepository;
+    }
+
+    public long versionOf(LocalDate weekStartDate) {
+        return versions.computeIfAbsent(weekStartDate,
+                week -> mealPlanRepository.findVersionByWeekStartDate(week).orElse(NO_PLAN));
+    }
+
+    /**
+     * Records a plan's new version once its transaction has committed, so a reader never sees a
+     * version whose data is not yet visible. Versions only move forward, whatever the event order.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMealPlanChanged(MealPlanChangedEvent event) {
+        versions.merge(event.weekStartDate(), event.version(), Math::max);
+    }
+}
@@ -1,10 +1,13 @@
 package com.mealplanner.service;
 
+import com.mealplanner.model.Ingredient;
 import com.mealplanner.model.Meal;
 import com.mealplanner.repository.MealRepository;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,9 +16,16 @@ import java.util.Map;
 public class MealService {
 
     private final MealRepository mealRepository;
+    private final IngredientCatalog catalog;
+    private final IngredientTotals ingredientTotals;
+    private final MealPlanService mealPlanService;
 
-    public MealService(MealRepository mealRepository) {
+    public MealService(MealRepository mealRepository, IngredientCatalog catalog, IngredientTotals ingredientTotals,
+                       MealPlanService mealPlanService) {
         this.mealRepository = mealRepository;
+        this.catalog = catalog;
+        this.ingredientTotals = ingredientTotals;
+        this.mealPlanService = mealPlanService;
     }
 
     public List<Meal> findAll() {
@@ -31,12 +41,22 @@ public class MealService {
         return mealRepository.findByTitleContainingIgnoreCase(query);
     }
 
+    @Transactional
     public Meal create(@NonNull Meal meal) {
+        catalogIngredients(meal);
         return mealRepository.save(meal);
     }
 
+    /**
+     * Updates a meal, resolving its ingredients into the catalog and carrying any change to them
+     * into the shopping list totals of every plan it is in. Those plans are marked as changed,
+     * so displays showing the meal are refreshed.
+     */
+    @Transactional
     public Meal update(@NonNull Long id, Meal updated) {
         Meal meal = findById(id);
+        List<Ingredient> ingredientsBefore = meal.getIngredients() != null
+                ? new ArrayList<>(meal.getIngredients()) : List.of();
         meal.setTitle(updated.getTitle());
         meal.setDescription(updated.getDescription());
         meal.setIngredients(updated.getIngredients());
@@ -44,13 +64,18 @@ public class MealService {
         meal.setCookTimeMinutes(updated.getCookTimeMinutes());
         meal.setEffort(updated.getEffort());
         meal.setImageUrl(updated.getImageUrl());
-        return mealRepository.save(meal);
+        catalogIngredients(meal);
+        Meal saved = mealRepository.save(meal);
+        ingredientTotals.replaceIngredients(id, ingredientsBefore, meal.getIngredients());
+        mealPlanService.mealChanged(id);
+        return saved;
     }
 
     public void delete(@NonNull Long id) {
         mealRepository.deleteById(id);
     }
 
+    @Transactional
     public Map<String, Object> importMeals(List<Meal> meals) {
         int imported = 0;
         int skipped = 0;
@@ -58,6 +83,7 @@ public class MealService {
             boolean exists = mealRepository.findByTitleIgnoreCase(meal.getTitle()).isPresent();
             if (!exists) {
                 meal.setId(null);
+                catalogIngredients(meal);
                 mealRepository.save(meal);
                 imported++;
             } else {
@@ -69,4 +95,10 @@ public class MealService {
         result.put("skipped", skipped);
         return result;
     }
+
+    private void catalogIngredients(Meal meal) {
+        if (meal.getIngredients() != null) {
+            catalog.resolve(meal.getIngredients());
+        }
+    }
 }
@@ -0,0 +1,163 @@
+package com.mealplanner.service;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Writes 1-bit packed rasters as uncompressed 1-bit BMP files, the format the TRMNL firmware prefers.
+ * Rows are copied straight from the packed raster into a preallocated output array, so an encode
+ * allocates nothing but the result. Greyscale rasters are written as 4-bit palettised BMPs, BMP
+ * having no 2-bit format: 2-bit pixels are widened to 4-bit indices into a 4-entry grey palette.
+ * Stateless and thread-safe.
+ */
+public final class MonochromeBmpEncoder {
+
+    private static final int FILE_HEADER_SIZE = 14;
+    private static final int INFO_HEADER_SIZE = 40;
+    private static final int PALETTE_SIZE = 2 * 4;
+    private static final int PIXEL_OFFSET = FILE_HEADER_SIZE + INFO_HEADER_SIZE + PALETTE_SIZE;
+    private static final int PIXELS_PER_METRE = 2835; // 72 DPI
+
+    // Two 4-bit indices for each 2-bit pixel pair in a byte, indexed by that byte
+    private static final short[] WIDEN_2_TO_4 = new short[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            int widened = 0;
+            for (int i = 0; i < 4; i++) {
+                widened = (widened << 4) | ((b >>> (6 - 2 * i)) & 0x3);
+            }
+            WIDEN_2_TO_4[b] = (short) widened;
+        }
+    }
+
+    /**
+     * Encodes a {@link BufferedImage#TYPE_BYTE_BINARY} image with the default black/white palette.
+     */
+    public byte[] encode(BufferedImage image) {
+        MonochromeRaster raster = MonochromeRaster.of(image);
+        return encode(raster.data(), raster.width(), raster.height(), raster.stride());
+    }
+
+    /**
+     * Encodes a packed 1-bit raster where the most significant bit is the leftmost pixel,
+     * 0 is black and 1 is white.
+     */
+    public byte[] encode(byte[] packed, int width, int height, int stride) {
+        int rowSize = ((width + 31) / 32) * 4; // BMP rows are padded to 4 bytes
+        int imageSize = rowSize * height;
+        byte[] out = new byte[PIXEL_OFFSET + imageSize];
+
+        // BITMAPFILEHEADER
+        out[0] = 'B';
+        out[1] = 'M';
+        putInt(out, 2, out.length);
+        putInt(out, 10, PIXEL_OFFSET);
+
+        // BITMAPINFOHEADER
+        putInt(out, 14, INFO_HEADER_SIZE);
+        putInt(out, 18, width);
+        putInt(out, 22, height); // positive height: rows are stored bottom-up
+        putShort(out, 26, 1);    // planes
+        putShort(out, 28, 1);    // bits per pixel
+        putInt(out, 30, 0);      // BI_RGB, uncompressed
+        putInt(out, 34, imageSize);
+        putInt(out, 38, PIXELS_PER_METRE);
+        putInt(out, 42, PIXELS_PER_METRE);
+        putInt(out, 46, 2);      // colours used
+        putInt(out, 50, 2);      // important colours
+
+        // Palette (BGRA): index 0 black, index 1 white
+        putInt(out, 54, 0x00000000);
+        putInt(out, 58, 0x00FFFFFF);
+
+        int rowBytes = (width + 7) / 8;
+        for (int y = 0; y < height; y++) {
+            int dst = PIXEL_OFFSET + (height - 1 - y) * rowSize;
+            System.arraycopy(packed, y * stride, out, dst, rowBytes);
+        }
+        if (width % 8 != 0) {
+            // Clear any bits past the right edge so padding pixels are black, not leftover data
+            int mask = 0xFF << (8 - width % 8);
+            for (int y = 0; y < height; y++) {
+                int last = PIXEL_OFFSET + y * rowSize + rowBytes - 1;
+                out[last] = (byte) (out[last] & mask);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Encodes a packed greyscale raster of 1, 2 or 4 bits per pixel, leftmost pixel in the most
+     * significant bits, 0 black and the highest level white.
+     */
+    public byte[] encode(byte[] packed, int width, int height, int stride, int bitDepth) {
+        if (bitDepth == 1) {
+            return encode(packed, width, height, stride);
+        }
+        if (bitDepth != 2 && bitDepth != 4) {
+            throw new IllegalArgumentException("Unsupported BMP greyscale bit depth: " + bitDepth);
+        }
+        int levels = 1 << bitDepth;
+        int pixelOffset = FILE_HEADER_SIZE + INFO_HEADER_SIZE + levels * 4;
+        int rowSize = ((width * 4 + 31) / 32) * 4;
+        int imageSize = rowSize * height;
+        byte[] out = new byte[pixelOffset + imageSize];
+
+        out[0] = 'B';
+        out[1] = 'M';
+        putInt(out, 2, out.length);
+        putInt(out, 10, pixelOffset);
+
+        putInt(out, 14, INFO_HEADER_SIZE);
+        putInt(out, 18, width);
+        putInt(out, 22, height);
+        putShort(out, 26, 1);
+        putShort(out, 28, 4);    // bits per pixel
+        putInt(out, 30, 0);
+        putInt(out, 34, imageSize);
+        putInt(out, 38, PIXELS_PER_METRE);
+        putInt(out, 42, PIXELS_PER_METRE);
+        putInt(out, 46, levels);
+        putInt(out, 50, levels);
+
+        // Palette: evenly spaced greys from black to white
+        for (int i = 0; i < levels; i++) {
+            int grey = i * 255 / (levels - 1);
+            putInt(out, FILE_HEADER_SIZE + INFO_HEADER_SIZE + i * 4, grey << 16 | grey << 8 | grey);
+        }
+
+        int rowBytes = (width * 4 + 7) / 8;
+        for (int y = 0; y < height; y++) {
+            int dst = pixelOffset + (height - 1 - y) * rowSize;
+            int src = y * stride;
+            if (bitDepth == 4) {
+                System.arraycopy(packed, src, out, dst, rowBytes);
+            } else {
+                for (int i = 0; i < rowBytes; i += 2) {
+                    short widened = WIDEN_2_TO_4[packed[src + i / 2] & 0xFF];
+                    out[dst + i] = (byte) (widened >>> 8);
+                    if (i + 1 < rowBytes) {
+                        out[dst + i + 1] = (byte) widened;
+                    }
+                }
+            }
+            if (width % 2 != 0) {
+                // Clear the unused low nibble past the right edge
+                out[dst + rowBytes - 1] &= (byte) 0xF0;
+            }
+        }
+        return out;
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >>> 8);
+        b[off + 2] = (byte) (v >>> 16);
+        b[off + 3] = (byte) (v >>> 24);
+    }
+
+    private static void putShort(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >>> 8);
+    }
+}
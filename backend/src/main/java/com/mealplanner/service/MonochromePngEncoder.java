@@ -0,0 +1,144 @@
+package com.mealplanner.service;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes 1-bit packed rasters as 1-bit greyscale PNG files, and 2-, 4- and 8-bit greyscale rasters
+ * at their own depth.
+ * The packed rows are already in PNG's bit order, so each scanline is copied as-is behind a
+ * "None" filter byte. The deflater and the scanline/output buffers are kept between encodes,
+ * so a steady stream of same-sized frames allocates only the result array.
+ * Encodes are serialised on the instance; at ~1 ms per 800x480 frame this is not a bottleneck.
+ */
+public final class MonochromePngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+    private static final int CHUNK_OVERHEAD = 12; // length + type + CRC
+    private static final int TRAILER = 4 + CHUNK_OVERHEAD; // IDAT CRC + empty IEND chunk
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private byte[] scanlines = new byte[0];
+    private byte[] out = new byte[0];
+
+    public MonochromePngEncoder() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public MonochromePngEncoder(int compressionLevel) {
+        this.deflater = new Deflater(compressionLevel);
+    }
+
+    /**
+     * Encodes a {@link BufferedImage#TYPE_BYTE_BINARY} image with the default black/white palette.
+     */
+    public byte[] encode(BufferedImage image) {
+        MonochromeRaster raster = MonochromeRaster.of(image);
+        return encode(raster.data(), raster.width(), raster.height(), raster.stride());
+    }
+
+    /**
+     * Encodes a packed 1-bit raster where the most significant bit is the leftmost pixel,
+     * 0 is black and 1 is white.
+     */
+    public byte[] encode(byte[] packed, int width, int height, int stride) {
+        return encode(packed, width, height, stride, 1);
+    }
+
+    /**
+     * Encodes a packed greyscale raster of 1, 2, 4 or 8 bits per pixel, leftmost pixel in the most
+     * significant bits, 0 black and the highest level white.
+     */
+    public synchronized byte[] encode(byte[] packed, int width, int height, int stride, int bitDepth) {
+        if (bitDepth != 1 && bitDepth != 2 && bitDepth != 4 && bitDepth != 8) {
+            throw new IllegalArgumentException("Unsupported PNG greyscale bit depth: " + bitDepth);
+        }
+        int rowBytes = (width * bitDepth + 7) / 8;
+        int filteredSize = (rowBytes + 1) * height;
+        if (scanlines.length < filteredSize) {
+            scanlines = new byte[filteredSize];
+        }
+        for (int y = 0; y < height; y++) {
+            int dst = y * (rowBytes + 1);
+            scanlines[dst] = 0; // filter type None
+            System.arraycopy(packed, y * stride, scanlines, dst + 1, rowBytes);
+        }
+
+        int headerSize = SIGNATURE.length + CHUNK_OVERHEAD + 13;
+        // Worst case deflate output is slightly larger than its input
+        ensureCapacity(headerSize + 8 + filteredSize + filteredSize / 1000 + 64 + TRAILER);
+
+        int pos = 0;
+        System.arraycopy(SIGNATURE, 0, out, 0, SIGNATURE.length);
+        pos += SIGNATURE.length;
+
+        // IHDR
+        pos = putInt(pos, 13);
+        int ihdrStart = pos;
+        pos = put(pos, IHDR);
+        pos = putInt(pos, width);
+        pos = putInt(pos, height);
+        out[pos++] = (byte) bitDepth;
+        out[pos++] = 0; // colour type: greyscale
+        out[pos++] = 0; // compression
+        out[pos++] = 0; // filter method
+        out[pos++] = 0; // no interlace
+        pos = putCrc(ihdrStart, pos);
+
+        // IDAT: length is patched in once the compressed size is known
+        int lengthPos = pos;
+        pos += 4;
+        int idatStart = pos;
+        pos = put(pos, IDAT);
+        deflater.reset();
+        deflater.setInput(scanlines, 0, filteredSize);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (pos == out.length - TRAILER) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            pos += deflater.deflate(out, pos, out.length - TRAILER - pos);
+        }
+        putInt(lengthPos, pos - idatStart - 4);
+        pos = putCrc(idatStart, pos);
+
+        // IEND
+        pos = putInt(pos, 0);
+        int iendStart = pos;
+        pos = put(pos, IEND);
+        pos = putCrc(iendStart, pos);
+
+        return Arrays.copyOf(out, pos);
+    }
+
+    private void ensureCapacity(int size) {
+        if (out.length < size) {
+            out = new byte[size];
+        }
+    }
+
+    private int put(int pos, byte[] bytes) {
+        System.arraycopy(bytes, 0, out, pos, bytes.length);
+        return pos + bytes.length;
+    }
+
+    private int putInt(int pos, int v) {
+        out[pos] = (byte) (v >>> 24);
+        out[pos + 1] = (byte) (v >>> 16);
+        out[pos + 2] = (byte) (v >>> 8);
+        out[pos + 3] = (byte) v;
+        return pos + 4;
+    }
+
+    private int putCrc(int chunkStart, int chunkEnd) {
+        crc.reset();
+        crc.update(out, chunkStart, chunkEnd - chunkStart);
+        return putInt(chunkEnd, (int) crc.getValue());
+    }
+}
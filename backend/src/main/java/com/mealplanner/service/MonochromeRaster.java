@@ -0,0 +1,26 @@
+package com.mealplanner.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+
+/**
+ * The packed pixel data behind a 1-bit {@link BufferedImage#TYPE_BYTE_BINARY} image, without copying it.
+ * Each row is {@code stride} bytes, most significant bit leftmost, 0 black and 1 white.
+ */
+record MonochromeRaster(byte[] data, int width, int height, int stride) {
+
+    static MonochromeRaster of(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_BYTE_BINARY
+                || image.getColorModel().getPixelSize() != 1) {
+            throw new IllegalArgumentException("Expected a 1-bit TYPE_BYTE_BINARY image");
+        }
+        MultiPixelPackedSampleModel sm = (MultiPixelPackedSampleModel) image.getSampleModel();
+        if (sm.getDataBitOffset() != 0 || image.getRaster().getSampleModelTranslateX() != 0
+                || image.getRaster().getSampleModelTranslateY() != 0) {
+            throw new IllegalArgumentException("Sub-images are not supported");
+        }
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        return new MonochromeRaster(data, image.getWidth(), image.getHeight(), sm.getScanlineStride());
+    }
+}
@@ -4,6 +4,7 @@ import com.mealplanner.model.Person;
 import com.mealplanner.repository.PersonRepository;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,9 +12,11 @@ import java.util.List;
 public class PersonService {
 
     private final PersonRepository personRepository;
+    private final MealPlanService mealPlanService;
 
-    public PersonService(PersonRepository personRepository) {
+    public PersonService(PersonRepository personRepository, MealPlanService mealPlanService) {
         this.personRepository = personRepository;
+        this.mealPlanService = mealPlanService;
     }
 
     public List<Person> findAll() {
@@ -29,12 +32,18 @@ public class PersonService {
         return personRepository.save(person);
     }
 
+    /**
+     * Updates a person, marking the plans they cook in as changed so displays show the new name.
+     */
+    @Transactional
     public Person update(@NonNull Long id, Person updated) {
         Person person = findById(id);
         person.setName(updated.getName());
         person.setEatingPreferences(updated.getEatingPreferences());
         person.setCookingPreferences(updated.getCookingPreferences());
-        return personRepository.save(person);
+        Person saved = personRepository.save(person);
+        mealPlanService.personChanged(id);
+        return saved;
     }
 
     public void delete(@NonNull Long id) {
@@ -0,0 +1,111 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.DisplayLayout;
+import com.mealplanner.model.DitherMode;
+import com.mealplanner.model.RenderBackend;
+
+import java.util.Locale;
+
+/**
+ * What a frame is rendered for: panel resolution, layout, render backend and pixel depth.
+ * Panels with 2 or 4 bits per pixel are rendered in greyscale and dithered down to their grey
+ * levels with the profile's dither mode; 1-bit panels have no dither mode. Devices sharing a profile share
+ * cached frames; the plan data and content hash behind a frame are shared by every profile.
+ * The device timezone is not part of the profile because it only decides which date is rendered,
+ * and the date is already part of the frame key.
+ */
+public record RenderProfile(int width, int height, DisplayLayout layout, RenderBackend backend,
+                            int bitDepth, DitherMode dither) {
+
+    /** The standard 800x480 1-bit TRMNL panel showing today and tomorrow. */
+    public static final RenderProfile DEFAULT = new RenderProfile(800, 480, DisplayLayout.TWO_DAY);
+
+    static final int MIN_SIZE = 200;
+    static final int MAX_SIZE = 2048;
+
+    public RenderProfile {
+        if (width < MIN_SIZE || width > MAX_SIZE || height < MIN_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported display size: " + width + "x" + height);
+        }
+        if (layout == null) {
+            layout = DisplayLayout.TWO_DAY;
+        }
+        if (backend == null) {
+            backend = RenderBackend.AWT;
+        }
+        if (bitDepth != 1 && bitDepth != 2 && bitDepth != 4) {
+            throw new IllegalArgumentException("Unsupported bit depth: " + bitDepth);
+        }
+        if (bitDepth == 1) {
+            dither = null;
+        } else if (dither == null) {
+            dither = DitherMode.ORDERED;
+        }
+    }
+
+    public RenderProfile(int width, int height, DisplayLayout layout) {
+        this(width, height, layout, RenderBackend.AWT);
+    }
+
+    public RenderProfile(int width, int height, DisplayLayout layout, RenderBackend backend) {
+        this(width, height, layout, backend, 1, null);
+    }
+
+    /** The same profile at another resolution. */
+    public RenderProfile withSize(int width, int height) {
+        return new RenderProfile(width, height, layout, backend, bitDepth, dither);
+    }
+
+    public boolean isGrayscale() {
+        return bitDepth > 1;
+    }
+
+    /**
+     * Stable name used in frame keys and URLs, e.g. "800x480-two_day", "800x480-two_day-bitmap"
+     * for the bitmap backend, or "800x480-two_day-gray4-ordered" for a 4-bit panel. 1-bit AWT
+     * profiles keep the shorter key they had before backends and grey levels existed.
+     */
+    public String key() {
+        StringBuilder key = new StringBuilder().append(width).append('x').append(height)
+                .append('-').append(layout.name().toLowerCase(Locale.ROOT));
+        if (backend != RenderBackend.AWT) {
+            key.append('-').append(backend.name().toLowerCase(Locale.ROOT));
+        }
+        if (isGrayscale()) {
+            key.append("-gray").append(bitDepth).append('-').append(dither.name().toLowerCase(Locale.ROOT));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Parses a {@link #key()}, throwing IllegalArgumentException if it is malformed.
+     */
+    public static RenderProfile parse(String key) {
+        int x = key.indexOf('x');
+        int dash = key.indexOf('-');
+        if (x <= 0 || dash <= x) {
+            throw new IllegalArgumentException("Malformed render profile: " + key);
+        }
+        String[] options = key.substring(dash + 1).split("-");
+        RenderBackend backend = RenderBackend.AWT;
+        int bitDepth = 1;
+        DitherMode dither = null;
+        try {
+            for (int i = 1; i < options.length; i++) {
+                String option = options[i].toUpperCase(Locale.ROOT);
+                if (option.startsWith("GRAY")) {
+                    bitDepth = Integer.parseInt(option.substring(4));
+                } else if (bitDepth > 1 && dither == null) {
+                    dither = DitherMode.valueOf(option);
+                } else {
+                    backend = RenderBackend.valueOf(option);
+                }
+            }
+            return new RenderProfile(Integer.parseInt(key.substring(0, x)),
+                    Integer.parseInt(key.substring(x + 1, dash)),
+                    DisplayLayout.valueOf(options[0].toUpperCase(Locale.ROOT)), backend, bitDepth, dither);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed render profile: " + key, e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.mealplanner.service;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses concurrent calls for the same key into one. The first caller for a key runs the loader;
+ * callers arriving while it is still running wait for it and receive the same result, or the same failure.
+ * Nothing is kept once the call completes, so results must be cached elsewhere.
+ * Results are shared between callers and must be treated as read-only.
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Produces the value for one key.
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public V execute(K key, Loader<V> loader) throws IOException {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        try {
+            V value = loader.load();
+            call.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private V await(CompletableFuture<V> call) throws IOException {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new IOException(io.getMessage(), io);
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+
+    /** Number of calls that ran the loader. */
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    /** Number of calls that waited for another caller's load instead of running their own. */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+}
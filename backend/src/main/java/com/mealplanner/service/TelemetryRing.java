@@ -0,0 +1,102 @@
+package com.mealplanner.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of the most recent events. Any number of threads may add; adding
+ * claims a sequence number with one atomic increment and never waits, overwriting the oldest
+ * event once the ring is full. A single consumer drains events in order, skipping (and
+ * counting) any that were overwritten before it got to them. Recent events can be read at any
+ * time without disturbing the consumer.
+ */
+final class TelemetryRing<T> {
+
+    private record Slot<T>(long sequence, T value) {
+    }
+
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    // Owned by the single consumer
+    private long drained;
+    private long lost;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    TelemetryRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    /** Number of events ever added. */
+    long added() {
+        return next.get();
+    }
+
+    void add(T value) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence & mask), new Slot<>(sequence, value));
+    }
+
+    /**
+     * Moves events not yet drained into the given list, oldest first, up to max of them.
+     * Must only be called from one thread at a time. An event whose slot has been claimed but
+     * not yet written ends the batch; it is picked up by the next drain.
+     */
+    int drainTo(List<T> out, int max) {
+        long end = next.get();
+        if (end - drained > slots.length()) {
+            // Lapped: the oldest undrained events have been overwritten
+            lost += end - slots.length() - drained;
+            drained = end - slots.length();
+        }
+        int count = 0;
+        while (drained < end && count < max) {
+            Slot<T> slot = slots.get((int) (drained & mask));
+            if (slot == null || slot.sequence() < drained) {
+                break;
+            }
+            if (slot.sequence() > drained) {
+                // Overwritten while we were reading
+                lost += slot.sequence() - drained;
+                drained = slot.sequence();
+                continue;
+            }
+            out.add(slot.value());
+            drained++;
+            count++;
+        }
+        return count;
+    }
+
+    /** Events overwritten before the consumer drained them. Read from the consumer thread. */
+    long lost() {
+        return lost;
+    }
+
+    /**
+     * Returns up to limit of the most recent events, newest first, whether drained or not.
+     */
+    List<T> recent(int limit) {
+        long end = next.get();
+        long start = Math.max(0, end - Math.min(limit, slots.length()));
+        List<T> result = new ArrayList<>((int) (end - start));
+        for (long sequence = end - 1; sequence >= start; sequence--) {
+            Slot<T> slot = slots.get((int) (sequence & mask));
+            // Skip slots still being written or already reused by a newer event
+            if (slot != null && slot.sequence() == sequence) {
+                result.add(slot.value());
+            }
+        }
+        return result;
+    }
+}
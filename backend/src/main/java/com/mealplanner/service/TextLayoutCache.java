@@ -0,0 +1,159 @@
+package com.mealplanner.service;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renderer-level cache of fonts, glyph advance widths and truncated text lines.
+ * Fonts are derived once per (style, size). Advance widths are measured once per glyph and font,
+ * so truncating a line is a prefix-width sum plus a binary search rather than repeated
+ * {@link FontMetrics#stringWidth} calls. Finished lines are memoised by (text, font, max width).
+ * Thread-safe.
+ */
+public class TextLayoutCache {
+
+    static final String ELLIPSIS = "…";
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    // Must match the text hints the renderer draws with, or measured widths drift from drawn ones
+    private final FontRenderContext frc = new FontRenderContext(null,
+            RenderingHints.VALUE_TEXT_ANTIALIAS_ON, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+    private final Font baseFont = new Font(Font.SANS_SERIF, Font.PLAIN, 1);
+    private final Map<Integer, Font> fonts = new ConcurrentHashMap<>();
+    private final Map<Font, GlyphWidths> widths = new ConcurrentHashMap<>();
+    private final int maxLines;
+    private final Map<LineKey, String> lines;
+
+    public TextLayoutCache() {
+        this(512);
+    }
+
+    public TextLayoutCache(int maxLines) {
+        this.maxLines = maxLines;
+        this.lines = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LineKey, String> eldest) {
+                return size() > TextLayoutCache.this.maxLines;
+            }
+        };
+    }
+
+    /**
+     * Returns the sans-serif font with the given {@link Font} style and point size, deriving it once.
+     */
+    public Font font(int style, int size) {
+        return fonts.computeIfAbsent(style << 16 | size, k -> baseFont.deriveFont(style, (float) size));
+    }
+
+    /**
+     * Returns the advance width of the text in the given font, as {@link FontMetrics#stringWidth} would.
+     */
+    public int stringWidth(String text, Font font) {
+        GlyphWidths glyphs = glyphWidths(font);
+        float width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += glyphs.advance(text.charAt(i));
+        }
+        return Math.round(width);
+    }
+
+    /**
+     * Returns the text unchanged if it fits in maxWidth, otherwise its longest prefix that still
+     * fits with an ellipsis appended (keeping at least one character).
+     */
+    public String truncate(String text, Font font, int maxWidth) {
+        LineKey key = new LineKey(text, font, maxWidth);
+        synchronized (lines) {
+            String cached = lines.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String line = layout(text, font, maxWidth);
+        synchronized (lines) {
+            lines.put(key, line);
+        }
+        return line;
+    }
+
+    private String layout(String text, Font font, int maxWidth) {
+        GlyphWidths glyphs = glyphWidths(font);
+        int n = text.length();
+        float[] prefix = new float[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + glyphs.advance(text.charAt(i));
+        }
+        if (Math.round(prefix[n]) <= maxWidth) {
+            return text;
+        }
+        float ellipsis = glyphs.advance(ELLIPSIS.charAt(0));
+        // Prefix widths only grow, so find the longest prefix that fits next to the ellipsis
+        int lo = 1;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (Math.round(prefix[mid] + ellipsis) <= maxWidth) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return text.substring(0, lo) + ELLIPSIS;
+    }
+
+    private GlyphWidths glyphWidths(Font font) {
+        return widths.computeIfAbsent(font, f -> new GlyphWidths(f, frc));
+    }
+
+    int cachedLineCount() {
+        synchronized (lines) {
+            return lines.size();
+        }
+    }
+
+    private record LineKey(String text, Font font, int maxWidth) {
+    }
+
+    /**
+     * Advance widths for one font, measured lazily in 256-character pages.
+     */
+    private static final class GlyphWidths {
+
+        private final Font font;
+        private final FontRenderContext frc;
+        private final float[][] pages = new float[1 << (16 - PAGE_BITS)][];
+
+        GlyphWidths(Font font, FontRenderContext frc) {
+            this.font = font;
+            this.frc = frc;
+        }
+
+        float advance(char c) {
+            float[] page = pages[c >>> PAGE_BITS];
+            if (page == null) {
+                page = measurePage(c >>> PAGE_BITS);
+            }
+            return page[c & (PAGE_SIZE - 1)];
+        }
+
+        private synchronized float[] measurePage(int pageIndex) {
+            float[] page = pages[pageIndex];
+            if (page != null) {
+                return page;
+            }
+            page = new float[PAGE_SIZE];
+            char[] one = new char[1];
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                one[0] = (char) ((pageIndex << PAGE_BITS) | i);
+                page[i] = (float) font.getStringBounds(one, 0, 1, frc).getWidth();
+            }
+            pages[pageIndex] = page;
+            return page;
+        }
+    }
+}
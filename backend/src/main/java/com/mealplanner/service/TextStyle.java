@@ -0,0 +1,42 @@
+package com.mealplanner.service;
+
+import java.util.Locale;
+
+/**
+ * The text styles a TRMNL frame is drawn with. Each renderer maps a style to its own font:
+ * the AWT renderer derives a sans-serif font of the same style and size, and the bitmap
+ * renderer loads the matching pre-rasterized font from {@code /fonts}.
+ */
+enum TextStyle {
+    HEADER(Weight.BOLD, 22),
+    DAY(Weight.BOLD, 20),
+    MEAL_TYPE(Weight.BOLD, 15),
+    MEAL(Weight.PLAIN, 16),
+    NOTE(Weight.ITALIC, 13),
+    EMPTY(Weight.ITALIC, 15),
+    UPDATED(Weight.PLAIN, 12);
+
+    /** Font styles, numbered as in {@link java.awt.Font} so this class does not have to load AWT. */
+    enum Weight {
+        PLAIN(0), BOLD(1), ITALIC(2);
+
+        final int awtStyle;
+
+        Weight(int awtStyle) {
+            this.awtStyle = awtStyle;
+        }
+    }
+
+    final Weight weight;
+    final int size;
+
+    TextStyle(Weight weight, int size) {
+        this.weight = weight;
+        this.size = size;
+    }
+
+    /** Classpath resource of the bitmap font for this style, e.g. "/fonts/sans-bold-22.bdf". */
+    String bitmapFontResource() {
+        return "/fonts/sans-" + weight.name().toLowerCase(Locale.ROOT) + "-" + size + ".bdf";
+    }
+}
@@ -0,0 +1,131 @@
+package com.mealplanner.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for the TRMNL endpoints, so a misbehaving or rebooting batch of devices
+ * cannot take the host away from the planner.
+ *
+ * Each registered device, and each other client address, has a token bucket of
+ * trmnl.admission.burst requests, refilled at trmnl.admission.requests-per-minute. A bucket is held as a single long, its theoretical
+ * arrival time (GCRA): the time at which the bucket would be full again. The buckets live in one
+ * fixed-size array indexed by a hash of the device, updated with compare-and-set, so there is no
+ * lock, no per-device allocation and no map to grow however many IDs a client makes up.
+ * Devices whose IDs hash to the same slot share a bucket, which can only throttle them sooner.
+ *
+ * Separately, at most trmnl.admission.max-concurrent-renders TRMNL requests may be producing a
+ * frame at once; the rest are turned away rather than tying up request threads waiting on the
+ * render pool.
+ */
+@Component
+public class TrmnlAdmission {
+
+    private final boolean enabled;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLongArray buckets;
+    private final Semaphore renders;
+    private final int retrySeconds;
+    private final int retryJitterSeconds;
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rendersRefused = new LongAdder();
+
+    public TrmnlAdmission(@Value("${trmnl.admission.enabled:true}") boolean enabled,
+                          @Value("${trmnl.admission.requests-per-minute:12}") int requestsPerMinute,
+                          @Value("${trmnl.admission.burst:10}") int burst,
+                          @Value("${trmnl.admission.buckets:4096}") int buckets,
+                          @Value("${trmnl.admission.max-concurrent-renders:4}") int maxConcurrentRenders,
+                          @Value("${trmnl.admission.retry-seconds:60}") int retrySeconds,
+                          @Value("${trmnl.admission.retry-jitter-seconds:60}") int retryJitterSeconds) {
+        this.enabled = enabled;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute);
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        this.buckets = new AtomicLongArray(Integer.highestOneBit(Math.max(1, buckets - 1)) << 1);
+        this.renders = new Semaphore(Math.max(1, maxConcurrentRenders));
+        this.retrySeconds = Math.max(1, retrySeconds);
+        this.retryJitterSeconds = Math.max(0, retryJitterSeconds);
+    }
+
+    /**
+     * Takes a token from the device's bucket. Returns zero if the request is admitted, or else
+     * how many nanoseconds until the bucket will have a token again.
+     */
+    public long tryAcquire(String deviceKey) {
+        return tryAcquire(deviceKey, System.nanoTime());
+    }
+
+    long tryAcquire(String deviceKey, long nowNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        int slot = slot(deviceKey);
+        while (true) {
+            long arrival = buckets.get(slot);
+            // An empty slot holds zero, which is taken as "full now"; nanoTime may be negative
+            long next = (arrival == 0 || arrival - nowNanos < 0 ? nowNanos : arrival) + intervalNanos;
+            long excess = next - nowNanos - toleranceNanos;
+            if (excess > 0) {
+                throttled.increment();
+                return excess;
+            }
+            if (buckets.compareAndSet(slot, arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns how long a throttled device should wait before its next request: at least
+     * trmnl.admission.retry-seconds, or until its bucket refills, plus a random jitter so that
+     * devices throttled together do not all come back together.
+     */
+    public int retryAfterSeconds(long waitNanos) {
+        long wait = Math.max(retrySeconds, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return (int) Math.min(Integer.MAX_VALUE, wait + ThreadLocalRandom.current().nextInt(retryJitterSeconds + 1));
+    }
+
+    /**
+     * Claims one of the render slots without waiting. A caller that gets true must call
+     * {@link #endRender()} once its frame has been produced.
+     */
+    public boolean tryStartRender() {
+        if (!enabled) {
+            return true;
+        }
+        if (renders.tryAcquire()) {
+            return true;
+        }
+        rendersRefused.increment();
+        return false;
+    }
+
+    public void endRender() {
+        if (enabled) {
+            renders.release();
+        }
+    }
+
+    /** Requests refused because the device's bucket was empty. */
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    /** Frame requests refused because every render slot was taken. */
+    public long getRendersRefused() {
+        return rendersRefused.sum();
+    }
+
+    private int slot(String deviceKey) {
+        int h = deviceKey == null ? 0 : deviceKey.hashCode();
+        // Spread the hash so keys differing only in their high bits still land in different slots
+        h *= 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (buckets.length() - 1);
+    }
+}
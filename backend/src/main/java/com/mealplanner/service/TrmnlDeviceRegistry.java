@@ -0,0 +1,273 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.TrmnlDevice;
+import com.mealplanner.repository.TrmnlDeviceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory registry of TRMNL devices, keyed by the ID header (the device MAC address).
+ * Polls only touch the concurrent map; changed devices are written to the database by a
+ * periodic flush, so a poll never waits on a database write. The map holds at most
+ * trmnl.devices.max-devices devices: once it is full, polls from new IDs are answered as from an
+ * unknown device, so a client making up IDs cannot grow it without limit.
+ */
+@Component
+public class TrmnlDeviceRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TrmnlDeviceRegistry.class);
+
+    private final TrmnlDeviceRepository deviceRepository;
+    private final int maxDevices;
+    private final ConcurrentMap<String, Device> devices = new ConcurrentHashMap<>();
+    private final LongAdder refused = new LongAdder();
+
+    public TrmnlDeviceRegistry(TrmnlDeviceRepository deviceRepository,
+                               @Value("${trmnl.devices.max-devices:256}") int maxDevices) {
+        this.deviceRepository = deviceRepository;
+        this.maxDevices = Math.max(1, maxDevices);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (TrmnlDevice entity : deviceRepository.findAll()) {
+            devices.putIfAbsent(entity.getDeviceId(), Device.from(entity));
+        }
+        log.info("Loaded {} TRMNL devices", devices.size());
+    }
+
+    /**
+     * Records a poll from a device, registering it on first contact. A reported resolution
+     * updates the device's profile; an unsupported or missing one leaves it unchanged.
+     * Callers record only polls they have admitted. Returns null, recording nothing, for a new
+     * device once the registry is full.
+     */
+    public Device recordPoll(String deviceId, String firmwareVersion, Integer width, Integer height) {
+        Device device = devices.get(deviceId);
+        if (device == null) {
+            // Concurrent first polls may overshoot the limit by a few; it only has to be bounded
+            if (devices.size() >= maxDevices) {
+                refused.increment();
+                log.debug("TRMNL device registry is full, not registering {}", deviceId);
+                return null;
+            }
+            device = devices.computeIfAbsent(deviceId, Device::new);
+        }
+        device.lastSeen = Instant.now();
+        device.polls.incrementAndGet();
+        if (firmwareVersion != null && !firmwareVersion.isBlank()) {
+            device.firmwareVersion = firmwareVersion;
+        }
+        if (width != null && height != null
+                && (width != device.profile.width() || height != device.profile.height())) {
+            try {
+                device.profile = device.profile.withSize(width, height);
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring resolution {}x{} reported by {}", width, height, deviceId);
+            }
+        }
+        device.dirty.set(true);
+        return device;
+    }
+
+    /** Polls from new devices not registered because the registry was full. */
+    public long getRefused() {
+        return refused.sum();
+    }
+
+    public Optional<Device> find(String deviceId) {
+        return deviceId == null ? Optional.empty() : Optional.ofNullable(devices.get(deviceId));
+    }
+
+    public List<TrmnlDevice> findAll() {
+        return devices.values().stream()
+                .map(Device::toEntity)
+                .sorted(Comparator.comparing(TrmnlDevice::getDeviceId))
+                .toList();
+    }
+
+    /**
+     * Changes a device's layout, render backend, bit depth, dither mode and timezone from the
+     * corresponding fields of changes. Null fields are left unchanged, except the timezone, where
+     * null or blank means the server default. Throws IllegalArgumentException for an unsupported
+     * bit depth.
+     */
+    public TrmnlDevice updateProfile(String deviceId, TrmnlDevice changes) {
+        Device device = find(deviceId)
+                .orElseThrow(() -> new RuntimeException("TRMNL device not found with id: " + deviceId));
+        String timezone = changes.getTimezone();
+        ZoneId zone = timezone == null || timezone.isBlank() ? null : ZoneId.of(timezone);
+        RenderProfile p = device.profile;
+        device.profile = new RenderProfile(p.width(), p.height(),
+                changes.getLayout() != null ? changes.getLayout() : p.layout(),
+                changes.getRenderBackend() != null ? changes.getRenderBackend() : p.backend(),
+                changes.getBitDepth() != null ? changes.getBitDepth() : p.bitDepth(),
+                changes.getDither() != null ? changes.getDither() : p.dither());
+        device.timezone = zone;
+        device.dirty.set(true);
+        return device.toEntity();
+    }
+
+    /**
+     * The distinct render profiles of all known devices, so frames can be pre-rendered for each.
+     */
+    public Set<RenderProfile> activeProfiles() {
+        Set<RenderProfile> profiles = new LinkedHashSet<>();
+        for (Device device : devices.values()) {
+            profiles.add(device.profile);
+        }
+        return profiles;
+    }
+
+    /**
+     * Writes every device changed since the last flush. A failed write leaves them marked
+     * for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${trmnl.devices.flush-ms:60000}")
+    public void flush() {
+        List<Device> changed = new ArrayList<>();
+        for (Device device : devices.values()) {
+            if (device.dirty.getAndSet(false)) {
+                changed.add(device);
+            }
+        }
+        if (changed.isEmpty()) return;
+        try {
+            deviceRepository.saveAll(changed.stream().map(Device::toEntity).toList());
+        } catch (RuntimeException e) {
+            changed.forEach(d -> d.dirty.set(true));
+            log.warn("Failed to save {} TRMNL devices", changed.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Short stable id shown on the device during setup, derived from its MAC address.
+     */
+    static String friendlyIdFor(String deviceId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(deviceId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().withUpperCase().formatHex(digest, 0, 3);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Live state of one device. Fields are written by poll threads and read by the flush,
+     * so each is individually volatile or atomic.
+     */
+    public static final class Device {
+
+        private final String deviceId;
+        private final String friendlyId;
+        private final Instant firstSeen;
+        private final AtomicLong polls;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private volatile String firmwareVersion;
+        private volatile RenderProfile profile = RenderProfile.DEFAULT;
+        private volatile ZoneId timezone;
+        private volatile Instant lastSeen;
+
+        Device(String deviceId) {
+            this(deviceId, friendlyIdFor(deviceId), Instant.now(), 0);
+        }
+
+        private Device(String deviceId, String friendlyId, Instant firstSeen, long polls) {
+            this.deviceId = deviceId;
+            this.friendlyId = friendlyId;
+            this.firstSeen = firstSeen;
+            this.polls = new AtomicLong(polls);
+        }
+
+        static Device from(TrmnlDevice entity) {
+            Device device = new Device(entity.getDeviceId(),
+                    entity.getFriendlyId() != null ? entity.getFriendlyId() : friendlyIdFor(entity.getDeviceId()),
+                    entity.getFirstSeen() != null ? entity.getFirstSeen() : Instant.now(),
+                    entity.getPollCount());
+            device.firmwareVersion = entity.getFirmwareVersion();
+            device.lastSeen = entity.getLastSeen();
+            try {
+                device.profile = new RenderProfile(entity.getWidth(), entity.getHeight(), entity.getLayout(),
+                        entity.getRenderBackend(), entity.getBitDepth() != null ? entity.getBitDepth() : 1,
+                        entity.getDither());
+            } catch (IllegalArgumentException e) {
+                device.profile = RenderProfile.DEFAULT;
+            }
+            try {
+                device.timezone = entity.getTimezone() == null || entity.getTimezone().isBlank()
+                        ? null : ZoneId.of(entity.getTimezone());
+            } catch (RuntimeException e) {
+                device.timezone = null;
+            }
+            return device;
+        }
+
+        TrmnlDevice toEntity() {
+            TrmnlDevice entity = new TrmnlDevice();
+            entity.setDeviceId(deviceId);
+            entity.setFriendlyId(friendlyId);
+            entity.setFirmwareVersion(firmwareVersion);
+            RenderProfile p = profile;
+            entity.setWidth(p.width());
+            entity.setHeight(p.height());
+            entity.setLayout(p.layout());
+            entity.setRenderBackend(p.backend());
+            entity.setBitDepth(p.bitDepth());
+            entity.setDither(p.dither());
+            ZoneId zone = timezone;
+            entity.setTimezone(zone != null ? zone.getId() : null);
+            entity.setFirstSeen(firstSeen);
+            entity.setLastSeen(lastSeen);
+            entity.setPollCount(polls.get());
+            return entity;
+        }
+
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        public String getFriendlyId() {
+            return friendlyId;
+        }
+
+        public RenderProfile getProfile() {
+            return profile;
+        }
+
+        /** The device's own timezone, or null to use the server's. */
+        public ZoneId getTimezone() {
+            return timezone;
+        }
+
+        public long getPollCount() {
+            return polls.get();
+        }
+
+        boolean isDirty() {
+            return dirty.get();
+        }
+    }
+}
@@ -1,196 +1,613 @@
 package com.mealplanner.service;
 
-import com.mealplanner.model.MealPlan;
+import com.mealplanner.dto.DayNote;
+import com.mealplanner.dto.PlanVersion;
+import com.mealplanner.model.DisplayLayout;
 import com.mealplanner.model.MealPlanEntry;
 import com.mealplanner.model.MealType;
+import com.mealplanner.model.RenderBackend;
+import com.mealplanner.repository.MealPlanEntryRepository;
 import com.mealplanner.repository.MealPlanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class TrmnlDisplayService {
 
-    static final int WIDTH = 800;
-    static final int HEIGHT = 480;
+    private static final Logger log = LoggerFactory.getLogger(TrmnlDisplayService.class);
+
+    static final int WIDTH = RenderProfile.DEFAULT.width();
+    static final int HEIGHT = RenderProfile.DEFAULT.height();
+
+    /** Profile key for the standard 800x480 1-bit TRMNL panel. */
+    public static final String DEFAULT_PROFILE = RenderProfile.DEFAULT.key();
+
+    private static final int MAX_RASTERS = 8;
+    private static final int MAX_DIGESTS = 64;
+    private static final int MAX_LAST_GOOD = 32;
+    static final int TITLE_BAR_HEIGHT = 36;
 
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("EEE d MMM");
     private static final DateTimeFormatter UPDATED_FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
 
     private final MealPlanRepository mealPlanRepository;
+    private final MealPlanEntryRepository entryRepository;
+    private final TrmnlFrameCache frameCache;
+    private final MealPlanVersionIndex versionIndex;
+    private final TrmnlFrameStore frameStore;
+    private final TrmnlRenderExecutor renderExecutor;
+    private final boolean deterministic;
+    private final MonochromePngEncoder pngEncoder = new MonochromePngEncoder();
+    private final MonochromeBmpEncoder bmpEncoder = new MonochromeBmpEncoder();
+    // Created on first AWT render, so a server rendering only bitmap frames never starts Java2D
+    private volatile TextLayoutCache textLayout;
+    private final BitmapFontSet bitmapFonts = new BitmapFontSet();
+    private final SingleFlight<FrameKey, byte[]> renders = new SingleFlight<>();
+    // Last frame successfully served to devices for each date, profile and format, for when a render fails
+    private final Map<SlotKey, TrmnlFrame> lastGood = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SlotKey, TrmnlFrame> eldest) {
+            return size() > MAX_LAST_GOOD;
+        }
+    };
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder rendered = new LongAdder();
+    // Packed rasters of recent renders, for diffing against what a device last showed
+    private final Map<RasterKey, MonochromeRaster> rasters = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RasterKey, MonochromeRaster> eldest) {
+            return size() > MAX_RASTERS;
+        }
+    };
+    // Digest of the drawn content for each plan-version hash loaded since startup. Plan versions
+    // start again after a database reset or restore, so frames on disk are keyed by digest
+    private final Map<VersionKey, String> digests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<VersionKey, String> eldest) {
+            return size() > MAX_DIGESTS;
+        }
+    };
 
-    public TrmnlDisplayService(MealPlanRepository mealPlanRepository) {
+    /**
+     * @param deterministic leave out the "Updated" time, so the same content always renders to the same bytes
+     */
+    public TrmnlDisplayService(MealPlanRepository mealPlanRepository, MealPlanEntryRepository entryRepository,
+                               TrmnlFrameCache frameCache,
+                               MealPlanVersionIndex versionIndex, TrmnlFrameStore frameStore,
+                               TrmnlRenderExecutor renderExecutor,
+                               @Value("${trmnl.render.deterministic:true}") boolean deterministic) {
         this.mealPlanRepository = mealPlanRepository;
+        this.entryRepository = entryRepository;
+        this.frameCache = frameCache;
+        this.versionIndex = versionIndex;
+        this.frameStore = frameStore;
+        this.renderExecutor = renderExecutor;
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Loads what today's and tomorrow's frame shows.
+     */
+    public DisplaySnapshot loadSnapshot(LocalDate today) {
+        return loadSnapshot(today, today, today.plusDays(1));
+    }
+
+    /**
+     * Loads the entries and notes dated from..to, in three queries whichever weeks the dates fall
+     * in: the plan versions, a range scan of the entries by date, and the notes.
+     * The versions are read first, so a plan edited meanwhile is loaded at least as new as its
+     * recorded version. A frame is then never cached under a version newer than its content;
+     * at worst it is rendered again once the version catches up.
+     */
+    public DisplaySnapshot loadSnapshot(LocalDate today, LocalDate from, LocalDate to) {
+        LocalDate firstWeek = DisplaySnapshot.weekStartOf(from);
+        LocalDate lastWeek = DisplaySnapshot.weekStartOf(to);
+        Map<LocalDate, Long> versions = new HashMap<>();
+        for (PlanVersion version : mealPlanRepository.findVersionsByWeekStartDateBetween(firstWeek, lastWeek)) {
+            versions.put(version.weekStartDate(), version.version());
+        }
+        List<MealPlanEntry> entries = entryRepository.findForDisplayByEntryDateBetween(from, to);
+        Map<LocalDate, Map<String, String>> notes = new HashMap<>();
+        for (DayNote note : mealPlanRepository.findNotesByWeekStartDateBetween(firstWeek, lastWeek)) {
+            notes.computeIfAbsent(note.weekStartDate(), week -> new HashMap<>()).put(note.dayOfWeek(), note.note());
+        }
+        return new DisplaySnapshot(today, entries, notes, versions);
     }
 
     /**
      * Renders a black-and-white 800x480 PNG image showing today's and tomorrow's meal plans.
      */
     public byte[] renderDisplayImage(LocalDate today) throws IOException {
-        LocalDate tomorrow = today.plusDays(1);
+        return renderDisplayImage(today, ImageFormat.PNG);
+    }
 
-        List<MealPlanEntry> todayEntries = getEntriesForDate(today);
-        List<MealPlanEntry> tomorrowEntries = getEntriesForDate(tomorrow);
+    /**
+     * Renders today's and tomorrow's meal plans in the given format.
+     * Frames are cached by content hash, so unchanged content is served without touching the database.
+     * Concurrent misses for the same frame, e.g. several devices waking together, share one
+     * load and render rather than each starting their own.
+     */
+    public byte[] renderDisplayImage(LocalDate today, ImageFormat format) throws IOException {
+        return renderDisplayImage(today, RenderProfile.DEFAULT, format);
+    }
 
-        Map<String, String> todayNotes = getNotesForDate(today);
-        Map<String, String> tomorrowNotes = getNotesForDate(tomorrow);
+    /**
+     * Renders the frame for one device profile. Plan data and the content hash do not depend on
+     * the profile, so devices with different panels share everything up to the render itself.
+     * Frames are looked up in memory, then in the on-disk frame store, before being rendered.
+     * The store is keyed by content digest, so after a restart the first lookup loads the plan
+     * data to compute it; that load shares the render executor and its deadline with renders.
+     * Renders run on the render executor and fail with an IOException if they miss its deadline.
+     */
+    public byte[] renderDisplayImage(LocalDate today, RenderProfile profile, ImageFormat format) throws IOException {
+        FrameKey key = new FrameKey(today, getContentHash(today), profile.key(), format);
+        byte[] cached = frameCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        FrameKey storeKey = storeKey(key);
+        byte[] stored = storeKey != null ? frameStore.read(storeKey) : null;
+        if (stored != null) {
+            frameCache.put(key, stored);
+            return stored;
+        }
+        return renders.execute(key,
+                () -> renderExecutor.call(() -> renderDisplayImage(loadSnapshot(today), profile, format)));
+    }
 
-        String todayDayKey = today.getDayOfWeek().name();
-        String tomorrowDayKey = tomorrow.getDayOfWeek().name();
+    /**
+     * Renders the current frame for a device, falling back to the last good frame for the same
+     * date, profile and format if the render misses its deadline or fails, so a briefly slow server
+     * shows the device slightly stale content rather than an error. Just after midnight the
+     * previous day's frame is the fallback, but never one from further back. Throws only when
+     * there is no such frame to fall back on.
+     */
+    public TrmnlFrame renderFrame(LocalDate today, RenderProfile profile, ImageFormat format) throws IOException {
+        SlotKey slot = new SlotKey(today, profile.key(), format);
+        String contentHash = getContentHash(today);
+        try {
+            TrmnlFrame frame = new TrmnlFrame(contentHash, renderDisplayImage(today, profile, format), false);
+            synchronized (lastGood) {
+                lastGood.put(slot, frame);
+            }
+            return frame;
+        } catch (IOException | RuntimeException e) {
+            TrmnlFrame previous;
+            synchronized (lastGood) {
+                previous = lastGood.get(slot);
+                if (previous == null) {
+                    previous = lastGood.get(new SlotKey(today.minusDays(1), slot.profile(), format));
+                }
+            }
+            if (previous == null) {
+                throw e;
+            }
+            fallbacks.increment();
+            log.warn("Serving last good TRMNL frame {} for {}: {}", previous.contentHash(), slot, e.getMessage());
+            return new TrmnlFrame(previous.contentHash(), previous.data(), true);
+        }
+    }
 
-        String todayNote = todayNotes.getOrDefault(todayDayKey, null);
-        String tomorrowNote = tomorrowNotes.getOrDefault(tomorrowDayKey, null);
+    /**
+     * Renders the frame for any date, e.g. for the preview page, without the fallback: the frame
+     * neither replaces nor falls back to the last good frame that devices are sent.
+     */
+    public TrmnlFrame renderPreviewFrame(LocalDate date, RenderProfile profile, ImageFormat format) throws IOException {
+        String contentHash = getContentHash(date);
+        return new TrmnlFrame(contentHash, renderDisplayImage(date, profile, format), false);
+    }
+
+    private record SlotKey(LocalDate date, String profile, ImageFormat format) {
+    }
+
+    /**
+     * Like {@link #renderFrame}, but the returned frame's data is its data: URI in ASCII bytes,
+     * for devices that take the image inline. The URI is cached with the frame, so a repeat
+     * poll for unchanged content neither encodes nor copies anything. The bytes are shared and
+     * must not be modified.
+     */
+    public TrmnlFrame renderDataUri(LocalDate today, RenderProfile profile, ImageFormat format) throws IOException {
+        FrameKey key = new FrameKey(today, getContentHash(today), profile.key(), format);
+        byte[] dataUri = frameCache.getDataUri(key);
+        if (dataUri == null) {
+            TrmnlFrame frame = renderFrame(today, profile, format);
+            // A fresh render has just been cached, unless caching is off or it was a fallback
+            dataUri = frame.fallback() ? null : frameCache.getDataUri(key);
+            if (dataUri == null) {
+                return new TrmnlFrame(frame.contentHash(), TrmnlFrameCache.dataUri(frame.data(), format),
+                        frame.fallback());
+            }
+        }
+        return new TrmnlFrame(key.contentHash(), dataUri, false);
+    }
+
+    public byte[] renderDisplayImage(DisplaySnapshot snapshot, ImageFormat format) throws IOException {
+        return renderDisplayImage(snapshot, RenderProfile.DEFAULT, format);
+    }
+
+    /**
+     * Renders the frame for an already loaded snapshot, unless the frame store already holds a
+     * frame of the same content.
+     * The frame is cached under the hash of the plan versions it was actually rendered from,
+     * and stored under the digest of what it shows.
+     */
+    public byte[] renderDisplayImage(DisplaySnapshot snapshot, RenderProfile profile, ImageFormat format)
+            throws IOException {
+        FrameKey key = new FrameKey(snapshot.getToday(), getContentHash(snapshot), profile.key(), format);
+        byte[] cached = frameCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        FrameKey storeKey = storeKey(key, snapshot);
+        byte[] stored = frameStore.read(storeKey);
+        if (stored != null) {
+            frameCache.put(key, stored);
+            return stored;
+        }
+        rendered.increment();
+        LocalDate today = snapshot.getToday();
+        LocalDate tomorrow = snapshot.getTomorrow();
+        MonochromeRaster raster;
+        byte[] frame;
+        if (profile.isGrayscale()) {
+            GrayscaleRaster gray = renderGrayscale(profile, today, snapshot.getEntries(today),
+                    snapshot.getNote(today), tomorrow, snapshot.getEntries(tomorrow), snapshot.getNote(tomorrow));
+            // Diffs compare a fixed 1-bit dither, so regions change only where the content did
+            raster = GrayscaleDither.ordered(gray, 1).toMonochrome();
+            frame = encode(GrayscaleDither.dither(gray, profile.bitDepth(), profile.dither()), format);
+        } else {
+            raster = renderRaster(profile, today, snapshot.getEntries(today), snapshot.getNote(today),
+                    tomorrow, snapshot.getEntries(tomorrow), snapshot.getNote(tomorrow));
+            frame = encode(raster, format);
+        }
+        synchronized (rasters) {
+            rasters.put(new RasterKey(key.date(), key.contentHash(), key.profile()), raster);
+        }
+        frameCache.put(key, frame);
+        frameStore.put(storeKey, frame);
+        return frame;
+    }
+
+    /**
+     * Whether the current frame for a profile and format can be served without rendering it,
+     * from the frame cache or the frame store. Lets a request claim a render slot only when it
+     * is actually going to render. A stored frame whose content digest is not known yet counts
+     * as not ready, as serving it means loading the plan data first.
+     */
+    public boolean isFrameReady(LocalDate today, RenderProfile profile, ImageFormat format) {
+        FrameKey key = new FrameKey(today, getContentHash(today), profile.key(), format);
+        if (frameCache.contains(key)) {
+            return true;
+        }
+        FrameKey storeKey = storeKey(key);
+        return storeKey != null && frameStore.find(storeKey).isPresent();
+    }
+
+    /**
+     * Returns the on-disk file holding the current frame, so it can be served without reading it
+     * into memory. Empty if the frame store is disabled, the frame has not been stored yet, or
+     * the digest of the current content is not known yet; loading and rendering are left to
+     * {@link #renderFrame}, which applies the render deadline.
+     */
+    public Optional<Path> getStoredFrame(LocalDate today, RenderProfile profile, ImageFormat format)
+            throws IOException {
+        if (!frameStore.isEnabled()) {
+            return Optional.empty();
+        }
+        FrameKey storeKey = storeKey(new FrameKey(today, getContentHash(today), profile.key(), format));
+        return storeKey != null ? frameStore.find(storeKey) : Optional.empty();
+    }
+
+    /**
+     * The key a frame is stored under on disk: the frame key with the digest of the content it
+     * shows in place of the plan-version hash. Null if that content has not been loaded since startup.
+     */
+    private FrameKey storeKey(FrameKey key) {
+        String digest;
+        synchronized (digests) {
+            digest = digests.get(new VersionKey(key.date(), key.contentHash()));
+        }
+        return digest != null ? new FrameKey(key.date(), digest, key.profile(), key.format()) : null;
+    }
+
+    private FrameKey storeKey(FrameKey key, DisplaySnapshot snapshot) {
+        String digest = contentDigest(snapshot);
+        synchronized (digests) {
+            digests.put(new VersionKey(key.date(), key.contentHash()), digest);
+        }
+        return new FrameKey(key.date(), digest, key.profile(), key.format());
+    }
 
-        return renderImage(today, todayEntries, todayNote, tomorrow, tomorrowEntries, tomorrowNote);
+    private record VersionKey(LocalDate date, String contentHash) {
+    }
+
+    /**
+     * Returns the packed 1-bit raster of the current frame for a profile, ordered-dithered to 1 bit
+     * for greyscale profiles. Normally this is the raster
+     * kept from the render that produced the served frame; if the frame has not been rendered yet
+     * it is rendered and cached in the given format, as the device is about to fetch it anyway.
+     * The raster is shared and must not be modified.
+     */
+    MonochromeRaster getRaster(LocalDate today, RenderProfile profile, ImageFormat format) throws IOException {
+        RasterKey key = new RasterKey(today, getContentHash(today), profile.key());
+        MonochromeRaster cached = cachedRaster(key);
+        if (cached != null) {
+            return cached;
+        }
+        renderDisplayImage(today, profile, format);
+        cached = cachedRaster(key);
+        if (cached != null) {
+            return cached;
+        }
+        // The encoded frame was still cached but its raster was not; render the raster alone
+        DisplaySnapshot snapshot = loadSnapshot(today);
+        LocalDate tomorrow = snapshot.getTomorrow();
+        MonochromeRaster raster = renderRaster(profile,
+                today, snapshot.getEntries(today), snapshot.getNote(today),
+                tomorrow, snapshot.getEntries(tomorrow), snapshot.getNote(tomorrow));
+        synchronized (rasters) {
+            rasters.put(new RasterKey(today, getContentHash(snapshot), profile.key()), raster);
+        }
+        return raster;
+    }
+
+    /**
+     * Whether {@link #getRaster} can answer from the kept rasters, without rendering.
+     */
+    boolean isRasterReady(LocalDate today, RenderProfile profile) {
+        return cachedRaster(new RasterKey(today, getContentHash(today), profile.key())) != null;
+    }
+
+    private MonochromeRaster cachedRaster(RasterKey key) {
+        synchronized (rasters) {
+            return rasters.get(key);
+        }
+    }
+
+    private record RasterKey(LocalDate date, String contentHash, String profile) {
+    }
+
+    public TrmnlRenderStats getRenderStats() {
+        return new TrmnlRenderStats(rendered.sum(), renders.getCoalesced(),
+                frameCache.getHits(), frameCache.getMisses(), frameCache.size(),
+                frameStore.fileCount(), frameStore.sizeBytes(),
+                renderExecutor.getTimeouts(), renderExecutor.getRejected(), renderExecutor.getFailures(),
+                fallbacks.sum());
+    }
+
+    /**
+     * Encodes a rendered frame straight from its packed 1-bit raster.
+     */
+    byte[] encode(MonochromeRaster raster, ImageFormat format) {
+        return switch (format) {
+            case PNG -> pngEncoder.encode(raster.data(), raster.width(), raster.height(), raster.stride());
+            case BMP -> bmpEncoder.encode(raster.data(), raster.width(), raster.height(), raster.stride());
+        };
+    }
+
+    /**
+     * Encodes a dithered greyscale frame at its own bit depth.
+     */
+    byte[] encode(GrayscaleRaster raster, ImageFormat format) {
+        return switch (format) {
+            case PNG -> pngEncoder.encode(raster.data(), raster.width(), raster.height(), raster.stride(),
+                    raster.bitDepth());
+            case BMP -> bmpEncoder.encode(raster.data(), raster.width(), raster.height(), raster.stride(),
+                    raster.bitDepth());
+        };
     }
 
     /**
      * Returns a short hex hash representing the current display content for today and tomorrow.
-     * The hash only changes when the underlying meal plan data changes.
+     * It is derived from the versions of the plans covering both days, so it changes whenever
+     * the plan data changes and costs no database query once those weeks are indexed.
      */
     public String getContentHash(LocalDate today) {
         LocalDate tomorrow = today.plusDays(1);
-        StringBuilder sb = new StringBuilder();
-        sb.append(today).append('|');
-        appendEntrySummary(sb, getEntriesForDate(today));
-        sb.append(getNotesForDate(today).getOrDefault(today.getDayOfWeek().name(), ""));
-        sb.append('|').append(tomorrow).append('|');
-        appendEntrySummary(sb, getEntriesForDate(tomorrow));
-        sb.append(getNotesForDate(tomorrow).getOrDefault(tomorrow.getDayOfWeek().name(), ""));
-        try {
-            byte[] digest = MessageDigest.getInstance("SHA-256")
-                    .digest(sb.toString().getBytes(StandardCharsets.UTF_8));
-            // First 8 hex chars is plenty to detect changes
-            StringBuilder hex = new StringBuilder();
-            for (int i = 0; i < 4; i++) {
-                hex.append(String.format("%02x", digest[i]));
+        return contentHash(today,
+                versionIndex.versionOf(DisplaySnapshot.weekStartOf(today)),
+                versionIndex.versionOf(DisplaySnapshot.weekStartOf(tomorrow)));
+    }
+
+    public String getContentHash(DisplaySnapshot snapshot) {
+        return contentHash(snapshot.getToday(),
+                snapshot.getVersion(snapshot.getToday()),
+                snapshot.getVersion(snapshot.getTomorrow()));
+    }
+
+    private String contentHash(LocalDate today, long todayVersion, long tomorrowVersion) {
+        byte[] input = ByteBuffer.allocate(3 * Long.BYTES)
+                .putLong(today.toEpochDay())
+                .putLong(todayVersion)
+                .putLong(tomorrowVersion)
+                .array();
+        // First 8 hex chars is plenty to detect changes
+        return HexFormat.of().formatHex(sha256(input), 0, 4);
+    }
+
+    /**
+     * Returns a hex digest of everything the day frame draws from a snapshot: both dates, and
+     * each day's meal types, meal titles, cooks and note. Unlike the content hash it does not
+     * depend on plan versions, so it stays correct for frames kept across a database reset.
+     */
+    String contentDigest(DisplaySnapshot snapshot) {
+        StringBuilder content = new StringBuilder();
+        for (LocalDate date : List.of(snapshot.getToday(), snapshot.getTomorrow())) {
+            content.append(date).append('\n');
+            for (MealPlanEntry entry : snapshot.getEntries(date)) {
+                content.append(entry.getMealType()).append('\0')
+                        .append(entry.getMeal() != null ? entry.getMeal().getTitle() : null).append('\0')
+                        .append(entry.getAssignedCook() != null ? entry.getAssignedCook().getName() : null)
+                        .append('\n');
             }
-            return hex.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            content.append(snapshot.getNote(date)).append('\n');
         }
+        // Stored frames outlive many content changes, so keep more of the digest than the content hash
+        return HexFormat.of().formatHex(sha256(content.toString().getBytes(StandardCharsets.UTF_8)), 0, 8);
     }
 
-    private void appendEntrySummary(StringBuilder sb, List<MealPlanEntry> entries) {
-        for (MealPlanEntry e : entries) {
-            sb.append(e.getMealType()).append(':')
-              .append(e.getMeal() != null ? e.getMeal().getId() : "null").append(':')
-              .append(e.getAssignedCook() != null ? e.getAssignedCook().getId() : "null").append(':')
-              .append(e.getDisplayOrder()).append(';');
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
         }
     }
 
     List<MealPlanEntry> getEntriesForDate(LocalDate date) {
-        LocalDate weekStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
-        String dayOfWeek = date.getDayOfWeek().name();
+        return loadSnapshot(date).getEntries(date);
+    }
+
+    /**
+     * Draws the 1-bit frame for a profile with the profile's render backend. Both backends share
+     * this layout; they differ only in how rectangles, lines and text reach the packed pixels.
+     * Greyscale profiles are rendered in grey and ordered-dithered down to 1 bit.
+     */
+    MonochromeRaster renderRaster(RenderProfile profile,
+                                  LocalDate today, List<MealPlanEntry> todayEntries, String todayNote,
+                                  LocalDate tomorrow, List<MealPlanEntry> tomorrowEntries, String tomorrowNote) {
+        return renderRaster(profile, canvas -> drawFrame(canvas, profile,
+                today, todayEntries, todayNote, tomorrow, tomorrowEntries, tomorrowNote));
+    }
 
-        return mealPlanRepository.findByWeekStartDate(weekStart)
-                .map(plan -> plan.getEntries().stream()
-                        .filter(e -> dayOfWeek.equals(e.getDayOfWeek()))
-                        .sorted(Comparator.comparingInt(MealPlanEntry::getDisplayOrder))
-                        .collect(Collectors.toList()))
-                .orElse(Collections.emptyList());
+    private MonochromeRaster renderRaster(RenderProfile profile, Consumer<FrameCanvas> painter) {
+        if (profile.isGrayscale()) {
+            return GrayscaleDither.ordered(renderGrayscale(profile, painter), 1).toMonochrome();
+        }
+        FrameCanvas canvas = switch (profile.backend()) {
+            case AWT -> new AwtFrameCanvas(profile.width(), profile.height(), textLayout());
+            case BITMAP -> new BitmapFrameCanvas(profile.width(), profile.height(), bitmapFonts);
+        };
+        painter.accept(canvas);
+        return canvas.finish();
     }
 
-    private Map<String, String> getNotesForDate(LocalDate date) {
-        LocalDate weekStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
-        return mealPlanRepository.findByWeekStartDate(weekStart)
-                .map(MealPlan::getDayNotes)
-                .orElse(Collections.emptyMap());
+    /**
+     * Draws the frame at 8 bits per pixel, keeping the antialiased text edges for dithering.
+     * The bitmap backend has no antialiasing, so its frame is drawn in 1 bit and widened.
+     */
+    GrayscaleRaster renderGrayscale(RenderProfile profile,
+                                    LocalDate today, List<MealPlanEntry> todayEntries, String todayNote,
+                                    LocalDate tomorrow, List<MealPlanEntry> tomorrowEntries, String tomorrowNote) {
+        return renderGrayscale(profile, canvas -> drawFrame(canvas, profile,
+                today, todayEntries, todayNote, tomorrow, tomorrowEntries, tomorrowNote));
     }
 
-    byte[] renderImage(LocalDate today, List<MealPlanEntry> todayEntries, String todayNote,
-                       LocalDate tomorrow, List<MealPlanEntry> tomorrowEntries, String tomorrowNote)
-            throws IOException {
+    private GrayscaleRaster renderGrayscale(RenderProfile profile, Consumer<FrameCanvas> painter) {
+        if (profile.backend() == RenderBackend.BITMAP) {
+            BitmapFrameCanvas canvas = new BitmapFrameCanvas(profile.width(), profile.height(), bitmapFonts);
+            painter.accept(canvas);
+            return GrayscaleRaster.of(canvas.finish());
+        }
+        AwtFrameCanvas canvas = AwtFrameCanvas.grayscale(profile.width(), profile.height(), textLayout());
+        painter.accept(canvas);
+        return canvas.finishGrayscale();
+    }
+
+    /**
+     * Draws and encodes a screen other than the day view, e.g. one of the playlist screens, with
+     * the profile's backend, depth and dither. The painter is handed a blank white canvas.
+     * Nothing is cached here; the caller keeps the frame.
+     */
+    byte[] renderScreen(RenderProfile profile, ImageFormat format, Consumer<FrameCanvas> painter) {
+        Consumer<FrameCanvas> blank = canvas -> {
+            canvas.fillRect(0, 0, profile.width(), profile.height(), false);
+            painter.accept(canvas);
+        };
+        if (profile.isGrayscale()) {
+            GrayscaleRaster gray = renderGrayscale(profile, blank);
+            return encode(GrayscaleDither.dither(gray, profile.bitDepth(), profile.dither()), format);
+        }
+        return encode(renderRaster(profile, blank), format);
+    }
 
-        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
-        Graphics2D g = image.createGraphics();
+    /**
+     * Draws the black title bar shared by every screen.
+     */
+    static void drawTitleBar(FrameCanvas canvas, String title) {
+        canvas.fillRect(0, 0, canvas.width(), TITLE_BAR_HEIGHT, true);
+        canvas.drawString(title, TextStyle.HEADER, 16, 26, false);
+    }
 
-        // Enable anti-aliasing for text
-        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    private void drawFrame(FrameCanvas canvas, RenderProfile profile,
+                           LocalDate today, List<MealPlanEntry> todayEntries, String todayNote,
+                           LocalDate tomorrow, List<MealPlanEntry> tomorrowEntries, String tomorrowNote) {
+        int width = profile.width();
+        int height = profile.height();
 
         // White background
-        g.setColor(Color.WHITE);
-        g.fillRect(0, 0, WIDTH, HEIGHT);
-        g.setColor(Color.BLACK);
-
-        // Header
-        Font headerFont = new Font(Font.SANS_SERIF, Font.BOLD, 22);
-        Font dayFont = new Font(Font.SANS_SERIF, Font.BOLD, 20);
-        Font mealTypeFont = new Font(Font.SANS_SERIF, Font.BOLD, 15);
-        Font mealFont = new Font(Font.SANS_SERIF, Font.PLAIN, 16);
-        Font noteFont = new Font(Font.SANS_SERIF, Font.ITALIC, 13);
-        Font emptyFont = new Font(Font.SANS_SERIF, Font.ITALIC, 15);
-
-        // Title bar
-        g.setFont(headerFont);
-        g.fillRect(0, 0, WIDTH, 36);
-        g.setColor(Color.WHITE);
-        g.drawString("Meal Planner", 16, 26);
-        g.setColor(Color.BLACK);
-
-        // Divider line down the middle
-        int midX = WIDTH / 2;
-        g.drawLine(midX, 36, midX, HEIGHT);
-
-        // Draw each day column
-        int columnWidth = midX - 1;
-        drawDayColumn(g, 0, 40, columnWidth, today, todayEntries, todayNote,
-                dayFont, mealTypeFont, mealFont, noteFont, emptyFont, true);
-        drawDayColumn(g, midX + 1, 40, columnWidth, tomorrow, tomorrowEntries, tomorrowNote,
-                dayFont, mealTypeFont, mealFont, noteFont, emptyFont, false);
-
-        // "Updated HH:mm:ss" in the title bar, right-aligned
-        Font updatedFont = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
-        g.setFont(updatedFont);
-        g.setColor(Color.WHITE);
-        String updatedText = "Updated " + LocalDateTime.now().format(UPDATED_FMT);
-        int textWidth = g.getFontMetrics().stringWidth(updatedText);
-        g.drawString(updatedText, WIDTH - textWidth - 12, 26);
-
-        g.dispose();
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", baos);
-        return baos.toByteArray();
-    }
-
-    private void drawDayColumn(Graphics2D g, int x, int startY, int width,
-                               LocalDate date, List<MealPlanEntry> entries, String note,
-                               Font dayFont, Font mealTypeFont, Font mealFont, Font noteFont,
-                               Font emptyFont, boolean isToday) {
+        canvas.fillRect(0, 0, width, height, false);
+
+        drawTitleBar(canvas, "Meal Planner");
+
+        if (profile.layout() == DisplayLayout.TODAY) {
+            // Today only, across the full width
+            drawDayColumn(canvas, 0, 40, width, today, todayEntries, todayNote, true);
+        } else {
+            // Divider line down the middle
+            int midX = width / 2;
+            canvas.drawLine(midX, 36, midX, height, true);
+
+            // Draw each day column
+            int columnWidth = midX - 1;
+            drawDayColumn(canvas, 0, 40, columnWidth, today, todayEntries, todayNote, true);
+            drawDayColumn(canvas, midX + 1, 40, columnWidth, tomorrow, tomorrowEntries, tomorrowNote, false);
+        }
+
+        if (!deterministic) {
+            // "Updated HH:mm:ss" in the title bar, right-aligned
+            String updatedText = "Updated " + LocalDateTime.now().format(UPDATED_FMT);
+            int textWidth = canvas.stringWidth(updatedText, TextStyle.UPDATED);
+            canvas.drawString(updatedText, TextStyle.UPDATED, width - textWidth - 12, 26, false);
+        }
+    }
+
+    private TextLayoutCache textLayout() {
+        TextLayoutCache cache = textLayout;
+        if (cache == null) {
+            synchronized (this) {
+                cache = textLayout;
+                if (cache == null) {
+                    textLayout = cache = new TextLayoutCache();
+                }
+            }
+        }
+        return cache;
+    }
+
+    private void drawDayColumn(FrameCanvas canvas, int x, int startY, int width,
+                               LocalDate date, List<MealPlanEntry> entries, String note, boolean isToday) {
         int padding = 14;
         int y = startY + 10;
 
         // Day label: "Today - Sat 14 Feb" or "Tomorrow - Sun 15 Feb"
-        g.setFont(dayFont);
         String prefix = isToday ? "Today" : "Tomorrow";
         String label = prefix + " — " + date.format(DATE_FMT);
-        g.drawString(label, x + padding, y + 20);
+        canvas.drawString(label, TextStyle.DAY, x + padding, y + 20, true);
         y += 32;
 
         // Underline
-        g.drawLine(x + padding, y, x + width - padding, y);
+        canvas.drawLine(x + padding, y, x + width - padding, y, true);
         y += 12;
 
         if (entries.isEmpty()) {
-            g.setFont(emptyFont);
-            g.drawString("No meals planned", x + padding, y + 16);
+            canvas.drawString("No meals planned", TextStyle.EMPTY, x + padding, y + 16, true);
             y += 30;
         } else {
             // Group by meal type, preserving order: BREAKFAST, LUNCH, DINNER, then null
@@ -214,31 +631,20 @@ public class TrmnlDisplayService {
             for (Map.Entry<MealType, List<MealPlanEntry>> group : grouped.entrySet()) {
                 MealType type = group.getKey();
                 if (type != null) {
-                    g.setFont(mealTypeFont);
                     String typeLabel = capitalize(type.name());
-                    g.drawString(typeLabel, x + padding, y + 15);
+                    canvas.drawString(typeLabel, TextStyle.MEAL_TYPE, x + padding, y + 15, true);
                     y += 22;
                 }
 
                 for (MealPlanEntry entry : group.getValue()) {
-                    g.setFont(mealFont);
                     String mealTitle = entry.getMeal() != null ? entry.getMeal().getTitle() : "Unknown meal";
                     String cookName = entry.getAssignedCook() != null
                             ? " (" + entry.getAssignedCook().getName() + ")"
                             : "";
-                    String line = "• " + mealTitle + cookName;
-
                     // Truncate if too long for column
-                    FontMetrics fm = g.getFontMetrics();
-                    int maxWidth = width - 2 * padding;
-                    if (fm.stringWidth(line) > maxWidth) {
-                        while (fm.stringWidth(line + "…") > maxWidth && line.length() > 1) {
-                            line = line.substring(0, line.length() - 1);
-                        }
-                        line += "…";
-                    }
-
-                    g.drawString(line, x + padding + 6, y + 16);
+                    String line = canvas.truncate("• " + mealTitle + cookName, TextStyle.MEAL, width - 2 * padding);
+
+                    canvas.drawString(line, TextStyle.MEAL, x + padding + 6, y + 16, true);
                     y += 22;
                 }
                 y += 4;
@@ -248,20 +654,9 @@ public class TrmnlDisplayService {
         // Draw note if present
         if (note != null && !note.isBlank()) {
             y += 4;
-            g.setFont(noteFont);
-            g.drawString("Note: " + truncateForWidth(g, "Note: " + note, width - 2 * padding), x + padding, y + 13);
-        }
-    }
-
-    private String truncateForWidth(Graphics2D g, String text, int maxWidth) {
-        FontMetrics fm = g.getFontMetrics();
-        if (fm.stringWidth(text) <= maxWidth) {
-            return text;
-        }
-        while (fm.stringWidth(text + "…") > maxWidth && text.length() > 1) {
-            text = text.substring(0, text.length() - 1);
+            canvas.drawString(canvas.truncate("Note: " + note, TextStyle.NOTE, width - 2 * padding),
+                    TextStyle.NOTE, x + padding, y + 13, true);
         }
-        return text + "…";
     }
 
     private String capitalize(String s) {
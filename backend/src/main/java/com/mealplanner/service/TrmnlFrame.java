@@ -0,0 +1,13 @@
+package com.mealplanner.service;
+
+/**
+ * An encoded TRMNL frame together with the content hash it was rendered from.
+ *
+ * @param contentHash   hash of the content the frame shows, which is older than the current
+ *                      hash when the frame is a fallback
+ * @param data          the encoded image; shared, so must not be modified
+ * @param fallback      true if the current frame could not be rendered in time and this is the
+ *                      last good frame for the profile instead
+ */
+public record TrmnlFrame(String contentHash, byte[] data, boolean fallback) {
+}
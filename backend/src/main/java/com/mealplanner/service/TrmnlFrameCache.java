@@ -0,0 +1,178 @@
+package com.mealplanner.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory LRU cache of encoded TRMNL frames.
+ * Frames are keyed by (date, content hash, device profile), so a repeat poll for unchanged
+ * content is served as a copy of the cached bytes instead of a full render and encode.
+ * Each frame can also hold its base64 data: URI, for devices that take the image inline; it is
+ * encoded once per frame and evicted with it.
+ */
+@Component
+public class TrmnlFrameCache {
+
+    private final int maxEntries;
+    private final Map<FrameKey, Entry> frames;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TrmnlFrameCache(@Value("${trmnl.frame-cache.max-entries:16}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        // Access-ordered so that the eldest entry is always the least recently used
+        this.frames = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FrameKey, Entry> eldest) {
+                return size() > TrmnlFrameCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of the cached frame for the given key, or null if it is not cached.
+     */
+    public byte[] get(FrameKey key) {
+        Entry entry = entry(key);
+        return entry != null ? entry.frame.clone() : null;
+    }
+
+    /**
+     * Whether a frame is cached for the given key, without counting as a hit or a miss.
+     */
+    public boolean contains(FrameKey key) {
+        synchronized (frames) {
+            return frames.containsKey(key);
+        }
+    }
+
+    public void put(FrameKey key, byte[] frame) {
+        if (maxEntries <= 0) return;
+        synchronized (frames) {
+            frames.put(key, new Entry(frame.clone()));
+        }
+    }
+
+    /**
+     * Returns the data: URI of the cached frame for the given key as ASCII bytes, encoding it on
+     * first use, or null if the frame is not cached. The bytes are shared and must not be modified.
+     */
+    public byte[] getDataUri(FrameKey key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return null;
+        }
+        byte[] dataUri = entry.dataUri;
+        if (dataUri == null) {
+            // Concurrent first uses may both encode; either result is the same
+            entry.dataUri = dataUri = dataUri(entry.frame, key.format());
+        }
+        return dataUri;
+    }
+
+    /**
+     * Encodes a frame as a "data:<mime type>;base64,..." URI in ASCII bytes.
+     */
+    static byte[] dataUri(byte[] frame, ImageFormat format) {
+        byte[] prefix = ("data:" + format.getMimeType() + ";base64,").getBytes(StandardCharsets.US_ASCII);
+        byte[] dataUri = new byte[prefix.length + 4 * ((frame.length + 2) / 3)];
+        System.arraycopy(prefix, 0, dataUri, 0, prefix.length);
+        // Base64 writes straight into the tail of the result, so the frame is encoded in one pass
+        ByteBuffer tail = ByteBuffer.wrap(dataUri, prefix.length, dataUri.length - prefix.length);
+        try (OutputStream out = Base64.getEncoder().wrap(new ByteBufferOutputStream(tail))) {
+            out.write(frame);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dataUri;
+    }
+
+    private Entry entry(FrameKey key) {
+        Entry entry;
+        synchronized (frames) {
+            entry = frames.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    private static final class Entry {
+        final byte[] frame;
+        volatile byte[] dataUri;
+
+        Entry(byte[] frame) {
+            this.frame = frame;
+        }
+    }
+
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.put(b, off, len);
+        }
+    }
+
+    /**
+     * Drops every frame that shows a day from the given week. A frame shows its own date and
+     * the following day, so frames dated the day before the week starts are dropped too.
+     */
+    public void invalidateWeek(LocalDate weekStartDate) {
+        LocalDate from = weekStartDate.minusDays(1);
+        LocalDate to = weekStartDate.plusDays(6);
+        synchronized (frames) {
+            frames.keySet().removeIf(k -> !k.date().isBefore(from) && !k.date().isAfter(to));
+        }
+    }
+
+    public void clear() {
+        synchronized (frames) {
+            frames.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMealPlanChanged(MealPlanChangedEvent event) {
+        invalidateWeek(event.weekStartDate());
+    }
+
+    public int size() {
+        synchronized (frames) {
+            return frames.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
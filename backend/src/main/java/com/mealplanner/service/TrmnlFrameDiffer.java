@@ -0,0 +1,59 @@
+package com.mealplanner.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the frame each device was last given and reports what changed since, so the
+ * device can redraw only the changed regions of the panel.
+ */
+@Component
+public class TrmnlFrameDiffer {
+
+    private final TrmnlDisplayService displayService;
+    private final boolean enabled;
+    private final double fullRefreshThreshold;
+    private final ConcurrentMap<String, MonochromeRaster> lastFrames = new ConcurrentHashMap<>();
+
+    public TrmnlFrameDiffer(TrmnlDisplayService displayService,
+                            @Value("${trmnl.partial-refresh.enabled:true}") boolean enabled,
+                            @Value("${trmnl.partial-refresh.full-threshold:0.5}") double fullRefreshThreshold) {
+        this.displayService = displayService;
+        this.enabled = enabled;
+        this.fullRefreshThreshold = fullRefreshThreshold;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Diffs the device's current frame against the one it was last given, and records the current
+     * frame as the device's new baseline.
+     */
+    public FrameDiff diff(String deviceId, LocalDate today, RenderProfile profile, ImageFormat format)
+            throws IOException {
+        MonochromeRaster current = displayService.getRaster(today, profile, format);
+        MonochromeRaster previous = lastFrames.put(deviceId, current);
+        return FrameDiff.compute(previous, current, fullRefreshThreshold);
+    }
+
+    /**
+     * Whether diffing the device's current frame would have to render it first.
+     */
+    public boolean needsRender(LocalDate today, RenderProfile profile) {
+        return !displayService.isRasterReady(today, profile);
+    }
+
+    /**
+     * Forgets a device's baseline, so its next frame is a full refresh.
+     */
+    public void reset(String deviceId) {
+        lastFrames.remove(deviceId);
+    }
+}
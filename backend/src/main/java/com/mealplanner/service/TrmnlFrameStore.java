@@ -0,0 +1,185 @@
+package com.mealplanner.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * On-disk store of encoded TRMNL frames, one file per frame key. Frames are stored under a digest
+ * of the content they show rather than the plan-version hash, as plan versions start again after a
+ * database reset or restore; a stored file never changes once written and frames survive restarts.
+ * The store is bounded by total size: once over the limit, the least recently used files are deleted.
+ */
+@Component
+public class TrmnlFrameStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TrmnlFrameStore.class);
+
+    /** Bump when the renderer's output or the frame keys change, so frames from older builds are not served. */
+    static final int RENDER_VERSION = 2;
+    private static final String PREFIX = "v" + RENDER_VERSION + "-";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final boolean enabled;
+    // File name -> size, access-ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public TrmnlFrameStore(@Value("${trmnl.frame-store.dir:./data/frames}") String directory,
+                           @Value("${trmnl.frame-store.max-bytes:67108864}") long maxBytes,
+                           @Value("${trmnl.frame-store.enabled:true}") boolean enabled) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxBytes;
+        this.enabled = enabled && maxBytes > 0;
+    }
+
+    /**
+     * Indexes the frames already on disk, oldest first, and removes any from older render versions.
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) return;
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing;
+            try (Stream<Path> listing = Files.list(directory)) {
+                existing = listing.filter(Files::isRegularFile).toList();
+            }
+            List<Map.Entry<Path, BasicFileAttributes>> current = new ArrayList<>();
+            for (Path path : existing) {
+                if (path.getFileName().toString().startsWith(PREFIX)) {
+                    current.add(Map.entry(path, Files.readAttributes(path, BasicFileAttributes.class)));
+                } else {
+                    Files.deleteIfExists(path);
+                }
+            }
+            current.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+            synchronized (files) {
+                for (Map.Entry<Path, BasicFileAttributes> e : current) {
+                    files.put(e.getKey().getFileName().toString(), e.getValue().size());
+                    totalBytes += e.getValue().size();
+                }
+            }
+            evict();
+            log.info("TRMNL frame store at {}: {} frames, {} bytes", directory.toAbsolutePath(),
+                    fileCount(), sizeBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open TRMNL frame store at " + directory, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the path of the stored frame for the key, if there is one.
+     */
+    public Optional<Path> find(FrameKey key) {
+        if (!enabled) return Optional.empty();
+        String name = fileName(key);
+        synchronized (files) {
+            if (files.get(name) == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(directory.resolve(name));
+    }
+
+    /**
+     * Reads the stored frame for the key into memory, or returns null if it is not stored.
+     */
+    public byte[] read(FrameKey key) {
+        Optional<Path> path = find(key);
+        if (path.isEmpty()) return null;
+        try {
+            return Files.readAllBytes(path.get());
+        } catch (NoSuchFileException e) {
+            forget(path.get().getFileName().toString());
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read stored TRMNL frame {}", path.get(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a frame. The file is written under a temporary name and moved into place, so a
+     * reader never sees a partial frame. Failures are logged; the store is only an optimisation.
+     */
+    public void put(FrameKey key, byte[] frame) {
+        if (!enabled) return;
+        String name = fileName(key);
+        synchronized (files) {
+            if (files.containsKey(name)) return;
+        }
+        Path target = directory.resolve(name);
+        try {
+            Path temp = Files.createTempFile(directory, "frame", ".tmp");
+            Files.write(temp, frame);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to store TRMNL frame {}", target, e);
+            return;
+        }
+        synchronized (files) {
+            Long previous = files.put(name, (long) frame.length);
+            totalBytes += frame.length - (previous != null ? previous : 0);
+        }
+        evict();
+    }
+
+    private void evict() {
+        List<String> victims = new ArrayList<>();
+        synchronized (files) {
+            Iterator<Map.Entry<String, Long>> it = files.entrySet().iterator();
+            // Always keep the most recent frame, even if it alone is over the limit
+            while (totalBytes > maxBytes && files.size() > 1 && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                totalBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String name : victims) {
+            try {
+                Files.deleteIfExists(directory.resolve(name));
+            } catch (IOException e) {
+                log.warn("Failed to evict stored TRMNL frame {}", name, e);
+            }
+        }
+    }
+
+    private void forget(String name) {
+        synchronized (files) {
+            Long size = files.remove(name);
+            if (size != null) totalBytes -= size;
+        }
+    }
+
+    static String fileName(FrameKey key) {
+        return PREFIX + key.date() + "-" + key.contentHash() + "-" + key.profile() + "." + key.format().getExtension();
+    }
+
+    public int fileCount() {
+        synchronized (files) {
+            return files.size();
+        }
+    }
+
+    public long sizeBytes() {
+        synchronized (files) {
+            return totalBytes;
+        }
+    }
+}
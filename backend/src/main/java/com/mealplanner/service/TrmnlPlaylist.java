@@ -0,0 +1,375 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.ShoppingItem;
+import com.mealplanner.model.MealPlanEntry;
+import com.mealplanner.model.TrmnlScreen;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The screens a TRMNL device rotates through, configured by trmnl.playlist.screens
+ * (e.g. "day,week,shopping"). Each poll moves the device on to the next screen.
+ * Frames for every screen are kept in a ring per date, profile and format, one slot per screen,
+ * each tagged with a hash of the inputs it was rendered from. The render scheduler refreshes
+ * the ring when plans change, and a slot is only re-rendered when its hash no longer matches,
+ * so a poll normally just reads the next slot. Renders run on the render executor, outside the
+ * ring's lock, so a slow one neither ties up the request thread past the deadline nor holds up
+ * polls for the other screens.
+ */
+@Component
+public class TrmnlPlaylist {
+
+    private static final Logger log = LoggerFactory.getLogger(TrmnlPlaylist.class);
+
+    private static final int MAX_RINGS = 16;
+    // Devices whose playlist position is remembered; the least recently polled is forgotten first
+    private static final int MAX_DEVICES = 1024;
+    private static final int ROW_PADDING = 14;
+    private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.ofPattern("EEE d");
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("EEE d MMM");
+
+    private final TrmnlDisplayService displayService;
+    private final MealPlanService mealPlanService;
+    private final MealPlanVersionIndex versionIndex;
+    private final IngredientTotals ingredientTotals;
+    private final TrmnlRenderExecutor renderExecutor;
+    private final List<TrmnlScreen> screens;
+    private final int rotateSeconds;
+    private final SingleFlight<SlotKey, TrmnlFrame> renders = new SingleFlight<>();
+    // Next playlist position for each device
+    private final Map<String, Integer> cursors = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_DEVICES;
+        }
+    };
+    private final Map<RingKey, Slot[]> rings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RingKey, Slot[]> eldest) {
+            return size() > MAX_RINGS;
+        }
+    };
+
+    public TrmnlPlaylist(TrmnlDisplayService displayService,
+                         MealPlanService mealPlanService,
+                         MealPlanVersionIndex versionIndex,
+                         IngredientTotals ingredientTotals,
+                         TrmnlRenderExecutor renderExecutor,
+                         @Value("${trmnl.playlist.screens:day}") String screensStr,
+                         @Value("${trmnl.playlist.rotate-seconds:300}") int rotateSeconds) {
+        this.displayService = displayService;
+        this.mealPlanService = mealPlanService;
+        this.versionIndex = versionIndex;
+        this.ingredientTotals = ingredientTotals;
+        this.renderExecutor = renderExecutor;
+        this.screens = parseScreens(screensStr);
+        this.rotateSeconds = rotateSeconds;
+    }
+
+    static List<TrmnlScreen> parseScreens(String screensStr) {
+        List<TrmnlScreen> parsed = Arrays.stream(screensStr.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> TrmnlScreen.valueOf(s.toUpperCase(Locale.ROOT)))
+                .distinct()
+                .collect(Collectors.toList());
+        return parsed.isEmpty() ? List.of(TrmnlScreen.DAY) : List.copyOf(parsed);
+    }
+
+    public List<TrmnlScreen> getScreens() {
+        return screens;
+    }
+
+    /** Whether there is more than one screen, i.e. devices should be rotated. */
+    public boolean isRotating() {
+        return screens.size() > 1;
+    }
+
+    /** Seconds each screen stays up before the device polls for the next one. */
+    public int getRotateSeconds() {
+        return rotateSeconds;
+    }
+
+    /**
+     * Returns the screen a device should show now and moves it on to the next one.
+     */
+    public TrmnlScreen advance(String deviceKey) {
+        int position;
+        synchronized (cursors) {
+            position = cursors.getOrDefault(deviceKey, 0);
+            cursors.put(deviceKey, position + 1);
+        }
+        return screens.get(Math.floorMod(position, screens.size()));
+    }
+
+    /**
+     * Returns the screen a device was last sent, without moving it on.
+     */
+    public TrmnlScreen current(String deviceKey) {
+        Integer cursor;
+        synchronized (cursors) {
+            cursor = cursors.get(deviceKey);
+        }
+        int position = cursor == null ? 0 : cursor - 1;
+        return screens.get(Math.floorMod(position, screens.size()));
+    }
+
+    /**
+     * Returns a hash of everything a screen for the given date is drawn from. It comes from the
+     * in-memory plan versions and totals generation, so checking whether a slot is current costs
+     * no query. Editing a meal moves on the version of every plan it is in, which covers the meal
+     * titles on the week view; the shopping list also takes in the ingredient totals.
+     */
+    public String inputHash(TrmnlScreen screen, LocalDate today) {
+        if (screen == TrmnlScreen.DAY) {
+            return displayService.getContentHash(today);
+        }
+        // The week view and the shopping list both cover the rest of today's week
+        byte[] input = ByteBuffer.allocate(Integer.BYTES + 3 * Long.BYTES)
+                .putInt(screen.ordinal())
+                .putLong(today.toEpochDay())
+                .putLong(versionIndex.versionOf(DisplaySnapshot.weekStartOf(today)))
+                .putLong(screen == TrmnlScreen.SHOPPING ? ingredientTotals.generation() : 0)
+                .array();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(input);
+            return HexFormat.of().formatHex(digest, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Whether a screen's frame can be served without rendering it: its slot in the ring is
+     * current, or for the day screen, the display service has the frame cached or stored.
+     */
+    public boolean isCurrent(TrmnlScreen screen, LocalDate today, RenderProfile profile, ImageFormat format) {
+        if (screen == TrmnlScreen.DAY) {
+            return displayService.isFrameReady(today, profile, format);
+        }
+        int index = screens.indexOf(screen);
+        if (index < 0) {
+            return false;
+        }
+        Slot[] ring = ring(today, profile, format);
+        Slot current;
+        synchronized (ring) {
+            current = ring[index];
+        }
+        return current != null && current.frame.contentHash().equals(inputHash(screen, today));
+    }
+
+    /**
+     * Returns the frame for one screen, from its slot in the ring if the slot is current, and
+     * otherwise rendered into the slot now. If the render fails or misses its deadline the slot's
+     * previous frame is returned marked as a fallback; with no previous frame the failure is thrown.
+     */
+    public TrmnlFrame frame(TrmnlScreen screen, LocalDate today, RenderProfile profile, ImageFormat format)
+            throws IOException {
+        return slot(screen, today, profile, format).frame;
+    }
+
+    /**
+     * Like {@link #frame}, but the returned frame's data is its data: URI in ASCII bytes, encoded
+     * once per slot. The bytes are shared and must not be modified.
+     */
+    public TrmnlFrame dataUri(TrmnlScreen screen, LocalDate today, RenderProfile profile, ImageFormat format)
+            throws IOException {
+        Slot slot = slot(screen, today, profile, format);
+        byte[] dataUri = slot.dataUri;
+        if (dataUri == null) {
+            slot.dataUri = dataUri = TrmnlFrameCache.dataUri(slot.frame.data(), format);
+        }
+        return new TrmnlFrame(slot.frame.contentHash(), dataUri, slot.frame.fallback());
+    }
+
+    private Slot slot(TrmnlScreen screen, LocalDate today, RenderProfile profile, ImageFormat format)
+            throws IOException {
+        int index = screens.indexOf(screen);
+        if (index < 0) {
+            throw new IllegalArgumentException("Screen is not in the playlist: " + screen);
+        }
+        Slot[] ring = ring(today, profile, format);
+        String hash = inputHash(screen, today);
+        Slot current;
+        synchronized (ring) {
+            current = ring[index];
+        }
+        if (current != null && current.frame.contentHash().equals(hash)) {
+            return current;
+        }
+        try {
+            Slot rendered = new Slot(render(screen, hash, today, profile, format));
+            if (!rendered.frame.fallback()) {
+                synchronized (ring) {
+                    // Unless a newer render got there first
+                    if (ring[index] == current) {
+                        ring[index] = rendered;
+                    }
+                }
+            }
+            return rendered;
+        } catch (IOException | RuntimeException e) {
+            if (current == null) {
+                throw e;
+            }
+            log.warn("Serving previous TRMNL {} screen {} for {}: {}",
+                    screen, current.frame.contentHash(), profile.key(), e.getMessage());
+            return new Slot(new TrmnlFrame(current.frame.contentHash(), current.frame.data(), true));
+        }
+    }
+
+    private static final class Slot {
+        final TrmnlFrame frame;
+        volatile byte[] dataUri;
+
+        Slot(TrmnlFrame frame) {
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * Brings every slot of the ring for a date, profile and format up to date, rendering only
+     * the screens whose inputs have changed. Called by the render scheduler.
+     */
+    public void refresh(LocalDate today, RenderProfile profile, ImageFormat format) {
+        for (TrmnlScreen screen : screens) {
+            try {
+                frame(screen, today, profile, format);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to pre-render TRMNL {} screen for {} ({})", screen, today, profile.key(), e);
+            }
+        }
+    }
+
+    private Slot[] ring(LocalDate today, RenderProfile profile, ImageFormat format) {
+        synchronized (rings) {
+            return rings.computeIfAbsent(new RingKey(today, profile.key(), format),
+                    k -> new Slot[screens.size()]);
+        }
+    }
+
+    private record RingKey(LocalDate date, String profile, ImageFormat format) {
+    }
+
+    private record SlotKey(TrmnlScreen screen, String hash, LocalDate date, String profile, ImageFormat format) {
+    }
+
+    /**
+     * Renders one screen. The day screen has its own caches, executor and fallback; the others
+     * run on the render executor, with concurrent misses for the same slot sharing one render.
+     */
+    private TrmnlFrame render(TrmnlScreen screen, String hash, LocalDate today, RenderProfile profile,
+                              ImageFormat format) throws IOException {
+        if (screen == TrmnlScreen.DAY) {
+            return displayService.renderFrame(today, profile, format);
+        }
+        return renders.execute(new SlotKey(screen, hash, today, profile.key(), format),
+                () -> renderExecutor.call(() -> renderScreen(screen, hash, today, profile, format)));
+    }
+
+    private TrmnlFrame renderScreen(TrmnlScreen screen, String hash, LocalDate today, RenderProfile profile,
+                                    ImageFormat format) throws IOException {
+        LocalDate weekStart = DisplaySnapshot.weekStartOf(today);
+        return switch (screen) {
+            case DAY -> throw new IllegalArgumentException("The day screen is rendered by the display service");
+            case WEEK -> {
+                DisplaySnapshot week = displayService.loadSnapshot(today, weekStart, weekStart.plusDays(6));
+                yield new TrmnlFrame(hash, displayService.renderScreen(profile, format,
+                        canvas -> drawWeek(canvas, today, weekStart, week)), false);
+            }
+            case SHOPPING -> {
+                LocalDate weekEnd = weekStart.plusDays(6);
+                List<ShoppingItem> items = mealPlanService.generateShoppingListForDateRange(today, weekEnd);
+                yield new TrmnlFrame(hash, displayService.renderScreen(profile, format,
+                        canvas -> drawShoppingList(canvas, today, weekEnd, items)), false);
+            }
+        };
+    }
+
+    /**
+     * One row per day of the week, each listing that day's meals; today's row is inverted.
+     */
+    static void drawWeek(FrameCanvas canvas, LocalDate today, LocalDate weekStart, DisplaySnapshot week) {
+        TrmnlDisplayService.drawTitleBar(canvas, "This week — from " + weekStart.format(DATE_FMT));
+        int top = TrmnlDisplayService.TITLE_BAR_HEIGHT;
+        int rowHeight = (canvas.height() - top) / 7;
+        int labelWidth = canvas.stringWidth("Wed 30", TextStyle.MEAL_TYPE) + 2 * ROW_PADDING;
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = weekStart.plusDays(i);
+            int y = top + i * rowHeight;
+            boolean isToday = date.equals(today);
+            if (isToday) {
+                canvas.fillRect(0, y, canvas.width(), rowHeight, true);
+            } else if (i > 0) {
+                canvas.drawLine(0, y, canvas.width() - 1, y, true);
+            }
+            int baseline = y + (rowHeight + 12) / 2;
+            canvas.drawString(date.format(DAY_FMT), TextStyle.MEAL_TYPE, ROW_PADDING, baseline, !isToday);
+
+            List<MealPlanEntry> entries = week.getEntries(date);
+            String meals = entries.isEmpty()
+                    ? "—"
+                    : entries.stream()
+                            .map(e -> e.getMeal() != null ? e.getMeal().getTitle() : "Unknown meal")
+                            .collect(Collectors.joining(", "));
+            String line = canvas.truncate(meals, TextStyle.MEAL, canvas.width() - labelWidth - ROW_PADDING);
+            canvas.drawString(line, TextStyle.MEAL, labelWidth, baseline, !isToday);
+        }
+    }
+
+    /**
+     * The shopping list in as many columns as fit, ending with a count of anything left over.
+     */
+    static void drawShoppingList(FrameCanvas canvas, LocalDate from, LocalDate to, List<ShoppingItem> items) {
+        TrmnlDisplayService.drawTitleBar(canvas,
+                "Shopping — " + from.format(DAY_FMT) + " to " + to.format(DATE_FMT));
+        int top = TrmnlDisplayService.TITLE_BAR_HEIGHT + 10;
+        int lineHeight = 22;
+        if (items.isEmpty()) {
+            canvas.drawString("Nothing to buy", TextStyle.EMPTY, ROW_PADDING, top + 16, true);
+            return;
+        }
+        int columns = canvas.width() >= 600 ? 2 : 1;
+        int columnWidth = canvas.width() / columns;
+        int rows = Math.max(1, (canvas.height() - top) / lineHeight);
+        int capacity = rows * columns;
+        int shown = items.size() <= capacity ? items.size() : capacity - 1;
+        for (int i = 0; i < shown; i++) {
+            int x = (i / rows) * columnWidth + ROW_PADDING;
+            int baseline = top + (i % rows) * lineHeight + 16;
+            String line = canvas.truncate("• " + describe(items.get(i)), TextStyle.MEAL,
+                    columnWidth - 2 * ROW_PADDING);
+            canvas.drawString(line, TextStyle.MEAL, x, baseline, true);
+        }
+        if (shown < items.size()) {
+            int x = (shown / rows) * columnWidth + ROW_PADDING;
+            int baseline = top + (shown % rows) * lineHeight + 16;
+            canvas.drawString("+ " + (items.size() - shown) + " more", TextStyle.EMPTY, x, baseline, true);
+        }
+    }
+
+    /** "2.5 kg flour", or just the name when there is no quantity. */
+    static String describe(ShoppingItem item) {
+        StringBuilder sb = new StringBuilder();
+        if (item.getTotalQuantity() > 0) {
+            sb.append(BigDecimal.valueOf(item.getTotalQuantity()).stripTrailingZeros().toPlainString()).append(' ');
+            if (item.getUnit() != null && !item.getUnit().isBlank()) {
+                sb.append(item.getUnit().trim()).append(' ');
+            }
+        }
+        return sb.append(item.getName()).toString();
+    }
+}
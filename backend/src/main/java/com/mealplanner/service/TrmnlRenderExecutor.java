@@ -0,0 +1,93 @@
+package com.mealplanner.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs TRMNL renders on a small dedicated thread pool instead of the caller's request thread,
+ * and gives up waiting once a render misses its deadline. A render that misses the deadline is
+ * not cancelled: AWT and JDBC calls do not respond to interrupts, and letting it finish still
+ * fills the frame caches for the next poll. The queue is bounded, so a stall cannot pile up
+ * work without limit; a full queue fails fast.
+ */
+@Component
+public class TrmnlRenderExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long deadlineMillis;
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public TrmnlRenderExecutor(@Value("${trmnl.render.threads:2}") int threads,
+                               @Value("${trmnl.render.queue-size:16}") int queueSize,
+                               @Value("${trmnl.render.deadline-ms:5000}") long deadlineMillis) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "trmnl-render-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Runs the task on the render pool and waits up to the deadline for its result.
+     * A miss, a full queue and a failed task are all reported as an IOException.
+     */
+    public <V> V call(SingleFlight.Loader<V> task) throws IOException {
+        Future<V> future;
+        try {
+            future = executor.submit(task::load);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new IOException("TRMNL render queue is full", e);
+        }
+        try {
+            return future.get(deadlineMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new IOException("TRMNL render missed its " + deadlineMillis + " ms deadline", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for TRMNL render", e);
+        } catch (ExecutionException e) {
+            failures.increment();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new IOException("TRMNL render failed", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Renders abandoned because they missed the deadline. */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /** Renders refused because the queue was full. */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /** Renders that threw. */
+    public long getFailures() {
+        return failures.sum();
+    }
+}
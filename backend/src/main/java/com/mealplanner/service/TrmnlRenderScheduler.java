@@ -0,0 +1,147 @@
+package com.mealplanner.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders TRMNL frames in the background so devices are served a frame that is already in the
+ * frame cache instead of paying the render and encode on their request thread.
+ * Frames are rendered:
+ * - at startup, for the current day
+ * - shortly after a meal plan change commits, if it affects today or tomorrow
+ * - just before midnight, for the day about to start
+ * - just before the sleep window ends, for the morning's first poll
+ * Each render covers every profile in the device registry, or the default profile if no device
+ * has polled yet, and refreshes any other playlist screens whose inputs have changed.
+ */
+@Component
+public class TrmnlRenderScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(TrmnlRenderScheduler.class);
+
+    private final TrmnlDisplayService displayService;
+    private final TaskScheduler taskScheduler;
+    private final TrmnlDeviceRegistry deviceRegistry;
+    private final TrmnlPlaylist playlist;
+    private final ZoneId timezone;
+    private final LocalTime sleepStop;
+    private final Duration lead;
+    private final Duration debounce;
+    private final boolean enabled;
+    private final ImageFormat deviceFormat;
+    private final AtomicReference<ScheduledFuture<?>> pendingRender = new AtomicReference<>();
+
+    public TrmnlRenderScheduler(TrmnlDisplayService displayService,
+                                TaskScheduler taskScheduler,
+                                TrmnlDeviceRegistry deviceRegistry,
+                                TrmnlPlaylist playlist,
+                                @Value("${trmnl.timezone:}") String timezoneStr,
+                                @Value("${trmnl.sleep.stop:06:00}") String sleepStopStr,
+                                @Value("${trmnl.prerender.lead-minutes:5}") int leadMinutes,
+                                @Value("${trmnl.prerender.debounce-ms:2000}") long debounceMs,
+                                @Value("${trmnl.prerender.enabled:true}") boolean enabled,
+                                @Value("${trmnl.image-format:bmp}") String imageFormatStr) {
+        this.displayService = displayService;
+        this.taskScheduler = taskScheduler;
+        this.deviceRegistry = deviceRegistry;
+        this.playlist = playlist;
+        this.timezone = timezoneStr.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timezoneStr);
+        this.sleepStop = LocalTime.parse(sleepStopStr);
+        this.lead = Duration.ofMinutes(leadMinutes);
+        this.debounce = Duration.ofMillis(debounceMs);
+        this.enabled = enabled;
+        this.deviceFormat = ImageFormat.valueOf(imageFormatStr.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        CronTrigger beforeMidnight = new CronTrigger(cronFor(LocalTime.MIDNIGHT.minus(lead)), timezone);
+        CronTrigger beforeWake = new CronTrigger(cronFor(sleepStop.minus(lead)), timezone);
+        taskScheduler.schedule(this::renderAhead, beforeMidnight);
+        taskScheduler.schedule(this::renderAhead, beforeWake);
+        taskScheduler.schedule(() -> render(currentDate()), Instant.now());
+        log.info("TRMNL pre-rendering scheduled at {} and {} ({})",
+                LocalTime.MIDNIGHT.minus(lead), sleepStop.minus(lead), timezone);
+    }
+
+    /**
+     * Re-renders the current frame once a plan change has committed. Changes arriving within the
+     * debounce window are collapsed into a single render.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMealPlanChanged(MealPlanChangedEvent event) {
+        if (!enabled) return;
+        LocalDate today = currentDate();
+        if (!affects(event.weekStartDate(), today)) return;
+
+        ScheduledFuture<?> next = taskScheduler.schedule(() -> render(currentDate()), Instant.now().plus(debounce));
+        ScheduledFuture<?> previous = pendingRender.getAndSet(next);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Renders the frame for the date it will be once the lead time has passed.
+     */
+    void renderAhead() {
+        render(targetDate(ZonedDateTime.now(timezone)));
+    }
+
+    LocalDate targetDate(ZonedDateTime now) {
+        return now.plus(lead).toLocalDate();
+    }
+
+    LocalDate currentDate() {
+        return LocalDate.now(timezone);
+    }
+
+    /**
+     * A frame for today shows today and tomorrow, so it is affected by changes to either day's week.
+     */
+    static boolean affects(LocalDate weekStartDate, LocalDate today) {
+        LocalDate weekEnd = weekStartDate.plusDays(6);
+        return !today.isAfter(weekEnd) && !today.plusDays(1).isBefore(weekStartDate);
+    }
+
+    static String cronFor(LocalTime time) {
+        return "0 " + time.getMinute() + " " + time.getHour() + " * * *";
+    }
+
+    private void render(LocalDate date) {
+        Set<RenderProfile> profiles = deviceRegistry.activeProfiles();
+        if (profiles.isEmpty()) {
+            profiles = Set.of(RenderProfile.DEFAULT);
+        }
+        for (RenderProfile profile : profiles) {
+            try {
+                displayService.renderDisplayImage(date, profile, deviceFormat);
+                log.debug("Pre-rendered TRMNL frame for {} ({})", date, profile.key());
+            } catch (Exception e) {
+                log.warn("Failed to pre-render TRMNL frame for {} ({})", date, profile.key(), e);
+            }
+            if (playlist.isRotating()) {
+                playlist.refresh(date, profile, deviceFormat);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mealplanner.service;
+
+/**
+ * Point-in-time counters for the TRMNL frame pipeline, served by /api/trmnl-stats.
+ *
+ * @param renders        frames actually rendered and encoded on a request path
+ * @param coalesced      requests that shared a concurrent render instead of starting their own
+ * @param cacheHits      frames served from the frame cache
+ * @param cacheMisses    frame cache lookups that found nothing
+ * @param cachedFrames   frames currently held in the frame cache
+ * @param storedFrames   frames currently held in the on-disk frame store
+ * @param storedBytes    total size of the on-disk frame store
+ * @param timeouts       renders that missed the render deadline
+ * @param rejected       renders refused because the render queue was full
+ * @param failures       renders that threw
+ * @param fallbacks      requests served the last good frame because the current one could not be rendered
+ */
+public record TrmnlRenderStats(long renders, long coalesced, long cacheHits, long cacheMisses, int cachedFrames,
+                               int storedFrames, long storedBytes,
+                               long timeouts, long rejected, long failures, long fallbacks) {
+}
@@ -0,0 +1,229 @@
+package com.mealplanner.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Structured telemetry for TRMNL requests and device logs: battery, signal strength, firmware
+ * and request timings. Recording an event is one lock-free ring insert, so the request path
+ * never formats, serialises or writes anything. A scheduled writer drains the ring in batches
+ * into one JSON-lines file per UTC day under trmnl.telemetry.dir, keeping trmnl.telemetry.retain-days
+ * of them. The ring also keeps the most recent events for /api/trmnl-telemetry.
+ * If devices produce events faster than the writer drains them, the oldest are dropped and counted.
+ */
+@Component
+public class TrmnlTelemetry {
+
+    private static final Logger log = LoggerFactory.getLogger(TrmnlTelemetry.class);
+
+    private static final int BATCH_SIZE = 512;
+    private static final String FILE_PREFIX = "telemetry-";
+    private static final String FILE_SUFFIX = ".jsonl";
+
+    private final TelemetryRing<TrmnlTelemetryEvent> ring;
+    private final ObjectWriter writer;
+    private final Path directory;
+    private final boolean enabled;
+    private final int retainDays;
+    private final int headerSampleEvery;
+    private final AtomicLong headerRequests = new AtomicLong();
+    // Owned by the writer, which runs under the instance lock
+    private final List<TrmnlTelemetryEvent> batch = new ArrayList<>(BATCH_SIZE);
+    private long written;
+    private long reportedLost;
+    private LocalDate prunedOn;
+
+    public TrmnlTelemetry(ObjectMapper objectMapper,
+                          @Value("${trmnl.telemetry.enabled:true}") boolean enabled,
+                          @Value("${trmnl.telemetry.dir:./data/telemetry}") String directory,
+                          @Value("${trmnl.telemetry.buffer-size:4096}") int bufferSize,
+                          @Value("${trmnl.telemetry.retain-days:7}") int retainDays,
+                          @Value("${trmnl.telemetry.header-sample-every:100}") int headerSampleEvery) {
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                // Events are appended to one buffered stream per flush
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.ring = new TelemetryRing<>(bufferSize);
+        this.retainDays = Math.max(1, retainDays);
+        this.headerSampleEvery = headerSampleEvery;
+    }
+
+    public void record(TrmnlTelemetryEvent event) {
+        ring.add(event);
+    }
+
+    /**
+     * Records the entries of a device's /api/log payload, one event per log message.
+     */
+    public void recordLog(String deviceId, Map<String, Object> logData) {
+        for (TrmnlTelemetryEvent event : fromLog(deviceId, logData, Instant.now())) {
+            ring.add(event);
+        }
+    }
+
+    /**
+     * Whether this request's headers should be logged: one request in every
+     * trmnl.telemetry.header-sample-every, or none if that is 0. Only consulted when debug
+     * logging is on.
+     */
+    public boolean sampleHeaders() {
+        return headerSampleEvery > 0 && headerRequests.getAndIncrement() % headerSampleEvery == 0;
+    }
+
+    /**
+     * Returns up to limit of the most recent events, newest first, optionally for one device only.
+     */
+    public List<TrmnlTelemetryEvent> recent(String deviceId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (deviceId == null) {
+            return ring.recent(limit);
+        }
+        return ring.recent(ring.capacity()).stream()
+                .filter(e -> deviceId.equals(e.deviceId()))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Writes every event recorded since the last flush to today's file.
+     */
+    @Scheduled(fixedDelayString = "${trmnl.telemetry.flush-ms:5000}")
+    public synchronized void flush() {
+        if (!enabled || ring.added() == written + ring.lost()) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Path file = directory.resolve(FILE_PREFIX + today + FILE_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                while (ring.drainTo(batch, BATCH_SIZE) > 0) {
+                    for (TrmnlTelemetryEvent event : batch) {
+                        writer.writeValue(out, event);
+                        out.write('\n');
+                    }
+                    written += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            // The undrained events stay in the ring for the next flush, until they are overwritten
+            batch.clear();
+            log.warn("Failed to write TRMNL telemetry to {}: {}", file, e.getMessage());
+        }
+        if (ring.lost() > reportedLost) {
+            log.warn("Dropped {} TRMNL telemetry events that arrived faster than they could be written",
+                    ring.lost() - reportedLost);
+            reportedLost = ring.lost();
+        }
+        if (!today.equals(prunedOn)) {
+            prune(today);
+            prunedOn = today;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /** Events written so far. */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    private void prune(LocalDate today) {
+        String oldest = FILE_PREFIX + today.minusDays(retainDays - 1) + FILE_SUFFIX;
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path path : listing.toList()) {
+                String name = path.getFileName().toString();
+                // ISO dates sort lexically, so older files sort before the oldest one kept
+                if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX) && name.compareTo(oldest) < 0) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to prune TRMNL telemetry in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Extracts events from a TRMNL /api/log payload: {"log": {"logs_array": [...]}}, where each
+     * entry has a log_message and a device_status_stamp with battery_voltage, wifi_rssi_level
+     * and current_fw_version. A payload in any other shape is read as a single entry.
+     */
+    static List<TrmnlTelemetryEvent> fromLog(String deviceId, Map<String, Object> logData, Instant now) {
+        if (logData == null) {
+            return List.of();
+        }
+        Object entries = logData.get("log") instanceof Map<?, ?> logMap ? logMap.get("logs_array") : null;
+        List<TrmnlTelemetryEvent> events = new ArrayList<>();
+        if (entries instanceof List<?> list) {
+            for (Object entry : list) {
+                if (entry instanceof Map<?, ?> map) {
+                    events.add(logEvent(deviceId, map, now));
+                }
+            }
+        } else {
+            events.add(logEvent(deviceId, logData, now));
+        }
+        return events;
+    }
+
+    private static TrmnlTelemetryEvent logEvent(String deviceId, Map<?, ?> entry, Instant now) {
+        Map<?, ?> status = entry.get("device_status_stamp") instanceof Map<?, ?> stamp ? stamp : entry;
+        Object message = entry.get("log_message");
+        Object firmware = status.get("current_fw_version");
+        return new TrmnlTelemetryEvent(now, TrmnlTelemetryEvent.Kind.LOG, deviceId,
+                firmware != null ? firmware.toString() : null,
+                parseDouble(status.get("battery_voltage")), parseInteger(status.get("wifi_rssi_level")),
+                null, null, message != null ? message.toString() : null);
+    }
+
+    /** Parses a number from a header or JSON value, or null if it is not one. */
+    public static Double parseDouble(Object value) {
+        if (value instanceof Number n) return n.doubleValue();
+        if (value == null) return null;
+        try {
+            return Double.valueOf(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Parses a whole number from a header or JSON value, or null if it is not one. */
+    public static Integer parseInteger(Object value) {
+        Double d = parseDouble(value);
+        return d != null ? (int) Math.round(d) : null;
+    }
+}
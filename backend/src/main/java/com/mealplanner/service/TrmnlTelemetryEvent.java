@@ -0,0 +1,26 @@
+package com.mealplanner.service;
+
+import java.time.Instant;
+
+/**
+ * One TRMNL request or device log message, as captured by {@link TrmnlTelemetry}.
+ * Fields a device did not report are null.
+ *
+ * @param time           when the request arrived
+ * @param kind           which endpoint it was
+ * @param deviceId       the ID header (device MAC address)
+ * @param firmware       firmware version
+ * @param batteryVoltage battery voltage
+ * @param rssi           Wi-Fi signal strength in dBm
+ * @param status         HTTP status of the response, for requests
+ * @param durationMicros time spent handling the request, for requests
+ * @param message        the log message, for device logs
+ */
+public record TrmnlTelemetryEvent(Instant time, Kind kind, String deviceId, String firmware,
+                                  Double batteryVoltage, Integer rssi, Integer status, Long durationMicros,
+                                  String message) {
+
+    public enum Kind {
+        DISPLAY, IMAGE, LOG
+    }
+}
@@ -0,0 +1,131 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.IngredientSum;
+import com.mealplanner.dto.ShoppingItem;
+import com.mealplanner.model.CatalogUnit;
+import com.mealplanner.repository.CatalogUnitRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The unit conversions the shopping list totals are added up with. Totals are kept in the units
+ * they were entered in; only an ingredient entered in several units of the same dimension, such
+ * as "500 g" and "1 kg", is converted, into the largest of those units, so a list never shows an
+ * amount in a unit nobody entered. At startup every unit in
+ * {@link UnitTable#KNOWN} is put in the unit catalog with its dimension and factor, whether or
+ * not any meal uses it yet, and the catalog is compiled into a {@link UnitTable}. A unit first
+ * seen after that is one the planner cannot convert, so the table never needs to change while
+ * it runs.
+ */
+@Component
+public class UnitConversions {
+
+    private static final Logger log = LoggerFactory.getLogger(UnitConversions.class);
+
+    private final CatalogUnitRepository unitRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile UnitTable table = UnitTable.EMPTY;
+
+    public UnitConversions(CatalogUnitRepository unitRepository, PlatformTransactionManager transactionManager) {
+        this.unitRepository = unitRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void load() {
+        List<CatalogUnit> units = transactionTemplate.execute(status -> {
+            Map<String, CatalogUnit> known = new HashMap<>();
+            unitRepository.findByNameIn(UnitTable.KNOWN.keySet()).forEach(unit -> known.put(unit.getName(), unit));
+            List<CatalogUnit> added = new ArrayList<>();
+            for (String name : UnitTable.KNOWN.keySet()) {
+                if (!known.containsKey(name)) {
+                    added.add(new CatalogUnit(name));
+                }
+            }
+            unitRepository.saveAll(added).forEach(unit -> known.put(unit.getName(), unit));
+            UnitTable.KNOWN.forEach((name, conversion) -> known.get(name).setConversion(conversion.dimension(),
+                    conversion.factor(), known.get(conversion.dimension().getBaseUnit()).getId()));
+            return unitRepository.findAll();
+        });
+        table = UnitTable.of(units);
+        log.info("Compiled conversions for {} units", UnitTable.KNOWN.size());
+    }
+
+    UnitTable table() {
+        return table;
+    }
+
+    /**
+     * Combines the per-unit sums of a shopping list into its items, as {@link #combine(UnitTable,
+     * Stream, Consumer)} does.
+     */
+    List<ShoppingItem> combine(List<IngredientSum> sums) {
+        List<ShoppingItem> items = new ArrayList<>();
+        combine(table, sums.stream(), items::add);
+        return items;
+    }
+
+    void combine(Stream<IngredientSum> sums, Consumer<ShoppingItem> consumer) {
+        combine(table, sums, consumer);
+    }
+
+    /**
+     * Passes the consumer one shopping list item per ingredient and dimension, in the order of
+     * the sums, which must have each ingredient's sums together. An ingredient in one unit keeps
+     * its quantity and unit as they are; one in several units that convert to the same base unit
+     * is added up and given in whichever of those units is largest. Only one ingredient's sums
+     * are held at a time.
+     */
+    static void combine(UnitTable units, Stream<IngredientSum> sums, Consumer<ShoppingItem> consumer) {
+        List<IngredientSum> ingredient = new ArrayList<>();
+        sums.forEachOrdered(sum -> {
+            if (!ingredient.isEmpty() && !ingredient.get(0).ingredientId().equals(sum.ingredientId())) {
+                combineIngredient(units, ingredient, consumer);
+                ingredient.clear();
+            }
+            ingredient.add(sum);
+        });
+        if (!ingredient.isEmpty()) {
+            combineIngredient(units, ingredient, consumer);
+        }
+    }
+
+    private static void combineIngredient(UnitTable units, List<IngredientSum> sums, Consumer<ShoppingItem> consumer) {
+        boolean[] combined = new boolean[sums.size()];
+        for (int i = 0; i < sums.size(); i++) {
+            if (combined[i]) {
+                continue;
+            }
+            IngredientSum first = sums.get(i);
+            long baseUnitId = units.baseUnitOf(first.unitId());
+            IngredientSum largest = first;
+            double total = 0;
+            int count = 0;
+            for (int j = i; j < sums.size(); j++) {
+                IngredientSum sum = sums.get(j);
+                if (!combined[j] && units.baseUnitOf(sum.unitId()) == baseUnitId) {
+                    combined[j] = true;
+                    total += sum.quantity() * units.factorOf(sum.unitId());
+                    if (units.factorOf(sum.unitId()) > units.factorOf(largest.unitId())) {
+                        largest = sum;
+                    }
+                    count++;
+                }
+            }
+            consumer.accept(count == 1
+                    ? new ShoppingItem(first.name(), first.quantity(), first.unit())
+                    : new ShoppingItem(first.name(), total / units.factorOf(largest.unitId()), largest.unit()));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.CatalogUnit;
+import com.mealplanner.model.Dimension;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The unit conversions, compiled from the catalog into flat arrays indexed by unit ID, so that
+ * converting a quantity as a shopping list is added up is two array reads and a multiply, with no
+ * string handling and no boxing. Units the table has no conversion for, including any added to
+ * the catalog after it was compiled, convert to themselves.
+ */
+final class UnitTable {
+
+    record Conversion(Dimension dimension, double factor) {
+    }
+
+    /** The units the planner knows how to convert, by normalized name. */
+    static final Map<String, Conversion> KNOWN = Map.ofEntries(
+            Map.entry("mg", new Conversion(Dimension.MASS, 0.001)),
+            Map.entry("milligram", new Conversion(Dimension.MASS, 0.001)),
+            Map.entry("g", new Conversion(Dimension.MASS, 1)),
+            Map.entry("gram", new Conversion(Dimension.MASS, 1)),
+            Map.entry("gramme", new Conversion(Dimension.MASS, 1)),
+            Map.entry("kg", new Conversion(Dimension.MASS, 1000)),
+            Map.entry("kilo", new Conversion(Dimension.MASS, 1000)),
+            Map.entry("kilogram", new Conversion(Dimension.MASS, 1000)),
+            Map.entry("oz", new Conversion(Dimension.MASS, 28.349523125)),
+            Map.entry("ounce", new Conversion(Dimension.MASS, 28.349523125)),
+            Map.entry("lb", new Conversion(Dimension.MASS, 453.59237)),
+            Map.entry("pound", new Conversion(Dimension.MASS, 453.59237)),
+            Map.entry("ml", new Conversion(Dimension.VOLUME, 1)),
+            Map.entry("millilitre", new Conversion(Dimension.VOLUME, 1)),
+            Map.entry("milliliter", new Conversion(Dimension.VOLUME, 1)),
+            Map.entry("cl", new Conversion(Dimension.VOLUME, 10)),
+            Map.entry("dl", new Conversion(Dimension.VOLUME, 100)),
+            Map.entry("l", new Conversion(Dimension.VOLUME, 1000)),
+            Map.entry("litre", new Conversion(Dimension.VOLUME, 1000)),
+            Map.entry("liter", new Conversion(Dimension.VOLUME, 1000)),
+            Map.entry("tsp", new Conversion(Dimension.VOLUME, 5)),
+            Map.entry("teaspoon", new Conversion(Dimension.VOLUME, 5)),
+            Map.entry("tbsp", new Conversion(Dimension.VOLUME, 15)),
+            Map.entry("tablespoon", new Conversion(Dimension.VOLUME, 15)),
+            Map.entry("cup", new Conversion(Dimension.VOLUME, 250)),
+            Map.entry("fl oz", new Conversion(Dimension.VOLUME, 28.4130625)),
+            Map.entry("pint", new Conversion(Dimension.VOLUME, 568.26125)));
+
+    static final UnitTable EMPTY = new UnitTable(new long[0], new double[0]);
+
+    // Zero where a unit has no conversion; catalog IDs start at one
+    private final long[] baseUnitIds;
+    private final double[] factors;
+
+    private UnitTable(long[] baseUnitIds, double[] factors) {
+        this.baseUnitIds = baseUnitIds;
+        this.factors = factors;
+    }
+
+    static UnitTable of(Collection<CatalogUnit> units) {
+        int size = (int) units.stream().mapToLong(CatalogUnit::getId).max().orElse(0) + 1;
+        long[] baseUnitIds = new long[size];
+        double[] factors = new double[size];
+        for (CatalogUnit unit : units) {
+            if (unit.getDimension() != null && unit.getBaseUnitId() != null) {
+                int id = unit.getId().intValue();
+                baseUnitIds[id] = unit.getBaseUnitId();
+                factors[id] = unit.getFactor();
+            }
+        }
+        return new UnitTable(baseUnitIds, factors);
+    }
+
+    /** The unit quantities in the given unit are added up in. */
+    long baseUnitOf(long unitId) {
+        return converts(unitId) ? baseUnitIds[(int) unitId] : unitId;
+    }
+
+    /** How many of its base unit one of the given unit is. */
+    double factorOf(long unitId) {
+        return converts(unitId) ? factors[(int) unitId] : 1;
+    }
+
+    private boolean converts(long unitId) {
+        return unitId >= 0 && unitId < baseUnitIds.length && baseUnitIds[(int) unitId] != 0;
+    }
+}
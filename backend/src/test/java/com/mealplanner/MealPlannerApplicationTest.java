@@ -3,7 +3,12 @@ package com.mealplanner;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Keep the database and anything written at startup out of the data directory
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mealplanner-test;DB_CLOSE_DELAY=-1",
+        "trmnl.frame-store.dir=target/test-frames",
+        "trmnl.telemetry.dir=target/test-telemetry"
+})
 class MealPlannerApplicationTest {
 
     @Test
@@ -11,13 +11,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -80,7 +86,7 @@ class MealPlanControllerTest {
     void addEntry_addsEntryToPlan() throws Exception {
         MealPlanEntry entry = new MealPlanEntry();
         entry.setId(1L);
-        entry.setDayOfWeek("MONDAY");
+        entry.setDayOfWeek(DayOfWeek.MONDAY);
         entry.setMealType(MealType.DINNER);
 
         Meal meal = new Meal();
@@ -107,7 +113,7 @@ class MealPlanControllerTest {
     void updateEntry_updatesEntry() throws Exception {
         MealPlanEntry entry = new MealPlanEntry();
         entry.setId(1L);
-        entry.setDayOfWeek("WEDNESDAY");
+        entry.setDayOfWeek(DayOfWeek.WEDNESDAY);
         entry.setMealType(MealType.LUNCH);
 
         EntryRequest request = new EntryRequest();
@@ -150,17 +156,66 @@ class MealPlanControllerTest {
 
     @Test
     void getShoppingListByDateRange_returnsItems() throws Exception {
-        List<ShoppingItem> items = List.of(new ShoppingItem("Rice", 1000, "g"));
-        when(mealPlanService.generateShoppingListForDateRange(
-                LocalDate.of(2025, 2, 8), LocalDate.of(2025, 2, 14)))
-                .thenReturn(items);
+        doAnswer(inv -> {
+            Consumer<ShoppingItem> consumer = inv.getArgument(2);
+            consumer.accept(new ShoppingItem("Rice", 1000, "g"));
+            consumer.accept(new ShoppingItem("Tomatoes", 6, null));
+            return null;
+        }).when(mealPlanService).forEachShoppingItem(eq(LocalDate.of(2025, 2, 8)), eq(LocalDate.of(2025, 2, 14)), any());
 
         mockMvc.perform(get("/api/meal-plans/shopping-list")
                         .param("startDate", "2025-02-08")
                         .param("endDate", "2025-02-14"))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name", is("Rice")))
+                .andExpect(jsonPath("$[0].totalQuantity", is(1000.0)))
+                .andExpect(jsonPath("$[1].unit", nullValue()));
+    }
+
+    @Test
+    void getShoppingListByDateRange_writesAnEmptyList() throws Exception {
+        mockMvc.perform(get("/api/meal-plans/shopping-list")
+                        .param("startDate", "2025-02-08")
+                        .param("endDate", "2025-02-14"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void getShoppingListByDateRange_leavesTheResponseUncommittedWhenTheQueryFails() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        doAnswer(inv -> {
+            Consumer<ShoppingItem> consumer = inv.getArgument(2);
+            consumer.accept(new ShoppingItem("Rice", 1000, "g"));
+            throw new IllegalStateException("database unavailable");
+        }).when(mealPlanService).forEachShoppingItem(any(), any(), any());
+
+        assertThrows(IllegalStateException.class, () -> new MealPlanController(mealPlanService, objectMapper)
+                .getShoppingListByDateRange(LocalDate.of(2025, 2, 8), LocalDate.of(2025, 2, 14), response));
+
+        // Nothing was flushed, so the error can still be sent with an error status
+        assertFalse(response.isCommitted());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getEntriesByDateRange_returnsEntries() throws Exception {
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setId(5L);
+        entry.setMealPlan(samplePlan);
+        entry.setDayOfWeek(DayOfWeek.SUNDAY);
+        when(mealPlanService.findEntriesBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)))
+                .thenReturn(List.of(entry));
+
+        mockMvc.perform(get("/api/meal-plans/entries")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-03-31"))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].name", is("Rice")));
+                .andExpect(jsonPath("$[0].dayOfWeek", is("SUNDAY")))
+                .andExpect(jsonPath("$[0].entryDate", is("2025-02-09")));
     }
 
     @Test
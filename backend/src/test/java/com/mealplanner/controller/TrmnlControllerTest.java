@@ -1,7 +1,24 @@
 package com.mealplanner.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplanner.model.DisplayLayout;
+import com.mealplanner.model.TrmnlScreen;
+import com.mealplanner.service.FrameDiff;
+import com.mealplanner.service.ImageFormat;
+import com.mealplanner.service.RenderProfile;
+import com.mealplanner.service.TrmnlAdmission;
+import com.mealplanner.service.TrmnlDeviceRegistry;
 import com.mealplanner.service.TrmnlDisplayService;
+import com.mealplanner.service.TrmnlFrame;
+import com.mealplanner.service.TrmnlFrameDiffer;
+import com.mealplanner.service.TrmnlPlaylist;
+import com.mealplanner.service.TrmnlRenderStats;
+import com.mealplanner.service.TrmnlTelemetry;
+import com.mealplanner.service.TrmnlTelemetryEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -9,12 +26,24 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -23,12 +52,35 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(TrmnlController.class)
 class TrmnlControllerTest {
 
+    /** A frame of "BM" as the display service hands it over for inlining. */
+    private static final byte[] BMP_DATA_URI = "data:image/bmp;base64,Qk0=".getBytes(StandardCharsets.US_ASCII);
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
     private TrmnlDisplayService displayService;
 
+    @MockBean
+    private TrmnlDeviceRegistry deviceRegistry;
+
+    @MockBean
+    private TrmnlFrameDiffer frameDiffer;
+
+    @MockBean
+    private TrmnlPlaylist playlist;
+
+    @MockBean
+    private TrmnlTelemetry telemetry;
+
+    @MockBean
+    private TrmnlAdmission admission;
+
+    @BeforeEach
+    void admitEverything() {
+        when(admission.tryStartRender()).thenReturn(true);
+    }
+
     @Test
     void setup_returnsWelcomeMessage() throws Exception {
         mockMvc.perform(get("/api/setup")
@@ -48,12 +100,23 @@ class TrmnlControllerTest {
                 .andExpect(jsonPath("$.message").value("Welcome to Meal Planner TRMNL"));
     }
 
+    @Test
+    void setup_doesNotRegisterAThrottledDevice() throws Exception {
+        when(admission.tryAcquire("127.0.0.1")).thenReturn(2_000_000_000L);
+        when(admission.retryAfterSeconds(2_000_000_000L)).thenReturn(90);
+
+        mockMvc.perform(get("/api/setup")
+                        .header("ID", "AA:BB:CC:DD:EE:FF"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "90"));
+
+        verify(deviceRegistry, never()).recordPoll(any(), any(), any(), any());
+    }
+
     @Test
     void display_returnsImageUrl() throws Exception {
         // When no BASE64 header is sent, the response should contain a fetchable URL
-        byte[] fakeImage = new byte[]{(byte) 0x89, 'P', 'N', 'G'};
         when(displayService.getContentHash(any(LocalDate.class))).thenReturn("");
-        when(displayService.renderDisplayImage(any(LocalDate.class))).thenReturn(fakeImage);
 
         mockMvc.perform(get("/api/display")
                         .header("ID", "AA:BB:CC:DD:EE:FF")
@@ -61,9 +124,10 @@ class TrmnlControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.image_url", containsString("/api/trmnl-image")))
                 .andExpect(jsonPath("$.image_url", not(startsWith("data:"))))
+                .andExpect(jsonPath("$.image_url", containsString("format=bmp")))
                 .andExpect(jsonPath("$.filename").value("meal-plan.bmp"))
                 .andExpect(jsonPath("$.image_url_timeout").value(300))
-                .andExpect(jsonPath("$.refresh_rate").value(300))
+                .andExpect(jsonPath("$.refresh_rate", allOf(greaterThanOrEqualTo(300), lessThanOrEqualTo(3720))))
                 .andExpect(jsonPath("$.reset_firmware").value(false))
                 .andExpect(jsonPath("$.update_firmware").value(false))
                 .andExpect(jsonPath("$.special_function", anyOf(is("none"), is("sleep"))));
@@ -71,21 +135,20 @@ class TrmnlControllerTest {
 
     @Test
     void display_returnsBase64WhenRequested() throws Exception {
-        byte[] fakeImage = new byte[]{(byte) 0x89, 'P', 'N', 'G'};
-        when(displayService.renderDisplayImage(any(LocalDate.class))).thenReturn(fakeImage);
+        when(displayService.renderDataUri(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", BMP_DATA_URI, false));
 
         mockMvc.perform(get("/api/display")
                         .header("ID", "AA:BB:CC:DD:EE:FF")
                         .header("BASE64", "true")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.image_url", startsWith("data:image/bmp;base64,")));
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.image_url").value("data:image/bmp;base64,Qk0="));
     }
 
     @Test
     void display_returnsBase64ViaQueryParam() throws Exception {
-        byte[] fakeImage = new byte[]{(byte) 0x89, 'P', 'N', 'G'};
-        when(displayService.renderDisplayImage(any(LocalDate.class))).thenReturn(fakeImage);
+        when(displayService.renderDataUri(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", BMP_DATA_URI, false));
 
         mockMvc.perform(get("/api/display?base_64=true")
                         .header("ID", "AA:BB:CC:DD:EE:FF")
@@ -94,10 +157,24 @@ class TrmnlControllerTest {
                 .andExpect(jsonPath("$.image_url", startsWith("data:image/bmp;base64,")));
     }
 
+    @Test
+    void display_base64ModeDoesNotLoadPlanData() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderDataUri(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", BMP_DATA_URI, false));
+
+        mockMvc.perform(get("/api/display")
+                        .header("BASE64", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filename").value("meal-plan-abcd1234.bmp"));
+
+        // Hash and frame both come from the service's in-memory indexes and caches
+        verify(displayService, never()).loadSnapshot(any(LocalDate.class));
+    }
+
     @Test
     void trmnlImage_servesRawPng() throws Exception {
         byte[] fakeImage = new byte[]{(byte) 0x89, 'P', 'N', 'G'};
-        when(displayService.renderDisplayImage(any(LocalDate.class))).thenReturn(fakeImage);
+        when(displayService.renderFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.PNG))).thenReturn(new TrmnlFrame("abcd1234", fakeImage, false));
 
         mockMvc.perform(get("/api/trmnl-image"))
                 .andExpect(status().isOk())
@@ -105,17 +182,490 @@ class TrmnlControllerTest {
     }
 
     @Test
-    void display_returnsErrorOnRenderFailure_base64Mode() throws Exception {
-        // Error only surfaces when rendering inline (BASE64 mode)
-        when(displayService.renderDisplayImage(any(LocalDate.class)))
+    void trmnlImage_servesBmpWhenRequested() throws Exception {
+        byte[] fakeImage = new byte[]{'B', 'M'};
+        when(displayService.renderFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", fakeImage, false));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/bmp"))
+                .andExpect(content().bytes(fakeImage));
+    }
+
+    @Test
+    void trmnlImage_isImmutableWhenUrlCarriesCurrentHash() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", new byte[]{'B', 'M'}, false));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abcd1234-bmp\""))
+                .andExpect(header().string("Cache-Control", containsString("immutable")));
+    }
+
+    @Test
+    void trmnlImage_mustRevalidateWhenHashIsStale() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", new byte[]{'B', 'M'}, false));
+
+        mockMvc.perform(get("/api/trmnl-image?h=0000ffff&format=bmp"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abcd1234-bmp\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void trmnlImage_returnsNotModifiedWithoutRendering() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp")
+                        .header("If-None-Match", "W/\"abcd1234-bmp\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abcd1234-bmp\""))
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(displayService, never()).renderFrame(any(LocalDate.class), any(RenderProfile.class), any(ImageFormat.class));
+    }
+
+    @Test
+    void trmnlImage_rendersWhenEtagIsForAnotherFormat() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.PNG))).thenReturn(new TrmnlFrame("abcd1234", new byte[]{1}, false));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=png")
+                        .header("If-None-Match", "\"abcd1234-bmp\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abcd1234-png\""));
+    }
+
+    @Test
+    void preview_returnsNotModifiedForMatchingEtag() throws Exception {
+        when(displayService.getContentHash(LocalDate.of(2026, 3, 14))).thenReturn("abcd1234");
+
+        mockMvc.perform(get("/api/trmnl-preview?date=2026-03-14")
+                        .header("If-None-Match", "\"abcd1234-png\""))
+                .andExpect(status().isNotModified());
+
+        verify(displayService, never()).renderFrame(any(LocalDate.class), any(RenderProfile.class), any(ImageFormat.class));
+    }
+
+    @Test
+    void preview_rendersAnyDateWithoutTouchingTheDeviceFallback() throws Exception {
+        when(displayService.getContentHash(LocalDate.of(2020, 1, 1))).thenReturn("abcd1234");
+        when(displayService.isFrameReady(any(LocalDate.class), any(RenderProfile.class), any(ImageFormat.class)))
+                .thenReturn(true);
+        when(displayService.renderPreviewFrame(LocalDate.of(2020, 1, 1), RenderProfile.DEFAULT, ImageFormat.PNG))
+                .thenReturn(new TrmnlFrame("abcd1234", new byte[]{1}, false));
+
+        mockMvc.perform(get("/api/trmnl-preview?date=2020-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abcd1234-png\""));
+
+        verify(displayService, never()).renderFrame(any(LocalDate.class), any(RenderProfile.class), any(ImageFormat.class));
+    }
+
+    @Test
+    void etagMatches_handlesListsWildcardsAndWeakTags() {
+        String etag = TrmnlController.etagFor("abcd1234", ImageFormat.BMP);
+        assertThat(TrmnlController.etagMatches("\"x\", W/\"abcd1234-bmp\"", etag)).isTrue();
+        assertThat(TrmnlController.etagMatches("*", etag)).isTrue();
+        assertThat(TrmnlController.etagMatches("\"abcd1234-png\"", etag)).isFalse();
+        assertThat(TrmnlController.etagMatches(null, etag)).isFalse();
+    }
+
+    @Test
+    void stats_returnsRenderCounters() throws Exception {
+        when(displayService.getRenderStats()).thenReturn(new TrmnlRenderStats(3, 5, 40, 8, 2, 4, 192000, 1, 0, 2, 3));
+
+        mockMvc.perform(get("/api/trmnl-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.renders").value(3))
+                .andExpect(jsonPath("$.coalesced").value(5))
+                .andExpect(jsonPath("$.cacheHits").value(40))
+                .andExpect(jsonPath("$.cachedFrames").value(2))
+                .andExpect(jsonPath("$.storedBytes").value(192000))
+                .andExpect(jsonPath("$.fallbacks").value(3));
+    }
+
+    @Test
+    void setup_returnsPerDeviceFriendlyId() throws Exception {
+        TrmnlDeviceRegistry.Device device = mock(TrmnlDeviceRegistry.Device.class);
+        when(device.getFriendlyId()).thenReturn("A1B2C3");
+        when(deviceRegistry.recordPoll("AA:BB:CC:DD:EE:FF", "1.5.2", null, null)).thenReturn(device);
+
+        mockMvc.perform(get("/api/setup")
+                        .header("ID", "AA:BB:CC:DD:EE:FF")
+                        .header("FW-Version", "1.5.2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friendly_id").value("A1B2C3"));
+    }
+
+    @Test
+    void display_rendersForTheDeviceProfile() throws Exception {
+        RenderProfile small = new RenderProfile(400, 300, DisplayLayout.TODAY);
+        TrmnlDeviceRegistry.Device device = mock(TrmnlDeviceRegistry.Device.class);
+        when(device.getProfile()).thenReturn(small);
+        when(deviceRegistry.recordPoll("AA:BB:CC:DD:EE:FF", "1.5.2", 400, 300)).thenReturn(device);
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderDataUri(any(LocalDate.class), eq(small), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", BMP_DATA_URI, false));
+
+        mockMvc.perform(get("/api/display")
+                        .header("ID", "AA:BB:CC:DD:EE:FF")
+                        .header("FW-Version", "1.5.2")
+                        .header("Width", "400")
+                        .header("Height", "300")
+                        .header("BASE64", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filename").value("meal-plan-abcd1234-400x300-today.bmp"));
+    }
+
+    @Test
+    void display_urlCarriesProfileAndDevice() throws Exception {
+        TrmnlDeviceRegistry.Device device = mock(TrmnlDeviceRegistry.Device.class);
+        when(device.getProfile()).thenReturn(RenderProfile.DEFAULT);
+        when(deviceRegistry.recordPoll(eq("AA:BB:CC:DD:EE:FF"), any(), any(), any())).thenReturn(device);
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+
+        mockMvc.perform(get("/api/display")
+                        .header("ID", "AA:BB:CC:DD:EE:FF")
+                        .header("Width", "not-a-number"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image_url", containsString("&profile=800x480-two_day")))
+                .andExpect(jsonPath("$.image_url", containsString("&device=AA%3ABB%3ACC%3ADD%3AEE%3AFF")))
+                .andExpect(jsonPath("$.filename").value("meal-plan-abcd1234.bmp"));
+
+        verify(deviceRegistry).recordPoll("AA:BB:CC:DD:EE:FF", null, null, null);
+    }
+
+    @Test
+    void display_reportsChangedRegionsForKnownDevice() throws Exception {
+        TrmnlDeviceRegistry.Device device = mock(TrmnlDeviceRegistry.Device.class);
+        when(device.getProfile()).thenReturn(RenderProfile.DEFAULT);
+        when(deviceRegistry.recordPoll(eq("AA:BB:CC:DD:EE:FF"), any(), any(), any())).thenReturn(device);
+        when(frameDiffer.isEnabled()).thenReturn(true);
+        when(frameDiffer.diff(eq("AA:BB:CC:DD:EE:FF"), any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP)))
+                .thenReturn(new FrameDiff(FrameDiff.RefreshType.PARTIAL, 25, 15, "01", 1 / 375.0,
+                        List.of(new FrameDiff.Region(0, 0, 32, 32))));
+
+        mockMvc.perform(get("/api/display")
+                        .header("ID", "AA:BB:CC:DD:EE:FF"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refresh_type").value("partial"))
+                .andExpect(jsonPath("$.partial_refresh.tile_size").value(32))
+                .andExpect(jsonPath("$.partial_refresh.dirty_tiles").value("01"))
+                .andExpect(jsonPath("$.partial_refresh.regions[0].width").value(32));
+    }
+
+    @Test
+    void display_omitsPartialRefreshWithoutDeviceId() throws Exception {
+        mockMvc.perform(get("/api/display"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refresh_type").doesNotExist());
+
+        verify(frameDiffer, never()).diff(any(), any(), any(), any());
+    }
+
+    @Test
+    void display_sendsTheNextPlaylistScreen() throws Exception {
+        TrmnlDeviceRegistry.Device device = mock(TrmnlDeviceRegistry.Device.class);
+        when(device.getProfile()).thenReturn(RenderProfile.DEFAULT);
+        when(deviceRegistry.recordPoll(eq("AA:BB:CC:DD:EE:FF"), any(), any(), any())).thenReturn(device);
+        when(frameDiffer.isEnabled()).thenReturn(true);
+        when(playlist.isRotating()).thenReturn(true);
+        when(playlist.advance("AA:BB:CC:DD:EE:FF")).thenReturn(TrmnlScreen.WEEK);
+        when(playlist.inputHash(eq(TrmnlScreen.WEEK), any(LocalDate.class))).thenReturn("beef1234");
+        when(playlist.getRotateSeconds()).thenReturn(120);
+
+        mockMvc.perform(get("/api/display")
+                        .header("ID", "AA:BB:CC:DD:EE:FF"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image_url", containsString("h=beef1234")))
+                .andExpect(jsonPath("$.image_url", containsString("&screen=week")))
+                .andExpect(jsonPath("$.filename").value("meal-plan-week-beef1234.bmp"))
+                .andExpect(jsonPath("$.refresh_type").doesNotExist());
+
+        // Consecutive frames show different screens, so there is nothing to diff
+        verify(frameDiffer, never()).diff(any(), any(), any(), any());
+        verify(displayService, never()).getContentHash(any(LocalDate.class));
+    }
+
+    @Test
+    void display_inlinesPlaylistScreen() throws Exception {
+        when(playlist.isRotating()).thenReturn(true);
+        when(playlist.advance("")).thenReturn(TrmnlScreen.SHOPPING);
+        when(playlist.inputHash(eq(TrmnlScreen.SHOPPING), any(LocalDate.class))).thenReturn("cafe0001");
+        when(playlist.dataUri(eq(TrmnlScreen.SHOPPING), any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP)))
+                .thenReturn(new TrmnlFrame("cafe0001", BMP_DATA_URI, false));
+
+        mockMvc.perform(get("/api/display").header("BASE64", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image_url").value("data:image/bmp;base64,Qk0="))
+                .andExpect(jsonPath("$.filename").value("meal-plan-shopping-cafe0001.bmp"));
+    }
+
+    @Test
+    void display_throttlesAnUnregisteredDeviceByAddressWhateverIdItSends() throws Exception {
+        when(admission.tryAcquire("127.0.0.1")).thenReturn(90_000_000_000L);
+        when(admission.retryAfterSeconds(90_000_000_000L)).thenReturn(4000);
+
+        mockMvc.perform(get("/api/display").header("ID", "11:22:33:44:55:66"))
+                .andExpect(jsonPath("$.refresh_rate").value(4000));
+        mockMvc.perform(get("/api/display").header("ID", "66:55:44:33:22:11"))
+                .andExpect(jsonPath("$.refresh_rate").value(4000));
+
+        verify(admission, never()).tryAcquire("11:22:33:44:55:66");
+        verify(admission, never()).tryAcquire("66:55:44:33:22:11");
+        verify(deviceRegistry, never()).recordPoll(any(), any(), any(), any());
+    }
+
+    @Test
+    void display_throttledDeviceKeepsItsScreenAndIsAskedToRetryLater() throws Exception {
+        TrmnlDeviceRegistry.Device device = mock(TrmnlDeviceRegistry.Device.class);
+        when(device.getProfile()).thenReturn(RenderProfile.DEFAULT);
+        when(deviceRegistry.find("AA:BB:CC:DD:EE:FF")).thenReturn(Optional.of(device));
+        when(admission.tryAcquire("AA:BB:CC:DD:EE:FF")).thenReturn(90_000_000_000L);
+        when(admission.retryAfterSeconds(90_000_000_000L)).thenReturn(4000);
+        when(playlist.isRotating()).thenReturn(true);
+        when(playlist.current("AA:BB:CC:DD:EE:FF")).thenReturn(TrmnlScreen.WEEK);
+        when(playlist.inputHash(eq(TrmnlScreen.WEEK), any(LocalDate.class))).thenReturn("beef1234");
+
+        mockMvc.perform(get("/api/display")
+                        .header("ID", "AA:BB:CC:DD:EE:FF")
+                        .header("BASE64", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image_url", containsString("/api/trmnl-image?h=beef1234")))
+                .andExpect(jsonPath("$.filename").value("meal-plan-week-beef1234.bmp"))
+                .andExpect(jsonPath("$.refresh_rate").value(4000));
+
+        // Nothing is rendered or recorded, and the device does not move on through the playlist
+        verify(deviceRegistry, never()).recordPoll(any(), any(), any(), any());
+        verify(playlist, never()).advance(any());
+        verify(playlist, never()).dataUri(any(), any(), any(), any());
+        verify(displayService, never()).renderDataUri(any(), any(), any());
+    }
+
+    @Test
+    void display_sendsImageUrlWhenEveryRenderSlotIsBusy() throws Exception {
+        when(admission.tryStartRender()).thenReturn(false);
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+
+        mockMvc.perform(get("/api/display").header("BASE64", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image_url", containsString("/api/trmnl-image?h=abcd1234")));
+
+        verify(displayService, never()).renderDataUri(any(), any(), any());
+    }
+
+    @Test
+    void trmnlImage_isRefusedWhenThrottledOrEveryRenderSlotIsBusy() throws Exception {
+        when(deviceRegistry.find("AA:BB:CC:DD:EE:FF")).thenReturn(Optional.of(mock(TrmnlDeviceRegistry.Device.class)));
+        when(admission.tryAcquire("AA:BB:CC:DD:EE:FF")).thenReturn(5_000_000_000L);
+        when(admission.retryAfterSeconds(5_000_000_000L)).thenReturn(75);
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&device=AA:BB:CC:DD:EE:FF"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "75"));
+
+        when(admission.tryStartRender()).thenReturn(false);
+        when(admission.retryAfterSeconds(0)).thenReturn(45);
+        mockMvc.perform(get("/api/trmnl-image?format=bmp"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "45"));
+
+        verify(displayService, never()).renderFrame(any(LocalDate.class), any(RenderProfile.class), any(ImageFormat.class));
+        verify(admission, never()).endRender();
+    }
+
+    @Test
+    void trmnlImage_servesWithoutARenderSlotWhenNothingNeedsRendering() throws Exception {
+        when(admission.tryStartRender()).thenReturn(false);
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.isFrameReady(any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP)))
+                .thenReturn(true);
+        when(displayService.renderFrame(any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP)))
+                .thenReturn(new TrmnlFrame("abcd1234", new byte[]{'B', 'M'}, false));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp")
+                        .header("If-None-Match", "\"abcd1234-bmp\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[]{'B', 'M'}));
+
+        verify(admission, never()).tryStartRender();
+    }
+
+    @Test
+    void display_skipsTheDiffWhenItNeedsARenderAndEveryRenderSlotIsBusy() throws Exception {
+        TrmnlDeviceRegistry.Device device = mock(TrmnlDeviceRegistry.Device.class);
+        when(device.getProfile()).thenReturn(RenderProfile.DEFAULT);
+        when(deviceRegistry.recordPoll(eq("AA:BB:CC:DD:EE:FF"), any(), any(), any())).thenReturn(device);
+        when(frameDiffer.isEnabled()).thenReturn(true);
+        when(frameDiffer.needsRender(any(LocalDate.class), eq(RenderProfile.DEFAULT))).thenReturn(true);
+        when(admission.tryStartRender()).thenReturn(false);
+
+        mockMvc.perform(get("/api/display")
+                        .header("ID", "AA:BB:CC:DD:EE:FF"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refresh_type").doesNotExist());
+
+        verify(frameDiffer, never()).diff(any(), any(), any(), any());
+        verify(frameDiffer).reset("AA:BB:CC:DD:EE:FF");
+    }
+
+    @Test
+    void log_dropsLogsFromThrottledDevice() throws Exception {
+        when(deviceRegistry.find("AA:BB:CC:DD:EE:FF")).thenReturn(Optional.of(mock(TrmnlDeviceRegistry.Device.class)));
+        when(admission.tryAcquire("AA:BB:CC:DD:EE:FF")).thenReturn(1L);
+        when(admission.retryAfterSeconds(1L)).thenReturn(60);
+
+        mockMvc.perform(post("/api/log")
+                        .header("ID", "AA:BB:CC:DD:EE:FF")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"message\":\"boot\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "60"));
+
+        verify(telemetry, never()).recordLog(any(), any());
+    }
+
+    @Test
+    void trmnlImage_servesPlaylistScreenFromTheRing() throws Exception {
+        when(playlist.getScreens()).thenReturn(List.of(TrmnlScreen.DAY, TrmnlScreen.WEEK));
+        when(playlist.inputHash(eq(TrmnlScreen.WEEK), any(LocalDate.class))).thenReturn("beef1234");
+        when(playlist.frame(eq(TrmnlScreen.WEEK), any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP)))
+                .thenReturn(new TrmnlFrame("beef1234", new byte[]{'B', 'M'}, false));
+
+        mockMvc.perform(get("/api/trmnl-image?h=beef1234&format=bmp&screen=week"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"beef1234-bmp\""))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(content().bytes(new byte[]{'B', 'M'}));
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&screen=week").header("If-None-Match", "\"beef1234-bmp\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&screen=shopping"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&screen=calendar"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void trmnlImage_rendersRequestedProfile() throws Exception {
+        RenderProfile small = new RenderProfile(400, 300, DisplayLayout.TODAY);
+        when(deviceRegistry.activeProfiles()).thenReturn(Set.of(small));
+        when(displayService.renderFrame(any(LocalDate.class), eq(small), eq(ImageFormat.BMP))).thenReturn(new TrmnlFrame("abcd1234", new byte[]{'B', 'M'}, false));
+
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&profile=400x300-today"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[]{'B', 'M'}));
+    }
+
+    @Test
+    void trmnlImage_rejectsProfileOfNoRegisteredDevice() throws Exception {
+        when(deviceRegistry.activeProfiles()).thenReturn(Set.of(new RenderProfile(400, 300, DisplayLayout.TODAY)));
+
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&profile=640x384-today"))
+                .andExpect(status().isBadRequest());
+        verify(displayService, never()).renderFrame(any(), any(), any());
+    }
+
+    @Test
+    void trmnlImage_rejectsMalformedProfile() throws Exception {
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&profile=huge"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/trmnl-image?format=bmp&profile=90000x10-today"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void trmnlImage_sendsStoredFrameFromDisk(@TempDir Path dir) throws Exception {
+        Path frame = Files.write(dir.resolve("frame.bmp"), new byte[]{'B', 'M', 1, 2});
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.getStoredFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP)))
+                .thenReturn(Optional.of(frame));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/bmp"))
+                .andExpect(header().string("ETag", "\"abcd1234-bmp\""))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(header().longValue("Content-Length", 4))
+                .andExpect(content().bytes(new byte[]{'B', 'M', 1, 2}));
+
+        verify(displayService, never()).renderFrame(any(LocalDate.class), any(RenderProfile.class), any(ImageFormat.class));
+    }
+
+    @Test
+    void trmnlImage_handsStoredFrameToSendfileWhenSupported(@TempDir Path dir) throws Exception {
+        Path frame = Files.write(dir.resolve("frame.bmp"), new byte[]{'B', 'M', 1, 2});
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.getStoredFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP)))
+                .thenReturn(Optional.of(frame));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp")
+                        .requestAttr(TrmnlController.SENDFILE_SUPPORTED, Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andExpect(request().attribute(TrmnlController.SENDFILE_FILENAME, frame.toAbsolutePath().toString()))
+                .andExpect(request().attribute(TrmnlController.SENDFILE_END, 4L))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void trmnlImage_rejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/trmnl-image?format=gif"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void display_sendsImageUrlWhenInlineRenderFails_base64Mode() throws Exception {
+        // With no earlier frame to fall back on, the device is pointed at the image URL instead of an error
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderDataUri(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP)))
                 .thenThrow(new IOException("Render failed"));
 
         mockMvc.perform(get("/api/display")
                         .header("ID", "AA:BB:CC:DD:EE:FF")
                         .header("BASE64", "true")
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isInternalServerError())
-                .andExpect(jsonPath("$.error").value("Failed to render display image"));
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image_url").value(containsString("/api/trmnl-image?h=abcd1234")))
+                .andExpect(jsonPath("$.filename").value("meal-plan-abcd1234.bmp"));
+    }
+
+    @Test
+    void display_inlinesLastGoodFrameUnderItsOwnHash_base64Mode() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderDataUri(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP)))
+                .thenReturn(new TrmnlFrame("0ld0ld00", BMP_DATA_URI, true));
+
+        mockMvc.perform(get("/api/display")
+                        .header("BASE64", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image_url").value(startsWith("data:image/bmp;base64,")))
+                .andExpect(jsonPath("$.filename").value("meal-plan-0ld0ld00.bmp"));
+    }
+
+    @Test
+    void trmnlImage_servesLastGoodFrameForRevalidation() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP)))
+                .thenReturn(new TrmnlFrame("0ld0ld00", new byte[]{'B', 'M'}, true));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0ld0ld00-bmp\""))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(content().bytes(new byte[]{'B', 'M'}));
+    }
+
+    @Test
+    void trmnlImage_asksClientToRetryWhenNothingCanBeServed() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+        when(displayService.renderFrame(any(LocalDate.class), any(RenderProfile.class), eq(ImageFormat.BMP)))
+                .thenThrow(new IOException("Render failed"));
+
+        mockMvc.perform(get("/api/trmnl-image?h=abcd1234&format=bmp"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"));
     }
 
     @Test
@@ -136,6 +686,49 @@ class TrmnlControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void log_recordsPayloadAsTelemetry() throws Exception {
+        mockMvc.perform(post("/api/log")
+                        .header("ID", "AA:BB:CC:DD:EE:FF")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"log\":{\"logs_array\":[{\"log_message\":\"wifi retry\"}]}}"))
+                .andExpect(status().isNoContent());
+
+        verify(telemetry).recordLog(eq("AA:BB:CC:DD:EE:FF"), any());
+    }
+
+    @Test
+    void display_recordsDeviceTelemetry() throws Exception {
+        when(displayService.getContentHash(any(LocalDate.class))).thenReturn("abcd1234");
+
+        mockMvc.perform(get("/api/display")
+                        .header("ID", "AA:BB:CC:DD:EE:FF")
+                        .header("FW-Version", "1.5.2")
+                        .header("Battery-Voltage", "4.12")
+                        .header("RSSI", "-67"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<TrmnlTelemetryEvent> event = ArgumentCaptor.forClass(TrmnlTelemetryEvent.class);
+        verify(telemetry).record(event.capture());
+        assertThat(event.getValue().kind()).isEqualTo(TrmnlTelemetryEvent.Kind.DISPLAY);
+        assertThat(event.getValue().firmware()).isEqualTo("1.5.2");
+        assertThat(event.getValue().batteryVoltage()).isEqualTo(4.12);
+        assertThat(event.getValue().rssi()).isEqualTo(-67);
+        assertThat(event.getValue().status()).isEqualTo(200);
+        assertThat(event.getValue().durationMicros()).isNotNegative();
+    }
+
+    @Test
+    void trmnlImage_recordsStatusAsTelemetry() throws Exception {
+        mockMvc.perform(get("/api/trmnl-image?format=gif"))
+                .andExpect(status().isBadRequest());
+
+        ArgumentCaptor<TrmnlTelemetryEvent> event = ArgumentCaptor.forClass(TrmnlTelemetryEvent.class);
+        verify(telemetry).record(event.capture());
+        assertThat(event.getValue().kind()).isEqualTo(TrmnlTelemetryEvent.Kind.IMAGE);
+        assertThat(event.getValue().status()).isEqualTo(400);
+    }
+
     @Test
     void log_worksWithEmptyBody() throws Exception {
         mockMvc.perform(post("/api/log")
@@ -150,7 +743,7 @@ class TrmnlControllerTest {
     @Test
     void isSleepTime_crossesMidnight_duringNight() {
         // Default window: 23:00 → 06:00
-        TrmnlController controller = new TrmnlController(displayService, "23:00", "06:00", 300, "");
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "", "bmp");
         assertThat(controller.isSleepTime(LocalTime.of(23, 30))).isTrue();
         assertThat(controller.isSleepTime(LocalTime.of(2, 0))).isTrue();
         assertThat(controller.isSleepTime(LocalTime.of(5, 59))).isTrue();
@@ -158,7 +751,7 @@ class TrmnlControllerTest {
 
     @Test
     void isSleepTime_crossesMidnight_duringDay() {
-        TrmnlController controller = new TrmnlController(displayService, "23:00", "06:00", 300, "");
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "", "bmp");
         assertThat(controller.isSleepTime(LocalTime.of(6, 0))).isFalse();
         assertThat(controller.isSleepTime(LocalTime.of(12, 0))).isFalse();
         assertThat(controller.isSleepTime(LocalTime.of(22, 59))).isFalse();
@@ -167,7 +760,7 @@ class TrmnlControllerTest {
     @Test
     void isSleepTime_sameDayWindow() {
         // Window within the same day: 01:00 → 05:00
-        TrmnlController controller = new TrmnlController(displayService, "01:00", "05:00", 300, "");
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "01:00", "05:00", 300, 3600, 120, "", "bmp");
         assertThat(controller.isSleepTime(LocalTime.of(2, 0))).isTrue();
         assertThat(controller.isSleepTime(LocalTime.of(4, 59))).isTrue();
         assertThat(controller.isSleepTime(LocalTime.of(0, 30))).isFalse();
@@ -177,7 +770,7 @@ class TrmnlControllerTest {
 
     @Test
     void isSleepTime_boundaryValues() {
-        TrmnlController controller = new TrmnlController(displayService, "23:00", "06:00", 300, "");
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "", "bmp");
         // Start is inclusive
         assertThat(controller.isSleepTime(LocalTime.of(23, 0))).isTrue();
         // Stop is exclusive (device should wake up at this time)
@@ -186,8 +779,8 @@ class TrmnlControllerTest {
 
     @Test
     void currentTime_usesConfiguredTimezone() {
-        TrmnlController controllerUtc = new TrmnlController(displayService, "23:00", "06:00", 300, "UTC");
-        TrmnlController controllerSydney = new TrmnlController(displayService, "23:00", "06:00", 300, "Australia/Sydney");
+        TrmnlController controllerUtc = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "UTC", "bmp");
+        TrmnlController controllerSydney = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "Australia/Sydney", "bmp");
         // Sydney is always ahead of UTC, so its current time should be later
         LocalTime utcTime = controllerUtc.currentTime();
         LocalTime sydneyTime = controllerSydney.currentTime();
@@ -195,10 +788,48 @@ class TrmnlControllerTest {
         assertThat(utcTime).isNotEqualTo(sydneyTime);
     }
 
+    @Test
+    void refreshRate_runsToMidnightWhenItIsTheNextBoundary() {
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:30", "06:00", 300, 3600, 120, "UTC", "bmp");
+        ZonedDateTime now = ZonedDateTime.of(2026, 2, 14, 23, 40, 0, 0, ZoneOffset.UTC);
+        // Asleep since 23:30; midnight is 20 minutes away, before the 06:00 wake-up
+        assertThat(controller.refreshRate(now, 0)).isEqualTo(1200);
+        assertThat(controller.refreshRate(now, 90)).isEqualTo(1290);
+    }
+
+    @Test
+    void refreshRate_runsToSleepStart() {
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "UTC", "bmp");
+        ZonedDateTime now = ZonedDateTime.of(2026, 2, 14, 22, 30, 0, 0, ZoneOffset.UTC);
+        assertThat(controller.refreshRate(now, 0)).isEqualTo(1800);
+    }
+
+    @Test
+    void refreshRate_runsToEndOfSleepWindowWhenNotCapped() {
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 36000, 120, "UTC", "bmp");
+        ZonedDateTime now = ZonedDateTime.of(2026, 2, 15, 1, 0, 0, 0, ZoneOffset.UTC);
+        assertThat(controller.refreshRate(now, 0)).isEqualTo(5 * 3600);
+    }
+
+    @Test
+    void refreshRate_isCappedAndJitteredEarly() {
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "UTC", "bmp");
+        ZonedDateTime now = ZonedDateTime.of(2026, 2, 14, 9, 0, 0, 0, ZoneOffset.UTC);
+        assertThat(controller.refreshRate(now, 0)).isEqualTo(3600);
+        assertThat(controller.refreshRate(now, 120)).isEqualTo(3480);
+    }
+
+    @Test
+    void refreshRate_neverBelowMinimum() {
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "UTC", "bmp");
+        ZonedDateTime now = ZonedDateTime.of(2026, 2, 14, 22, 59, 0, 0, ZoneOffset.UTC);
+        assertThat(controller.refreshRate(now, 0)).isEqualTo(300);
+    }
+
     @Test
     void currentDate_usesConfiguredTimezone() {
         // Just verify it returns a date (detailed timezone boundary testing is fragile)
-        TrmnlController controller = new TrmnlController(displayService, "23:00", "06:00", 300, "Australia/Sydney");
+        TrmnlController controller = new TrmnlController(displayService, deviceRegistry, frameDiffer, playlist, telemetry, admission, new ObjectMapper(), "23:00", "06:00", 300, 3600, 120, "Australia/Sydney", "bmp");
         assertThat(controller.currentDate()).isNotNull();
     }
 }
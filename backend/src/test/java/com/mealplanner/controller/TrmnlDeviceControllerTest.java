@@ -0,0 +1,84 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.model.DisplayLayout;
+import com.mealplanner.model.DitherMode;
+import com.mealplanner.model.TrmnlDevice;
+import com.mealplanner.service.TrmnlDeviceRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SuppressWarnings("null")
+@WebMvcTest(TrmnlDeviceController.class)
+class TrmnlDeviceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TrmnlDeviceRegistry deviceRegistry;
+
+    private TrmnlDevice device(DisplayLayout layout, String timezone) {
+        TrmnlDevice device = new TrmnlDevice();
+        device.setDeviceId("AA:BB:CC:DD:EE:FF");
+        device.setFriendlyId("A1B2C3");
+        device.setWidth(800);
+        device.setHeight(480);
+        device.setLayout(layout);
+        device.setTimezone(timezone);
+        device.setPollCount(12);
+        return device;
+    }
+
+    @Test
+    void getAll_returnsKnownDevices() throws Exception {
+        when(deviceRegistry.findAll()).thenReturn(List.of(device(DisplayLayout.TWO_DAY, null)));
+
+        mockMvc.perform(get("/api/trmnl-devices"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].friendlyId", is("A1B2C3")))
+                .andExpect(jsonPath("$[0].pollCount", is(12)));
+    }
+
+    @Test
+    void updateProfile_setsLayoutAndTimezone() throws Exception {
+        when(deviceRegistry.updateProfile(eq("AA:BB:CC:DD:EE:FF"), argThat(d -> d.getLayout() == DisplayLayout.TODAY
+                && "Europe/Paris".equals(d.getTimezone()) && d.getBitDepth() == null)))
+                .thenReturn(device(DisplayLayout.TODAY, "Europe/Paris"));
+
+        mockMvc.perform(put("/api/trmnl-devices/AA:BB:CC:DD:EE:FF")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"layout\":\"TODAY\",\"timezone\":\"Europe/Paris\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.layout", is("TODAY")))
+                .andExpect(jsonPath("$.timezone", is("Europe/Paris")));
+    }
+
+    @Test
+    void updateProfile_setsBitDepthAndDither() throws Exception {
+        TrmnlDevice gray = device(DisplayLayout.TWO_DAY, null);
+        gray.setBitDepth(4);
+        gray.setDither(DitherMode.DIFFUSION);
+        when(deviceRegistry.updateProfile(eq("AA:BB:CC:DD:EE:FF"), argThat(d -> Integer.valueOf(4).equals(d.getBitDepth())
+                && d.getDither() == DitherMode.DIFFUSION && d.getLayout() == null)))
+                .thenReturn(gray);
+
+        mockMvc.perform(put("/api/trmnl-devices/AA:BB:CC:DD:EE:FF")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bitDepth\":4,\"dither\":\"DIFFUSION\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bitDepth", is(4)))
+                .andExpect(jsonPath("$.dither", is("DIFFUSION")));
+    }
+}
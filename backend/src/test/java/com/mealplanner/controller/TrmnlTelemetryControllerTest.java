@@ -0,0 +1,43 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.service.TrmnlTelemetry;
+import com.mealplanner.service.TrmnlTelemetryEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SuppressWarnings("null")
+@WebMvcTest(TrmnlTelemetryController.class)
+class TrmnlTelemetryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TrmnlTelemetry telemetry;
+
+    @Test
+    void recent_returnsEventsForDevice() throws Exception {
+        when(telemetry.recent("AA:BB:CC:DD:EE:FF", 1000)).thenReturn(List.of(
+                new TrmnlTelemetryEvent(Instant.parse("2026-02-14T08:00:00Z"), TrmnlTelemetryEvent.Kind.DISPLAY,
+                        "AA:BB:CC:DD:EE:FF", "1.5.2", 4.12, -67, 200, 850L, null)));
+
+        mockMvc.perform(get("/api/trmnl-telemetry?device=AA:BB:CC:DD:EE:FF&limit=5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].kind", is("DISPLAY")))
+                .andExpect(jsonPath("$[0].time", is("2026-02-14T08:00:00Z")))
+                .andExpect(jsonPath("$[0].batteryVoltage", is(4.12)))
+                .andExpect(jsonPath("$[0].rssi", is(-67)));
+    }
+}
@@ -35,4 +35,32 @@ class IngredientTest {
         assertThat(ingredient.getQuantity()).isEqualTo(250.0);
         assertThat(ingredient.getUnit()).isEqualTo("g");
     }
+
+    @Test
+    void changingTheNameOrUnit_clearsItsCatalogId() {
+        Ingredient ingredient = new Ingredient("Tomatoes", 3, "cups");
+        ingredient.setIngredientId(4L);
+        ingredient.setUnitId(7L);
+
+        ingredient.setQuantity(5);
+        assertThat(ingredient.getIngredientId()).isEqualTo(4L);
+
+        ingredient.setName("Cloves of garlic");
+        assertThat(ingredient.getIngredientId()).isNull();
+        assertThat(ingredient.getUnitId()).isEqualTo(7L);
+
+        ingredient.setUnit(null);
+        assertThat(ingredient.getUnitId()).isNull();
+    }
+
+    @Test
+    void normalize_singularisesCommonPlurals() {
+        assertThat(Ingredient.normalize("Cherries")).isEqualTo("cherry");
+        assertThat(Ingredient.normalize("loaves")).isEqualTo("loaf");
+        assertThat(Ingredient.normalize("Potatoes")).isEqualTo("potato");
+        assertThat(Ingredient.normalize("boxes")).isEqualTo("box");
+        assertThat(Ingredient.normalize("asparagus")).isEqualTo("asparagus");
+        assertThat(Ingredient.normalize("glass")).isEqualTo("glass");
+        assertThat(Ingredient.normalize(null)).isEmpty();
+    }
 }
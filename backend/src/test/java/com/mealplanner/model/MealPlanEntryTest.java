@@ -2,6 +2,9 @@ package com.mealplanner.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
 import static org.assertj.core.api.Assertions.*;
 
 class MealPlanEntryTest {
@@ -10,7 +13,7 @@ class MealPlanEntryTest {
     void settersAndGetters_workCorrectly() {
         MealPlanEntry entry = new MealPlanEntry();
         entry.setId(1L);
-        entry.setDayOfWeek("MONDAY");
+        entry.setDayOfWeek(DayOfWeek.MONDAY);
         entry.setMealType(MealType.DINNER);
         entry.setDisplayOrder(2);
 
@@ -26,7 +29,7 @@ class MealPlanEntryTest {
         entry.setMealPlan(plan);
 
         assertThat(entry.getId()).isEqualTo(1L);
-        assertThat(entry.getDayOfWeek()).isEqualTo("MONDAY");
+        assertThat(entry.getDayOfWeek()).isEqualTo(DayOfWeek.MONDAY);
         assertThat(entry.getMealType()).isEqualTo(MealType.DINNER);
         assertThat(entry.getDisplayOrder()).isEqualTo(2);
         assertThat(entry.getMeal().getTitle()).isEqualTo("Pasta");
@@ -34,6 +37,26 @@ class MealPlanEntryTest {
         assertThat(entry.getMealPlan()).isEqualTo(plan);
     }
 
+    @Test
+    void entryDate_followsThePlanWeekAndDayOfWeek() {
+        MealPlan plan = new MealPlan();
+        plan.setWeekStartDate(LocalDate.of(2026, 2, 14)); // Saturday
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setMealPlan(plan);
+        assertThat(entry.getEntryDate()).isNull();
+
+        entry.setDayOfWeek(DayOfWeek.SATURDAY);
+        assertThat(entry.getEntryDate()).isEqualTo(LocalDate.of(2026, 2, 14));
+
+        entry.setDayOfWeek(DayOfWeek.FRIDAY);
+        assertThat(entry.getEntryDate()).isEqualTo(LocalDate.of(2026, 2, 20));
+
+        MealPlan nextWeek = new MealPlan();
+        nextWeek.setWeekStartDate(LocalDate.of(2026, 2, 21));
+        entry.setMealPlan(nextWeek);
+        assertThat(entry.getEntryDate()).isEqualTo(LocalDate.of(2026, 2, 27));
+    }
+
     @Test
     void mealType_canBeNull() {
         MealPlanEntry entry = new MealPlanEntry();
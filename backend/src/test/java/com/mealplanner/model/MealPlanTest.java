@@ -16,6 +16,7 @@ class MealPlanTest {
 
         assertThat(plan.getEntries()).isNotNull().isEmpty();
         assertThat(plan.getDayNotes()).isNotNull().isEmpty();
+        assertThat(plan.getVersion()).isZero();
     }
 
     @Test
@@ -23,8 +24,10 @@ class MealPlanTest {
         MealPlan plan = new MealPlan();
         plan.setId(1L);
         plan.setWeekStartDate(LocalDate.of(2025, 2, 8));
+        plan.setVersion(3);
 
         assertThat(plan.getId()).isEqualTo(1L);
+        assertThat(plan.getVersion()).isEqualTo(3);
         assertThat(plan.getWeekStartDate()).isEqualTo(LocalDate.of(2025, 2, 8));
     }
 
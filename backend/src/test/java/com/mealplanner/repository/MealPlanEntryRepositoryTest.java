@@ -0,0 +1,112 @@
+package com.mealplanner.repository;
+
+import com.mealplanner.dto.MealUsage;
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.model.Meal;
+import com.mealplanner.model.MealPlan;
+import com.mealplanner.model.MealPlanEntry;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+class MealPlanEntryRepositoryTest {
+
+    // Saturday
+    private static final LocalDate WEEK_START = LocalDate.of(2026, 2, 14);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MealPlanEntryRepository entryRepository;
+
+    private MealPlan thisWeek;
+    private MealPlan nextWeek;
+
+    @BeforeEach
+    void setUp() {
+        thisWeek = plan(WEEK_START);
+        nextWeek = plan(WEEK_START.plusWeeks(1));
+    }
+
+    @Test
+    void findByEntryDateBetween_spansWeeksInDateAndDisplayOrder() {
+        Meal pasta = meal("Pasta", new Ingredient("Pasta", 500, "g"));
+        Meal curry = meal("Curry", new Ingredient("Rice", 300, "g"));
+        entry(thisWeek, DayOfWeek.FRIDAY, 1, pasta);
+        entry(thisWeek, DayOfWeek.FRIDAY, 0, curry);
+        entry(nextWeek, DayOfWeek.SATURDAY, 0, pasta);
+        entry(thisWeek, DayOfWeek.MONDAY, 0, curry);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<MealPlanEntry> entries = entryRepository.findByEntryDateBetween(
+                WEEK_START.plusDays(6), WEEK_START.plusDays(7));
+
+        assertThat(entries).extracting(e -> e.getEntryDate() + " " + e.getMeal().getTitle())
+                .containsExactly("2026-02-20 Curry", "2026-02-20 Pasta", "2026-02-21 Pasta");
+    }
+
+    @Test
+    void findForDisplayByEntryDateBetween_leavesTheIngredientsUnloaded() {
+        Meal pasta = meal("Pasta", new Ingredient("Pasta", 500, "g"), new Ingredient("Tomatoes", 4, "pcs"));
+        entry(thisWeek, DayOfWeek.FRIDAY, 1, pasta);
+        entry(thisWeek, DayOfWeek.FRIDAY, 0, meal("Curry", new Ingredient("Rice", 300, "g")));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<MealPlanEntry> entries = entryRepository.findForDisplayByEntryDateBetween(
+                WEEK_START.plusDays(6), WEEK_START.plusDays(6));
+
+        assertThat(entries).extracting(e -> e.getMeal().getTitle()).containsExactly("Curry", "Pasta");
+        assertThat(entries).allSatisfy(e -> assertThat(Hibernate.isInitialized(e.getMeal().getIngredients())).isFalse());
+    }
+
+    @Test
+    void findUsesOfMeal_countsEntriesPerPlanDay() {
+        Meal pasta = meal("Pasta", new Ingredient("Pasta", 500, "g"));
+        Meal curry = meal("Curry", new Ingredient("Rice", 300, "g"));
+        entry(thisWeek, DayOfWeek.FRIDAY, 0, pasta);
+        entry(thisWeek, DayOfWeek.FRIDAY, 1, pasta);
+        entry(nextWeek, DayOfWeek.MONDAY, 0, pasta);
+        entry(thisWeek, DayOfWeek.MONDAY, 0, curry);
+        entityManager.flush();
+
+        assertThat(entryRepository.findUsesOfMeal(pasta.getId())).containsExactlyInAnyOrder(
+                new MealUsage(thisWeek.getId(), WEEK_START.plusDays(6), 2),
+                new MealUsage(nextWeek.getId(), WEEK_START.plusDays(9), 1));
+    }
+
+    private MealPlan plan(LocalDate weekStart) {
+        MealPlan plan = new MealPlan();
+        plan.setWeekStartDate(weekStart);
+        return entityManager.persist(plan);
+    }
+
+    private Meal meal(String title, Ingredient... ingredients) {
+        Meal meal = new Meal();
+        meal.setTitle(title);
+        meal.setIngredients(List.of(ingredients));
+        return entityManager.persist(meal);
+    }
+
+    private void entry(MealPlan plan, DayOfWeek day, int displayOrder, Meal meal) {
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setMealPlan(plan);
+        entry.setDayOfWeek(day);
+        entry.setDisplayOrder(displayOrder);
+        entry.setMeal(meal);
+        plan.getEntries().add(entry);
+        entityManager.persist(entry);
+    }
+}
@@ -0,0 +1,122 @@
+package com.mealplanner.service;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Generates the bitmap fonts in src/main/resources/fonts used by {@link BitmapFrameCanvas}.
+ * Each glyph is drawn with the same fonts and hints as {@link AwtFrameCanvas} onto a 1-bit image
+ * and cropped to its ink, and advances come from {@link TextLayoutCache}, so bitmap frames come out
+ * close to the AWT ones. Re-run after changing {@link TextStyle}:
+ * <pre>java -cp target/classes:target/test-classes com.mealplanner.service.BitmapFontGenerator</pre>
+ * from the backend directory, after mvn test-compile.
+ * The fonts are derived from the host's sans-serif font (DejaVu Sans on Debian).
+ */
+public class BitmapFontGenerator {
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args.length > 0 ? args[0] : "src/main/resources/fonts");
+        Files.createDirectories(dir);
+        TextLayoutCache textLayout = new TextLayoutCache();
+        for (TextStyle style : TextStyle.values()) {
+            Font font = textLayout.font(style.weight.awtStyle, style.size);
+            Path file = dir.resolve(Path.of(style.bitmapFontResource()).getFileName().toString());
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.US_ASCII))) {
+                write(out, font, style, textLayout);
+            }
+            System.out.println("Wrote " + file);
+        }
+    }
+
+    private static void write(PrintWriter out, Font font, TextStyle style, TextLayoutCache textLayout) {
+        int box = style.size * 4;
+        int originX = style.size;
+        int baseline = style.size * 3;
+        BufferedImage image = new BufferedImage(box, box, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(font);
+        FontMetrics metrics = g.getFontMetrics();
+
+        List<String> glyphs = new ArrayList<>();
+        for (char c : charset()) {
+            if (!font.canDisplay(c)) continue;
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, box, box);
+            g.setColor(Color.BLACK);
+            g.drawString(String.valueOf(c), originX, baseline);
+
+            int minX = box, minY = box, maxX = -1, maxY = -1;
+            for (int y = 0; y < box; y++) {
+                for (int x = 0; x < box; x++) {
+                    if ((image.getRGB(x, y) & 0xFFFFFF) == 0) {
+                        minX = Math.min(minX, x);
+                        maxX = Math.max(maxX, x);
+                        minY = Math.min(minY, y);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            }
+            int advance = textLayout.stringWidth(String.valueOf(c), font);
+            StringBuilder glyph = new StringBuilder()
+                    .append("STARTCHAR U+").append(String.format("%04X", (int) c)).append('\n')
+                    .append("ENCODING ").append((int) c).append('\n')
+                    .append("SWIDTH ").append(advance * 1000 / style.size).append(" 0\n")
+                    .append("DWIDTH ").append(advance).append(" 0\n");
+            if (maxX < 0) {
+                glyph.append("BBX 0 0 0 0\nBITMAP\n");
+            } else {
+                int w = maxX - minX + 1;
+                int h = maxY - minY + 1;
+                glyph.append("BBX ").append(w).append(' ').append(h).append(' ')
+                        .append(minX - originX).append(' ').append(baseline - maxY - 1).append('\n')
+                        .append("BITMAP\n");
+                byte[] row = new byte[(w + 7) / 8];
+                for (int y = minY; y <= maxY; y++) {
+                    Arrays.fill(row, (byte) 0);
+                    for (int x = minX; x <= maxX; x++) {
+                        if ((image.getRGB(x, y) & 0xFFFFFF) == 0) {
+                            row[(x - minX) >> 3] |= (byte) (0x80 >>> ((x - minX) & 7));
+                        }
+                    }
+                    glyph.append(HexFormat.of().withUpperCase().formatHex(row)).append('\n');
+                }
+            }
+            glyphs.add(glyph.append("ENDCHAR").toString());
+        }
+        g.dispose();
+
+        out.println("STARTFONT 2.1");
+        out.println("COMMENT Pre-rasterized for the meal planner TRMNL renderer by BitmapFontGenerator");
+        out.println("COMMENT Derived from the host sans-serif font (DejaVu Sans, Bitstream Vera licence)");
+        out.println("FONT -mealplanner-sans-" + style.weight.name().toLowerCase() + "-r-normal--" + style.size
+                + "-" + style.size * 10 + "-72-72-p-0-iso10646-1");
+        out.println("SIZE " + style.size + " 72 72");
+        out.println("FONTBOUNDINGBOX " + box + " " + box + " " + (-originX) + " " + (baseline - box));
+        out.println("STARTPROPERTIES 2");
+        out.println("FONT_ASCENT " + metrics.getAscent());
+        out.println("FONT_DESCENT " + metrics.getDescent());
+        out.println("ENDPROPERTIES");
+        out.println("CHARS " + glyphs.size());
+        glyphs.forEach(out::println);
+        out.println("ENDFONT");
+    }
+
+    /** Printable ASCII and Latin-1, plus the punctuation meal titles and the layout use. */
+    private static List<Character> charset() {
+        List<Character> chars = new ArrayList<>();
+        for (char c = 0x20; c < 0x7F; c++) chars.add(c);
+        for (char c = 0xA0; c <= 0xFF; c++) chars.add(c);
+        for (char c : "–—‘’“”•…€".toCharArray()) chars.add(c);
+        return chars;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapFontTest {
+
+    // Three glyphs: a 2x2 block for 'A', an empty space, '?' as the fallback, and the ellipsis
+    private static final String BDF = """
+            STARTFONT 2.1
+            FONT test
+            STARTPROPERTIES 2
+            FONT_ASCENT 8
+            FONT_DESCENT 2
+            ENDPROPERTIES
+            CHARS 4
+            STARTCHAR A
+            ENCODING 65
+            DWIDTH 4 0
+            BBX 2 2 1 0
+            BITMAP
+            C0
+            C000
+            ENDCHAR
+            STARTCHAR space
+            ENCODING 32
+            DWIDTH 3 0
+            BBX 0 0 0 0
+            BITMAP
+            ENDCHAR
+            STARTCHAR question
+            ENCODING 63
+            DWIDTH 5 0
+            BBX 1 1 0 0
+            BITMAP
+            80
+            ENDCHAR
+            STARTCHAR ellipsis
+            ENCODING 8230
+            DWIDTH 6 0
+            BBX 5 1 0 0
+            BITMAP
+            A8
+            ENDCHAR
+            ENDFONT
+            """;
+
+    private static BitmapFont font() throws IOException {
+        return BitmapFont.parse(new BufferedReader(new StringReader(BDF)));
+    }
+
+    @Test
+    void parse_readsMetricsAndGlyphs() throws IOException {
+        BitmapFont font = font();
+
+        assertEquals(8, font.ascent());
+        assertEquals(2, font.descent());
+        BitmapFont.Glyph a = font.glyph('A');
+        assertEquals(4, a.advance());
+        assertEquals(1, a.xOffset());
+        assertArrayEquals(new byte[]{(byte) 0xC0, (byte) 0xC0}, a.bits());
+        assertEquals(6, font.glyph('…').advance());
+    }
+
+    @Test
+    void glyph_fallsBackToQuestionMarkForMissingCharacters() throws IOException {
+        BitmapFont font = font();
+
+        assertSame(font.glyph('?'), font.glyph('Z'));
+        assertSame(font.glyph('?'), font.glyph('→'));
+        assertEquals(4 + 3 + 5, font.stringWidth("A Z"));
+    }
+
+    @Test
+    void truncate_keepsTheLongestPrefixThatFitsWithAnEllipsis() throws IOException {
+        BitmapFont font = font();
+
+        assertEquals("AAA", font.truncate("AAA", 12));
+        assertEquals("AA…", font.truncate("AAAA", 15));
+        // Always keeps one character, even when nothing fits
+        assertEquals("A…", font.truncate("AAAA", 2));
+    }
+
+    @Test
+    void load_readsTheBundledFontForEveryStyle() {
+        for (TextStyle style : TextStyle.values()) {
+            BitmapFont font = BitmapFont.load(style.bitmapFontResource());
+            assertTrue(font.ascent() > 0, style.name());
+            assertTrue(font.glyph('M').advance() > 0, style.name());
+            assertNotSame(font.glyph('?'), font.glyph('é'), style.name());
+            assertNotSame(font.glyph('?'), font.glyph('…'), style.name());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapFrameCanvasTest {
+
+    private final BitmapFontSet fonts = new BitmapFontSet();
+
+    @Test
+    void fillRect_setsExactlyTheCoveredPixels() {
+        BitmapFrameCanvas canvas = new BitmapFrameCanvas(20, 4, fonts);
+        canvas.fillRect(0, 0, 20, 4, false);
+
+        canvas.fillRect(3, 1, 11, 2, true);
+
+        MonochromeRaster raster = canvas.finish();
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 20; x++) {
+                boolean inside = x >= 3 && x < 14 && y >= 1 && y < 3;
+                assertEquals(inside, isBlack(raster, x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void fillRect_clipsToTheFrame() {
+        BitmapFrameCanvas canvas = new BitmapFrameCanvas(10, 3, fonts);
+        canvas.fillRect(0, 0, 10, 3, false);
+
+        canvas.fillRect(-5, -5, 8, 100, true);
+
+        MonochromeRaster raster = canvas.finish();
+        assertEquals(2, raster.stride());
+        for (int y = 0; y < 3; y++) {
+            assertTrue(isBlack(raster, 2, y));
+            assertFalse(isBlack(raster, 3, y));
+        }
+    }
+
+    @Test
+    void drawLine_includesBothEndPoints() {
+        BitmapFrameCanvas canvas = new BitmapFrameCanvas(16, 16, fonts);
+        canvas.fillRect(0, 0, 16, 16, false);
+
+        canvas.drawLine(2, 5, 9, 5, true);
+        canvas.drawLine(12, 15, 12, 20, true);
+        canvas.drawLine(0, 0, 3, 3, true);
+
+        MonochromeRaster raster = canvas.finish();
+        assertTrue(isBlack(raster, 2, 5));
+        assertTrue(isBlack(raster, 9, 5));
+        assertFalse(isBlack(raster, 10, 5));
+        assertTrue(isBlack(raster, 12, 15));
+        assertTrue(isBlack(raster, 3, 3));
+        assertFalse(isBlack(raster, 3, 0));
+    }
+
+    @Test
+    void drawString_inksWithinTheTextBoundsAndAdvancesByItsWidth() {
+        BitmapFrameCanvas canvas = new BitmapFrameCanvas(200, 40, fonts);
+        canvas.fillRect(0, 0, 200, 40, false);
+        BitmapFont font = fonts.font(TextStyle.MEAL);
+        int width = canvas.stringWidth("Meal", TextStyle.MEAL);
+
+        canvas.drawString("Meal", TextStyle.MEAL, 13, 30, true);
+
+        MonochromeRaster raster = canvas.finish();
+        int inked = 0;
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 200; x++) {
+                if (isBlack(raster, x, y)) {
+                    inked++;
+                    assertTrue(x >= 13 && x < 13 + width, "x " + x);
+                    assertTrue(y >= 30 - font.ascent() && y < 30 + font.descent(), "y " + y);
+                }
+            }
+        }
+        assertTrue(inked > 20);
+        assertEquals(font.stringWidth("Meal"), width);
+    }
+
+    @Test
+    void drawString_clipsGlyphsAtTheEdgesAndSupportsWhiteInk() {
+        BitmapFrameCanvas canvas = new BitmapFrameCanvas(24, 24, fonts);
+        canvas.fillRect(0, 0, 24, 24, true);
+
+        canvas.drawString("WW", TextStyle.HEADER, -6, 20, false);
+
+        MonochromeRaster raster = canvas.finish();
+        int white = 0;
+        for (int y = 0; y < 24; y++) {
+            for (int x = 0; x < 24; x++) {
+                if (!isBlack(raster, x, y)) white++;
+            }
+        }
+        assertTrue(white > 0);
+    }
+
+    private static boolean isBlack(MonochromeRaster raster, int x, int y) {
+        return (raster.data()[y * raster.stride() + (x >> 3)] & (0x80 >>> (x & 7))) == 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.DitherMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrayscaleDitherTest {
+
+    private static GrayscaleRaster flat(int width, int height, int value) {
+        byte[] data = new byte[width * height];
+        Arrays.fill(data, (byte) value);
+        return new GrayscaleRaster(data, width, height, width, 8);
+    }
+
+    private static int level(GrayscaleRaster raster, int x, int y) {
+        int bits = raster.bitDepth();
+        int bit = x * bits;
+        int b = raster.data()[y * raster.stride() + bit / 8] & 0xFF;
+        return (b >>> (8 - bits - bit % 8)) & ((1 << bits) - 1);
+    }
+
+    private static double meanGrey(GrayscaleRaster raster) {
+        int max = (1 << raster.bitDepth()) - 1;
+        long sum = 0;
+        for (int y = 0; y < raster.height(); y++) {
+            for (int x = 0; x < raster.width(); x++) {
+                sum += level(raster, x, y) * 255L / max;
+            }
+        }
+        return (double) sum / (raster.width() * raster.height());
+    }
+
+    @Test
+    void exactLevelsPassThroughUnchanged() {
+        for (DitherMode mode : DitherMode.values()) {
+            // 0x55 and 0xAA are exact 2-bit levels; 0x11 * n are exact 4-bit levels
+            GrayscaleRaster twoBit = GrayscaleDither.dither(flat(16, 8, 0xAA), 2, mode);
+            GrayscaleRaster fourBit = GrayscaleDither.dither(flat(16, 8, 0x77), 4, mode);
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 16; x++) {
+                    assertEquals(2, level(twoBit, x, y), mode + " 2-bit");
+                    assertEquals(7, level(fourBit, x, y), mode + " 4-bit");
+                }
+            }
+            assertEquals(4, twoBit.stride());
+            assertEquals(8, fourBit.stride());
+        }
+    }
+
+    @Test
+    void orderedDither_mixesNeighbouringLevelsInProportion() {
+        // Halfway between black and white: exactly half of each 8x8 Bayer tile is white
+        GrayscaleRaster mono = GrayscaleDither.ordered(flat(16, 16, 128), 1);
+        int white = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                white += level(mono, x, y);
+                assertEquals(level(mono, x, y), level(mono, x + 8, y + 8), "tile repeats");
+            }
+        }
+        assertEquals(32, white);
+        assertArrayEquals(GrayscaleDither.ordered(flat(16, 16, 128), 1).data(), mono.data());
+    }
+
+    @Test
+    void diffusion_preservesMeanBrightness() {
+        for (int bits : new int[]{1, 2, 4}) {
+            for (int value : new int[]{30, 100, 200}) {
+                GrayscaleRaster out = GrayscaleDither.diffuse(flat(64, 64, value), bits);
+                assertEquals(value, meanGrey(out), 3.0, bits + "-bit at " + value);
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnsupportedInputs() {
+        assertThrows(IllegalArgumentException.class, () -> GrayscaleDither.ordered(flat(8, 8, 0), 3));
+        GrayscaleRaster packed = GrayscaleDither.ordered(flat(8, 8, 0), 1);
+        assertThrows(IllegalArgumentException.class, () -> GrayscaleDither.diffuse(packed, 2));
+        assertEquals(8, packed.toMonochrome().width());
+        assertThrows(IllegalStateException.class, () -> flat(8, 8, 0).toMonochrome());
+    }
+}
@@ -0,0 +1,140 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.CatalogIngredient;
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.model.Meal;
+import com.mealplanner.repository.CatalogIngredientRepository;
+import com.mealplanner.repository.CatalogUnitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+        classes = {IngredientCatalog.class, IngredientCatalogBackfill.class}))
+class IngredientCatalogTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private IngredientCatalog catalog;
+
+    @Autowired
+    private IngredientCatalogBackfill backfill;
+
+    @Autowired
+    private CatalogIngredientRepository ingredientRepository;
+
+    @Autowired
+    private CatalogUnitRepository unitRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Catalog entries are added in transactions of their own, so they outlive each test's
+    private TransactionTemplate newTransaction;
+
+    @BeforeEach
+    void setUp() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        newTransaction.executeWithoutResult(status -> {
+            ingredientRepository.deleteAllInBatch();
+            unitRepository.deleteAllInBatch();
+        });
+    }
+
+    @Test
+    void resolve_givesEverySpellingTheSameId() {
+        Ingredient tomatoes = new Ingredient("Tomatoes ", 4, "Cups");
+        Ingredient tomato = new Ingredient("tomato", 1, "cup");
+        Ingredient salt = new Ingredient("Salt", 1, null);
+
+        catalog.resolve(List.of(tomatoes, tomato, salt));
+
+        assertThat(tomatoes.getIngredientId()).isNotNull().isEqualTo(tomato.getIngredientId());
+        assertThat(tomatoes.getUnitId()).isNotNull().isEqualTo(tomato.getUnitId());
+        assertThat(salt.getIngredientId()).isNotEqualTo(tomato.getIngredientId());
+        assertThat(ingredientRepository.findAll()).extracting("name").containsExactlyInAnyOrder("tomato", "salt");
+        assertThat(unitRepository.findAll()).extracting("name").containsExactlyInAnyOrder("cup", "");
+    }
+
+    @Test
+    void resolve_reusesEntriesAlreadyInTheCatalog() {
+        Ingredient first = new Ingredient("Onions", 2, "");
+        catalog.resolve(List.of(first));
+
+        Ingredient second = new Ingredient("onion", 1, null);
+        catalog.resolve(List.of(second));
+
+        assertThat(second.getIngredientId()).isEqualTo(first.getIngredientId());
+        assertThat(second.getUnitId()).isEqualTo(first.getUnitId());
+        assertThat(ingredientRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void resolve_usesTheEntryOfASaveThatAddedTheSameNameFirst() {
+        // Another save adds the name between this one's first lookup and its insert
+        AtomicBoolean raced = new AtomicBoolean();
+        CatalogIngredientRepository racing = (CatalogIngredientRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{CatalogIngredientRepository.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(ingredientRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("findByNameIn") && raced.compareAndSet(false, true)) {
+                        newTransaction.executeWithoutResult(status -> ingredientRepository.save(new CatalogIngredient("garlic")));
+                    }
+                    return result;
+                });
+        Ingredient garlic = new Ingredient("Garlic", 2, "cloves");
+
+        new IngredientCatalog(racing, unitRepository, transactionManager).resolve(List.of(garlic));
+
+        assertThat(ingredientRepository.findAll()).singleElement().satisfies(entry -> {
+            assertThat(entry.getName()).isEqualTo("garlic");
+            assertThat(entry.getId()).isEqualTo(garlic.getIngredientId());
+        });
+    }
+
+    @Test
+    void backfill_cataloguesIngredientsSavedWithoutIds() {
+        Meal meal = new Meal();
+        meal.setTitle("Soup");
+        meal.setIngredients(new ArrayList<>(List.of(new Ingredient("Leeks", 2, null), new Ingredient("Stock", 1, "l"))));
+        entityManager.persist(meal);
+        entityManager.flush();
+
+        backfill.backfill();
+        entityManager.flush();
+        entityManager.clear();
+
+        Meal reloaded = entityManager.find(Meal.class, meal.getId());
+        assertThat(reloaded.getIngredients()).allSatisfy(i -> {
+            assertThat(i.getIngredientId()).isNotNull();
+            assertThat(i.getUnitId()).isNotNull();
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.IngredientSum;
+import com.mealplanner.dto.ShoppingItem;
+import com.mealplanner.model.Ingredient;
+import com.mealplanner.model.Meal;
+import com.mealplanner.model.MealPlan;
+import com.mealplanner.model.MealPlanEntry;
+import com.mealplanner.repository.IngredientTotalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Scanned rather than imported, so they get the bean names IngredientTotals depends on
+@DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+        classes = {IngredientTotals.class, IngredientCatalog.class, UnitConversions.class,
+                MealPlanEntryDateBackfill.class, IngredientCatalogBackfill.class}))
+class IngredientTotalsTest {
+
+    // Saturday
+    private static final LocalDate WEEK_START = LocalDate.of(2026, 2, 14);
+    private static final LocalDate MONDAY = WEEK_START.plusDays(2);
+    private static final LocalDate FRIDAY = WEEK_START.plusDays(6);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private IngredientTotals ingredientTotals;
+
+    @Autowired
+    private IngredientTotalRepository totalRepository;
+
+    @Autowired
+    private IngredientCatalog catalog;
+
+    @Autowired
+    private UnitConversions conversions;
+
+    private MealPlan plan;
+    private Meal pasta;
+    private Meal salad;
+
+    @BeforeEach
+    void setUp() {
+        plan = new MealPlan();
+        plan.setWeekStartDate(WEEK_START);
+        entityManager.persist(plan);
+        pasta = meal("Pasta", new Ingredient("Tomatoes", 4, "pcs"), new Ingredient("Pasta", 500, "g"));
+        salad = meal("Salad", new Ingredient("tomato ", 2, "PCS"), new Ingredient("lettuce", 1, "head"));
+    }
+
+    @Test
+    void addMeal_mergesSpellingsOfTheSameIngredient() {
+        ingredientTotals.addMeal(plan.getId(), MONDAY, pasta);
+        ingredientTotals.addMeal(plan.getId(), FRIDAY, salad);
+        ingredientTotals.addMeal(plan.getId(), FRIDAY, pasta);
+
+        // Listed under the catalog's name, whichever spelling was added first
+        assertThat(describe(shoppingList())).containsExactly(
+                "1.0 head lettuce",
+                "1000.0 g pasta",
+                "10.0 pc tomato");
+        assertThat(totalRepository.findByMealPlanIdAndEntryDate(plan.getId(), FRIDAY)).hasSize(3);
+    }
+
+    @Test
+    void addMeal_keepsTheUnitAnIngredientWasEnteredIn() {
+        ingredientTotals.addMeal(plan.getId(), MONDAY, meal("Stir fry", new Ingredient("Oil", 2, "tsp"),
+                new Ingredient("Beef", 1, "lb"), new Ingredient("Rice", 1, "cup")));
+        ingredientTotals.addMeal(plan.getId(), FRIDAY, meal("Fried rice", new Ingredient("rice", 2, "cups")));
+
+        assertThat(describe(shoppingList())).containsExactly(
+                "1.0 lb beef",
+                "2.0 tsp oil",
+                "3.0 cup rice");
+    }
+
+    @Test
+    void addMeal_addsUpQuantitiesInDifferentUnitsOfTheSameDimension() {
+        Meal bread = meal("Bread", new Ingredient("Flour", 1, "kg"), new Ingredient("Oil", 1, "tbsp"),
+                new Ingredient("Tomatoes", 2, "tins"));
+        Meal cake = meal("Cake", new Ingredient("flour", 250, "grams"), new Ingredient("oil", 2, "tsp"),
+                new Ingredient("Tomatoes", 1, "tin"));
+
+        ingredientTotals.addMeal(plan.getId(), MONDAY, bread);
+        ingredientTotals.addMeal(plan.getId(), FRIDAY, cake);
+
+        // In the largest unit entered
+        assertThat(describe(shoppingList())).containsExactly(
+                "1.25 kg flour",
+                "1.6666666666666667 tbsp oil",
+                "3.0 tin tomato");
+
+        ingredientTotals.removeMeal(plan.getId(), MONDAY, bread);
+
+        assertThat(describe(shoppingList())).containsExactly(
+                "250.0 gram flour",
+                "2.0 tsp oil",
+                "1.0 tin tomato");
+    }
+
+    @Test
+    void rebuild_addsUpUnitsLikeTheRunningTotals() {
+        entry(DayOfWeek.MONDAY, meal("Stew", new Ingredient("Stock", 1.5, "l"), new Ingredient("Beef", 1, "kg")));
+        entry(DayOfWeek.MONDAY, meal("Soup", new Ingredient("stock", 500, "ml"), new Ingredient("Beef", 500, "g")));
+        entityManager.flush();
+
+        ingredientTotals.rebuild();
+
+        assertThat(describe(shoppingList())).containsExactly("1.5 kg beef", "2.0 l stock");
+        assertThat(totalRepository.findByMealPlanIdAndEntryDate(plan.getId(), MONDAY)).hasSize(4);
+    }
+
+    @Test
+    void removeMeal_dropsTotalsOnceNothingIsLeftInThem() {
+        ingredientTotals.addMeal(plan.getId(), MONDAY, pasta);
+        ingredientTotals.addMeal(plan.getId(), MONDAY, salad);
+
+        ingredientTotals.removeMeal(plan.getId(), MONDAY, pasta);
+
+        assertThat(describe(shoppingList())).containsExactly(
+                "1.0 head lettuce",
+                "2.0 pc tomato");
+
+        ingredientTotals.removeMeal(plan.getId(), MONDAY, salad);
+
+        assertThat(totalRepository.count()).isZero();
+    }
+
+    @Test
+    void replaceIngredients_updatesEveryDayTheMealIsPlannedOn() {
+        entry(DayOfWeek.MONDAY, pasta);
+        entry(DayOfWeek.FRIDAY, pasta);
+        entry(DayOfWeek.FRIDAY, pasta);
+        entityManager.flush();
+        ingredientTotals.rebuild();
+        List<Ingredient> before = new ArrayList<>(pasta.getIngredients());
+
+        pasta.setIngredients(new ArrayList<>(List.of(new Ingredient("Pasta", 400, "g"))));
+        entityManager.flush();
+        ingredientTotals.replaceIngredients(pasta.getId(), before, pasta.getIngredients());
+
+        assertThat(describe(shoppingList())).containsExactly("1200.0 g pasta");
+        try (Stream<IngredientSum> friday = totalRepository.streamShoppingList(FRIDAY, FRIDAY)) {
+            assertThat(describe(conversions.combine(friday.toList()))).containsExactly("800.0 g pasta");
+        }
+    }
+
+    @Test
+    void rebuild_sumsThePlannedEntries() {
+        entry(DayOfWeek.MONDAY, pasta);
+        entry(DayOfWeek.MONDAY, salad);
+        entry(DayOfWeek.FRIDAY, salad);
+        entityManager.flush();
+
+        ingredientTotals.rebuild();
+
+        assertThat(totalRepository.findByMealPlanIdAndEntryDate(plan.getId(), MONDAY)).hasSize(3);
+        try (Stream<IngredientSum> monday = totalRepository.streamShoppingList(MONDAY, MONDAY)) {
+            assertThat(describe(conversions.combine(monday.toList()))).containsExactly(
+                    "1.0 head lettuce",
+                    "500.0 g pasta",
+                    "6.0 pc tomato");
+        }
+        assertThat(describe(shoppingList())).contains("2.0 head lettuce");
+    }
+
+    private List<ShoppingItem> shoppingList() {
+        entityManager.flush();
+        return conversions.combine(totalRepository.findShoppingList(plan.getId()));
+    }
+
+    private static List<String> describe(List<ShoppingItem> items) {
+        return items.stream().map(i -> i.getTotalQuantity() + " " + i.getUnit() + " " + i.getName()).toList();
+    }
+
+    private Meal meal(String title, Ingredient... ingredients) {
+        Meal meal = new Meal();
+        meal.setTitle(title);
+        meal.setIngredients(new ArrayList<>(List.of(ingredients)));
+        catalog.resolve(meal.getIngredients());
+        return entityManager.persist(meal);
+    }
+
+    private void entry(DayOfWeek day, Meal meal) {
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setMealPlan(plan);
+        entry.setDayOfWeek(day);
+        entry.setMeal(meal);
+        plan.getEntries().add(entry);
+        entityManager.persist(entry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongKeyedMapTest {
+
+    @Test
+    void computeIfAbsent_makesEachValueOnce() {
+        LongKeyedMap<StringBuilder> map = new LongKeyedMap<>();
+
+        map.computeIfAbsent(IngredientTotals.key(3, 1), k -> new StringBuilder("a"));
+        map.computeIfAbsent(IngredientTotals.key(3, 1), k -> new StringBuilder("b")).append("c");
+        map.computeIfAbsent(IngredientTotals.key(1, 3), k -> new StringBuilder("d"));
+
+        assertEquals(2, map.size());
+        assertEquals("ac", map.get(IngredientTotals.key(3, 1)).toString());
+        assertEquals("d", map.get(IngredientTotals.key(1, 3)).toString());
+        assertNull(map.get(IngredientTotals.key(2, 2)));
+    }
+
+    @Test
+    void put_keepsEveryKeyAsTheMapGrows() {
+        LongKeyedMap<Long> map = new LongKeyedMap<>(2);
+        for (long i = 0; i < 1000; i++) {
+            map.put(i << 32, i);
+        }
+        map.put(5L << 32, -5L);
+
+        assertEquals(1000, map.size());
+        assertEquals(1000, map.values().size());
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(i == 5 ? -5L : i, map.get(i << 32));
+        }
+    }
+}
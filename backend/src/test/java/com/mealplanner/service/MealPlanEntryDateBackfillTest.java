@@ -0,0 +1,48 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.MealPlan;
+import com.mealplanner.model.MealPlanEntry;
+import com.mealplanner.repository.MealPlanEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Field;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MealPlanEntryDateBackfillTest {
+
+    @Mock
+    private MealPlanEntryRepository entryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void backfill_datesEntriesSavedWithoutADate() throws Exception {
+        MealPlan plan = new MealPlan();
+        plan.setWeekStartDate(LocalDate.of(2026, 2, 14));
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setDayOfWeek(DayOfWeek.WEDNESDAY);
+        // As loaded from a row written before the column existed
+        Field mealPlan = MealPlanEntry.class.getDeclaredField("mealPlan");
+        mealPlan.setAccessible(true);
+        mealPlan.set(entry, plan);
+        when(entryRepository.findByEntryDateIsNull()).thenReturn(List.of(entry));
+
+        new MealPlanEntryDateBackfill(entryRepository, transactionManager).backfill();
+
+        assertEquals(LocalDate.of(2026, 2, 18), entry.getEntryDate());
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+    }
+}
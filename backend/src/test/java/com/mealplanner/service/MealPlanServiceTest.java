@@ -1,8 +1,10 @@
 package com.mealplanner.service;
 
 import com.mealplanner.dto.EntryRequest;
+import com.mealplanner.dto.IngredientSum;
 import com.mealplanner.dto.ShoppingItem;
 import com.mealplanner.model.*;
+import com.mealplanner.repository.IngredientTotalRepository;
 import com.mealplanner.repository.MealPlanEntryRepository;
 import com.mealplanner.repository.MealPlanRepository;
 import com.mealplanner.repository.MealRepository;
@@ -10,12 +12,18 @@ import com.mealplanner.repository.PersonRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,12 +39,25 @@ class MealPlanServiceTest {
     @Mock
     private MealPlanEntryRepository entryRepository;
 
+    @Mock
+    private IngredientTotalRepository totalRepository;
+
+    @Mock
+    private IngredientTotals ingredientTotals;
+
     @Mock
     private MealRepository mealRepository;
 
     @Mock
     private PersonRepository personRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // No conversions loaded, so only sums in the same unit are combined
+    @Spy
+    private UnitConversions conversions = new UnitConversions(null, null);
+
     @InjectMocks
     private MealPlanService mealPlanService;
 
@@ -148,15 +169,20 @@ class MealPlanServiceTest {
         when(mealRepository.findById(1L)).thenReturn(Optional.of(sampleMeal));
         when(personRepository.findById(1L)).thenReturn(Optional.of(samplePerson));
         when(mealPlanRepository.save(any(MealPlan.class))).thenReturn(samplePlan);
+        when(mealPlanRepository.findVersionById(1L)).thenReturn(1L);
 
         MealPlanEntry result = mealPlanService.addEntry(1L, request);
 
-        assertThat(result.getDayOfWeek()).isEqualTo("MONDAY");
+        assertThat(result.getDayOfWeek()).isEqualTo(DayOfWeek.MONDAY);
+        assertThat(result.getEntryDate()).isEqualTo(LocalDate.of(2025, 2, 10));
         assertThat(result.getMealType()).isEqualTo(MealType.DINNER);
         assertThat(result.getMeal()).isEqualTo(sampleMeal);
         assertThat(result.getAssignedCook()).isEqualTo(samplePerson);
         assertThat(result.getDisplayOrder()).isEqualTo(0);
         assertThat(samplePlan.getEntries()).hasSize(1);
+        assertThat(samplePlan.getVersion()).isEqualTo(1);
+        verify(ingredientTotals).addMeal(1L, LocalDate.of(2025, 2, 10), sampleMeal);
+        verify(eventPublisher).publishEvent(new MealPlanChangedEvent(1L, LocalDate.of(2025, 2, 8), 1));
     }
 
     @Test
@@ -195,7 +221,7 @@ class MealPlanServiceTest {
     void updateEntry_updatesExistingEntry() {
         MealPlanEntry entry = new MealPlanEntry();
         entry.setId(1L);
-        entry.setDayOfWeek("MONDAY");
+        entry.setDayOfWeek(DayOfWeek.MONDAY);
         entry.setMealType(MealType.DINNER);
 
         EntryRequest request = new EntryRequest();
@@ -207,10 +233,59 @@ class MealPlanServiceTest {
 
         MealPlanEntry result = mealPlanService.updateEntry(1L, request);
 
-        assertThat(result.getDayOfWeek()).isEqualTo("WEDNESDAY");
+        assertThat(result.getDayOfWeek()).isEqualTo(DayOfWeek.WEDNESDAY);
         assertThat(result.getMealType()).isEqualTo(MealType.LUNCH);
     }
 
+    @Test
+    void updateEntry_bumpsPlanVersion() {
+        samplePlan.setVersion(4);
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setId(1L);
+        entry.setMealPlan(samplePlan);
+        entry.setDayOfWeek(DayOfWeek.MONDAY);
+
+        EntryRequest request = new EntryRequest();
+        request.setDisplayOrder(2);
+
+        when(entryRepository.findById(1L)).thenReturn(Optional.of(entry));
+        when(entryRepository.save(any(MealPlanEntry.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(mealPlanRepository.findVersionById(1L)).thenReturn(5L);
+
+        mealPlanService.updateEntry(1L, request);
+
+        verify(mealPlanRepository).incrementVersion(1L);
+        assertThat(samplePlan.getVersion()).isEqualTo(5);
+        verify(eventPublisher).publishEvent(new MealPlanChangedEvent(1L, LocalDate.of(2025, 2, 8), 5));
+        // Neither the meal nor the date changed, so the totals stay as they are
+        verifyNoInteractions(ingredientTotals);
+    }
+
+    @Test
+    void updateEntry_movesTheMealBetweenDayTotals() {
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setId(1L);
+        entry.setMealPlan(samplePlan);
+        entry.setMeal(sampleMeal);
+        entry.setDayOfWeek(DayOfWeek.MONDAY);
+        Meal curry = new Meal();
+        curry.setId(2L);
+
+        EntryRequest request = new EntryRequest();
+        request.setDayOfWeek("FRIDAY");
+        request.setMealId(2L);
+
+        when(entryRepository.findById(1L)).thenReturn(Optional.of(entry));
+        when(mealRepository.findById(2L)).thenReturn(Optional.of(curry));
+        when(entryRepository.save(any(MealPlanEntry.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        mealPlanService.updateEntry(1L, request);
+
+        InOrder order = inOrder(ingredientTotals);
+        order.verify(ingredientTotals).removeMeal(1L, LocalDate.of(2025, 2, 10), sampleMeal);
+        order.verify(ingredientTotals).addMeal(1L, LocalDate.of(2025, 2, 14), curry);
+    }
+
     @Test
     void updateEntry_throwsWhenEntryNotFound() {
         when(entryRepository.findById(99L)).thenReturn(Optional.empty());
@@ -229,86 +304,64 @@ class MealPlanServiceTest {
 
         when(entryRepository.findById(1L)).thenReturn(Optional.of(entry));
         when(mealPlanRepository.save(any(MealPlan.class))).thenReturn(samplePlan);
+        when(mealPlanRepository.findVersionById(1L)).thenReturn(1L);
 
         mealPlanService.deleteEntry(1L);
 
         assertThat(samplePlan.getEntries()).isEmpty();
+        verify(ingredientTotals).removeMeal(1L, null, null);
         verify(mealPlanRepository).save(samplePlan);
+        verify(eventPublisher).publishEvent(new MealPlanChangedEvent(1L, LocalDate.of(2025, 2, 8), 1));
     }
 
     @Test
-    void generateShoppingList_combinesIngredients() {
-        Meal meal1 = new Meal();
-        meal1.setIngredients(List.of(
-                new Ingredient("Pasta", 500, "g"),
-                new Ingredient("Tomato Sauce", 300, "ml")
-        ));
-
-        Meal meal2 = new Meal();
-        meal2.setIngredients(List.of(
-                new Ingredient("Pasta", 400, "g"),
-                new Ingredient("Cheese", 200, "g")
-        ));
-
-        MealPlanEntry entry1 = new MealPlanEntry();
-        entry1.setMeal(meal1);
-        MealPlanEntry entry2 = new MealPlanEntry();
-        entry2.setMeal(meal2);
-        samplePlan.getEntries().addAll(List.of(entry1, entry2));
-
-        when(mealPlanRepository.findById(1L)).thenReturn(Optional.of(samplePlan));
-
-        List<ShoppingItem> result = mealPlanService.generateShoppingList(1L);
-
-        // Should combine pasta quantities
-        assertThat(result).hasSize(3);
-        ShoppingItem pastaItem = result.stream()
-                .filter(i -> i.getName().equalsIgnoreCase("Pasta"))
-                .findFirst().orElseThrow();
-        assertThat(pastaItem.getTotalQuantity()).isEqualTo(900.0);
+    void generateShoppingList_returnsThePlanTotals() {
+        when(mealPlanRepository.existsById(1L)).thenReturn(true);
+        when(totalRepository.findShoppingList(1L)).thenReturn(List.of(new IngredientSum(1L, "pasta", 2L, "g", 900)));
+
+        assertThat(mealPlanService.generateShoppingList(1L))
+                .extracting(ShoppingItem::getName, ShoppingItem::getTotalQuantity, ShoppingItem::getUnit)
+                .containsExactly(tuple("pasta", 900.0, "g"));
+        verify(mealPlanRepository, never()).findById(any());
     }
 
     @Test
-    void generateShoppingList_handlesEmptyPlan() {
-        when(mealPlanRepository.findById(1L)).thenReturn(Optional.of(samplePlan));
+    void generateShoppingList_throwsWhenPlanNotFound() {
+        when(mealPlanRepository.existsById(99L)).thenReturn(false);
 
-        List<ShoppingItem> result = mealPlanService.generateShoppingList(1L);
-
-        assertThat(result).isEmpty();
+        assertThatThrownBy(() -> mealPlanService.generateShoppingList(99L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Meal plan not found");
+        verifyNoInteractions(totalRepository);
     }
 
     @Test
-    void generateShoppingList_handlesNullMealInEntry() {
-        MealPlanEntry entry = new MealPlanEntry();
-        entry.setMeal(null);
-        samplePlan.getEntries().add(entry);
+    void generateShoppingListForDateRange_returnsTheListAddedUpByTheDatabase() {
+        when(totalRepository.streamShoppingList(LocalDate.of(2025, 2, 12), LocalDate.of(2025, 2, 18)))
+                .thenReturn(Stream.of(new IngredientSum(1L, "pasta", 2L, "g", 1000),
+                        new IngredientSum(3L, "tomato sauce", 4L, "ml", 600)));
 
-        when(mealPlanRepository.findById(1L)).thenReturn(Optional.of(samplePlan));
-
-        List<ShoppingItem> result = mealPlanService.generateShoppingList(1L);
+        List<ShoppingItem> result = mealPlanService.generateShoppingListForDateRange(
+                LocalDate.of(2025, 2, 12), LocalDate.of(2025, 2, 18));
 
-        assertThat(result).isEmpty();
+        assertThat(result).extracting(ShoppingItem::getName, ShoppingItem::getTotalQuantity, ShoppingItem::getUnit)
+                .containsExactly(tuple("pasta", 1000.0, "g"), tuple("tomato sauce", 600.0, "ml"));
+        verifyNoInteractions(mealPlanRepository);
     }
 
     @Test
-    void generateShoppingList_sortsByNameCaseInsensitive() {
-        Meal meal = new Meal();
-        meal.setIngredients(List.of(
-                new Ingredient("Zucchini", 2, "pcs"),
-                new Ingredient("Apple", 3, "pcs"),
-                new Ingredient("banana", 1, "pcs")
-        ));
-
-        MealPlanEntry entry = new MealPlanEntry();
-        entry.setMeal(meal);
-        samplePlan.getEntries().add(entry);
-
-        when(mealPlanRepository.findById(1L)).thenReturn(Optional.of(samplePlan));
-
-        List<ShoppingItem> result = mealPlanService.generateShoppingList(1L);
-
-        assertThat(result).extracting(ShoppingItem::getName)
-                .containsExactly("Apple", "banana", "Zucchini");
+    void forEachShoppingItem_passesEachItemOnAndClosesTheStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(totalRepository.streamShoppingList(any(), any())).thenReturn(Stream.of(
+                new IngredientSum(1L, "pasta", 2L, "g", 1000), new IngredientSum(3L, "rice", 2L, "g", 200))
+                .onClose(() -> closed.set(true)));
+        List<String> names = new ArrayList<>();
+
+        mealPlanService.forEachShoppingItem(LocalDate.of(2025, 2, 12), LocalDate.of(2025, 2, 18),
+                item -> names.add(item.getName()));
+
+        assertThat(names).containsExactly("pasta", "rice");
+        assertThat(closed).isTrue();
     }
 
     @Test
@@ -319,45 +372,53 @@ class MealPlanServiceTest {
 
         when(mealPlanRepository.findById(1L)).thenReturn(Optional.of(samplePlan));
         when(mealPlanRepository.save(any(MealPlan.class))).thenReturn(samplePlan);
+        when(mealPlanRepository.findVersionById(1L)).thenReturn(1L);
 
         mealPlanService.updateDayNotes(1L, notes);
 
         assertThat(samplePlan.getDayNotes()).containsEntry("MONDAY", "Takeaway night");
         assertThat(samplePlan.getDayNotes()).containsEntry("FRIDAY", "Date night");
+        verify(eventPublisher).publishEvent(new MealPlanChangedEvent(1L, LocalDate.of(2025, 2, 8), 1));
     }
 
     @Test
-    void updateDayNotes_handlesNullNotes() {
-        samplePlan.getDayNotes().put("MONDAY", "Old note");
-        when(mealPlanRepository.findById(1L)).thenReturn(Optional.of(samplePlan));
-        when(mealPlanRepository.save(any(MealPlan.class))).thenReturn(samplePlan);
-
-        mealPlanService.updateDayNotes(1L, null);
-
-        // dayNotes should remain unchanged when null is passed
-        assertThat(samplePlan.getDayNotes()).containsEntry("MONDAY", "Old note");
+    void mealChanged_bumpsEveryPlanTheMealIsIn() {
+        MealPlan nextWeek = new MealPlan();
+        nextWeek.setId(2L);
+        nextWeek.setWeekStartDate(LocalDate.of(2025, 2, 15));
+        when(entryRepository.findPlanIdsByMealId(1L)).thenReturn(List.of(1L, 2L));
+        when(mealPlanRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(samplePlan, nextWeek));
+        when(mealPlanRepository.findVersionById(1L)).thenReturn(3L);
+        when(mealPlanRepository.findVersionById(2L)).thenReturn(1L);
+
+        mealPlanService.mealChanged(1L);
+
+        verify(mealPlanRepository).incrementVersion(1L);
+        verify(mealPlanRepository).incrementVersion(2L);
+        verify(eventPublisher).publishEvent(new MealPlanChangedEvent(1L, LocalDate.of(2025, 2, 8), 3));
+        verify(eventPublisher).publishEvent(new MealPlanChangedEvent(2L, LocalDate.of(2025, 2, 15), 1));
     }
 
     @Test
-    void generateShoppingList_combinesSingularAndPluralIngredients() {
-        Meal meal1 = new Meal();
-        meal1.setIngredients(List.of(new Ingredient("Tomato", 2, "pcs")));
+    void personChanged_bumpsThePlansTheyCookIn() {
+        when(entryRepository.findPlanIdsByAssignedCookId(1L)).thenReturn(List.of(1L));
+        when(mealPlanRepository.findAllById(List.of(1L))).thenReturn(List.of(samplePlan));
+        when(mealPlanRepository.findVersionById(1L)).thenReturn(2L);
 
-        Meal meal2 = new Meal();
-        meal2.setIngredients(List.of(new Ingredient("Tomatoes", 3, "pcs")));
+        mealPlanService.personChanged(1L);
 
-        MealPlanEntry entry1 = new MealPlanEntry();
-        entry1.setMeal(meal1);
-        MealPlanEntry entry2 = new MealPlanEntry();
-        entry2.setMeal(meal2);
-        samplePlan.getEntries().addAll(List.of(entry1, entry2));
+        verify(eventPublisher).publishEvent(new MealPlanChangedEvent(1L, LocalDate.of(2025, 2, 8), 2));
+    }
 
+    @Test
+    void updateDayNotes_handlesNullNotes() {
+        samplePlan.getDayNotes().put("MONDAY", "Old note");
         when(mealPlanRepository.findById(1L)).thenReturn(Optional.of(samplePlan));
+        when(mealPlanRepository.save(any(MealPlan.class))).thenReturn(samplePlan);
 
-        List<ShoppingItem> result = mealPlanService.generateShoppingList(1L);
+        mealPlanService.updateDayNotes(1L, null);
 
-        // "Tomato" and "Tomatoes" should be combined
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getTotalQuantity()).isEqualTo(5.0);
+        // dayNotes should remain unchanged when null is passed
+        assertThat(samplePlan.getDayNotes()).containsEntry("MONDAY", "Old note");
     }
 }
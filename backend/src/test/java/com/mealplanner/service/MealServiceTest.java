@@ -15,6 +15,8 @@ import java.util.*;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SuppressWarnings("null")
@@ -24,6 +26,15 @@ class MealServiceTest {
     @Mock
     private MealRepository mealRepository;
 
+    @Mock
+    private IngredientCatalog catalog;
+
+    @Mock
+    private IngredientTotals ingredientTotals;
+
+    @Mock
+    private MealPlanService mealPlanService;
+
     @InjectMocks
     private MealService mealService;
 
@@ -102,6 +113,7 @@ class MealServiceTest {
         Meal result = mealService.create(sampleMeal);
 
         assertThat(result.getId()).isEqualTo(1L);
+        verify(catalog).resolve(sampleMeal.getIngredients());
         verify(mealRepository).save(sampleMeal);
     }
 
@@ -127,7 +139,12 @@ class MealServiceTest {
         assertThat(sampleMeal.getCookTimeMinutes()).isEqualTo(40);
         assertThat(sampleMeal.getEffort()).isEqualTo(Effort.HARD);
         assertThat(sampleMeal.getImageUrl()).isEqualTo("http://example.com/img.jpg");
+        verify(catalog).resolve(updated.getIngredients());
         verify(mealRepository).save(sampleMeal);
+        verify(mealPlanService).mealChanged(1L);
+        verify(ingredientTotals).replaceIngredients(eq(1L),
+                argThat(before -> before.size() == 2 && before.get(0).getName().equals("Spaghetti")),
+                eq(updated.getIngredients()));
     }
 
     @Test
@@ -176,6 +193,7 @@ class MealServiceTest {
         assertThat(result.get("imported")).isEqualTo(0);
         assertThat(result.get("skipped")).isEqualTo(1);
         verify(mealRepository, never()).save(any());
+        verifyNoInteractions(catalog);
     }
 
     @Test
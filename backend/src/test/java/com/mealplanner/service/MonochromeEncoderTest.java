@@ -0,0 +1,146 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MonochromeEncoderTest {
+
+    private static BufferedImage sampleImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width / 2, 3);
+        g.drawLine(0, 0, width - 1, height - 1);
+        g.drawString("Meal", 5, height - 5);
+        g.dispose();
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertThat(actual.getRGB(x, y) & 0xFFFFFF)
+                        .as("pixel (%d, %d)", x, y)
+                        .isEqualTo(expected.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    @Test
+    void bmp_roundTripsThroughImageIO() throws IOException {
+        BufferedImage image = sampleImage(800, 480);
+
+        byte[] bmp = new MonochromeBmpEncoder().encode(image);
+
+        assertThat(bmp).hasSize(62 + 100 * 480);
+        BufferedImage parsed = ImageIO.read(new ByteArrayInputStream(bmp));
+        assertThat(parsed.getColorModel().getPixelSize()).isEqualTo(1);
+        assertSamePixels(image, parsed);
+    }
+
+    @Test
+    void bmp_padsRowsToFourBytes() throws IOException {
+        BufferedImage image = sampleImage(61, 17);
+
+        byte[] bmp = new MonochromeBmpEncoder().encode(image);
+
+        assertThat(bmp).hasSize(62 + 8 * 17);
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(bmp)));
+    }
+
+    @Test
+    void png_roundTripsThroughImageIO() throws IOException {
+        BufferedImage image = sampleImage(800, 480);
+
+        byte[] png = new MonochromePngEncoder().encode(image);
+
+        BufferedImage parsed = ImageIO.read(new ByteArrayInputStream(png));
+        assertThat(parsed.getColorModel().getPixelSize()).isEqualTo(1);
+        assertSamePixels(image, parsed);
+    }
+
+    @Test
+    void png_encoderCanBeReusedAcrossSizes() throws IOException {
+        MonochromePngEncoder encoder = new MonochromePngEncoder();
+        BufferedImage small = sampleImage(61, 17);
+        BufferedImage large = sampleImage(800, 480);
+
+        byte[] first = encoder.encode(small);
+        encoder.encode(large);
+        byte[] again = encoder.encode(small);
+
+        assertThat(again).isEqualTo(first);
+        assertSamePixels(large, ImageIO.read(new ByteArrayInputStream(encoder.encode(large))));
+    }
+
+    @Test
+    void png_growsOutputForIncompressibleData() throws IOException {
+        BufferedImage noise = new BufferedImage(256, 256, BufferedImage.TYPE_BYTE_BINARY);
+        java.util.Random random = new java.util.Random(42);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                noise.setRGB(x, y, random.nextBoolean() ? 0xFFFFFF : 0);
+            }
+        }
+
+        byte[] png = new MonochromePngEncoder(java.util.zip.Deflater.NO_COMPRESSION).encode(noise);
+
+        assertSamePixels(noise, ImageIO.read(new ByteArrayInputStream(png)));
+    }
+
+    @Test
+    void encoders_rejectNonBinaryImages() {
+        BufferedImage rgb = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+
+        assertThatThrownBy(() -> new MonochromePngEncoder().encode(rgb))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MonochromeBmpEncoder().encode(rgb))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void grayscale_roundTripsThroughImageIO() throws IOException {
+        // 2- and 4-bit levels, odd width so the last byte of each row is partly padding
+        for (int bitDepth : new int[]{2, 4}) {
+            int width = 37;
+            int height = 5;
+            int max = (1 << bitDepth) - 1;
+            int stride = (width * bitDepth + 7) / 8;
+            byte[] packed = new byte[stride * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int bit = x * bitDepth;
+                    packed[y * stride + bit / 8] |= (byte) (((x + y) % (max + 1)) << (8 - bitDepth - bit % 8));
+                }
+            }
+
+            byte[] png = new MonochromePngEncoder().encode(packed, width, height, stride, bitDepth);
+            byte[] bmp = new MonochromeBmpEncoder().encode(packed, width, height, stride, bitDepth);
+
+            for (byte[] encoded : new byte[][]{png, bmp}) {
+                BufferedImage parsed = ImageIO.read(new ByteArrayInputStream(encoded));
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        int grey = ((x + y) % (max + 1)) * 255 / max;
+                        assertThat(parsed.getRGB(x, y) & 0xFF).as("%d-bit pixel (%d, %d)", bitDepth, x, y)
+                                .isEqualTo(grey);
+                    }
+                }
+            }
+        }
+        assertThatThrownBy(() -> new MonochromeBmpEncoder().encode(new byte[8], 8, 1, 8, 8))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
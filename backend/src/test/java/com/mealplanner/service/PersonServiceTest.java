@@ -24,6 +24,9 @@ class PersonServiceTest {
     @Mock
     private PersonRepository personRepository;
 
+    @Mock
+    private MealPlanService mealPlanService;
+
     @InjectMocks
     private PersonService personService;
 
@@ -102,6 +105,7 @@ class PersonServiceTest {
         assertThat(samplePerson.getEatingPreferences()).isEqualTo("No restrictions");
         assertThat(samplePerson.getCookingPreferences()).isEqualTo("BBQ expert");
         verify(personRepository).save(samplePerson);
+        verify(mealPlanService).personChanged(1L);
     }
 
     @Test
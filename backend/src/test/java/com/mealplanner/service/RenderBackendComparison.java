@@ -0,0 +1,83 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the AWT and bitmap render backends: time to the first frame in a fresh JVM
+ * (font loading and Java2D start-up included), then steady-state latency and allocation per frame.
+ * Run once per backend, each in its own JVM so start-up is measured cold:
+ * <pre>java -cp target/classes:target/test-classes com.mealplanner.service.RenderBackendComparison AWT</pre>
+ * A profile key instead of a backend name measures that profile; for greyscale profiles the frame
+ * is the dithered raster at the panel's depth, e.g. {@code 800x480-two_day-gray4-diffusion}.
+ */
+public class RenderBackendComparison {
+
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "BITMAP";
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        RenderProfile profile = name.contains("x")
+                ? RenderProfile.parse(name)
+                : new RenderProfile(800, 480, DisplayLayout.TWO_DAY, RenderBackend.valueOf(name));
+        TrmnlDisplayService service = new TrmnlDisplayService(null, null, new TrmnlFrameCache(0), null,
+                new TrmnlFrameStore("unused", 0, false), null, true);
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        List<MealPlanEntry> todayEntries = entries(4);
+        List<MealPlanEntry> tomorrowEntries = entries(3);
+
+        long start = System.nanoTime();
+        render(service, profile, today, todayEntries, tomorrowEntries);
+        long firstFrame = System.nanoTime() - start;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < frames; i++) {
+            render(service, profile, today, todayEntries, tomorrowEntries);
+        }
+        long[] times = new long[frames];
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            long t = System.nanoTime();
+            render(service, profile, today, todayEntries, tomorrowEntries);
+            times[i] = System.nanoTime() - t;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(times);
+
+        System.out.printf("%s: first frame %.1f ms, median %.3f ms, p99 %.3f ms, %d bytes allocated per frame%n",
+                name, firstFrame / 1e6, times[frames / 2] / 1e6, times[frames * 99 / 100] / 1e6,
+                allocated / frames);
+    }
+
+    private static Object render(TrmnlDisplayService service, RenderProfile profile, LocalDate today,
+                                 List<MealPlanEntry> todayEntries, List<MealPlanEntry> tomorrowEntries) {
+        if (!profile.isGrayscale()) {
+            return service.renderRaster(profile, today, todayEntries, "Buy extra cheese", today.plusDays(1),
+                    tomorrowEntries, null);
+        }
+        GrayscaleRaster gray = service.renderGrayscale(profile, today, todayEntries, "Buy extra cheese",
+                today.plusDays(1), tomorrowEntries, null);
+        return GrayscaleDither.dither(gray, profile.bitDepth(), profile.dither());
+    }
+
+    private static List<MealPlanEntry> entries(int count) {
+        List<MealPlanEntry> entries = new ArrayList<>();
+        MealType[] types = MealType.values();
+        for (int i = 0; i < count; i++) {
+            Meal meal = new Meal();
+            meal.setTitle("Slow-cooked beef and ale stew with dumplings " + i);
+            Person cook = new Person();
+            cook.setName("Alex");
+            MealPlanEntry entry = new MealPlanEntry();
+            entry.setMeal(meal);
+            entry.setAssignedCook(cook);
+            entry.setMealType(types[i % types.length]);
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.DisplayLayout;
+import com.mealplanner.model.DitherMode;
+import com.mealplanner.model.RenderBackend;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderProfileTest {
+
+    @Test
+    void key_roundTripsThroughParse() {
+        RenderProfile profile = new RenderProfile(1872, 1404, DisplayLayout.TODAY);
+        assertEquals("1872x1404-today", profile.key());
+        assertEquals(profile, RenderProfile.parse(profile.key()));
+        assertEquals(RenderProfile.DEFAULT, RenderProfile.parse("800x480-two_day"));
+    }
+
+    @Test
+    void key_namesTheBackendOnlyWhenItIsNotAwt() {
+        RenderProfile bitmap = new RenderProfile(800, 480, DisplayLayout.TWO_DAY, RenderBackend.BITMAP);
+        assertEquals("800x480-two_day-bitmap", bitmap.key());
+        assertEquals(bitmap, RenderProfile.parse(bitmap.key()));
+        assertEquals(RenderBackend.AWT, RenderProfile.DEFAULT.backend());
+        assertThrows(IllegalArgumentException.class, () -> RenderProfile.parse("800x480-today-vector"));
+    }
+
+    @Test
+    void key_namesBitDepthAndDitherForGrayscale() {
+        RenderProfile gray = new RenderProfile(800, 480, DisplayLayout.TODAY, RenderBackend.BITMAP, 4,
+                DitherMode.DIFFUSION);
+        assertEquals("800x480-today-bitmap-gray4-diffusion", gray.key());
+        assertEquals(gray, RenderProfile.parse(gray.key()));
+        assertEquals(DitherMode.ORDERED, new RenderProfile(800, 480, DisplayLayout.TODAY, RenderBackend.AWT, 2, null).dither());
+        assertNull(RenderProfile.DEFAULT.dither());
+        assertThrows(IllegalArgumentException.class,
+                () -> new RenderProfile(800, 480, DisplayLayout.TODAY, RenderBackend.AWT, 3, null));
+    }
+
+    @Test
+    void parse_rejectsMalformedKeys() {
+        assertThrows(IllegalArgumentException.class, () -> RenderProfile.parse("800x480"));
+        assertThrows(IllegalArgumentException.class, () -> RenderProfile.parse("axb-today"));
+        assertThrows(IllegalArgumentException.class, () -> RenderProfile.parse("800x480-sideways"));
+    }
+
+    @Test
+    void constructor_rejectsUnsupportedSizesAndDefaultsLayout() {
+        assertThrows(IllegalArgumentException.class, () -> new RenderProfile(0, 480, DisplayLayout.TWO_DAY));
+        assertThrows(IllegalArgumentException.class, () -> new RenderProfile(800, 100_000, DisplayLayout.TWO_DAY));
+        assertEquals(DisplayLayout.TWO_DAY, new RenderProfile(800, 480, null).layout());
+    }
+}
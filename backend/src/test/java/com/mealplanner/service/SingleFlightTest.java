@@ -0,0 +1,83 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    @Test
+    void execute_sharesOneLoadBetweenConcurrentCallers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("k", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                return "frame";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> a = pool.submit(() -> flight.execute("k", () -> "other"));
+            Future<String> b = pool.submit(() -> flight.execute("k", () -> "other"));
+            while (flight.getCoalesced() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals("frame", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("frame", a.get(5, TimeUnit.SECONDS));
+            assertEquals("frame", b.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getExecuted());
+        assertEquals(2, flight.getCoalesced());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    void execute_runsAgainOnceTheCallHasCompleted() throws IOException {
+        assertEquals("a", flight.execute("k", () -> "a"));
+        assertEquals("b", flight.execute("k", () -> "b"));
+        assertEquals(2, flight.getExecuted());
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    @Test
+    void execute_doesNotCoalesceDifferentKeys() throws IOException {
+        assertEquals("a", flight.execute("k1", () -> "a"));
+        assertEquals("b", flight.execute("k2", () -> "b"));
+        assertEquals(2, flight.getExecuted());
+    }
+
+    @Test
+    void execute_propagatesFailureAndForgetsTheCall() throws IOException {
+        IOException failure = new IOException("render failed");
+        IOException thrown = assertThrows(IOException.class, () -> flight.execute("k", () -> {
+            throw failure;
+        }));
+        assertSame(failure, thrown);
+        assertEquals(0, flight.inFlightCount());
+        assertEquals("ok", flight.execute("k", () -> "ok"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryRingTest {
+
+    @Test
+    void drainTo_returnsEventsInOrderOnce() {
+        TelemetryRing<Integer> ring = new TelemetryRing<>(6);
+        assertEquals(8, ring.capacity());
+        for (int i = 0; i < 5; i++) {
+            ring.add(i);
+        }
+        List<Integer> out = new ArrayList<>();
+
+        assertEquals(3, ring.drainTo(out, 3));
+        assertEquals(2, ring.drainTo(out, 10));
+        assertEquals(0, ring.drainTo(out, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), out);
+        assertEquals(0, ring.lost());
+    }
+
+    @Test
+    void drainTo_skipsAndCountsOverwrittenEvents() {
+        TelemetryRing<Integer> ring = new TelemetryRing<>(4);
+        for (int i = 0; i < 10; i++) {
+            ring.add(i);
+        }
+        List<Integer> out = new ArrayList<>();
+
+        ring.drainTo(out, 100);
+
+        assertEquals(List.of(6, 7, 8, 9), out);
+        assertEquals(6, ring.lost());
+    }
+
+    @Test
+    void recent_returnsNewestFirstWithoutDraining() {
+        TelemetryRing<Integer> ring = new TelemetryRing<>(4);
+        for (int i = 0; i < 6; i++) {
+            ring.add(i);
+        }
+
+        assertEquals(List.of(5, 4), ring.recent(2));
+        assertEquals(List.of(5, 4, 3, 2), ring.recent(100));
+        List<Integer> out = new ArrayList<>();
+        ring.drainTo(out, 100);
+        assertEquals(List.of(2, 3, 4, 5), out);
+    }
+
+    @Test
+    void add_fromManyThreadsLosesNothingThatFits() throws InterruptedException {
+        TelemetryRing<Integer> ring = new TelemetryRing<>(1 << 14);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 4; t++) {
+            int base = t * 4000;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 4000; i++) {
+                    ring.add(base + i);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Integer> out = new ArrayList<>();
+        ring.drainTo(out, Integer.MAX_VALUE);
+        assertEquals(16000, out.size());
+        assertEquals(16000, new HashSet<>(out).size());
+    }
+}
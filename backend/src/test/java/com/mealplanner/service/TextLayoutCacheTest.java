@@ -0,0 +1,81 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextLayoutCacheTest {
+
+    private final TextLayoutCache cache = new TextLayoutCache();
+
+    @Test
+    void font_isDerivedOnce() {
+        Font a = cache.font(Font.BOLD, 20);
+        assertSame(a, cache.font(Font.BOLD, 20));
+        assertEquals(20, a.getSize());
+        assertTrue(a.isBold());
+        assertNotSame(a, cache.font(Font.PLAIN, 20));
+    }
+
+    @Test
+    void stringWidth_matchesFontMetrics() {
+        Font font = cache.font(Font.PLAIN, 16);
+        FontMetrics fm = metrics(font);
+        for (String text : new String[]{"", "Spaghetti Bolognese", "• Chilli con carne (Tom)", "WWWWiiii"}) {
+            assertEquals(fm.stringWidth(text), cache.stringWidth(text, font), text);
+        }
+    }
+
+    @Test
+    void truncate_matchesCharByCharLoop() {
+        Font font = cache.font(Font.PLAIN, 16);
+        FontMetrics fm = metrics(font);
+        String text = "• Slow-cooked lamb shoulder with rosemary potatoes (Alice)";
+        for (int maxWidth = 10; maxWidth <= 500; maxWidth += 7) {
+            assertEquals(naiveTruncate(fm, text, maxWidth), cache.truncate(text, font, maxWidth), "width " + maxWidth);
+        }
+    }
+
+    @Test
+    void truncate_keepsShortText() {
+        Font font = cache.font(Font.ITALIC, 13);
+        assertEquals("Note: pasta", cache.truncate("Note: pasta", font, 300));
+    }
+
+    @Test
+    void truncate_keepsAtLeastOneCharacter() {
+        assertEquals("S…", cache.truncate("Soup", cache.font(Font.PLAIN, 16), 1));
+    }
+
+    @Test
+    void truncate_boundsMemoisedLines() {
+        TextLayoutCache small = new TextLayoutCache(2);
+        Font font = small.font(Font.PLAIN, 16);
+        small.truncate("a", font, 100);
+        small.truncate("b", font, 100);
+        small.truncate("c", font, 100);
+        assertEquals(2, small.cachedLineCount());
+    }
+
+    private static FontMetrics metrics(Font font) {
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_BINARY).createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(font);
+        FontMetrics fm = g.getFontMetrics();
+        g.dispose();
+        return fm;
+    }
+
+    private static String naiveTruncate(FontMetrics fm, String text, int maxWidth) {
+        if (fm.stringWidth(text) <= maxWidth) {
+            return text;
+        }
+        while (fm.stringWidth(text + "…") > maxWidth && text.length() > 1) {
+            text = text.substring(0, text.length() - 1);
+        }
+        return text + "…";
+    }
+}
@@ -0,0 +1,79 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrmnlAdmissionTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_admitsABurstThenRefillsAtTheConfiguredRate() {
+        // 6 a minute: one token every 10 seconds, up to 3 at once
+        TrmnlAdmission admission = new TrmnlAdmission(true, 6, 3, 64, 2, 30, 0);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, admission.tryAcquire("a", now));
+        assertEquals(0, admission.tryAcquire("a", now));
+        assertEquals(0, admission.tryAcquire("a", now));
+        assertEquals(10 * SECOND, admission.tryAcquire("a", now));
+        assertEquals(4 * SECOND, admission.tryAcquire("a", now + 6 * SECOND));
+
+        assertEquals(0, admission.tryAcquire("a", now + 10 * SECOND));
+        assertTrue(admission.tryAcquire("a", now + 10 * SECOND) > 0);
+        assertEquals(3, admission.getThrottled());
+
+        // A long idle spell refills the bucket only up to the burst
+        long later = now + 600 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, admission.tryAcquire("a", later));
+        }
+        assertTrue(admission.tryAcquire("a", later) > 0);
+    }
+
+    @Test
+    void tryAcquire_keepsDevicesApart() {
+        TrmnlAdmission admission = new TrmnlAdmission(true, 6, 1, 4096, 2, 30, 0);
+        long now = -5 * SECOND; // nanoTime can be negative
+
+        assertEquals(0, admission.tryAcquire("AA:BB:CC:DD:EE:01", now));
+        assertTrue(admission.tryAcquire("AA:BB:CC:DD:EE:01", now) > 0);
+        assertEquals(0, admission.tryAcquire("AA:BB:CC:DD:EE:02", now));
+    }
+
+    @Test
+    void retryAfterSeconds_coversTheWaitAndAddsJitter() {
+        TrmnlAdmission admission = new TrmnlAdmission(true, 6, 1, 64, 2, 30, 20);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(admission.retryAfterSeconds(0) >= 30 && admission.retryAfterSeconds(0) <= 50);
+            int retry = admission.retryAfterSeconds(90 * SECOND + 1);
+            assertTrue(retry >= 91 && retry <= 111, "retry " + retry);
+        }
+    }
+
+    @Test
+    void tryStartRender_limitsConcurrentRenders() {
+        TrmnlAdmission admission = new TrmnlAdmission(true, 6, 1, 64, 2, 30, 0);
+
+        assertTrue(admission.tryStartRender());
+        assertTrue(admission.tryStartRender());
+        assertFalse(admission.tryStartRender());
+        admission.endRender();
+        assertTrue(admission.tryStartRender());
+        assertEquals(1, admission.getRendersRefused());
+    }
+
+    @Test
+    void disabled_admitsEverything() {
+        TrmnlAdmission admission = new TrmnlAdmission(false, 1, 1, 64, 1, 30, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, admission.tryAcquire("a", 0));
+            assertTrue(admission.tryStartRender());
+        }
+    }
+}
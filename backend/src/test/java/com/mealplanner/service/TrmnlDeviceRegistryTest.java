@@ -0,0 +1,197 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.DisplayLayout;
+import com.mealplanner.model.DitherMode;
+import com.mealplanner.model.RenderBackend;
+import com.mealplanner.model.TrmnlDevice;
+import com.mealplanner.repository.TrmnlDeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"null", "unchecked"})
+@ExtendWith(MockitoExtension.class)
+class TrmnlDeviceRegistryTest {
+
+    private static final String MAC = "AA:BB:CC:DD:EE:FF";
+
+    @Mock
+    private TrmnlDeviceRepository deviceRepository;
+
+    private TrmnlDeviceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TrmnlDeviceRegistry(deviceRepository, 4);
+    }
+
+    private static TrmnlDevice changes(DisplayLayout layout, RenderBackend backend, String timezone) {
+        TrmnlDevice changes = new TrmnlDevice();
+        changes.setLayout(layout);
+        changes.setRenderBackend(backend);
+        changes.setTimezone(timezone);
+        return changes;
+    }
+
+    @Test
+    void recordPoll_registersDeviceWithDefaultProfile() {
+        TrmnlDeviceRegistry.Device device = registry.recordPoll(MAC, "1.5.2", null, null);
+
+        assertEquals(MAC, device.getDeviceId());
+        assertEquals(RenderProfile.DEFAULT, device.getProfile());
+        assertEquals(1, device.getPollCount());
+        assertEquals(TrmnlDeviceRegistry.friendlyIdFor(MAC), device.getFriendlyId());
+        assertEquals(6, device.getFriendlyId().length());
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    void recordPoll_tracksPollsFirmwareAndResolution() {
+        registry.recordPoll(MAC, "1.5.2", null, null);
+        TrmnlDeviceRegistry.Device device = registry.recordPoll(MAC, "1.6.0", 1872, 1404);
+
+        assertEquals(2, device.getPollCount());
+        assertEquals(new RenderProfile(1872, 1404, DisplayLayout.TWO_DAY), device.getProfile());
+        TrmnlDevice entity = registry.findAll().get(0);
+        assertEquals("1.6.0", entity.getFirmwareVersion());
+        assertNotNull(entity.getLastSeen());
+    }
+
+    @Test
+    void recordPoll_stopsRegisteringNewDevicesOnceFull() {
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(registry.recordPoll("device-" + i, null, null, null));
+        }
+
+        assertNull(registry.recordPoll("made-up", null, null, null));
+        // Devices already registered keep being recorded
+        assertEquals(2, registry.recordPoll("device-0", null, null, null).getPollCount());
+        assertEquals(4, registry.findAll().size());
+        assertEquals(1, registry.getRefused());
+    }
+
+    @Test
+    void recordPoll_ignoresUnsupportedResolution() {
+        TrmnlDeviceRegistry.Device device = registry.recordPoll(MAC, null, 5, 5);
+
+        assertEquals(RenderProfile.DEFAULT, device.getProfile());
+    }
+
+    @Test
+    void flush_savesOnlyDevicesChangedSinceLastFlush() {
+        registry.recordPoll(MAC, "1.5.2", null, null);
+
+        registry.flush();
+        registry.flush();
+
+        ArgumentCaptor<List<TrmnlDevice>> saved = ArgumentCaptor.forClass(List.class);
+        verify(deviceRepository, times(1)).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(1, saved.getValue().get(0).getPollCount());
+    }
+
+    @Test
+    void flush_retriesAfterAFailedSave() {
+        TrmnlDeviceRegistry.Device device = registry.recordPoll(MAC, null, null, null);
+        when(deviceRepository.saveAll(anyList())).thenThrow(new RuntimeException("database down"));
+
+        registry.flush();
+
+        assertTrue(device.isDirty());
+    }
+
+    @Test
+    void load_restoresPersistedDevices() {
+        TrmnlDevice entity = new TrmnlDevice();
+        entity.setDeviceId(MAC);
+        entity.setFriendlyId("ABC123");
+        entity.setWidth(400);
+        entity.setHeight(300);
+        entity.setLayout(DisplayLayout.TODAY);
+        entity.setTimezone("Australia/Sydney");
+        entity.setFirstSeen(Instant.parse("2026-01-01T00:00:00Z"));
+        entity.setPollCount(41);
+        when(deviceRepository.findAll()).thenReturn(List.of(entity));
+
+        registry.load();
+        TrmnlDeviceRegistry.Device device = registry.recordPoll(MAC, null, null, null);
+
+        assertEquals("ABC123", device.getFriendlyId());
+        assertEquals(42, device.getPollCount());
+        assertEquals(new RenderProfile(400, 300, DisplayLayout.TODAY), device.getProfile());
+        assertEquals(ZoneId.of("Australia/Sydney"), device.getTimezone());
+    }
+
+    @Test
+    void updateProfile_changesLayoutAndTimezone() {
+        registry.recordPoll(MAC, null, null, null);
+        registry.flush();
+
+        TrmnlDevice updated = registry.updateProfile(MAC, changes(DisplayLayout.TODAY, null, "Europe/Paris"));
+
+        assertEquals(DisplayLayout.TODAY, updated.getLayout());
+        assertEquals("Europe/Paris", updated.getTimezone());
+        assertEquals(ZoneId.of("Europe/Paris"), registry.find(MAC).orElseThrow().getTimezone());
+        assertTrue(registry.find(MAC).orElseThrow().isDirty());
+    }
+
+    @Test
+    void updateProfile_switchesRenderBackendAndKeepsItAcrossPolls() {
+        registry.recordPoll(MAC, null, 800, 480);
+
+        TrmnlDevice updated = registry.updateProfile(MAC, changes(null, RenderBackend.BITMAP, null));
+        TrmnlDeviceRegistry.Device device = registry.recordPoll(MAC, null, 400, 300);
+
+        assertEquals(RenderBackend.BITMAP, updated.getRenderBackend());
+        assertEquals(DisplayLayout.TWO_DAY, updated.getLayout());
+        assertEquals(new RenderProfile(400, 300, DisplayLayout.TWO_DAY, RenderBackend.BITMAP), device.getProfile());
+        assertEquals(RenderBackend.BITMAP, TrmnlDeviceRegistry.Device.from(device.toEntity()).getProfile().backend());
+    }
+
+    @Test
+    void updateProfile_setsGrayscaleDepthAndDither() {
+        registry.recordPoll(MAC, null, 800, 480);
+        TrmnlDevice gray = changes(null, null, null);
+        gray.setBitDepth(4);
+        gray.setDither(DitherMode.DIFFUSION);
+
+        TrmnlDevice updated = registry.updateProfile(MAC, gray);
+        RenderProfile profile = TrmnlDeviceRegistry.Device.from(updated).getProfile();
+
+        assertEquals(4, updated.getBitDepth());
+        assertEquals(DitherMode.DIFFUSION, updated.getDither());
+        assertEquals(new RenderProfile(800, 480, DisplayLayout.TWO_DAY, RenderBackend.AWT, 4, DitherMode.DIFFUSION),
+                profile);
+        assertThrows(IllegalArgumentException.class, () -> {
+            TrmnlDevice invalid = changes(null, null, null);
+            invalid.setBitDepth(3);
+            registry.updateProfile(MAC, invalid);
+        });
+    }
+
+    @Test
+    void updateProfile_throwsForUnknownDevice() {
+        assertThrows(RuntimeException.class,
+                () -> registry.updateProfile(MAC, changes(DisplayLayout.TODAY, null, null)));
+    }
+
+    @Test
+    void activeProfiles_isDistinct() {
+        registry.recordPoll("A", null, null, null);
+        registry.recordPoll("B", null, null, null);
+        registry.recordPoll("C", null, 400, 300);
+
+        assertEquals(2, registry.activeProfiles().size());
+    }
+}
@@ -1,24 +1,36 @@
 package com.mealplanner.service;
 
+import com.mealplanner.dto.DayNote;
+import com.mealplanner.dto.PlanVersion;
 import com.mealplanner.model.*;
+import com.mealplanner.repository.MealPlanEntryRepository;
 import com.mealplanner.repository.MealPlanRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,13 +39,29 @@ class TrmnlDisplayServiceTest {
     @Mock
     private MealPlanRepository mealPlanRepository;
 
-    @InjectMocks
+    @Mock
+    private MealPlanEntryRepository entryRepository;
+
+    private TrmnlFrameCache frameCache;
+    private MealPlanVersionIndex versionIndex;
+    private TrmnlRenderExecutor renderExecutor;
     private TrmnlDisplayService displayService;
 
     private MealPlan testPlan;
 
+    @AfterEach
+    void tearDown() {
+        renderExecutor.shutdown();
+    }
+
     @BeforeEach
     void setUp() {
+        frameCache = new TrmnlFrameCache(16);
+        versionIndex = new MealPlanVersionIndex(mealPlanRepository);
+        renderExecutor = new TrmnlRenderExecutor(2, 16, 5000);
+        displayService = new TrmnlDisplayService(mealPlanRepository, entryRepository, frameCache, versionIndex,
+                new TrmnlFrameStore("unused", 0, false), renderExecutor, false);
+
         testPlan = new MealPlan();
         testPlan.setId(1L);
         // Week starting Saturday 2026-02-14
@@ -51,7 +79,7 @@ class TrmnlDisplayServiceTest {
         entry.setId(1L);
         entry.setMealPlan(testPlan);
         entry.setMeal(dinner);
-        entry.setDayOfWeek("SATURDAY");
+        entry.setDayOfWeek(DayOfWeek.SATURDAY);
         entry.setMealType(MealType.DINNER);
         entry.setAssignedCook(cook);
         entry.setDisplayOrder(0);
@@ -64,8 +92,7 @@ class TrmnlDisplayServiceTest {
         LocalDate today = LocalDate.of(2026, 2, 14); // Saturday
         LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
 
-        when(mealPlanRepository.findByWeekStartDate(weekStart))
-                .thenReturn(Optional.of(testPlan));
+        givenPlans(testPlan);
 
         byte[] image = displayService.renderDisplayImage(today);
 
@@ -79,11 +106,40 @@ class TrmnlDisplayServiceTest {
         assertEquals(TrmnlDisplayService.HEIGHT, parsed.getHeight());
     }
 
+    @Test
+    void renderDisplayImage_producesValidBmp() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+
+        byte[] image = displayService.renderDisplayImage(today, ImageFormat.BMP);
+
+        assertEquals('B', image[0]);
+        assertEquals('M', image[1]);
+        BufferedImage parsed = ImageIO.read(new ByteArrayInputStream(image));
+        assertNotNull(parsed);
+        assertEquals(TrmnlDisplayService.WIDTH, parsed.getWidth());
+        assertEquals(TrmnlDisplayService.HEIGHT, parsed.getHeight());
+        assertEquals(1, parsed.getColorModel().getPixelSize());
+    }
+
+    @Test
+    void renderDisplayImage_cachesEachFormatSeparately() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+
+        byte[] png = displayService.renderDisplayImage(today, ImageFormat.PNG);
+        byte[] bmp = displayService.renderDisplayImage(today, ImageFormat.BMP);
+
+        assertEquals((byte) 0x89, png[0]);
+        assertEquals('B', bmp[0]);
+        assertEquals(2, frameCache.size());
+    }
+
     @Test
     void renderDisplayImage_handlesNoMealPlan() throws IOException {
         LocalDate today = LocalDate.of(2026, 2, 14);
 
-        when(mealPlanRepository.findByWeekStartDate(any())).thenReturn(Optional.empty());
+        givenPlans();
 
         byte[] image = displayService.renderDisplayImage(today);
 
@@ -101,8 +157,7 @@ class TrmnlDisplayServiceTest {
         LocalDate saturday = LocalDate.of(2026, 2, 14);
         LocalDate weekStart = saturday.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
 
-        when(mealPlanRepository.findByWeekStartDate(weekStart))
-                .thenReturn(Optional.of(testPlan));
+        givenPlans(testPlan);
 
         List<MealPlanEntry> entries = displayService.getEntriesForDate(saturday);
 
@@ -115,8 +170,7 @@ class TrmnlDisplayServiceTest {
         LocalDate sunday = LocalDate.of(2026, 2, 15);
         LocalDate weekStart = sunday.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
 
-        when(mealPlanRepository.findByWeekStartDate(weekStart))
-                .thenReturn(Optional.of(testPlan));
+        givenPlans(testPlan);
 
         List<MealPlanEntry> entries = displayService.getEntriesForDate(sunday);
 
@@ -127,7 +181,7 @@ class TrmnlDisplayServiceTest {
     void getEntriesForDate_returnsEmptyWhenNoPlanExists() {
         LocalDate date = LocalDate.of(2026, 3, 1);
 
-        when(mealPlanRepository.findByWeekStartDate(any())).thenReturn(Optional.empty());
+        givenPlans();
 
         List<MealPlanEntry> entries = displayService.getEntriesForDate(date);
 
@@ -145,7 +199,7 @@ class TrmnlDisplayServiceTest {
         breakfastEntry.setId(2L);
         breakfastEntry.setMealPlan(testPlan);
         breakfastEntry.setMeal(breakfast);
-        breakfastEntry.setDayOfWeek("SATURDAY");
+        breakfastEntry.setDayOfWeek(DayOfWeek.SATURDAY);
         breakfastEntry.setMealType(MealType.BREAKFAST);
         breakfastEntry.setDisplayOrder(0);
 
@@ -157,7 +211,7 @@ class TrmnlDisplayServiceTest {
         lunchEntry.setId(3L);
         lunchEntry.setMealPlan(testPlan);
         lunchEntry.setMeal(lunch);
-        lunchEntry.setDayOfWeek("SATURDAY");
+        lunchEntry.setDayOfWeek(DayOfWeek.SATURDAY);
         lunchEntry.setMealType(MealType.LUNCH);
         lunchEntry.setDisplayOrder(0);
 
@@ -165,8 +219,7 @@ class TrmnlDisplayServiceTest {
         testPlan.getEntries().add(lunchEntry);
 
         LocalDate today = LocalDate.of(2026, 2, 14);
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
+        givenPlans(testPlan);
 
         byte[] image = displayService.renderDisplayImage(today);
 
@@ -181,8 +234,7 @@ class TrmnlDisplayServiceTest {
         testPlan.getDayNotes().put("SATURDAY", "Don't forget the garlic bread!");
 
         LocalDate today = LocalDate.of(2026, 2, 14);
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
+        givenPlans(testPlan);
 
         byte[] image = displayService.renderDisplayImage(today);
 
@@ -201,13 +253,7 @@ class TrmnlDisplayServiceTest {
         nextWeekPlan.setWeekStartDate(saturday);
         nextWeekPlan.setEntries(new ArrayList<>());
 
-        LocalDate fridayWeekStart = friday.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
-        LocalDate saturdayWeekStart = saturday.with(TemporalAdjusters.previousOrSame(DayOfWeek.SATURDAY));
-
-        when(mealPlanRepository.findByWeekStartDate(fridayWeekStart))
-                .thenReturn(Optional.of(testPlan));
-        when(mealPlanRepository.findByWeekStartDate(saturdayWeekStart))
-                .thenReturn(Optional.of(nextWeekPlan));
+        givenPlans(testPlan, nextWeekPlan);
 
         byte[] image = displayService.renderDisplayImage(friday);
 
@@ -215,13 +261,493 @@ class TrmnlDisplayServiceTest {
         assertTrue(image.length > 0);
     }
 
+    @Test
+    void renderDisplayImage_servesRepeatRequestsFromCacheWithoutQueries() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+
+        byte[] first = displayService.renderDisplayImage(today);
+        clearInvocations(mealPlanRepository);
+        clearInvocations(entryRepository);
+        byte[] second = displayService.renderDisplayImage(today);
+
+        assertArrayEquals(first, second);
+        assertNotSame(first, second, "Cached frames should be handed out as copies");
+        assertEquals(1, frameCache.size());
+        verifyNoInteractions(mealPlanRepository, entryRepository);
+    }
+
+    @Test
+    void renderDisplayImage_rendersAgainWhenPlanVersionChanges() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+
+        displayService.renderDisplayImage(today);
+        testPlan.getDayNotes().put("SATURDAY", "Buy extra cheese");
+        bumpVersion(testPlan);
+        displayService.renderDisplayImage(today);
+
+        assertEquals(2, frameCache.size());
+        verify(entryRepository, times(2)).findForDisplayByEntryDateBetween(any(), any());
+    }
+
+    @Test
+    void renderDataUri_encodesTheCachedFrameOnce() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+
+        TrmnlFrame first = displayService.renderDataUri(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+        TrmnlFrame again = displayService.renderDataUri(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        byte[] frame = displayService.renderFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP).data();
+        assertEquals("data:image/bmp;base64," + Base64.getEncoder().encodeToString(frame),
+                new String(first.data(), StandardCharsets.US_ASCII));
+        assertSame(first.data(), again.data());
+        assertEquals(displayService.getContentHash(today), first.contentHash());
+        verify(entryRepository, times(1)).findForDisplayByEntryDateBetween(any(), any());
+    }
+
+    @Test
+    void renderDisplayImage_cachesUnderVersionActuallyRendered() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        // The index still holds version 0 while the loaded plan is already at version 1
+        testPlan.setVersion(1);
+        givenPlans(testPlan);
+
+        String staleHash = displayService.getContentHash(today);
+        displayService.renderDisplayImage(today);
+        versionIndex.onMealPlanChanged(new MealPlanChangedEvent(1L, testPlan.getWeekStartDate(), 1));
+
+        assertNotEquals(staleHash, displayService.getContentHash(today));
+        assertNotNull(frameCache.get(new FrameKey(today, displayService.getContentHash(today),
+                TrmnlDisplayService.DEFAULT_PROFILE, ImageFormat.PNG)));
+    }
+
+    @Test
+    void renderDisplayImage_coalescesConcurrentRendersOfTheSameFrame() throws Exception {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        givenPlans(testPlan);
+        doAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return entriesBetween(inv, testPlan);
+        }).when(entryRepository).findForDisplayByEntryDateBetween(any(), any());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<byte[]> leader = pool.submit(() -> displayService.renderDisplayImage(today, ImageFormat.BMP));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<byte[]> follower = pool.submit(() -> displayService.renderDisplayImage(today, ImageFormat.BMP));
+            while (displayService.getRenderStats().coalesced() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertArrayEquals(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(entryRepository, times(1)).findForDisplayByEntryDateBetween(any(), any());
+        TrmnlRenderStats stats = displayService.getRenderStats();
+        assertEquals(1, stats.renders());
+        assertEquals(1, stats.coalesced());
+    }
+
+    @Test
+    void renderDisplayImage_rendersAtTheProfileResolution() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+        RenderProfile small = new RenderProfile(400, 300, DisplayLayout.TODAY);
+
+        BufferedImage parsed = ImageIO.read(new ByteArrayInputStream(
+                displayService.renderDisplayImage(today, small, ImageFormat.PNG)));
+
+        assertEquals(400, parsed.getWidth());
+        assertEquals(300, parsed.getHeight());
+    }
+
+    @Test
+    void renderDisplayImage_sharesPlanDataButNotFramesAcrossProfiles() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+        RenderProfile small = new RenderProfile(400, 300, DisplayLayout.TODAY);
+
+        DisplaySnapshot snapshot = displayService.loadSnapshot(today);
+        byte[] standard = displayService.renderDisplayImage(snapshot, RenderProfile.DEFAULT, ImageFormat.BMP);
+        byte[] reduced = displayService.renderDisplayImage(snapshot, small, ImageFormat.BMP);
+
+        assertNotEquals(standard.length, reduced.length);
+        assertEquals(2, frameCache.size());
+        verify(entryRepository, times(1)).findForDisplayByEntryDateBetween(any(), any());
+    }
+
+    @Test
+    void getRaster_reusesTheRasterOfTheServedFrame() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+
+        MonochromeRaster first = displayService.getRaster(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+        byte[] frame = displayService.renderDisplayImage(today, ImageFormat.BMP);
+
+        assertSame(first, displayService.getRaster(today, RenderProfile.DEFAULT, ImageFormat.BMP));
+        // Rendering the raster also produced the frame the device is about to fetch
+        assertEquals(1, displayService.getRenderStats().renders());
+        assertArrayEquals(new MonochromeBmpEncoder().encode(first.data(), first.width(), first.height(), first.stride()), frame);
+    }
+
+    @Test
+    void deterministicRender_producesIdenticalBytesForIdenticalContent() throws IOException {
+        TrmnlDisplayService deterministic = new TrmnlDisplayService(mealPlanRepository, entryRepository,
+                new TrmnlFrameCache(0), versionIndex, new TrmnlFrameStore("unused", 0, false), renderExecutor, true);
+        givenPlans(testPlan);
+        DisplaySnapshot snapshot = deterministic.loadSnapshot(LocalDate.of(2026, 2, 14));
+
+        byte[] first = deterministic.renderDisplayImage(snapshot, ImageFormat.PNG);
+        byte[] second = deterministic.renderDisplayImage(snapshot, ImageFormat.PNG);
+
+        assertNotSame(first, second);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void renderDisplayImage_servesStoredFramesAfterARestart(@TempDir Path storeDir) throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        TrmnlFrameStore store = new TrmnlFrameStore(storeDir.toString(), 1 << 20, true);
+        store.open();
+        givenPlans(testPlan);
+        byte[] rendered = new TrmnlDisplayService(mealPlanRepository, entryRepository, new TrmnlFrameCache(16),
+                versionIndex, store, renderExecutor, true)
+                .renderDisplayImage(today, ImageFormat.BMP);
+        clearInvocations(mealPlanRepository);
+        clearInvocations(entryRepository);
+
+        TrmnlFrameStore reopened = new TrmnlFrameStore(storeDir.toString(), 1 << 20, true);
+        reopened.open();
+        TrmnlDisplayService restarted = new TrmnlDisplayService(mealPlanRepository, entryRepository,
+                new TrmnlFrameCache(16), versionIndex, reopened, renderExecutor, true);
+
+        // Stored frames are keyed by content, so the first lookup loads the plan data once
+        assertTrue(restarted.getStoredFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP).isEmpty());
+        assertArrayEquals(rendered, restarted.renderDisplayImage(today, ImageFormat.BMP));
+        assertTrue(restarted.getStoredFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP).isPresent());
+        verify(entryRepository).findForDisplayByEntryDateBetween(any(), any());
+        assertEquals(0, restarted.getRenderStats().renders());
+    }
+
+    @Test
+    void renderDisplayImage_doesNotServeStoredFramesOfADifferentDatabase(@TempDir Path storeDir) throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        TrmnlFrameStore store = new TrmnlFrameStore(storeDir.toString(), 1 << 20, true);
+        store.open();
+        givenPlans(testPlan);
+        byte[] before = new TrmnlDisplayService(mealPlanRepository, entryRepository, new TrmnlFrameCache(16),
+                versionIndex, store, renderExecutor, true)
+                .renderDisplayImage(today, ImageFormat.BMP);
+        // Same plan versions, different meals, as after the database is reset or restored
+        testPlan.getEntries().get(0).getMeal().setTitle("Fish Pie");
+
+        TrmnlFrameStore reopened = new TrmnlFrameStore(storeDir.toString(), 1 << 20, true);
+        reopened.open();
+        TrmnlDisplayService restarted = new TrmnlDisplayService(mealPlanRepository, entryRepository,
+                new TrmnlFrameCache(16), versionIndex, reopened, renderExecutor, true);
+        byte[] after = restarted.renderDisplayImage(today, ImageFormat.BMP);
+
+        assertFalse(Arrays.equals(before, after));
+        assertEquals(1, restarted.getRenderStats().renders());
+        assertEquals(2, reopened.fileCount());
+    }
+
+    @Test
+    void renderFrame_fallsBackToTheLastGoodFrameWhenARenderFails() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+        doAnswer(inv -> entriesBetween(inv, testPlan))
+                .doThrow(new IllegalStateException("database unavailable"))
+                .when(entryRepository).findForDisplayByEntryDateBetween(any(), any());
+        TrmnlFrame good = displayService.renderFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+        bumpVersion(testPlan);
+
+        TrmnlFrame fallback = displayService.renderFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        assertFalse(good.fallback());
+        assertTrue(fallback.fallback());
+        assertEquals(good.contentHash(), fallback.contentHash());
+        assertNotEquals(displayService.getContentHash(today), fallback.contentHash());
+        assertArrayEquals(good.data(), fallback.data());
+        TrmnlRenderStats stats = displayService.getRenderStats();
+        assertEquals(1, stats.failures());
+        assertEquals(1, stats.fallbacks());
+    }
+
+    @Test
+    void renderFrame_fallsBackOnlyToAFrameForTheSameDayOrTheDayBefore() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+        TrmnlFrame yesterday = displayService.renderFrame(today.minusDays(1), RenderProfile.DEFAULT, ImageFormat.BMP);
+        displayService.renderPreviewFrame(LocalDate.of(2020, 1, 1), RenderProfile.DEFAULT, ImageFormat.BMP);
+        doThrow(new IllegalStateException("database unavailable"))
+                .when(entryRepository).findForDisplayByEntryDateBetween(any(), any());
+
+        TrmnlFrame fallback = displayService.renderFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        assertTrue(fallback.fallback());
+        assertArrayEquals(yesterday.data(), fallback.data());
+        assertThrows(IOException.class,
+                () -> displayService.renderFrame(today.plusDays(1), RenderProfile.DEFAULT, ImageFormat.BMP));
+    }
+
+    @Test
+    void renderPreviewFrame_neverBecomesTheFallback() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+        displayService.renderPreviewFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+        bumpVersion(testPlan);
+        doThrow(new IllegalStateException("database unavailable"))
+                .when(entryRepository).findForDisplayByEntryDateBetween(any(), any());
+
+        assertThrows(IOException.class,
+                () -> displayService.renderFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP));
+        assertThrows(IOException.class,
+                () -> displayService.renderPreviewFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP));
+    }
+
+    @Test
+    void renderFrame_fallsBackWhenARenderMissesItsDeadline() throws Exception {
+        TrmnlRenderExecutor impatient = new TrmnlRenderExecutor(1, 4, 50);
+        TrmnlDisplayService service = new TrmnlDisplayService(mealPlanRepository, entryRepository, frameCache,
+                versionIndex, new TrmnlFrameStore("unused", 0, false), impatient, false);
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        CountDownLatch release = new CountDownLatch(1);
+        givenPlans(testPlan);
+        doAnswer(inv -> entriesBetween(inv, testPlan))
+                .doAnswer(inv -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return entriesBetween(inv, testPlan);
+                })
+                .when(entryRepository).findForDisplayByEntryDateBetween(any(), any());
+        try {
+            TrmnlFrame good = service.renderFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+            bumpVersion(testPlan);
+
+            TrmnlFrame fallback = service.renderFrame(today, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+            assertTrue(fallback.fallback());
+            assertSame(good.data(), fallback.data());
+            assertEquals(1, service.getRenderStats().timeouts());
+        } finally {
+            release.countDown();
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    void renderFrame_failsWhenThereIsNoFrameToFallBackOn() {
+        when(entryRepository.findForDisplayByEntryDateBetween(any(), any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        assertThrows(IOException.class,
+                () -> displayService.renderFrame(LocalDate.of(2026, 2, 14), RenderProfile.DEFAULT, ImageFormat.BMP));
+        assertEquals(0, displayService.getRenderStats().fallbacks());
+    }
+
+    @Test
+    void renderDisplayImage_rendersWithTheBitmapBackend() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+        RenderProfile bitmap = new RenderProfile(800, 480, DisplayLayout.TWO_DAY, RenderBackend.BITMAP);
+
+        byte[] frame = displayService.renderDisplayImage(today, bitmap, ImageFormat.PNG);
+
+        BufferedImage parsed = ImageIO.read(new ByteArrayInputStream(frame));
+        assertEquals(800, parsed.getWidth());
+        assertEquals(480, parsed.getHeight());
+        // Title bar is black, and the frame is cached separately from the AWT one
+        assertEquals(0, parsed.getRGB(5, 5) & 0xFFFFFF);
+        assertEquals(1, frameCache.size());
+        assertNull(frameCache.get(new FrameKey(today, displayService.getContentHash(today),
+                TrmnlDisplayService.DEFAULT_PROFILE, ImageFormat.PNG)));
+    }
+
+    @Test
+    void renderRaster_bitmapBackendMatchesAwtWhenFontsAreTheBundledOnes() {
+        assumeTrue(Arrays.asList(GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames())
+                .contains("DejaVu Sans"), "Bundled bitmap fonts were generated from DejaVu Sans");
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        List<MealPlanEntry> entries = testPlan.getEntries();
+        // Without the "Updated" time, which could tick over between the two renders
+        TrmnlDisplayService deterministic = new TrmnlDisplayService(mealPlanRepository, entryRepository, frameCache,
+                versionIndex, new TrmnlFrameStore("unused", 0, false), renderExecutor, true);
+
+        MonochromeRaster awt = deterministic.renderRaster(RenderProfile.DEFAULT,
+                today, entries, "Buy extra cheese", today.plusDays(1), List.of(), null);
+        MonochromeRaster bitmap = deterministic.renderRaster(
+                new RenderProfile(800, 480, DisplayLayout.TWO_DAY, RenderBackend.BITMAP),
+                today, entries, "Buy extra cheese", today.plusDays(1), List.of(), null);
+
+        assertArrayEquals(awt.data(), bitmap.data());
+    }
+
+    @Test
+    void renderDisplayImage_rendersGrayscaleProfilesAtTheirBitDepth() throws IOException {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        givenPlans(testPlan);
+        RenderProfile gray = new RenderProfile(800, 480, DisplayLayout.TWO_DAY, RenderBackend.AWT, 4,
+                DitherMode.ORDERED);
+        // Without the "Updated" time, which could tick over between the two renders
+        TrmnlDisplayService deterministic = new TrmnlDisplayService(mealPlanRepository, entryRepository, frameCache,
+                versionIndex, new TrmnlFrameStore("unused", 0, false), renderExecutor, true);
+
+        byte[] png = deterministic.renderDisplayImage(today, gray, ImageFormat.PNG);
+        byte[] bmp = deterministic.renderDisplayImage(today, gray, ImageFormat.BMP);
+
+        BufferedImage parsedPng = ImageIO.read(new ByteArrayInputStream(png));
+        BufferedImage parsedBmp = ImageIO.read(new ByteArrayInputStream(bmp));
+        assertEquals(4, parsedPng.getColorModel().getPixelSize());
+        assertEquals(0, parsedPng.getRGB(5, 5) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, parsedPng.getRGB(5, 470) & 0xFFFFFF);
+        // Antialiased text edges survive as intermediate greys
+        Set<Integer> greys = new HashSet<>();
+        for (int y = 0; y < 480; y++) {
+            for (int x = 0; x < 800; x++) {
+                int rgb = parsedPng.getRGB(x, y) & 0xFF;
+                greys.add(rgb);
+                assertEquals(rgb, parsedBmp.getRGB(x, y) & 0xFF);
+            }
+        }
+        assertTrue(greys.size() > 2, "expected intermediate greys, got " + greys);
+        // The diff raster is 1-bit whatever the panel depth
+        assertEquals(100, deterministic.getRaster(today, gray, ImageFormat.PNG).stride());
+    }
+
+    /**
+     * Answers the snapshot queries from the given plans, as the database would.
+     */
+    private void givenPlans(MealPlan... plans) {
+        lenient().when(mealPlanRepository.findVersionsByWeekStartDateBetween(any(), any())).thenAnswer(inv ->
+                Arrays.stream(plans)
+                        .filter(plan -> inRange(plan.getWeekStartDate(), inv))
+                        .map(plan -> new PlanVersion(plan.getWeekStartDate(), plan.getVersion()))
+                        .toList());
+        lenient().when(entryRepository.findForDisplayByEntryDateBetween(any(), any())).thenAnswer(inv -> entriesBetween(inv, plans));
+        lenient().when(mealPlanRepository.findNotesByWeekStartDateBetween(any(), any())).thenAnswer(inv ->
+                Arrays.stream(plans)
+                        .filter(plan -> inRange(plan.getWeekStartDate(), inv))
+                        .flatMap(plan -> plan.getDayNotes().entrySet().stream()
+                                .map(note -> new DayNote(plan.getWeekStartDate(), note.getKey(), note.getValue())))
+                        .toList());
+    }
+
+    private static List<MealPlanEntry> entriesBetween(InvocationOnMock inv, MealPlan... plans) {
+        return Arrays.stream(plans)
+                .flatMap(plan -> plan.getEntries().stream())
+                .filter(entry -> inRange(entry.getEntryDate(), inv))
+                .toList();
+    }
+
+    private static boolean inRange(LocalDate date, InvocationOnMock inv) {
+        LocalDate from = inv.getArgument(0);
+        LocalDate to = inv.getArgument(1);
+        return date != null && !date.isBefore(from) && !date.isAfter(to);
+    }
+
+    private void bumpVersion(MealPlan plan) {
+        plan.setVersion(plan.getVersion() + 1);
+        versionIndex.onMealPlanChanged(new MealPlanChangedEvent(plan.getId(), plan.getWeekStartDate(), plan.getVersion()));
+    }
+
+    // --- DisplaySnapshot tests ---
+
+    @Test
+    void loadSnapshot_readsOneRangeOfEachWhenBothDaysShareAWeek() {
+        LocalDate saturday = LocalDate.of(2026, 2, 14);
+        testPlan.setVersion(4);
+        givenPlans(testPlan);
+
+        DisplaySnapshot snapshot = displayService.loadSnapshot(saturday);
+
+        assertEquals(1, snapshot.getEntries(saturday).size());
+        assertTrue(snapshot.getEntries(saturday.plusDays(1)).isEmpty());
+        assertEquals(4, snapshot.getVersion(saturday));
+        verify(mealPlanRepository).findVersionsByWeekStartDateBetween(saturday, saturday);
+        verify(entryRepository).findForDisplayByEntryDateBetween(saturday, saturday.plusDays(1));
+        verify(mealPlanRepository).findNotesByWeekStartDateBetween(saturday, saturday);
+        verify(mealPlanRepository, never()).findByWeekStartDate(any());
+    }
+
+    @Test
+    void loadSnapshot_coversBothWeeksWhenTomorrowStartsANewWeek() {
+        LocalDate friday = LocalDate.of(2026, 2, 20);
+        LocalDate nextSaturday = friday.plusDays(1);
+
+        MealPlan nextWeekPlan = new MealPlan();
+        nextWeekPlan.setWeekStartDate(nextSaturday);
+        nextWeekPlan.setVersion(2);
+        nextWeekPlan.getDayNotes().put("SATURDAY", "Party");
+        MealPlanEntry party = new MealPlanEntry();
+        party.setMealPlan(nextWeekPlan);
+        party.setDayOfWeek(DayOfWeek.SATURDAY);
+        nextWeekPlan.getEntries().add(party);
+
+        givenPlans(testPlan, nextWeekPlan);
+
+        DisplaySnapshot snapshot = displayService.loadSnapshot(friday);
+
+        assertNull(snapshot.getNote(friday));
+        assertEquals("Party", snapshot.getNote(nextSaturday));
+        assertTrue(snapshot.getEntries(friday).isEmpty());
+        assertEquals(List.of(party), snapshot.getEntries(nextSaturday));
+        assertEquals(0, snapshot.getVersion(friday));
+        assertEquals(2, snapshot.getVersion(nextSaturday));
+        verify(entryRepository, times(1)).findForDisplayByEntryDateBetween(friday, nextSaturday);
+    }
+
+    @Test
+    void loadSnapshot_readsVersionsBeforeContent() {
+        givenPlans(testPlan);
+
+        displayService.loadSnapshot(LocalDate.of(2026, 2, 14));
+
+        InOrder order = inOrder(mealPlanRepository, entryRepository);
+        order.verify(mealPlanRepository).findVersionsByWeekStartDateBetween(any(), any());
+        order.verify(entryRepository).findForDisplayByEntryDateBetween(any(), any());
+        order.verify(mealPlanRepository).findNotesByWeekStartDateBetween(any(), any());
+    }
+
+    @Test
+    void loadSnapshot_loadsAWholeWeekInOneRange() {
+        LocalDate weekStart = LocalDate.of(2026, 2, 14);
+        testPlan.getDayNotes().put("THURSDAY", "Leftovers");
+        givenPlans(testPlan);
+
+        DisplaySnapshot week = displayService.loadSnapshot(weekStart.plusDays(3), weekStart, weekStart.plusDays(6));
+
+        assertEquals(1, week.getEntries(weekStart).size());
+        assertEquals("Leftovers", week.getNote(weekStart.plusDays(5)));
+        verify(entryRepository).findForDisplayByEntryDateBetween(weekStart, weekStart.plusDays(6));
+    }
+
+    @Test
+    void getContentHash_snapshotMatchesIndex() {
+        LocalDate friday = LocalDate.of(2026, 2, 20);
+        testPlan.setVersion(3);
+        givenPlans(testPlan);
+        when(mealPlanRepository.findVersionByWeekStartDate(testPlan.getWeekStartDate()))
+                .thenReturn(Optional.of(3L));
+
+        DisplaySnapshot snapshot = displayService.loadSnapshot(friday);
+
+        assertEquals(displayService.getContentHash(friday), displayService.getContentHash(snapshot));
+    }
+
     // --- getContentHash tests ---
 
     @Test
     void getContentHash_returnsDeterministicHash() {
         LocalDate today = LocalDate.of(2026, 2, 14);
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
+        when(mealPlanRepository.findVersionByWeekStartDate(any()))
+                .thenReturn(Optional.of(0L));
 
         String hash1 = displayService.getContentHash(today);
         String hash2 = displayService.getContentHash(today);
@@ -232,62 +758,71 @@ class TrmnlDisplayServiceTest {
     }
 
     @Test
-    void getContentHash_changesWhenMealChanges() {
-        LocalDate today = LocalDate.of(2026, 2, 14);
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
-
-        String hashBefore = displayService.getContentHash(today);
-
-        // Change the meal on the entry
-        Meal newMeal = new Meal();
-        newMeal.setId(99L);
-        newMeal.setTitle("Fish and Chips");
-        testPlan.getEntries().get(0).setMeal(newMeal);
+    void getContentHash_readsEachWeekVersionOnlyOnce() {
+        LocalDate friday = LocalDate.of(2026, 2, 20);
 
-        String hashAfter = displayService.getContentHash(today);
+        displayService.getContentHash(friday);
+        displayService.getContentHash(friday);
+        displayService.getContentHash(friday.minusDays(1));
 
-        assertNotEquals(hashBefore, hashAfter, "Hash should change when meal changes");
+        verify(mealPlanRepository).findVersionByWeekStartDate(LocalDate.of(2026, 2, 14));
+        verify(mealPlanRepository).findVersionByWeekStartDate(LocalDate.of(2026, 2, 21));
+        verify(mealPlanRepository, never()).findByWeekStartDate(any());
     }
 
     @Test
-    void getContentHash_changesWhenCookChanges() {
+    void getContentHash_changesWhenTodaysPlanChanges() {
         LocalDate today = LocalDate.of(2026, 2, 14);
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
 
         String hashBefore = displayService.getContentHash(today);
+        bumpVersion(testPlan);
+        String hashAfter = displayService.getContentHash(today);
 
-        Person newCook = new Person();
-        newCook.setId(42L);
-        newCook.setName("Alice");
-        testPlan.getEntries().get(0).setAssignedCook(newCook);
+        assertNotEquals(hashBefore, hashAfter, "Hash should change when the plan version changes");
+    }
 
-        String hashAfter = displayService.getContentHash(today);
+    @Test
+    void getContentHash_changesWhenTomorrowsPlanChanges() {
+        LocalDate friday = LocalDate.of(2026, 2, 20);
+        MealPlan nextWeekPlan = new MealPlan();
+        nextWeekPlan.setId(2L);
+        nextWeekPlan.setWeekStartDate(friday.plusDays(1));
+
+        String hashBefore = displayService.getContentHash(friday);
+        bumpVersion(nextWeekPlan);
+        String hashAfter = displayService.getContentHash(friday);
 
-        assertNotEquals(hashBefore, hashAfter, "Hash should change when cook changes");
+        assertNotEquals(hashBefore, hashAfter, "Hash should change when tomorrow's week changes");
     }
 
     @Test
-    void getContentHash_changesWhenNoteChanges() {
+    void getContentHash_unchangedByOtherWeeks() {
         LocalDate today = LocalDate.of(2026, 2, 14);
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
+        MealPlan otherPlan = new MealPlan();
+        otherPlan.setId(2L);
+        otherPlan.setWeekStartDate(LocalDate.of(2026, 3, 7));
 
         String hashBefore = displayService.getContentHash(today);
+        bumpVersion(otherPlan);
+        String hashAfter = displayService.getContentHash(today);
 
-        testPlan.getDayNotes().put("SATURDAY", "Buy extra cheese");
+        assertEquals(hashBefore, hashAfter);
+    }
 
-        String hashAfter = displayService.getContentHash(today);
+    @Test
+    void getContentHash_ignoresOutOfOrderEvents() {
+        LocalDate today = LocalDate.of(2026, 2, 14);
+        LocalDate week = testPlan.getWeekStartDate();
+        versionIndex.onMealPlanChanged(new MealPlanChangedEvent(1L, week, 2));
+        String hash = displayService.getContentHash(today);
+
+        versionIndex.onMealPlanChanged(new MealPlanChangedEvent(1L, week, 1));
 
-        assertNotEquals(hashBefore, hashAfter, "Hash should change when note changes");
+        assertEquals(hash, displayService.getContentHash(today), "Versions should never move backwards");
     }
 
     @Test
     void getContentHash_changesForDifferentDates() {
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
-
         String hash1 = displayService.getContentHash(LocalDate.of(2026, 2, 14));
         String hash2 = displayService.getContentHash(LocalDate.of(2026, 2, 15));
 
@@ -296,7 +831,7 @@ class TrmnlDisplayServiceTest {
 
     @Test
     void getContentHash_handlesNoMealPlan() {
-        when(mealPlanRepository.findByWeekStartDate(any()))
+        when(mealPlanRepository.findVersionByWeekStartDate(any()))
                 .thenReturn(Optional.empty());
 
         String hash = displayService.getContentHash(LocalDate.of(2026, 3, 1));
@@ -308,15 +843,14 @@ class TrmnlDisplayServiceTest {
     @Test
     void getContentHash_unchangedWhenIrrelevantFieldChanges() {
         LocalDate today = LocalDate.of(2026, 2, 14);
-        when(mealPlanRepository.findByWeekStartDate(any()))
-                .thenReturn(Optional.of(testPlan));
+        givenPlans(testPlan);
 
-        String hashBefore = displayService.getContentHash(today);
+        String hashBefore = displayService.getContentHash(displayService.loadSnapshot(today));
 
         // Change only the entry's own ID — not part of the hash input
         testPlan.getEntries().get(0).setId(999L);
 
-        String hashAfter = displayService.getContentHash(today);
+        String hashAfter = displayService.getContentHash(displayService.loadSnapshot(today));
 
         assertEquals(hashBefore, hashAfter, "Hash should not change for non-display fields");
     }
@@ -0,0 +1,94 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrmnlFrameCacheTest {
+
+    private static final LocalDate SATURDAY = LocalDate.of(2026, 2, 14);
+
+    private static FrameKey key(LocalDate date, String hash) {
+        return new FrameKey(date, hash, TrmnlDisplayService.DEFAULT_PROFILE, ImageFormat.PNG);
+    }
+
+    @Test
+    void get_returnsNullOnMiss() {
+        TrmnlFrameCache cache = new TrmnlFrameCache(4);
+
+        assertThat(cache.get(key(SATURDAY, "aaaa"))).isNull();
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void get_returnsCopyOfCachedFrame() {
+        TrmnlFrameCache cache = new TrmnlFrameCache(4);
+        byte[] frame = {1, 2, 3};
+        cache.put(key(SATURDAY, "aaaa"), frame);
+        frame[0] = 9;
+
+        byte[] cached = cache.get(key(SATURDAY, "aaaa"));
+        cached[1] = 9;
+
+        assertThat(cache.get(key(SATURDAY, "aaaa"))).containsExactly(1, 2, 3);
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsed() {
+        TrmnlFrameCache cache = new TrmnlFrameCache(2);
+        cache.put(key(SATURDAY, "a"), new byte[]{1});
+        cache.put(key(SATURDAY, "b"), new byte[]{2});
+        cache.get(key(SATURDAY, "a")); // "b" is now least recently used
+        cache.put(key(SATURDAY, "c"), new byte[]{3});
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(key(SATURDAY, "a"))).isNotNull();
+        assertThat(cache.get(key(SATURDAY, "b"))).isNull();
+        assertThat(cache.get(key(SATURDAY, "c"))).isNotNull();
+    }
+
+    @Test
+    void put_isNoOpWhenDisabled() {
+        TrmnlFrameCache cache = new TrmnlFrameCache(0);
+        cache.put(key(SATURDAY, "a"), new byte[]{1});
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void onMealPlanChanged_dropsFramesShowingThatWeek() {
+        TrmnlFrameCache cache = new TrmnlFrameCache(8);
+        cache.put(key(SATURDAY.minusDays(2), "a"), new byte[]{1}); // Thu: shows Thu + Fri only
+        cache.put(key(SATURDAY.minusDays(1), "b"), new byte[]{2}); // Fri: tomorrow is in the week
+        cache.put(key(SATURDAY, "c"), new byte[]{3});
+        cache.put(key(SATURDAY.plusDays(6), "d"), new byte[]{4});   // Fri: last day of the week
+        cache.put(key(SATURDAY.plusDays(7), "e"), new byte[]{5});   // following week
+
+        cache.onMealPlanChanged(new MealPlanChangedEvent(1L, SATURDAY, 1));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(key(SATURDAY.minusDays(2), "a"))).isNotNull();
+        assertThat(cache.get(key(SATURDAY.plusDays(7), "e"))).isNotNull();
+    }
+
+    @Test
+    void getDataUri_encodesOnceAndSharesTheEncoding() {
+        TrmnlFrameCache cache = new TrmnlFrameCache(4);
+        byte[] frame = {(byte) 0x89, 'P', 'N', 'G', 0, -1};
+        cache.put(key(SATURDAY, "a"), frame);
+
+        byte[] dataUri = cache.getDataUri(key(SATURDAY, "a"));
+
+        assertThat(new String(dataUri, StandardCharsets.US_ASCII))
+                .isEqualTo("data:image/png;base64," + Base64.getEncoder().encodeToString(frame));
+        assertThat(cache.getDataUri(key(SATURDAY, "a"))).isSameAs(dataUri);
+        assertThat(cache.getDataUri(key(SATURDAY, "b"))).isNull();
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+}
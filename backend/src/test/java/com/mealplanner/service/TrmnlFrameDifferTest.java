@@ -0,0 +1,106 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrmnlFrameDifferTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 2, 14);
+
+    @Mock
+    private TrmnlDisplayService displayService;
+
+    private static MonochromeRaster frame(int width, int height, Rectangle... blackBoxes) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        for (Rectangle r : blackBoxes) {
+            g.fill(r);
+        }
+        g.dispose();
+        return MonochromeRaster.of(image);
+    }
+
+    @Test
+    void compute_reportsNoChangeForIdenticalFrames() {
+        FrameDiff diff = FrameDiff.compute(frame(800, 480, new Rectangle(10, 10, 5, 5)),
+                frame(800, 480, new Rectangle(10, 10, 5, 5)), 0.5);
+
+        assertEquals(FrameDiff.RefreshType.NONE, diff.refreshType());
+        assertEquals(0.0, diff.dirtyRatio());
+        assertTrue(diff.regions().isEmpty());
+    }
+
+    @Test
+    void compute_marksOnlyTheTileThatChanged() {
+        FrameDiff diff = FrameDiff.compute(frame(800, 480),
+                frame(800, 480, new Rectangle(100, 70, 1, 1)), 0.5);
+
+        assertEquals(FrameDiff.RefreshType.PARTIAL, diff.refreshType());
+        assertEquals(25, diff.columns());
+        assertEquals(15, diff.rows());
+        assertEquals(List.of(new FrameDiff.Region(96, 64, 32, 32)), diff.regions());
+        assertEquals(1.0 / 375, diff.dirtyRatio(), 1e-9);
+    }
+
+    @Test
+    void compute_mergesAdjacentTilesIntoRectangles() {
+        // Spans tile columns 1-2 and tile rows 0-1
+        FrameDiff diff = FrameDiff.compute(frame(800, 480),
+                frame(800, 480, new Rectangle(40, 10, 40, 40)), 0.5);
+
+        assertEquals(List.of(new FrameDiff.Region(32, 0, 64, 64)), diff.regions());
+    }
+
+    @Test
+    void compute_clipsEdgeTilesToTheFrame() {
+        FrameDiff diff = FrameDiff.compute(frame(810, 490),
+                frame(810, 490, new Rectangle(805, 485, 5, 5)), 0.5);
+
+        assertEquals(List.of(new FrameDiff.Region(800, 480, 10, 10)), diff.regions());
+    }
+
+    @Test
+    void compute_fallsBackToFullRefreshAboveThreshold() {
+        FrameDiff diff = FrameDiff.compute(frame(800, 480),
+                frame(800, 480, new Rectangle(0, 0, 800, 300)), 0.5);
+
+        assertEquals(FrameDiff.RefreshType.FULL, diff.refreshType());
+        assertEquals(List.of(new FrameDiff.Region(0, 0, 800, 480)), diff.regions());
+    }
+
+    @Test
+    void compute_isFullWhenResolutionChanges() {
+        FrameDiff diff = FrameDiff.compute(frame(800, 480), frame(400, 300), 0.5);
+
+        assertEquals(FrameDiff.RefreshType.FULL, diff.refreshType());
+        assertEquals(1.0, diff.dirtyRatio());
+    }
+
+    @Test
+    void diff_comparesAgainstEachDevicesPreviousFrame() throws IOException {
+        TrmnlFrameDiffer differ = new TrmnlFrameDiffer(displayService, true, 0.5);
+        MonochromeRaster before = frame(800, 480);
+        MonochromeRaster after = frame(800, 480, new Rectangle(0, 0, 8, 8));
+        when(displayService.getRaster(TODAY, RenderProfile.DEFAULT, ImageFormat.BMP)).thenReturn(before, after, after);
+
+        assertEquals(FrameDiff.RefreshType.FULL, differ.diff("A", TODAY, RenderProfile.DEFAULT, ImageFormat.BMP).refreshType());
+        assertEquals(FrameDiff.RefreshType.PARTIAL, differ.diff("A", TODAY, RenderProfile.DEFAULT, ImageFormat.BMP).refreshType());
+        // A second device has no baseline yet
+        assertEquals(FrameDiff.RefreshType.FULL, differ.diff("B", TODAY, RenderProfile.DEFAULT, ImageFormat.BMP).refreshType());
+    }
+}
@@ -0,0 +1,91 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrmnlFrameStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static FrameKey key(String hash) {
+        return new FrameKey(LocalDate.of(2026, 2, 14), hash, RenderProfile.DEFAULT.key(), ImageFormat.BMP);
+    }
+
+    private TrmnlFrameStore open(long maxBytes) {
+        TrmnlFrameStore store = new TrmnlFrameStore(dir.toString(), maxBytes, true);
+        store.open();
+        return store;
+    }
+
+    @Test
+    void put_storesFrameUnderItsKey() throws IOException {
+        TrmnlFrameStore store = open(1024);
+
+        store.put(key("aaaa0000"), new byte[]{1, 2, 3});
+
+        Path path = store.find(key("aaaa0000")).orElseThrow();
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(path));
+        assertArrayEquals(new byte[]{1, 2, 3}, store.read(key("aaaa0000")));
+        assertTrue(store.find(key("bbbb0000")).isEmpty());
+        assertNull(store.read(key("bbbb0000")));
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedFramesOverTheSizeLimit() {
+        TrmnlFrameStore store = open(250);
+        store.put(key("aaaa0000"), new byte[100]);
+        store.put(key("bbbb0000"), new byte[100]);
+        store.find(key("aaaa0000")); // a is now more recently used than b
+
+        store.put(key("cccc0000"), new byte[100]);
+
+        assertTrue(store.find(key("aaaa0000")).isPresent());
+        assertTrue(store.find(key("bbbb0000")).isEmpty());
+        assertTrue(store.find(key("cccc0000")).isPresent());
+        assertEquals(200, store.sizeBytes());
+        assertFalse(Files.exists(dir.resolve(TrmnlFrameStore.fileName(key("bbbb0000")))));
+    }
+
+    @Test
+    void open_indexesFramesFromAPreviousRunAndDropsStaleOnes() throws IOException {
+        open(1024).put(key("aaaa0000"), new byte[]{7});
+        Files.write(dir.resolve("v0-2026-02-14-old.bmp"), new byte[]{9});
+        Files.write(dir.resolve("frame123.tmp"), new byte[]{9});
+
+        TrmnlFrameStore reopened = open(1024);
+
+        assertArrayEquals(new byte[]{7}, reopened.read(key("aaaa0000")));
+        assertEquals(1, reopened.fileCount());
+        assertFalse(Files.exists(dir.resolve("v0-2026-02-14-old.bmp")));
+        assertFalse(Files.exists(dir.resolve("frame123.tmp")));
+    }
+
+    @Test
+    void read_forgetsFramesDeletedBehindItsBack() throws IOException {
+        TrmnlFrameStore store = open(1024);
+        store.put(key("aaaa0000"), new byte[]{1});
+        Files.delete(store.find(key("aaaa0000")).orElseThrow());
+
+        assertNull(store.read(key("aaaa0000")));
+        assertEquals(0, store.fileCount());
+    }
+
+    @Test
+    void disabledStore_doesNothing() {
+        TrmnlFrameStore store = new TrmnlFrameStore(dir.resolve("off").toString(), 1024, false);
+        store.open();
+        store.put(key("aaaa0000"), new byte[]{1});
+
+        assertFalse(store.isEnabled());
+        assertTrue(store.find(key("aaaa0000")).isEmpty());
+        assertFalse(Files.exists(dir.resolve("off")));
+    }
+}
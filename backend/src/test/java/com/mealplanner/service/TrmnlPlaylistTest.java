@@ -0,0 +1,213 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.ShoppingItem;
+import com.mealplanner.model.*;
+import com.mealplanner.repository.MealPlanEntryRepository;
+import com.mealplanner.repository.MealPlanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrmnlPlaylistTest {
+
+    // Tuesday, in the week starting Saturday 2026-02-14
+    private static final LocalDate TODAY = LocalDate.of(2026, 2, 17);
+    private static final LocalDate WEEK_START = LocalDate.of(2026, 2, 14);
+
+    @Mock
+    private MealPlanRepository mealPlanRepository;
+
+    @Mock
+    private MealPlanEntryRepository entryRepository;
+
+    @Mock
+    private MealPlanService mealPlanService;
+
+    @Mock
+    private IngredientTotals ingredientTotals;
+
+    private MealPlanVersionIndex versionIndex;
+    private TrmnlRenderExecutor renderExecutor;
+    private TrmnlDisplayService displayService;
+    private TrmnlPlaylist playlist;
+    private MealPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        versionIndex = new MealPlanVersionIndex(mealPlanRepository);
+        renderExecutor = new TrmnlRenderExecutor(2, 16, 5000);
+        displayService = new TrmnlDisplayService(mealPlanRepository, entryRepository,
+                new TrmnlFrameCache(16), versionIndex, new TrmnlFrameStore("unused", 0, false), renderExecutor, true);
+        playlist = new TrmnlPlaylist(displayService, mealPlanService, versionIndex, ingredientTotals,
+                renderExecutor, "day, week, shopping", 120);
+
+        plan = new MealPlan();
+        plan.setId(1L);
+        plan.setWeekStartDate(WEEK_START);
+        plan.setVersion(1L);
+        Meal meal = new Meal();
+        meal.setTitle("Spaghetti Bolognese");
+        MealPlanEntry entry = new MealPlanEntry();
+        entry.setMealPlan(plan);
+        entry.setMeal(meal);
+        entry.setDayOfWeek(DayOfWeek.TUESDAY);
+        entry.setMealType(MealType.DINNER);
+        plan.setEntries(new ArrayList<>(List.of(entry)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderExecutor.shutdown();
+    }
+
+    @Test
+    void advance_rotatesEachDeviceThroughTheScreens() {
+        assertTrue(playlist.isRotating());
+        assertEquals(120, playlist.getRotateSeconds());
+        assertEquals(List.of(TrmnlScreen.DAY, TrmnlScreen.WEEK, TrmnlScreen.SHOPPING,
+                        TrmnlScreen.DAY, TrmnlScreen.WEEK),
+                List.of(playlist.advance("a"), playlist.advance("a"), playlist.advance("a"),
+                        playlist.advance("a"), playlist.advance("a")));
+        // Devices rotate independently
+        assertEquals(TrmnlScreen.DAY, playlist.advance("b"));
+        assertFalse(new TrmnlPlaylist(null, null, null, null, null, "", 300).isRotating());
+        assertThrows(IllegalArgumentException.class, () -> TrmnlPlaylist.parseScreens("day,calendar"));
+    }
+
+    @Test
+    void frame_isRenderedOnceAndServedFromTheRingUntilInputsChange() throws IOException {
+        when(entryRepository.findForDisplayByEntryDateBetween(WEEK_START, WEEK_START.plusDays(6))).thenReturn(plan.getEntries());
+
+        assertFalse(playlist.isCurrent(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.PNG));
+        TrmnlFrame first = playlist.frame(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.PNG);
+        assertTrue(playlist.isCurrent(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.PNG));
+        TrmnlFrame again = playlist.frame(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.PNG);
+
+        assertSame(first, again);
+        assertEquals(playlist.inputHash(TrmnlScreen.WEEK, TODAY), first.contentHash());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(first.data()));
+        assertEquals(800, image.getWidth());
+        // Today's row is inverted: Tuesday is the fourth row below the title bar
+        int rowHeight = (480 - TrmnlDisplayService.TITLE_BAR_HEIGHT) / 7;
+        assertEquals(0, image.getRGB(790, TrmnlDisplayService.TITLE_BAR_HEIGHT + 3 * rowHeight + 2) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, image.getRGB(790, TrmnlDisplayService.TITLE_BAR_HEIGHT + 2) & 0xFFFFFF);
+
+        // A plan edit changes the inputs, so the slot is re-rendered
+        plan.setVersion(2L);
+        versionIndex.onMealPlanChanged(new MealPlanChangedEvent(1L, WEEK_START, 2L));
+        TrmnlFrame edited = playlist.frame(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.PNG);
+
+        assertNotEquals(first.contentHash(), edited.contentHash());
+        assertTrue(playlist.isCurrent(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.PNG));
+        verify(entryRepository, times(2)).findForDisplayByEntryDateBetween(WEEK_START, WEEK_START.plusDays(6));
+    }
+
+    @Test
+    void dataUri_isEncodedOncePerSlot() throws IOException {
+        when(entryRepository.findForDisplayByEntryDateBetween(WEEK_START, WEEK_START.plusDays(6))).thenReturn(plan.getEntries());
+
+        TrmnlFrame frame = playlist.frame(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+        TrmnlFrame inline = playlist.dataUri(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        assertEquals(frame.contentHash(), inline.contentHash());
+        assertEquals("data:image/bmp;base64," + Base64.getEncoder().encodeToString(frame.data()),
+                new String(inline.data(), StandardCharsets.US_ASCII));
+        assertSame(inline.data(),
+                playlist.dataUri(TrmnlScreen.WEEK, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP).data());
+        verify(entryRepository, times(1)).findForDisplayByEntryDateBetween(WEEK_START, WEEK_START.plusDays(6));
+    }
+
+    @Test
+    void refresh_rendersTheShoppingListForTheRestOfTheWeek() throws IOException {
+        when(mealPlanService.generateShoppingListForDateRange(TODAY, WEEK_START.plusDays(6)))
+                .thenReturn(List.of(new ShoppingItem("Flour", 2.5, "kg"), new ShoppingItem("Eggs", 6, null)));
+        when(entryRepository.findForDisplayByEntryDateBetween(any(), any())).thenReturn(plan.getEntries());
+
+        playlist.refresh(TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+        TrmnlFrame shopping = playlist.frame(TrmnlScreen.SHOPPING, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        assertFalse(shopping.fallback());
+        assertEquals(0, ImageIO.read(new ByteArrayInputStream(shopping.data())).getRGB(5, 5) & 0xFFFFFF);
+        // Already current, so polling it again costs no query
+        verify(mealPlanService, times(1)).generateShoppingListForDateRange(any(), any());
+    }
+
+    @Test
+    void frame_rendersTheShoppingListAgainWhenTheTotalsChange() throws IOException {
+        when(mealPlanService.generateShoppingListForDateRange(TODAY, WEEK_START.plusDays(6)))
+                .thenReturn(List.of(new ShoppingItem("Flour", 2.5, "kg")));
+        when(ingredientTotals.generation()).thenReturn(1L);
+        TrmnlFrame first = playlist.frame(TrmnlScreen.SHOPPING, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        // An ingredient edit to a planned meal changes the totals without touching the entries
+        when(ingredientTotals.generation()).thenReturn(2L);
+        TrmnlFrame edited = playlist.frame(TrmnlScreen.SHOPPING, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        assertNotEquals(first.contentHash(), edited.contentHash());
+        verify(mealPlanService, times(2)).generateShoppingListForDateRange(any(), any());
+    }
+
+    @Test
+    void frame_fallsBackToThePreviousFrameWhenARenderMissesItsDeadline() throws IOException {
+        TrmnlRenderExecutor impatient = new TrmnlRenderExecutor(1, 4, 50);
+        try {
+            TrmnlPlaylist slow = new TrmnlPlaylist(displayService, mealPlanService, versionIndex, ingredientTotals,
+                    impatient, "shopping", 300);
+            when(mealPlanService.generateShoppingListForDateRange(any(), any()))
+                    .thenReturn(List.of())
+                    .thenAnswer(inv -> {
+                        Thread.sleep(500);
+                        return List.of();
+                    });
+            TrmnlFrame first = slow.frame(TrmnlScreen.SHOPPING, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+            when(ingredientTotals.generation()).thenReturn(1L);
+            TrmnlFrame fallback = slow.frame(TrmnlScreen.SHOPPING, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+            assertTrue(fallback.fallback());
+            assertArrayEquals(first.data(), fallback.data());
+        } finally {
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    void frame_fallsBackToThePreviousFrameWhenARenderFails() throws IOException {
+        when(mealPlanService.generateShoppingListForDateRange(any(), any()))
+                .thenReturn(List.of())
+                .thenThrow(new IllegalStateException("database unavailable"));
+        TrmnlFrame first = playlist.frame(TrmnlScreen.SHOPPING, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        versionIndex.onMealPlanChanged(new MealPlanChangedEvent(1L, WEEK_START, 5L));
+        TrmnlFrame fallback = playlist.frame(TrmnlScreen.SHOPPING, TODAY, RenderProfile.DEFAULT, ImageFormat.BMP);
+
+        assertTrue(fallback.fallback());
+        assertEquals(first.contentHash(), fallback.contentHash());
+        assertArrayEquals(first.data(), fallback.data());
+    }
+
+    @Test
+    void describe_formatsQuantitiesWithoutTrailingZeros() {
+        assertEquals("2.5 kg Flour", TrmnlPlaylist.describe(new ShoppingItem("Flour", 2.5, "kg")));
+        assertEquals("6 Eggs", TrmnlPlaylist.describe(new ShoppingItem("Eggs", 6.0, " ")));
+        assertEquals("Salt", TrmnlPlaylist.describe(new ShoppingItem("Salt", 0, "pinch")));
+    }
+}
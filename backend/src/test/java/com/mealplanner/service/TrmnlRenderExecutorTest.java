@@ -0,0 +1,77 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrmnlRenderExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TrmnlRenderExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void call_returnsTheResultOfTheTask() throws IOException {
+        executor = new TrmnlRenderExecutor(1, 1, 1000);
+
+        assertEquals("frame", executor.call(() -> "frame"));
+        assertEquals(0, executor.getTimeouts());
+    }
+
+    @Test
+    void call_givesUpOnceTheDeadlinePasses() {
+        executor = new TrmnlRenderExecutor(1, 1, 50);
+
+        IOException e = assertThrows(IOException.class, () -> executor.call(this::blockUntilReleased));
+
+        assertTrue(e.getMessage().contains("deadline"));
+        assertEquals(1, executor.getTimeouts());
+    }
+
+    @Test
+    void call_rejectsWorkOnceTheQueueIsFull() {
+        executor = new TrmnlRenderExecutor(1, 1, 20);
+        // One task occupies the thread and one the queue; both miss their deadline but keep running
+        assertThrows(IOException.class, () -> executor.call(this::blockUntilReleased));
+        assertThrows(IOException.class, () -> executor.call(this::blockUntilReleased));
+
+        IOException e = assertThrows(IOException.class, () -> executor.call(() -> "frame"));
+
+        assertTrue(e.getMessage().contains("queue"));
+        assertEquals(1, executor.getRejected());
+    }
+
+    @Test
+    void call_rethrowsTheTasksFailure() {
+        executor = new TrmnlRenderExecutor(1, 1, 1000);
+        IOException failure = new IOException("encoder broke");
+
+        assertSame(failure, assertThrows(IOException.class, () -> executor.call(() -> {
+            throw failure;
+        })));
+        IOException wrapped = assertThrows(IOException.class, () -> executor.call(() -> {
+            throw new IllegalStateException("no fonts");
+        }));
+        assertInstanceOf(IllegalStateException.class, wrapped.getCause());
+        assertEquals(2, executor.getFailures());
+    }
+
+    private String blockUntilReleased() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "late";
+    }
+}
@@ -0,0 +1,149 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.DisplayLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.CronTrigger;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"null", "unchecked", "rawtypes"})
+@ExtendWith(MockitoExtension.class)
+class TrmnlRenderSchedulerTest {
+
+    @Mock
+    private TrmnlDisplayService displayService;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private TrmnlDeviceRegistry deviceRegistry;
+
+    @Mock
+    private TrmnlPlaylist playlist;
+
+    private TrmnlRenderScheduler scheduler(boolean enabled) {
+        return new TrmnlRenderScheduler(displayService, taskScheduler, deviceRegistry, playlist, "Europe/London", "06:00", 5, 2000, enabled, "bmp");
+    }
+
+    @Test
+    void start_schedulesBeforeMidnightAndBeforeWake() {
+        scheduler(true).start();
+
+        ArgumentCaptor<Trigger> triggers = ArgumentCaptor.forClass(Trigger.class);
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), triggers.capture());
+        List<String> expressions = triggers.getAllValues().stream()
+                .map(t -> ((CronTrigger) t).getExpression())
+                .toList();
+        assertThat(expressions).containsExactly("0 55 23 * * *", "0 55 5 * * *");
+        // Plus an immediate warm-up render of the current frame
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void start_doesNothingWhenDisabled() {
+        scheduler(false).start();
+
+        verifyNoInteractions(taskScheduler);
+    }
+
+    @Test
+    void renderAhead_rendersTheDayAboutToStart() {
+        TrmnlRenderScheduler scheduler = scheduler(true);
+        ZoneId london = ZoneId.of("Europe/London");
+
+        assertThat(scheduler.targetDate(ZonedDateTime.of(2026, 2, 14, 23, 55, 0, 0, london)))
+                .isEqualTo(LocalDate.of(2026, 2, 15));
+        assertThat(scheduler.targetDate(ZonedDateTime.of(2026, 2, 15, 5, 55, 0, 0, london)))
+                .isEqualTo(LocalDate.of(2026, 2, 15));
+    }
+
+    @Test
+    void renderAhead_rendersEveryActiveProfile() throws Exception {
+        RenderProfile small = new RenderProfile(400, 300, DisplayLayout.TODAY);
+        when(deviceRegistry.activeProfiles()).thenReturn(Set.of(RenderProfile.DEFAULT, small));
+
+        scheduler(true).renderAhead();
+
+        verify(displayService).renderDisplayImage(any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP));
+        verify(displayService).renderDisplayImage(any(LocalDate.class), eq(small), eq(ImageFormat.BMP));
+    }
+
+    @Test
+    void renderAhead_rendersDefaultProfileBeforeAnyDeviceHasPolled() throws Exception {
+        when(deviceRegistry.activeProfiles()).thenReturn(Set.of());
+
+        scheduler(true).renderAhead();
+
+        verify(displayService).renderDisplayImage(any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP));
+    }
+
+    @Test
+    void renderAhead_refreshesPlaylistScreensWhenRotating() {
+        when(deviceRegistry.activeProfiles()).thenReturn(Set.of());
+        when(playlist.isRotating()).thenReturn(true);
+
+        scheduler(true).renderAhead();
+
+        verify(playlist).refresh(any(LocalDate.class), eq(RenderProfile.DEFAULT), eq(ImageFormat.BMP));
+    }
+
+    @Test
+    void onMealPlanChanged_debouncesRendersForCurrentWeek() {
+        TrmnlRenderScheduler scheduler = scheduler(true);
+        ScheduledFuture first = mock(ScheduledFuture.class);
+        ScheduledFuture second = mock(ScheduledFuture.class);
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenReturn(first, second);
+        LocalDate weekStart = DisplaySnapshot.weekStartOf(scheduler.currentDate());
+
+        scheduler.onMealPlanChanged(new MealPlanChangedEvent(1L, weekStart, 1));
+        scheduler.onMealPlanChanged(new MealPlanChangedEvent(1L, weekStart, 2));
+
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        verify(first).cancel(false);
+        verify(second, never()).cancel(anyBoolean());
+    }
+
+    @Test
+    void onMealPlanChanged_ignoresUnrelatedWeeks() {
+        TrmnlRenderScheduler scheduler = scheduler(true);
+        LocalDate farFuture = DisplaySnapshot.weekStartOf(scheduler.currentDate()).plusWeeks(4);
+
+        scheduler.onMealPlanChanged(new MealPlanChangedEvent(1L, farFuture, 1));
+
+        verifyNoInteractions(taskScheduler);
+    }
+
+    @Test
+    void affects_coversTodayAndTomorrow() {
+        LocalDate weekStart = LocalDate.of(2026, 2, 14);
+
+        assertThat(TrmnlRenderScheduler.affects(weekStart, LocalDate.of(2026, 2, 13))).isTrue();  // tomorrow in week
+        assertThat(TrmnlRenderScheduler.affects(weekStart, LocalDate.of(2026, 2, 20))).isTrue();  // last day
+        assertThat(TrmnlRenderScheduler.affects(weekStart, LocalDate.of(2026, 2, 12))).isFalse();
+        assertThat(TrmnlRenderScheduler.affects(weekStart, LocalDate.of(2026, 2, 21))).isFalse();
+    }
+
+    @Test
+    void cronFor_buildsDailyExpression() {
+        assertThat(TrmnlRenderScheduler.cronFor(LocalTime.of(5, 55))).isEqualTo("0 55 5 * * *");
+    }
+}
@@ -0,0 +1,109 @@
+package com.mealplanner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrmnlTelemetryTest {
+
+    @TempDir
+    Path dir;
+
+    private TrmnlTelemetry telemetry(int bufferSize, int sampleEvery) {
+        return new TrmnlTelemetry(new ObjectMapper().findAndRegisterModules(), true, dir.toString(),
+                bufferSize, 7, sampleEvery);
+    }
+
+    private static TrmnlTelemetryEvent display(String deviceId, int status) {
+        return new TrmnlTelemetryEvent(Instant.parse("2026-02-14T08:00:00Z"), TrmnlTelemetryEvent.Kind.DISPLAY,
+                deviceId, "1.5.2", 4.1, -60, status, 900L, null);
+    }
+
+    @Test
+    void flush_appendsEventsToTodaysFileAsJsonLines() throws IOException {
+        TrmnlTelemetry telemetry = telemetry(64, 0);
+        telemetry.record(display("A", 200));
+        telemetry.record(display("B", 304));
+        telemetry.flush();
+        telemetry.record(display("A", 200));
+        telemetry.flush();
+        telemetry.flush();
+
+        Path file = dir.resolve("telemetry-" + LocalDate.now(ZoneOffset.UTC) + ".jsonl");
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertEquals(3, telemetry.getWritten());
+        TrmnlTelemetryEvent parsed = new ObjectMapper().findAndRegisterModules()
+                .readValue(lines.get(1), TrmnlTelemetryEvent.class);
+        assertEquals(display("B", 304), parsed);
+        assertTrue(lines.get(0).contains("\"time\":\"2026-02-14T08:00:00Z\""), lines.get(0));
+    }
+
+    @Test
+    void flush_removesFilesOlderThanTheRetentionPeriod() throws IOException {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Path old = Files.createFile(dir.resolve("telemetry-" + today.minusDays(7) + ".jsonl"));
+        Path kept = Files.createFile(dir.resolve("telemetry-" + today.minusDays(6) + ".jsonl"));
+        TrmnlTelemetry telemetry = telemetry(64, 0);
+        telemetry.record(display("A", 200));
+
+        telemetry.flush();
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(kept));
+    }
+
+    @Test
+    void recent_filtersByDeviceNewestFirst() {
+        TrmnlTelemetry telemetry = telemetry(64, 0);
+        telemetry.record(display("A", 200));
+        telemetry.record(display("B", 200));
+        telemetry.record(display("A", 500));
+
+        List<TrmnlTelemetryEvent> recent = telemetry.recent("A", 10);
+
+        assertEquals(List.of(display("A", 500), display("A", 200)), recent);
+        assertEquals(3, telemetry.recent(null, 10).size());
+        assertEquals(1, telemetry.recent(null, 1).size());
+    }
+
+    @Test
+    void sampleHeaders_logsOneRequestInN() {
+        TrmnlTelemetry telemetry = telemetry(64, 3);
+        int sampled = 0;
+        for (int i = 0; i < 9; i++) {
+            if (telemetry.sampleHeaders()) sampled++;
+        }
+        assertEquals(3, sampled);
+        assertFalse(telemetry(64, 0).sampleHeaders());
+    }
+
+    @Test
+    void fromLog_readsTrmnlLogPayload() {
+        Map<String, Object> payload = Map.of("log", Map.of("logs_array", List.of(
+                Map.of("log_message", "wifi retry", "device_status_stamp",
+                        Map.of("battery_voltage", 3.9, "wifi_rssi_level", -71, "current_fw_version", "1.5.2")),
+                Map.of("log_message", "sleeping"))));
+        Instant now = Instant.parse("2026-02-14T08:00:00Z");
+
+        List<TrmnlTelemetryEvent> events = TrmnlTelemetry.fromLog("A", payload, now);
+
+        assertEquals(new TrmnlTelemetryEvent(now, TrmnlTelemetryEvent.Kind.LOG, "A", "1.5.2", 3.9, -71,
+                null, null, "wifi retry"), events.get(0));
+        assertEquals("sleeping", events.get(1).message());
+        assertNull(events.get(1).batteryVoltage());
+        assertEquals(1, TrmnlTelemetry.fromLog("A", Map.of("logs", List.of()), now).size());
+        assertTrue(TrmnlTelemetry.fromLog("A", null, now).isEmpty());
+    }
+}
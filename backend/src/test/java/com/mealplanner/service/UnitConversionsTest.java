@@ -0,0 +1,63 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.IngredientSum;
+import com.mealplanner.dto.ShoppingItem;
+import com.mealplanner.model.CatalogUnit;
+import com.mealplanner.model.Dimension;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitConversionsTest {
+
+    private static final UnitTable UNITS = UnitTable.of(List.of(
+            unit(1, "g", Dimension.MASS, 1, 1L),
+            unit(2, "kg", Dimension.MASS, 1000, 1L),
+            unit(3, "tin", null, 0, null),
+            unit(4, "ml", Dimension.VOLUME, 1, 4L),
+            unit(5, "cup", Dimension.VOLUME, 250, 4L),
+            unit(6, "tsp", Dimension.VOLUME, 5, 4L)));
+
+    @Test
+    void combine_keepsAnIngredientInOneUnitAsEntered() {
+        assertEquals(List.of("2.0 tsp oil", "1.0 cup rice"), combine(
+                new IngredientSum(1L, "oil", 6L, "tsp", 2),
+                new IngredientSum(2L, "rice", 5L, "cup", 1)));
+    }
+
+    @Test
+    void combine_addsUpMixedUnitsInTheLargestEntered() {
+        assertEquals(List.of("1.5 kg flour"), combine(
+                new IngredientSum(1L, "flour", 1L, "g", 500),
+                new IngredientSum(1L, "flour", 2L, "kg", 1)));
+    }
+
+    @Test
+    void combine_givesEachDimensionAndUnconvertedUnitItsOwnItem() {
+        assertEquals(List.of("1.2 cup tomato", "200.0 g tomato", "2.0 tin tomato", "3.0 g yeast"), combine(
+                new IngredientSum(1L, "tomato", 5L, "cup", 1),
+                new IngredientSum(1L, "tomato", 1L, "g", 200),
+                new IngredientSum(1L, "tomato", 4L, "ml", 50),
+                new IngredientSum(1L, "tomato", 3L, "tin", 2),
+                new IngredientSum(2L, "yeast", 1L, "g", 3)));
+    }
+
+    private static List<String> combine(IngredientSum... sums) {
+        List<ShoppingItem> items = new ArrayList<>();
+        UnitConversions.combine(UNITS, Stream.of(sums), items::add);
+        return items.stream().map(i -> i.getTotalQuantity() + " " + i.getUnit() + " " + i.getName()).toList();
+    }
+
+    private static CatalogUnit unit(long id, String name, Dimension dimension, double factor, Long baseUnitId) {
+        CatalogUnit unit = new CatalogUnit(name);
+        unit.setId(id);
+        if (dimension != null) {
+            unit.setConversion(dimension, factor, baseUnitId);
+        }
+        return unit;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.CatalogUnit;
+import com.mealplanner.model.Dimension;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitTableTest {
+
+    @Test
+    void of_compilesTheCatalogConversions() {
+        UnitTable table = UnitTable.of(List.of(
+                unit(1, "g", Dimension.MASS, 1, 1L),
+                unit(2, "kg", Dimension.MASS, 1000, 1L),
+                unit(3, "tin", null, 0, null),
+                unit(4, "ml", Dimension.VOLUME, 1, 4L),
+                unit(6, "tbsp", Dimension.VOLUME, 15, 4L)));
+
+        assertEquals(1, table.baseUnitOf(2));
+        assertEquals(1000, table.factorOf(2));
+        assertEquals(4, table.baseUnitOf(6));
+        assertEquals(15, table.factorOf(6));
+    }
+
+    @Test
+    void unitsWithoutAConversion_convertToThemselves() {
+        UnitTable table = UnitTable.of(List.of(unit(1, "g", Dimension.MASS, 1, 1L), unit(3, "tin", null, 0, null)));
+
+        for (long id : new long[]{3, 2, 99, -1}) {
+            assertEquals(id, table.baseUnitOf(id));
+            assertEquals(1, table.factorOf(id));
+        }
+        assertEquals(7, UnitTable.EMPTY.baseUnitOf(7));
+    }
+
+    @Test
+    void known_givesEveryDimensionItsBaseUnit() {
+        for (Dimension dimension : Dimension.values()) {
+            UnitTable.Conversion base = UnitTable.KNOWN.get(dimension.getBaseUnit());
+            assertEquals(dimension, base.dimension());
+            assertEquals(1, base.factor());
+        }
+    }
+
+    private static CatalogUnit unit(long id, String name, Dimension dimension, double factor, Long baseUnitId) {
+        CatalogUnit unit = new CatalogUnit(name);
+        unit.setId(id);
+        if (dimension != null) {
+            unit.setConversion(dimension, factor, baseUnitId);
+        }
+        return unit;
+    }
+}